@@ -49,6 +49,20 @@ CREATE TABLE `mv/scans_state` (
    PRIMARY KEY(job_name, table_name)
 );
 
+-- Keys forwarded between the shards of sharded handlers
+CREATE TABLE `mv/shard_queue` (
+   job_name Text NOT NULL,
+   shard_no Int32 NOT NULL,
+   tv Timestamp NOT NULL,
+   seqno Uint64 NOT NULL,
+   src Text NOT NULL,
+   target_name Text,
+   target_alias Text,
+   op Text NOT NULL,
+   key_val JsonDocument NOT NULL,
+   PRIMARY KEY(job_name, shard_no, tv, seqno)
+);
+
 -- Runner instances status
 CREATE TABLE `mv/runners` (
     runner_id Text NOT NULL,
@@ -72,7 +86,7 @@ CREATE TABLE `mv/commands` (
     runner_id Text NOT NULL,
     command_no Uint64 NOT NULL,
     created_at Timestamp,
-    command_type Text, -- START / STOP / SCAN / NOSCAN
+    command_type Text, -- START / STOP / SCAN / NOSCAN / REBUILD
     job_name Text,
     target_name Text,
     job_settings JsonDocument,
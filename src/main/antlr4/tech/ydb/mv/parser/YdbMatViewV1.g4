@@ -32,7 +32,7 @@ aliased_select_stmt: simple_select_stmt AS table_alias
 simple_select_stmt: SELECT result_column (COMMA result_column)* COMMA?
     FROM main_table_ref AS table_alias
     (simple_join_part)*
-    (WHERE opaque_expression)?;
+    (WHERE (opaque_expression | native_predicate))?;
 
 simple_join_part: (INNER | LEFT OUTER?)? JOIN join_table_ref AS table_alias
     ON join_condition (AND join_condition)*;
@@ -43,6 +43,16 @@ result_constant: integer_constant | string_constant;
 opaque_expression: (COMPUTE (ON column_reference (COMMA column_reference)*)?)? opaque_expression_body;
 opaque_expression_body: OPAQUE_EXPRESSION;
 
+// Native predicates can be evaluated over CDC images without database access.
+native_predicate: predicate_and (OR predicate_and)*;
+predicate_and: predicate_term (AND predicate_term)*;
+predicate_term: LPAREN native_predicate RPAREN
+    | column_reference IS NOT? NULL
+    | column_reference NOT? IN LPAREN predicate_constant (COMMA predicate_constant)* RPAREN
+    | column_reference comparison_operator predicate_constant;
+comparison_operator: EQUALS | NOT_EQUALS | LESS | LESS_OR_EQUALS | GREATER | GREATER_OR_EQUALS;
+predicate_constant: integer_constant | string_constant;
+
 fragment OPAQUE_BEGIN: '#[';
 fragment OPAQUE_END: ']#';
 OPAQUE_EXPRESSION: OPAQUE_BEGIN .*? OPAQUE_END;
@@ -66,11 +76,16 @@ DESTINATION: D E S T I N A T I O N;
 FROM: F R O M;
 JOIN: J O I N;
 HANDLER: H A N D L E R;
+IN: I N;
 INNER: I N N E R;
 INPUT: I N P U T;
+IS: I S;
 LEFT: L E F T;
 MATERIALIZED: M A T E R I A L I Z E D;
+NOT: N O T;
+NULL: N U L L;
 ON: O N;
+OR: O R;
 OUTER: O U T E R;
 PROCESS: P R O C E S S;
 SELECT:  S E L E C T;
@@ -96,16 +111,24 @@ consumer_name: identifier;
 view_name: identifier;
 destination_name: identifier;
 
-table_alias: ID_PLAIN;
-column_alias: ID_PLAIN;
+table_alias: ID_PLAIN | soft_keyword;
+column_alias: ID_PLAIN | soft_keyword;
+
+identifier: ID_PLAIN | ID_QUOTED | soft_keyword;
 
-identifier: ID_PLAIN | ID_QUOTED;
+// Keywords of the native predicates, still allowed as the plain names.
+soft_keyword: IN | IS | NOT | NULL | OR;
 
 SEMICOLON: ';';
 COMMA: ',';
 DOT: '.';
 MINUS: '-';
 EQUALS: '=';
+NOT_EQUALS: '<>' | '!=';
+LESS_OR_EQUALS: '<=';
+GREATER_OR_EQUALS: '>=';
+LESS: '<';
+GREATER: '>';
 QUOTE_SINGLE: '\'';
 LPAREN: '(';
 RPAREN: ')';
@@ -168,6 +168,18 @@ public interface MvApi extends AutoCloseable {
      */
     boolean stopScan(String handlerName, String targetName);
 
+    /**
+     * Start the online rebuild of the specified target through the shadow
+     * table, which replaces the live table when populated. The rebuild is
+     * cancelled by stopping the scan of the target.
+     *
+     * @param handlerName Name of the handler
+     * @param targetName Name of the target
+     * @return true, if the rebuild was started, false if it or the scan of the
+     * target was already running
+     */
+    boolean startRebuild(String handlerName, String targetName);
+
     /**
      * Generate the set of SQL statements for CDC streams, print and optionally
      * apply to the database.
@@ -178,6 +190,14 @@ public interface MvApi extends AutoCloseable {
      */
     void generateStreams(boolean create, PrintStream pw);
 
+    /**
+     * Print the scans which are waiting or running in the runner-wide scan
+     * budget.
+     *
+     * @param pw The output print stream
+     */
+    void printScans(PrintStream pw);
+
     /**
      * Print the list of issues in the current context
      *
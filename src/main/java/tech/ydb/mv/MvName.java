@@ -88,6 +88,11 @@ public class MvName {
      */
     public static final String CONF_INPUT_TABLE = "job.input.table";
 
+    /**
+     * Create the new changefeeds with the initial scan (STREAMS mode).
+     */
+    public static final String CONF_STREAMS_INITIAL_SCAN = "job.streams.initial.scan";
+
     /**
      * Comma-separated list of handler names to be activated on RUN action.
      */
@@ -98,6 +103,61 @@ public class MvName {
      */
     public static final String CONF_SCAN_RATE = "job.scan.rate";
 
+    /**
+     * Number of key ranges scanned concurrently for a single target.
+     */
+    public static final String CONF_SCAN_PARALLELISM = "job.scan.parallelism";
+
+    /**
+     * true to read the keys for scans through the streaming ReadTable API.
+     */
+    public static final String CONF_SCAN_STREAMING = "job.scan.streaming";
+
+    /**
+     * true to rebuild the MV rows on the server side during scans, where
+     * supported.
+     */
+    public static final String CONF_SCAN_REBUILD = "job.scan.rebuild";
+
+    /**
+     * true to compare the MV rows with the sources during scans, rewriting
+     * only the rows which differ, where supported.
+     */
+    public static final String CONF_SCAN_RECONCILE = "job.scan.reconcile";
+
+    /**
+     * Target scan query latency for the adaptive page size, milliseconds,
+     * 0 for the fixed page size.
+     */
+    public static final String CONF_SCAN_PAGE_LATENCY = "job.scan.page.latency.ms";
+
+    /**
+     * CDC lag threshold to slow down the scans, seconds, 0 to disable.
+     */
+    public static final String CONF_SCAN_THROTTLE_LAG = "job.scan.throttle.lag.seconds";
+
+    /**
+     * Apply queue fill threshold to slow down the scans, percent, 0 to disable.
+     */
+    public static final String CONF_SCAN_THROTTLE_QUEUE = "job.scan.throttle.queue.percent";
+
+    /**
+     * Relative weight of the scan in the runner-wide scan budget.
+     */
+    public static final String CONF_SCAN_WEIGHT = "job.scan.weight";
+
+    /**
+     * Total scan rate for all the scans in the runner, rows per second,
+     * 0 for unlimited.
+     */
+    public static final String CONF_SCAN_TOTAL_RATE = "job.scan.total.rate";
+
+    /**
+     * Maximum number of concurrent scan queries in the runner, 0 for
+     * unlimited.
+     */
+    public static final String CONF_SCAN_TOTAL_QUERIES = "job.scan.total.queries";
+
     /**
      * Path to scan feeder position table.
      */
@@ -118,6 +178,70 @@ public class MvName {
      */
     public static final String CONF_DICT_SCAN_SECONDS = "job.dict.scan.seconds";
 
+    /**
+     * Dictionary logger setting: number of concurrent history writes.
+     */
+    public static final String CONF_DICT_WRITE_PARALLEL = "job.dict.write.parallel";
+
+    /**
+     * Dictionary logger setting: max time to accumulate the history batch,
+     * milliseconds.
+     */
+    public static final String CONF_DICT_WRITE_LINGER = "job.dict.write.linger.ms";
+
+    /**
+     * Handler setting: number of dictionary histories scanned concurrently.
+     */
+    public static final String CONF_DICT_SCAN_PARALLEL = "job.dict.scan.parallel";
+
+    /**
+     * Handler setting: max number of the changed keys kept per dictionary,
+     * above which the dependent targets are refreshed without the filter.
+     */
+    public static final String CONF_DICT_MAX_KEYS = "job.dict.max.keys";
+
+    /**
+     * Handler setting: max estimated number of the rows read by the targeted
+     * dictionary refresh, above which the refresh scan is used.
+     */
+    public static final String CONF_DICT_TARGETED_LOOKUPS = "job.dict.targeted.lookups";
+
+    /**
+     * Dictionary logger setting: period between the dictionary history
+     * compactions, seconds.
+     */
+    public static final String CONF_DICT_COMPACT_SECONDS = "job.dict.compact.seconds";
+
+    /**
+     * Dictionary logger setting: true to coalesce the history records per
+     * dictionary key before writing.
+     */
+    public static final String CONF_DICT_KEYED_LOG = "job.dict.log.keyed";
+
+    /**
+     * Dictionary refresh setting: period between the checks of the continuous
+     * dictionary refresh, seconds, 0 to disable.
+     */
+    public static final String CONF_DICT_CONTINUOUS_SECONDS = "job.dict.continuous.seconds";
+
+    /**
+     * Dictionary refresh setting: maximum estimated cost of the changes
+     * applied immediately in the continuous mode.
+     */
+    public static final String CONF_DICT_CONTINUOUS_COST = "job.dict.continuous.cost";
+
+    /**
+     * Dictionary refresh setting: off-peak hours for the deferred changes,
+     * as "start-end" hours of the local time.
+     */
+    public static final String CONF_DICT_OFFPEAK_HOURS = "job.dict.offpeak.hours";
+
+    /**
+     * Maximum number of the dictionary history rows per dictionary retained
+     * in memory for sharing between the handlers of the runner, 0 to disable.
+     */
+    public static final String CONF_DICT_SHARED_ROWS = "job.dict.shared.rows";
+
     /**
      * Handler setting: query timeout, seconds.
      */
@@ -158,6 +282,11 @@ public class MvName {
      */
     public static final String CONF_CDC_THREADS = "job.cdc.threads";
 
+    /**
+     * Share a single CDC reader between the handlers using the same consumer.
+     */
+    public static final String CONF_CDC_SHARED = "job.cdc.shared";
+
     /**
      * Handler setting: number of threads in the apply pool.
      */
@@ -168,6 +297,12 @@ public class MvName {
      */
     public static final String CONF_APPLY_QUEUE = "job.apply.queue";
 
+    /**
+     * Handler setting: expected number of the rows per target for the filter
+     * of the keys present in the target, 0 to disable the filter.
+     */
+    public static final String CONF_APPLY_KEY_FILTER = "job.apply.key.filter";
+
     /**
      * Handler setting: number of rows to be selected for batch processing.
      */
@@ -183,6 +318,28 @@ public class MvName {
      */
     public static final String CONF_MAX_ROW_CHANGES = "job.max.row.changes";
 
+    /**
+     * Handler setting: number of shards to split the handler into.
+     */
+    public static final String CONF_SHARD_COUNT = "job.shard.count";
+
+    /**
+     * Path to the table used to forward the keys between the handler shards.
+     */
+    public static final String CONF_SHARD_TABLE = "job.shard.table";
+
+    /**
+     * Handler setting: change rate per source table, rows per second, which
+     * switches the table from CDC apply to rescan (0 to disable).
+     */
+    public static final String CONF_STORM_RATE = "job.storm.rate";
+
+    /**
+     * Handler setting: seconds the change rate must be sustained to switch
+     * between CDC apply and rescan.
+     */
+    public static final String CONF_STORM_SECONDS = "job.storm.seconds";
+
     /**
      * Default input SQL file name.
      */
@@ -203,6 +360,11 @@ public class MvName {
      */
     public static final String DEF_DICT_HIST_TABLE = "mv/dict_hist";
 
+    /**
+     * Default shard forwarding table name.
+     */
+    public static final String DEF_SHARD_TABLE = "mv/shard_queue";
+
     /**
      * Default coordination node path.
      */
@@ -213,6 +375,11 @@ public class MvName {
      */
     public static final int DEF_DICT_SCAN_SECONDS = 28800;
 
+    /**
+     * Default number of the shared dictionary history rows per dictionary.
+     */
+    public static final int DEF_DICT_SHARED_ROWS = 100000;
+
     public static String safe(String value) {
         return value.replaceAll("[;.$`'\\\"()\\\\]", "_");
     }
@@ -13,6 +13,7 @@ import tech.ydb.core.Result;
 import tech.ydb.table.query.Params;
 import tech.ydb.query.result.QueryInfo;
 import tech.ydb.query.tools.SessionRetryContext;
+import tech.ydb.table.TableClient;
 import tech.ydb.table.result.ResultSetReader;
 import tech.ydb.table.values.OptionalType;
 import tech.ydb.table.values.StructType;
@@ -21,16 +22,22 @@ import tech.ydb.table.values.Type;
 import tech.ydb.table.values.Value;
 
 import tech.ydb.mv.data.MvChangeRecord;
+import tech.ydb.mv.data.MvImageFilter;
 import tech.ydb.mv.data.MvKey;
 import tech.ydb.mv.data.YdbConv;
 import tech.ydb.mv.metrics.MvMetrics;
 import tech.ydb.mv.model.MvKeyInfo;
 import tech.ydb.mv.model.MvJoinSource;
+import tech.ydb.mv.model.MvTableInfo;
 import tech.ydb.mv.model.MvViewExpr;
 import tech.ydb.mv.parser.MvSqlGen;
+import tech.ydb.mv.svc.MvShadowRebuild;
 
 /**
  * The main action collects updates the MV for the input keys provided.
+ * During the shadow table rebuild of the target, the same updates are also
+ * written to the shadow table. With the key filter enabled, the deletes of
+ * the keys definitely absent from the target are skipped.
  *
  * @author zinal
  */
@@ -46,6 +53,8 @@ class ActionSync extends ActionBase implements MvApplyAction {
     private final StructType rowType;
     private final SessionRetryContext targetCtx;
     private final boolean destKeyDirect;
+    private final MvImageFilter imageFilter;
+    private final MvSyncKeyFilter keyFilter;
 
     private final ThreadLocal<StatementTiming> currentStatement = new ThreadLocal<>();
 
@@ -69,17 +78,23 @@ class ActionSync extends ActionBase implements MvApplyAction {
                 this.sqlSelectKeys4Delete = sg.makeConvertKeyToTarget();
             }
         }
+        TableClient targetClient;
         if (target.getView().isDefaultDestination()) {
             // default destination means to execute writes over the source database
             this.targetCtx = context.getJobContext().getYdb().getQueryRetryCtx();
+            targetClient = context.getJobContext().getYdb().getTableClient();
         } else {
             // non-default destination means there should be a separate connection
             // configured to access the target table
-            this.targetCtx = context.getJobContext().getYdb()
-                    .getConnExt(target.getView().getDestination())
-                    .getQueryRetryCtx();
+            var conn = context.getJobContext().getYdb()
+                    .getConnExt(target.getView().getDestination());
+            this.targetCtx = conn.getQueryRetryCtx();
+            targetClient = conn.getTableClient();
         }
+        this.keyFilter = MvSyncKeyFilter.create(target, rowType, context.getJobContext(),
+                targetClient, context.getSettings().getKeyFilterRows());
         MvJoinSource src = target.getTopMostSource();
+        this.imageFilter = makeImageFilter(target, src);
         LOG.info(" [{}] Handler `{}`, target `{}` as {}, input `{}` as `{}`, changefeed `{}` mode {}",
                 instance, context.getHandler().getName(),
                 target.getName(), target.getAlias(),
@@ -91,6 +106,32 @@ class ActionSync extends ActionBase implements MvApplyAction {
                     instance, context.getHandler().getName(),
                     target.getName(), target.getAlias());
         }
+        if (imageFilter != null) {
+            LOG.info(" [{}] Handler `{}`, target `{}` as {} uses CDC image filter {}",
+                    instance, context.getHandler().getName(),
+                    target.getName(), target.getAlias(),
+                    imageFilter.getPredicate());
+        }
+    }
+
+    /**
+     * The native filter can be checked over the CDC images when it only
+     * refers the topmost table columns, and both images are available.
+     */
+    private static MvImageFilter makeImageFilter(MvViewExpr target, MvJoinSource src) {
+        var filter = target.getFilter();
+        if (filter == null || filter.getPredicate() == null) {
+            return null;
+        }
+        var cf = src.getChangefeedInfo();
+        if (cf == null || cf.getMode() != MvTableInfo.ChangefeedMode.BOTH_IMAGES) {
+            return null;
+        }
+        var aliases = filter.getPredicate().getAliases();
+        if (aliases.size() != 1 || !aliases.contains(src.getTableAlias())) {
+            return null;
+        }
+        return new MvImageFilter(filter.getPredicate());
     }
 
     @Override
@@ -112,39 +153,118 @@ class ActionSync extends ActionBase implements MvApplyAction {
         ArrayList<MvKey> workUpsert = new ArrayList<>();
         ArrayList<MvKey> workDelete = new ArrayList<>();
         deduplicate(input, workUpsert, workDelete);
-        deleteRows(workDelete);
-        upsertRows(workUpsert);
-        // wait for the last write to be completed
-        finishStatement();
+        if (keyFilter != null) {
+            keyFilter.refresh();
+        }
+        MvShadowRebuild shadow = jobContext.getShadow(target);
+        if (shadow == null) {
+            writeRows(workUpsert, workDelete, null);
+            return;
+        }
+        // the writes are paused while the shadow table replaces the live one
+        shadow.lockWrites();
+        try {
+            writeRows(workUpsert, workDelete, shadow.isActive() ? shadow : null);
+        } finally {
+            shadow.unlockWrites();
+        }
+    }
+
+    private void writeRows(List<MvKey> upsert, List<MvKey> delete, MvShadowRebuild shadow) {
+        if (keyFilter == null) {
+            deleteRows(delete, shadow);
+            upsertRows(upsert, shadow);
+            // wait for the last write to be completed
+            finishStatement();
+            return;
+        }
+        keyFilter.lockWrites();
+        try {
+            deleteRows(keyFilter.filterDeletes(delete, getMetricsScope()), shadow);
+            upsertRows(upsert, shadow);
+            finishStatement();
+        } finally {
+            keyFilter.unlockWrites();
+        }
     }
 
     private void deduplicate(List<MvApplyTask> input,
             List<MvKey> upsert, List<MvKey> delete) {
         HashSet<MvKey> tempUpsert = new HashSet<>();
         HashSet<MvKey> tempDelete = new HashSet<>();
+        int skipped = 0;
         for (MvApplyTask task : input) {
             MvChangeRecord cr = task.getData();
             switch (cr.getOperationType()) {
                 case UPSERT:
-                    tempUpsert.add(cr.getKey());
+                    switch (checkUpsert(cr)) {
+                        case SKIP -> ++skipped;
+                        case DELETE -> tempDelete.add(cr.getKey());
+                        default -> tempUpsert.add(cr.getKey());
+                    }
                     break;
                 case DELETE:
-                    tempDelete.add(cr.getKey());
+                    if (checkDelete(cr)) {
+                        tempDelete.add(cr.getKey());
+                    } else {
+                        ++skipped;
+                    }
                     break;
             }
         }
         upsert.addAll(tempUpsert);
         delete.addAll(tempDelete);
+        if (skipped > 0 && LOG.isDebugEnabled()) {
+            LOG.debug("Target {} as {}: {} changes skipped by the image filter",
+                    target.getName(), target.getAlias(), skipped);
+        }
+    }
+
+    /**
+     * Check the upsert against the filter over the images.
+     * Row which did not match before, and does not match after the change,
+     * does not need the database access at all.
+     * Row which stopped matching the filter just needs to be deleted.
+     */
+    private Route checkUpsert(MvChangeRecord cr) {
+        if (imageFilter == null || cr.getImageAfter().isEmpty()) {
+            return Route.UPSERT;
+        }
+        if (!Boolean.FALSE.equals(imageFilter.matches(cr.getImageAfter()))) {
+            return Route.UPSERT;
+        }
+        if (cr.getImageBefore().isEmpty()) {
+            // new row not matching the filter
+            return Route.SKIP;
+        }
+        Boolean before = imageFilter.matches(cr.getImageBefore());
+        if (before == null) {
+            return Route.UPSERT;
+        }
+        return before ? Route.DELETE : Route.SKIP;
     }
 
-    private void deleteRows(List<MvKey> rowKeys) {
+    /**
+     * @return false, if the deleted row did not match the filter
+     */
+    private boolean checkDelete(MvChangeRecord cr) {
+        if (imageFilter == null || cr.getImageBefore().isEmpty()) {
+            return true;
+        }
+        return !Boolean.FALSE.equals(imageFilter.matches(cr.getImageBefore()));
+    }
+
+    private void deleteRows(List<MvKey> rowKeys, MvShadowRebuild shadow) {
         var keysToDelete = extractDestKeys(rowKeys);
         if (keysToDelete.isEmpty()) {
             return;
         }
         int writeBatchSize = getWriteBatchSize();
         for (List<MvKey> dr : Lists.partition(keysToDelete, writeBatchSize)) {
-            runDelete(dr);
+            runDelete(dr, sqlDelete);
+            if (shadow != null) {
+                runDelete(dr, shadow.getSqlDelete(target));
+            }
             checkRunning();
         }
     }
@@ -192,23 +312,23 @@ class ActionSync extends ActionBase implements MvApplyAction {
         return result;
     }
 
-    private void runDelete(List<MvKey> rowKeys) {
+    private void runDelete(List<MvKey> rowKeys, String sql) {
         Value<?> keys = keysToParam(rowKeys);
         LOG.debug("DELETE FROM {}: {}", target.getName(), keys);
         Params params = Params.of(MvSqlGen.SYS_KEYS_VAR, keys);
         // wait for the previous query to complete
         finishStatement();
         // submit the new query
-        lastSqlStatement.set(sqlDelete);
+        lastSqlStatement.set(sql);
         long startNs = System.nanoTime();
         var statement = targetCtx.supplyResult(
-                qs -> qs.createQuery(sqlDelete, TxMode.SERIALIZABLE_RW, params, querySettings)
+                qs -> qs.createQuery(sql, TxMode.SERIALIZABLE_RW, params, querySettings)
                         .execute()
         );
         currentStatement.set(new StatementTiming(statement, startNs, "delete"));
     }
 
-    private void upsertRows(List<MvKey> rowKeys) {
+    private void upsertRows(List<MvKey> rowKeys, MvShadowRebuild shadow) {
         int readBatchSize = getReadBatchSize();
         int writeBatchSize = getWriteBatchSize();
         ArrayList<StructValue> output = new ArrayList<>(readBatchSize);
@@ -216,16 +336,22 @@ class ActionSync extends ActionBase implements MvApplyAction {
             // read the portion of data
             output.clear();
             readRows(rd, output);
+            if (keyFilter != null) {
+                keyFilter.onUpsert(output);
+            }
             for (List<StructValue> wr : Lists.partition(output, writeBatchSize)) {
                 // write the portion of data
-                runUpsert(wr);
+                runUpsert(wr, sqlUpsert);
+                if (shadow != null) {
+                    runUpsert(wr, shadow.getSqlUpsert(target));
+                }
                 // check whether the context is running, and throw if not
                 checkRunning();
             }
         }
     }
 
-    private void runUpsert(List<StructValue> items) {
+    private void runUpsert(List<StructValue> items, String sql) {
         Value<?> data = structsToParam(items);
         if (LOG.isDebugEnabled()) {
             LOG.debug("UPSERT TO {}: {}", target.getName(), data);
@@ -234,10 +360,10 @@ class ActionSync extends ActionBase implements MvApplyAction {
         // wait for the previous query to complete
         finishStatement();
         // submit the new query
-        lastSqlStatement.set(sqlUpsert);
+        lastSqlStatement.set(sql);
         long startNs = System.nanoTime();
         var statement = targetCtx.supplyResult(
-                qs -> qs.createQuery(sqlUpsert, TxMode.SERIALIZABLE_RW, params, querySettings)
+                qs -> qs.createQuery(sql, TxMode.SERIALIZABLE_RW, params, querySettings)
                         .execute()
         );
         currentStatement.set(new StatementTiming(statement, startNs, "upsert"));
@@ -283,6 +409,12 @@ class ActionSync extends ActionBase implements MvApplyAction {
         }
     }
 
+    private static enum Route {
+        UPSERT,
+        DELETE,
+        SKIP
+    }
+
     private static class StatementTiming {
 
         final CompletableFuture<Result<QueryInfo>> future;
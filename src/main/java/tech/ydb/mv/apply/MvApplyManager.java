@@ -7,6 +7,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import tech.ydb.table.TableClient;
 
@@ -17,6 +18,7 @@ import tech.ydb.mv.feeder.MvCommitHandler;
 import tech.ydb.mv.model.MvHandlerSettings;
 import tech.ydb.mv.model.MvInput;
 import tech.ydb.mv.model.MvViewExpr;
+import tech.ydb.mv.support.MvShardDao;
 import tech.ydb.mv.support.YdbMisc;
 import tech.ydb.mv.feeder.MvSink;
 import tech.ydb.mv.metrics.MvMetrics;
@@ -31,10 +33,20 @@ public class MvApplyManager implements MvSink {
 
     private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvApplyManager.class);
 
+    // CDC lag values older than this are treated as unknown
+    private static final long CDC_LAG_EXPIRATION_MILLIS = 60000L;
+
     private final MvActionContext context;
     private final MvApplyWorker[] workers;
     private final AtomicInteger queueSize;
     private final int queueLimit;
+    // the age of the CDC changes at the last submission, and its moment
+    private final AtomicLong cdcLag = new AtomicLong(0L);
+    private final AtomicLong cdcLagStamp = new AtomicLong(0L);
+    // null for the non-sharded handlers
+    private final MvShardRouter shardRouter;
+    // null if disabled
+    private final MvStormControl stormControl;
 
     // source table name -> table apply configuration data
     private final HashMap<String, MvApply.Source> sourceConfigs = new HashMap<>();
@@ -52,10 +64,23 @@ public class MvApplyManager implements MvSink {
         this.queueLimit = jobContext.getSettings().getApplyQueueSize();
         new MvApply.Configurator(this.context)
                 .build(this.sourceConfigs, this.targetConfigs);
+        var shard = jobContext.getShard();
+        if (shard.isSharded()) {
+            this.shardRouter = new MvShardRouter(shard,
+                    new MvShardDao(jobContext.getYdb(), shard.getHandlerName()));
+        } else {
+            this.shardRouter = null;
+        }
+        if (shard.isSharded()) {
+            this.stormControl = null;
+        } else {
+            this.stormControl = MvStormControl.create(
+                    jobContext.getHandler(), jobContext.getSettings());
+        }
     }
 
     public String getJobName() {
-        return context.getHandler().getName();
+        return context.getJobContext().getShard().getJobName();
     }
 
     public boolean isRunning() {
@@ -70,6 +95,13 @@ public class MvApplyManager implements MvSink {
         return context.getSettings();
     }
 
+    /**
+     * @return Change storm control, or null if disabled
+     */
+    public MvStormControl getStormControl() {
+        return stormControl;
+    }
+
     public int getQueueLimit() {
         return queueLimit;
     }
@@ -78,6 +110,33 @@ public class MvApplyManager implements MvSink {
         return queueSize.get();
     }
 
+    @Override
+    public int getQueueUsagePercent() {
+        if (queueLimit <= 0) {
+            return 0;
+        }
+        return (int) ((100L * queueSize.get()) / queueLimit);
+    }
+
+    @Override
+    public long getCdcLagMillis() {
+        long stamp = cdcLagStamp.get();
+        if (System.currentTimeMillis() - stamp > CDC_LAG_EXPIRATION_MILLIS) {
+            return 0L;
+        }
+        return cdcLag.get();
+    }
+
+    private void trackCdcLag(Collection<MvChangeRecord> changes) {
+        Instant tv = changes.iterator().next().getTv();
+        if (tv == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        cdcLag.set(Math.max(0L, now - tv.toEpochMilli()));
+        cdcLagStamp.set(now);
+    }
+
     protected final int incrementQueueSize() {
         return queueSize.incrementAndGet();
     }
@@ -203,11 +262,48 @@ public class MvApplyManager implements MvSink {
         return src;
     }
 
+    /**
+     * Find the target which has the specified refresh actions.
+     *
+     * @return The target found, or null if the actions are custom.
+     */
+    private MvViewExpr findRefreshTarget(MvApplyActionList actions) {
+        for (var tc : targetConfigs.values()) {
+            if (tc.getRefreshActions() == actions) {
+                return tc.getTarget();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Keep the changes owned by the current shard, forwarding the rest to the
+     * other shards of the handler.
+     */
+    private Collection<MvChangeRecord> routeShards(MvApplyActionList actions,
+            MvApply.Source sourceConfig, Collection<MvChangeRecord> changes,
+            MvCommitHandler handler) {
+        if (shardRouter == null || changes.isEmpty()) {
+            return changes;
+        }
+        MvViewExpr target = null;
+        if (actions != sourceConfig.getActions()) {
+            target = findRefreshTarget(actions);
+            if (target == null) {
+                // custom actions (key filters) are executed locally,
+                // their outputs are routed on submission
+                return changes;
+            }
+        }
+        return shardRouter.route(target, changes, handler);
+    }
+
     private boolean doSubmit(MvApplyActionList actions, MvApply.Source sourceConfig,
             Collection<MvChangeRecord> changes, MvCommitHandler handler, boolean immediate) {
         if (actions == null) {
             actions = sourceConfig.getActions();
         }
+        changes = routeShards(actions, sourceConfig, changes, handler);
         int count = changes.size();
         ArrayList<MvApplyTask> curr = new ArrayList<>(count);
         for (MvChangeRecord change : changes) {
@@ -238,12 +334,49 @@ public class MvApplyManager implements MvSink {
         return (position >= curr.size());
     }
 
+    /**
+     * Skip the upserts for the tables in the change storm mode, as the key
+     * range of those upserts is going to be re-scanned.
+     */
+    private Collection<MvChangeRecord> skipStorm(MvApply.Source sourceConfig,
+            Collection<MvChangeRecord> changes, MvCommitHandler handler) {
+        if (stormControl == null) {
+            return changes;
+        }
+        String tableName = sourceConfig.getTableInfo().getName();
+        if (!stormControl.register(tableName, changes.size())) {
+            return changes;
+        }
+        ArrayList<MvChangeRecord> deletes = new ArrayList<>();
+        ArrayList<MvChangeRecord> upserts = new ArrayList<>();
+        for (MvChangeRecord cr : changes) {
+            if (cr.getOperationType() == MvChangeRecord.OpType.DELETE) {
+                deletes.add(cr);
+            } else {
+                upserts.add(cr);
+            }
+        }
+        if (!upserts.isEmpty()) {
+            if (!stormControl.registerSkipped(tableName, upserts)) {
+                // the storm has just finished
+                return changes;
+            }
+            handler.commit(upserts.size());
+        }
+        return deletes;
+    }
+
     @Override
     public boolean submit(Collection<MvChangeRecord> changes, MvCommitHandler handler) {
         var sourceConfig = findSource(changes, handler);
         if (sourceConfig == null) {
             return true;
         }
+        trackCdcLag(changes);
+        changes = skipStorm(sourceConfig, changes, handler);
+        if (changes.isEmpty()) {
+            return true;
+        }
         return doSubmit(null, sourceConfig, changes, handler, false);
     }
 
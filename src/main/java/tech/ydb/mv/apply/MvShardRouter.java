@@ -0,0 +1,80 @@
+package tech.ydb.mv.apply;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tech.ydb.mv.data.MvChangeRecord;
+import tech.ydb.mv.feeder.MvCommitHandler;
+import tech.ydb.mv.model.MvShard;
+import tech.ydb.mv.model.MvViewExpr;
+import tech.ydb.mv.support.MvShardDao;
+
+/**
+ * Routes the change records between the shards of the handler. The records
+ * for the keys owned by the current shard are kept for local processing, the
+ * rest are written to the shard queue table to be picked up by their owners.
+ *
+ * @author zinal
+ */
+class MvShardRouter {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvShardRouter.class);
+
+    private final MvShard shard;
+    private final MvShardDao dao;
+    private final AtomicLong seqno;
+
+    MvShardRouter(MvShard shard, MvShardDao dao) {
+        this.shard = shard;
+        this.dao = dao;
+        this.seqno = new AtomicLong(ThreadLocalRandom.current().nextLong(0L, Long.MAX_VALUE / 2L));
+    }
+
+    MvShard getShard() {
+        return shard;
+    }
+
+    /**
+     * Forward the records for the keys owned by the other shards.
+     *
+     * @param target Target being refreshed, or null for the full set of the
+     * source table actions.
+     * @param changes The change records to be routed.
+     * @param handler The commit processing handler.
+     * @return The change records to be processed by the current shard.
+     */
+    Collection<MvChangeRecord> route(MvViewExpr target,
+            Collection<MvChangeRecord> changes, MvCommitHandler handler) {
+        ArrayList<MvChangeRecord> owned = new ArrayList<>(changes.size());
+        ArrayList<MvShardDao.Entry> foreign = new ArrayList<>();
+        Instant tv = Instant.now();
+        for (MvChangeRecord cr : changes) {
+            int index = shard.choose(cr.getKey().hashCode());
+            if (index == shard.getIndex()) {
+                owned.add(cr);
+            } else {
+                foreign.add(new MvShardDao.Entry(index, tv, seqno.incrementAndGet(),
+                        cr.getKey().getTableName(),
+                        (target == null) ? null : target.getName(),
+                        (target == null) ? null : target.getAlias(),
+                        cr.getOperationType().name(),
+                        cr.getKey().convertKeyToJson()));
+            }
+        }
+        if (!foreign.isEmpty()) {
+            forward(foreign);
+            handler.commit(foreign.size());
+        }
+        return owned;
+    }
+
+    private void forward(List<MvShardDao.Entry> entries) {
+        dao.write(entries);
+        LOG.debug("Forwarded {} keys from shard {}", entries.size(), shard);
+    }
+
+}
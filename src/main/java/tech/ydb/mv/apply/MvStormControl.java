@@ -0,0 +1,357 @@
+package tech.ydb.mv.apply;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import tech.ydb.mv.data.MvChangeRecord;
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.model.MvHandler;
+import tech.ydb.mv.model.MvHandlerSettings;
+import tech.ydb.mv.model.MvJoinSource;
+import tech.ydb.mv.model.MvViewExpr;
+
+/**
+ * Detects the change storms (bulk loads and mass updates) on the source
+ * tables.
+ *
+ * During the storm the upserts for the table are not applied key by key, as
+ * the affected targets are going to be re-scanned when the change rate drops.
+ * The deletions are still applied, as the scan cannot detect them. The key
+ * range of the skipped upserts is tracked, so that just that range of the
+ * topmost table is re-scanned after the storm.
+ *
+ * Only the tables which are the topmost sources of all the targets using
+ * them are eligible, as for them the rescan is cheaper than the key-level
+ * refresh of each changed row.
+ *
+ * The entry guard, when set, is called before the table is switched into the
+ * storm mode, to durably register the rescan of the affected targets. The
+ * storm mode is not entered (and the entry is retried on the next
+ * evaluation) until the guard succeeds, so no change is skipped without the
+ * rescan being recorded.
+ *
+ * @author zinal
+ */
+public class MvStormControl {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvStormControl.class);
+
+    private final String handlerName;
+    private final int rowsPerSecond;
+    private final long sustainMillis;
+    // table name -> table state, never changed after construction
+    private final Map<String, TableState> tables;
+    private long lastEvaluation;
+    private volatile Predicate<String> entryGuard;
+
+    public MvStormControl(String handlerName, Collection<String> tableNames,
+            int rowsPerSecond, int seconds) {
+        this.handlerName = handlerName;
+        this.rowsPerSecond = rowsPerSecond;
+        this.sustainMillis = 1000L * Math.max(1, seconds);
+        HashMap<String, TableState> m = new HashMap<>();
+        for (String tableName : tableNames) {
+            m.put(tableName, new TableState(tableName));
+        }
+        this.tables = m;
+        this.lastEvaluation = System.currentTimeMillis();
+    }
+
+    /**
+     * Create the storm control for the handler.
+     *
+     * @param handler The handler to be controlled
+     * @param settings The handler settings
+     * @return Storm control, or null if disabled or not applicable
+     */
+    public static MvStormControl create(MvHandler handler, MvHandlerSettings settings) {
+        if (settings.getStormRowsPerSecond() <= 0) {
+            return null;
+        }
+        var tableNames = findEligibleTables(handler);
+        if (tableNames.isEmpty()) {
+            LOG.info("No tables eligible for the change storm control in handler `{}`",
+                    handler.getName());
+            return null;
+        }
+        return new MvStormControl(handler.getName(), tableNames,
+                settings.getStormRowsPerSecond(), settings.getStormSeconds());
+    }
+
+    /**
+     * Find the tables which are only used as the topmost sources.
+     *
+     * @param handler The handler to be checked
+     * @return The names of the eligible tables
+     */
+    public static List<String> findEligibleTables(MvHandler handler) {
+        HashSet<String> topmost = new HashSet<>();
+        HashSet<String> other = new HashSet<>();
+        for (var view : handler.getViews().values()) {
+            for (var target : view.getParts().values()) {
+                MvJoinSource top = target.getTopMostSource();
+                for (var src : target.getSources()) {
+                    if (src == top) {
+                        topmost.add(src.getTableName());
+                    } else {
+                        other.add(src.getTableName());
+                    }
+                }
+            }
+        }
+        topmost.removeAll(other);
+        ArrayList<String> output = new ArrayList<>();
+        for (var input : handler.getInputs().values()) {
+            if (!input.isBatchMode() && topmost.contains(input.getTableName())) {
+                output.add(input.getTableName());
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Find the targets to be re-scanned after the storm on the table.
+     *
+     * @param handler The handler
+     * @param tableName The source table name
+     * @return The targets having the table as their topmost source
+     */
+    public static List<MvViewExpr> findTargets(MvHandler handler, String tableName) {
+        ArrayList<MvViewExpr> output = new ArrayList<>();
+        for (var view : handler.getViews().values()) {
+            for (var target : view.getParts().values()) {
+                if (tableName.equals(target.getTopMostSource().getTableName())) {
+                    output.add(target);
+                }
+            }
+        }
+        return output;
+    }
+
+    /**
+     * Account the incoming changes for the table.
+     *
+     * @param tableName Source table name
+     * @param count Number of incoming changes
+     * @return true, if the table is in the storm mode, false otherwise
+     */
+    public boolean register(String tableName, int count) {
+        TableState ts = tables.get(tableName);
+        if (ts == null) {
+            return false;
+        }
+        ts.counter.addAndGet(count);
+        return ts.storm;
+    }
+
+    /**
+     * Account the changes skipped due to the storm mode, extending the key
+     * range to be re-scanned. The changes are not skipped if the storm has
+     * finished after {@link #register} has been called, as its key range has
+     * already been taken for the rescan.
+     *
+     * @param tableName Source table name
+     * @param skipped The changes to be skipped
+     * @return true, if the changes have been accounted and can be skipped,
+     * false if they must be applied
+     */
+    public boolean registerSkipped(String tableName, Collection<MvChangeRecord> skipped) {
+        TableState ts = tables.get(tableName);
+        if (ts == null) {
+            return false;
+        }
+        synchronized (ts) {
+            if (!ts.storm) {
+                return false;
+            }
+            for (MvChangeRecord cr : skipped) {
+                MvKey key = cr.getKey();
+                if (ts.minKey == null || key.compareTo(ts.minKey) < 0) {
+                    ts.minKey = key;
+                }
+                if (ts.maxKey == null || key.compareTo(ts.maxKey) > 0) {
+                    ts.maxKey = key;
+                }
+            }
+            ts.skipped += skipped.size();
+        }
+        return true;
+    }
+
+    /**
+     * Set the action to be performed before the table enters the storm mode.
+     *
+     * @param entryGuard Gets the table name, returns false to postpone the
+     * storm mode entry.
+     */
+    public void setEntryGuard(Predicate<String> entryGuard) {
+        this.entryGuard = entryGuard;
+    }
+
+    public boolean isStorm(String tableName) {
+        TableState ts = tables.get(tableName);
+        return (ts != null) && ts.storm;
+    }
+
+    /**
+     * Evaluate the change rates, switching the tables into and out of the
+     * storm mode.
+     *
+     * @return The key ranges skipped on the tables which have left the storm
+     * mode, to be re-scanned on their targets.
+     */
+    public List<StormRange> evaluate() {
+        return evaluate(System.currentTimeMillis());
+    }
+
+    synchronized List<StormRange> evaluate(long now) {
+        long elapsed = now - lastEvaluation;
+        if (elapsed <= 0L) {
+            return List.of();
+        }
+        lastEvaluation = now;
+        ArrayList<StormRange> output = new ArrayList<>();
+        for (var ts : tables.values()) {
+            long count = ts.counter.getAndSet(0L);
+            double rate = (1000.0 * count) / elapsed;
+            if (!ts.storm) {
+                if (rate > rowsPerSecond) {
+                    ts.duration += elapsed;
+                    if (ts.duration >= sustainMillis && enterAllowed(ts.tableName)) {
+                        ts.enter();
+                        ts.duration = 0L;
+                        LOG.warn("Change storm detected on table `{}` in handler `{}`, "
+                                + "rate {} rows/sec - switching to rescan mode",
+                                ts.tableName, handlerName, (long) rate);
+                    }
+                } else {
+                    ts.duration = 0L;
+                }
+            } else {
+                // hysteresis: leave the storm mode at the half of the rate
+                if (rate <= rowsPerSecond / 2.0) {
+                    ts.duration += elapsed;
+                    if (ts.duration >= sustainMillis) {
+                        StormRange range = ts.leave();
+                        ts.duration = 0L;
+                        LOG.info("Change storm finished on table `{}` in handler `{}`, "
+                                + "{} changes skipped - rescan required",
+                                ts.tableName, handlerName, range.getSkipped());
+                        output.add(range);
+                    }
+                } else {
+                    ts.duration = 0L;
+                }
+            }
+        }
+        return output;
+    }
+
+    private boolean enterAllowed(String tableName) {
+        var guard = entryGuard;
+        if (guard == null || guard.test(tableName)) {
+            return true;
+        }
+        LOG.warn("Change storm mode postponed for table `{}` in handler `{}`, "
+                + "the rescan could not be registered", tableName, handlerName);
+        return false;
+    }
+
+    /**
+     * The key range of the upserts skipped during the storm on the table.
+     * Both limits are inclusive, and are null when nothing was skipped.
+     */
+    public static class StormRange {
+
+        private final String tableName;
+        private final MvKey minKey;
+        private final MvKey maxKey;
+        private final long skipped;
+
+        public StormRange(String tableName, MvKey minKey, MvKey maxKey, long skipped) {
+            this.tableName = tableName;
+            this.minKey = minKey;
+            this.maxKey = maxKey;
+            this.skipped = skipped;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public MvKey getMinKey() {
+            return minKey;
+        }
+
+        public MvKey getMaxKey() {
+            return maxKey;
+        }
+
+        public long getSkipped() {
+            return skipped;
+        }
+
+        public boolean isEmpty() {
+            return skipped == 0L || minKey == null || maxKey == null;
+        }
+
+        /**
+         * @param other The range of the later storm on the same table
+         * @return The range covering both ranges
+         */
+        public StormRange merge(StormRange other) {
+            if (other == null || other.isEmpty()) {
+                return this;
+            }
+            if (isEmpty()) {
+                return other;
+            }
+            return new StormRange(tableName,
+                    (other.minKey.compareTo(minKey) < 0) ? other.minKey : minKey,
+                    (other.maxKey.compareTo(maxKey) > 0) ? other.maxKey : maxKey,
+                    skipped + other.skipped);
+        }
+    }
+
+    /**
+     * Per-table change rate tracking state. The storm flag and the skipped
+     * key range are changed under the state lock.
+     */
+    private static class TableState {
+
+        final String tableName;
+        final AtomicLong counter = new AtomicLong(0L);
+        volatile boolean storm = false;
+        // time above (or below, in storm mode) the rate threshold
+        long duration = 0L;
+        long skipped = 0L;
+        MvKey minKey = null;
+        MvKey maxKey = null;
+
+        TableState(String tableName) {
+            this.tableName = tableName;
+        }
+
+        synchronized void enter() {
+            storm = true;
+            skipped = 0L;
+            minKey = null;
+            maxKey = null;
+        }
+
+        synchronized StormRange leave() {
+            storm = false;
+            StormRange range = new StormRange(tableName, minKey, maxKey, skipped);
+            minKey = null;
+            maxKey = null;
+            return range;
+        }
+    }
+
+}
@@ -0,0 +1,337 @@
+package tech.ydb.mv.apply;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import tech.ydb.core.Status;
+import tech.ydb.core.grpc.GrpcReadStream;
+import tech.ydb.table.Session;
+import tech.ydb.table.TableClient;
+import tech.ydb.table.query.ReadTablePart;
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.settings.ReadTableSettings;
+import tech.ydb.table.values.StructType;
+import tech.ydb.table.values.StructValue;
+
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.data.MvKeyFilter;
+import tech.ydb.mv.data.YdbConv;
+import tech.ydb.mv.metrics.MvMetrics;
+import tech.ydb.mv.model.MvColumn;
+import tech.ydb.mv.model.MvJoinSource;
+import tech.ydb.mv.model.MvViewExpr;
+import tech.ydb.mv.svc.MvJobContext;
+
+/**
+ * Filter of the topmost table keys present in the target table, which allows
+ * to skip the deletes of the keys definitely absent from the target.
+ *
+ * The filter is built by reading the target table in the background, and is
+ * kept up to date with the upserts made by the sync action. The keys are
+ * never removed from the filter, so it may only give false positives, which
+ * just lead to the deletes being executed. The filter is rebuilt after the
+ * target table writes bypassing the sync action, and when it gets saturated.
+ *
+ * The filter only sees the upserts of its own handler, so the target must
+ * have a single writer: it is not used for the sharded handlers, and the
+ * target must not be written by the other handlers or runners.
+ *
+ * @author zinal
+ */
+class MvSyncKeyFilter {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvSyncKeyFilter.class);
+
+    private static final int CHUNK_ROWS = 10000;
+
+    private final MvViewExpr target;
+    private final MvJobContext jobContext;
+    private final TableClient tableClient;
+    // target columns holding the topmost table key, in the key order
+    private final String[] columns;
+    // positions of the key columns in the target row
+    private final int[] positions;
+    // the writes hold the read lock, the filter replacement the write lock
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean building = new AtomicBoolean(false);
+    private volatile long expectedKeys;
+    private volatile MvKeyFilter filter;
+    private volatile long epoch;
+    private volatile boolean ready;
+
+    private MvSyncKeyFilter(MvViewExpr target, MvJobContext jobContext,
+            TableClient tableClient, String[] columns, int[] positions, long expectedKeys) {
+        this.target = target;
+        this.jobContext = jobContext;
+        this.tableClient = tableClient;
+        this.columns = columns;
+        this.positions = positions;
+        this.expectedKeys = expectedKeys;
+        this.filter = new MvKeyFilter(expectedKeys);
+        this.epoch = -1L;
+        this.ready = false;
+    }
+
+    /**
+     * Create the key filter for the target, if possible. Each column of the
+     * topmost table key must be copied to the target table as is.
+     *
+     * @param target The target (MV part)
+     * @param rowType The type of the target rows
+     * @param jobContext The job context
+     * @param tableClient The client to read the target table
+     * @param expectedKeys The expected number of the target rows, 0 to
+     * disable the filter
+     * @return The key filter, or null if it is disabled or not possible.
+     */
+    static MvSyncKeyFilter create(MvViewExpr target, StructType rowType,
+            MvJobContext jobContext, TableClient tableClient, long expectedKeys) {
+        if (expectedKeys <= 0L) {
+            return null;
+        }
+        if (jobContext.getShard().isSharded()) {
+            // the upserts of the other shards are not seen by the filter
+            LOG.info("Key filter is not used for target `{}` as {}, as the handler is sharded",
+                    target.getName(), target.getAlias());
+            return null;
+        }
+        MvJoinSource topMost = target.getTopMostSource();
+        List<String> keyNames = topMost.getTableInfo().getKey();
+        String[] columns = new String[keyNames.size()];
+        int[] positions = new int[keyNames.size()];
+        for (int i = 0; i < columns.length; ++i) {
+            MvColumn column = findKeyColumn(target, topMost, keyNames.get(i));
+            int pos = (column == null) ? -1 : findMember(rowType, column.getName());
+            if (pos < 0) {
+                LOG.info("Key filter is not used for target `{}` as {}, as the key column `{}` "
+                        + "of the topmost table is not stored in the target",
+                        target.getName(), target.getAlias(), keyNames.get(i));
+                return null;
+            }
+            columns[i] = column.getName();
+            positions[i] = pos;
+        }
+        return new MvSyncKeyFilter(target, jobContext, tableClient,
+                columns, positions, expectedKeys);
+    }
+
+    private static MvColumn findKeyColumn(MvViewExpr target, MvJoinSource topMost, String name) {
+        for (MvColumn column : target.getColumns()) {
+            if (column.isReference() && column.getSourceRef() == topMost
+                    && name.equals(column.getSourceColumn())) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private static int findMember(StructType rowType, String name) {
+        for (int ix = 0; ix < rowType.getMembersCount(); ++ix) {
+            if (name.equals(rowType.getMemberName(ix))) {
+                return ix;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Check whether the filter is still valid before the writes, and start
+     * its rebuild if needed.
+     */
+    void refresh() {
+        boolean directWrites = jobContext.isDirectWriteActive();
+        if (directWrites || jobContext.getWriteEpoch() != epoch) {
+            ready = false;
+        }
+        if (ready || directWrites || !jobContext.isRunning()) {
+            return;
+        }
+        if (building.compareAndSet(false, true)) {
+            try {
+                jobContext.getService().getScheduler().execute(() -> startBuild());
+            } catch (RejectedExecutionException ree) {
+                // service shutdown
+                building.set(false);
+            }
+        }
+    }
+
+    /**
+     * Acquired for the duration of the writes, so that the filter is not
+     * replaced while the keys written are being added to it.
+     */
+    void lockWrites() {
+        lock.readLock().lock();
+    }
+
+    void unlockWrites() {
+        lock.readLock().unlock();
+    }
+
+    /**
+     * Register the target rows being upserted.
+     *
+     * @param rows The target rows
+     */
+    void onUpsert(List<StructValue> rows) {
+        MvKeyFilter f = filter;
+        for (StructValue row : rows) {
+            Comparable<?>[] values = new Comparable<?>[positions.length];
+            for (int i = 0; i < positions.length; ++i) {
+                values[i] = YdbConv.toPojo(row.getMemberValue(positions[i]));
+            }
+            f.add(values);
+        }
+    }
+
+    /**
+     * Exclude the topmost table keys definitely absent from the target.
+     *
+     * @param keys The topmost table keys to be deleted
+     * @param scope The metrics scope of the sync action
+     * @return The keys which might be present in the target.
+     */
+    List<MvKey> filterDeletes(List<MvKey> keys, MvMetrics.ActionScope scope) {
+        if (!ready || keys.isEmpty()) {
+            return keys;
+        }
+        MvKeyFilter f = filter;
+        if (f.isSaturated()) {
+            ready = false;
+            expectedKeys = Math.max(expectedKeys, 2L * f.getEstimatedKeys());
+            LOG.info("Key filter saturated for target `{}` as {}, rebuilding for {} keys",
+                    target.getName(), target.getAlias(), expectedKeys);
+            return keys;
+        }
+        ArrayList<MvKey> output = new ArrayList<>(keys.size());
+        for (MvKey key : keys) {
+            Comparable<?>[] values = new Comparable<?>[positions.length];
+            for (int i = 0; i < positions.length; ++i) {
+                values[i] = key.getValue(i);
+            }
+            if (f.mightContain(values)) {
+                output.add(key);
+            }
+        }
+        MvMetrics.recordDeletesSkipped(scope, keys.size() - output.size());
+        return output;
+    }
+
+    /**
+     * Start the rebuild of the filter. The target table is read
+     * asynchronously, so the service executor is not blocked by the read.
+     */
+    private void startBuild() {
+        try {
+            MvKeyFilter next = new MvKeyFilter(expectedKeys);
+            long startEpoch;
+            lock.writeLock().lock();
+            try {
+                // the writes made before this point are visible to the read below
+                filter = next;
+                ready = false;
+                startEpoch = jobContext.getWriteEpoch();
+                epoch = startEpoch;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            long tv = System.currentTimeMillis();
+            AtomicLong count = new AtomicLong(0L);
+            readKeys(next, count).whenComplete((status, ex) -> {
+                try {
+                    finishBuild(next, startEpoch, count.get(), tv, status, ex);
+                } finally {
+                    building.set(false);
+                }
+            });
+        } catch (Exception ex) {
+            LOG.error("Failed to build the key filter for target `{}` as {}",
+                    target.getName(), target.getAlias(), ex);
+            building.set(false);
+        }
+    }
+
+    private void finishBuild(MvKeyFilter next, long startEpoch, long count, long tv,
+            Status status, Throwable ex) {
+        if (ex != null) {
+            LOG.error("Failed to build the key filter for target `{}` as {}",
+                    target.getName(), target.getAlias(), ex);
+            return;
+        }
+        if (!jobContext.isRunning()) {
+            return;
+        }
+        if (!status.isSuccess()) {
+            LOG.error("Failed to build the key filter for target `{}` as {}: {}",
+                    target.getName(), target.getAlias(), status);
+            return;
+        }
+        if (next.isSaturated()) {
+            expectedKeys = Math.max(expectedKeys, 2L * next.getEstimatedKeys());
+            LOG.info("Key filter saturated for target `{}` as {} with {} rows, "
+                    + "rebuilding for {} keys", target.getName(), target.getAlias(),
+                    count, expectedKeys);
+            return;
+        }
+        if (jobContext.getWriteEpoch() != startEpoch || jobContext.isDirectWriteActive()) {
+            LOG.info("Key filter for target `{}` as {} is outdated by the direct writes, "
+                    + "to be rebuilt", target.getName(), target.getAlias());
+            return;
+        }
+        ready = true;
+        LOG.info("Key filter built for target `{}` as {}: {} rows in {} ms",
+                target.getName(), target.getAlias(), count,
+                System.currentTimeMillis() - tv);
+    }
+
+    /**
+     * Read the topmost table keys stored in the target table.
+     *
+     * @param output The filter to be filled
+     * @param count The counter of the rows read
+     * @return The read completion status.
+     */
+    private CompletableFuture<Status> readKeys(MvKeyFilter output, AtomicLong count) {
+        String path = target.getTableInfo().getPath();
+        ReadTableSettings settings = ReadTableSettings.newBuilder()
+                .orderedRead(false)
+                .columns(columns)
+                .batchLimitRows(CHUNK_ROWS)
+                .build();
+        return tableClient.createSession(Duration.ofSeconds(10)).thenCompose(result -> {
+            Session session = result.getValue();
+            try {
+                GrpcReadStream<ReadTablePart> stream = session.executeReadTable(path, settings);
+                return stream.start(part -> {
+                    if (!jobContext.isRunning()) {
+                        stream.cancel();
+                        return;
+                    }
+                    ResultSetReader rsr = part.getResultSetReader();
+                    int[] columnPositions = new int[columns.length];
+                    for (int i = 0; i < columns.length; ++i) {
+                        columnPositions[i] = rsr.getColumnIndex(columns[i]);
+                    }
+                    while (rsr.next()) {
+                        Comparable<?>[] values = new Comparable<?>[columns.length];
+                        for (int i = 0; i < columns.length; ++i) {
+                            values[i] = YdbConv.toPojo(rsr.getColumn(columnPositions[i]).getValue());
+                        }
+                        output.add(values);
+                        count.incrementAndGet();
+                    }
+                }).whenComplete((status, ex) -> session.close());
+            } catch (RuntimeException ex) {
+                session.close();
+                throw ex;
+            }
+        });
+    }
+
+}
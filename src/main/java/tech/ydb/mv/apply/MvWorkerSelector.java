@@ -1,20 +1,17 @@
 package tech.ydb.mv.apply;
 
-import java.time.Duration;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicReference;
 
-import tech.ydb.table.Session;
 import tech.ydb.table.TableClient;
-import tech.ydb.table.description.TableDescription;
-import tech.ydb.table.settings.DescribeTableSettings;
 
 import tech.ydb.mv.MvConfig;
 import tech.ydb.mv.data.MvKey;
 import tech.ydb.mv.model.MvKeyInfo;
 import tech.ydb.mv.data.MvKeyPrefix;
 import tech.ydb.mv.model.MvTableInfo;
+import tech.ydb.mv.support.MvPartitionBounds;
 
 /**
  * The utility algorithm which can choose the proper worker based on the record
@@ -108,18 +105,7 @@ class MvWorkerSelector {
     }
 
     protected MvKeyPrefix[] readPrefixes(TableClient tableClient) {
-        TableDescription desc;
-        DescribeTableSettings dts = new DescribeTableSettings();
-        dts.setIncludeShardKeyBounds(true);
-        try (Session session = tableClient
-                .createSession(Duration.ofSeconds(10)).join().getValue()) {
-            desc = session.describeTable(tableInfo.getPath(), dts).join().getValue();
-        }
-        return desc.getKeyRanges().stream()
-                .filter(kr -> kr.getTo().isPresent())
-                .map(kr -> kr.getTo().get())
-                .map(kb -> new MvKeyPrefix(kb, tableInfo.getKeyInfo()))
-                .toArray(MvKeyPrefix[]::new);
+        return MvPartitionBounds.read(tableClient, tableInfo);
     }
 
     public interface Chooser {
@@ -4,10 +4,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import tech.ydb.mv.model.MvHandler;
+import tech.ydb.mv.model.MvJoinSource;
 import tech.ydb.mv.model.MvViewExpr;
 import tech.ydb.mv.parser.MvPathGenerator;
 
@@ -47,6 +50,20 @@ public class MvChangesMultiDict {
         return true;
     }
 
+    /**
+     * Check whether any of the dictionary scans has stopped on the row limit.
+     *
+     * @return {@code true} if more changes remain in the dictionary log.
+     */
+    public boolean isIncomplete() {
+        for (var item : items.values()) {
+            if (item.isIncomplete()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Add (or replace) an item for a dictionary table.
      *
@@ -74,6 +91,7 @@ public class MvChangesMultiDict {
 
     /**
      * Build row filters for all view parts impacted by dictionary changes.
+     * The view parts which need the full refresh are not included.
      *
      * @param handler Handler definition (views, sources).
      * @return List of non-empty filters to be applied.
@@ -82,6 +100,9 @@ public class MvChangesMultiDict {
         ArrayList<MvRowFilter> filters = new ArrayList<>(handler.getViews().size());
         for (var view : handler.getViews().values()) {
             for (var target : view.getParts().values()) {
+                if (isFullRefresh(target)) {
+                    continue;
+                }
                 var filter = toFilter(handler, target);
                 if (filter != null && !filter.isEmpty()) {
                     filters.add(filter);
@@ -91,6 +112,76 @@ public class MvChangesMultiDict {
         return filters;
     }
 
+    /**
+     * Find the view parts impacted by the changes of the dictionaries which
+     * had too many changed keys to be kept.
+     *
+     * @param handler Handler definition (views, sources).
+     * @return View parts to be refreshed without the filter.
+     */
+    public ArrayList<MvViewExpr> toFullRefresh(MvHandler handler) {
+        ArrayList<MvViewExpr> targets = new ArrayList<>();
+        for (var view : handler.getViews().values()) {
+            for (var target : view.getParts().values()) {
+                if (isFullRefresh(target)) {
+                    targets.add(target);
+                }
+            }
+        }
+        return targets;
+    }
+
+    /**
+     * Check whether the view part is impacted by the changes of the
+     * dictionary with the dropped keys.
+     *
+     * @param target View part to check.
+     * @return {@code true} if the view part needs the full refresh.
+     */
+    public boolean isFullRefresh(MvViewExpr target) {
+        var columnUsage = getColumnUsage(target);
+        for (var dict : getDictSources(target)) {
+            MvChangesSingleDict change = items.get(dict.getTableName());
+            if (change != null && change.isOverflow()
+                    && !getUsedFields(change, columnUsage.get(dict.getTableAlias())).isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Collect the changed keys of the dictionaries for a single view part, per
+     * the dictionary source. Only the changes of the fields used in the view
+     * part are included.
+     *
+     * @param target View part to collect the keys for.
+     * @return Dictionary source -&gt; changed keys, or {@code null} if the keys
+     * are not known, as the target needs the full refresh.
+     */
+    public LinkedHashMap<MvJoinSource, ArrayList<MvKey>> toChangedKeys(MvViewExpr target) {
+        var output = new LinkedHashMap<MvJoinSource, ArrayList<MvKey>>();
+        var columnUsage = getColumnUsage(target);
+        for (var dict : getDictSources(target)) {
+            MvChangesSingleDict change = items.get(dict.getTableName());
+            if (change == null) {
+                continue;
+            }
+            var usedFields = getUsedFields(change, columnUsage.get(dict.getTableAlias()));
+            if (usedFields.isEmpty()) {
+                continue;
+            }
+            if (change.isOverflow()) {
+                return null;
+            }
+            var keys = change.getKeys(usedFields);
+            if (!keys.isEmpty()) {
+                output.put(dict, keys);
+            }
+        }
+        return output;
+    }
+
     /**
      * Build a row filter for a single view part, based on relevant dictionary
      * changes.
@@ -98,31 +189,31 @@ public class MvChangesMultiDict {
      * @param handler Handler definition (views, sources).
      * @param target View part to build filter for.
      * @return Filter for {@code target}, or {@code null} if there are no
-     * relevant changes.
+     * relevant changes, or the target needs the full refresh.
      */
     public MvRowFilter toFilter(MvHandler handler, MvViewExpr target) {
         // table alias -> keys to be checked
-        var dictChecks = new HashMap<String, Set<MvKey>>();
+        var dictChecks = new HashMap<String, List<MvKey>>();
         // table alias -> used columns
         var columnUsage = getColumnUsage(target);
-        var dictSources = target.getSources().stream()
-                .filter(js -> js.isRelated())
-                .filter(js -> js.getInput() != null)
-                .filter(js -> js.getInput().isBatchMode())
-                .filter(js -> hasKnownChanges(js.getInput().getTableName()))
-                .toList();
         // Collect key changes per dictionary source
-        for (var dict : dictSources) {
+        for (var dict : getDictSources(target)) {
             MvChangesSingleDict change = items.get(dict.getTableName());
             if (change == null) {
                 continue;
             }
-            var currentColumnUsage = columnUsage.get(dict.getTableAlias());
-            for (var entry : change.getFields().entrySet()) {
-                if (currentColumnUsage.contains(entry.getKey())) {
-                    // the updated column is used in the MV
-                    addChecks(dictChecks, dict.getTableAlias(), entry.getValue());
-                }
+            // the updated columns which are used in the MV
+            var usedFields = getUsedFields(change, columnUsage.get(dict.getTableAlias()));
+            if (usedFields.isEmpty()) {
+                continue;
+            }
+            if (change.isOverflow()) {
+                // the keys are unknown, the full refresh is needed
+                return null;
+            }
+            var keys = change.getKeys(usedFields);
+            if (!keys.isEmpty()) {
+                dictChecks.put(dict.getTableAlias(), keys);
             }
         }
         if (dictChecks.isEmpty()) {
@@ -216,18 +307,23 @@ public class MvChangesMultiDict {
         columns.add(columnName);
     }
 
-    private static void addChecks(Map<String, Set<MvKey>> dictChecks,
-            String tableAlias, Set<MvKey> changes) {
-        if (tableAlias == null || tableAlias.length() == 0
-                || changes == null || changes.isEmpty()) {
-            return;
-        }
-        Set<MvKey> keys = dictChecks.get(tableAlias);
-        if (keys == null) {
-            keys = new HashSet<>();
-            dictChecks.put(tableAlias, keys);
+    private List<MvJoinSource> getDictSources(MvViewExpr target) {
+        return target.getSources().stream()
+                .filter(js -> js.isRelated())
+                .filter(js -> js.getInput() != null)
+                .filter(js -> js.getInput().isBatchMode())
+                .filter(js -> hasKnownChanges(js.getInput().getTableName()))
+                .toList();
+    }
+
+    private static List<String> getUsedFields(MvChangesSingleDict change,
+            Set<String> columns) {
+        if (columns == null) {
+            return List.of();
         }
-        keys.addAll(changes);
+        return change.getFieldNames().stream()
+                .filter(fieldName -> columns.contains(fieldName))
+                .toList();
     }
 
 }
@@ -1,24 +1,44 @@
 package tech.ydb.mv.data;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Information about the dictionary changes that happened since the last
  * refresh.
  *
+ * Each changed row key is stored once, and the changed fields refer to the
+ * keys by their positions. The number of the stored keys is limited: above
+ * the limit the keys are dropped, and only the names of the changed fields
+ * are kept, so that the affected targets are refreshed without the filter.
+ *
  * @author zinal
  */
 public class MvChangesSingleDict {
 
     // dictionary table name
     private final String tableName;
-    // fieldName -> row keys where the field is modified
-    private final HashMap<String, HashSet<MvKey>> fields = new HashMap<>();
+    // max number of the distinct row keys kept, 0 for unlimited
+    private final int maxKeys;
+    // distinct row keys where any field is modified
+    private final ArrayList<MvKey> keys = new ArrayList<>();
+    // row key -> position in keys
+    private final HashMap<MvKey, Integer> keyIndex = new HashMap<>();
+    // fieldName -> positions of the row keys where the field is modified
+    private final HashMap<String, BitSet> fields = new HashMap<>();
+    // whether the keys have been dropped due to the limit
+    private boolean overflow = false;
     // the last key in the dictionary log
     private MvKey scanPosition;
     // whether the diff field has missing values (e.g. skipped rows)
     private boolean missingDiffFieldRows = false;
+    // true, if the scan has stopped before the end of the history
+    private boolean incomplete = false;
 
     /**
      * Create change tracking for a single dictionary table.
@@ -26,7 +46,19 @@ public class MvChangesSingleDict {
      * @param tableName Dictionary table name.
      */
     public MvChangesSingleDict(String tableName) {
+        this(tableName, 0);
+    }
+
+    /**
+     * Create change tracking for a single dictionary table with the limited
+     * number of the row keys kept.
+     *
+     * @param tableName Dictionary table name.
+     * @param maxKeys Max number of the distinct row keys kept, 0 for unlimited.
+     */
+    public MvChangesSingleDict(String tableName, int maxKeys) {
         this.tableName = tableName;
+        this.maxKeys = maxKeys;
     }
 
     /**
@@ -39,12 +71,66 @@ public class MvChangesSingleDict {
     }
 
     /**
-     * Get map of changed fields to the affected row keys.
+     * Get map of changed fields to the affected row keys. The map is built on
+     * each call, so it is intended for diagnostics and tests.
      *
      * @return Field name to set of row keys where that field changed.
      */
-    public HashMap<String, HashSet<MvKey>> getFields() {
-        return fields;
+    public Map<String, Set<MvKey>> getFields() {
+        var output = new HashMap<String, Set<MvKey>>();
+        for (var me : fields.entrySet()) {
+            output.put(me.getKey(), new HashSet<>(collectKeys(me.getValue())));
+        }
+        return output;
+    }
+
+    /**
+     * @return Names of the changed fields, including the fields of the
+     * dropped keys.
+     */
+    public Set<String> getFieldNames() {
+        return fields.keySet();
+    }
+
+    /**
+     * Get the row keys where any of the specified fields changed.
+     *
+     * @param fieldNames Field names to check.
+     * @return Distinct row keys, empty if the keys have been dropped.
+     */
+    public ArrayList<MvKey> getKeys(Collection<String> fieldNames) {
+        BitSet positions = new BitSet(keys.size());
+        for (String fieldName : fieldNames) {
+            BitSet bs = fields.get(fieldName);
+            if (bs != null) {
+                positions.or(bs);
+            }
+        }
+        return collectKeys(positions);
+    }
+
+    private ArrayList<MvKey> collectKeys(BitSet positions) {
+        var output = new ArrayList<MvKey>(positions.cardinality());
+        for (int pos = positions.nextSetBit(0); pos >= 0; pos = positions.nextSetBit(pos + 1)) {
+            output.add(keys.get(pos));
+        }
+        return output;
+    }
+
+    /**
+     * @return Number of the distinct row keys kept.
+     */
+    public int getKeyCount() {
+        return keys.size();
+    }
+
+    /**
+     * Check whether the row keys have been dropped due to the limit.
+     *
+     * @return {@code true} if only the changed field names are known.
+     */
+    public boolean isOverflow() {
+        return overflow;
     }
 
     /**
@@ -73,21 +159,47 @@ public class MvChangesSingleDict {
      * @return This instance for chaining.
      */
     public MvChangesSingleDict updateField(String fieldName, MvKey rowKey) {
-        HashSet<MvKey> rowKeys = fields.get(fieldName);
-        if (rowKeys == null) {
-            rowKeys = new HashSet<>();
-            fields.put(fieldName, rowKeys);
+        BitSet positions = fields.get(fieldName);
+        if (positions == null) {
+            positions = new BitSet();
+            fields.put(fieldName, positions);
+        }
+        if (overflow) {
+            return this;
+        }
+        Integer pos = keyIndex.get(rowKey);
+        if (pos == null) {
+            if (maxKeys > 0 && keys.size() >= maxKeys) {
+                dropKeys();
+                return this;
+            }
+            pos = keys.size();
+            keys.add(rowKey);
+            keyIndex.put(rowKey, pos);
         }
-        rowKeys.add(rowKey);
+        positions.set(pos);
         return this;
     }
 
+    private void dropKeys() {
+        overflow = true;
+        keys.clear();
+        keys.trimToSize();
+        keyIndex.clear();
+        for (var me : fields.entrySet()) {
+            me.setValue(new BitSet());
+        }
+    }
+
     /**
      * Check whether any changes were recorded.
      *
      * @return {@code true} if no field changes were recorded.
      */
     public boolean isEmpty() {
+        if (overflow) {
+            return fields.isEmpty();
+        }
         for (var v : fields.values()) {
             if (!v.isEmpty()) {
                 return false;
@@ -114,4 +226,22 @@ public class MvChangesSingleDict {
         this.missingDiffFieldRows = missingDiffFieldRows;
     }
 
+    /**
+     * Check whether the history scan has stopped on the row limit.
+     *
+     * @return {@code true} if more changes remain in the dictionary log.
+     */
+    public boolean isIncomplete() {
+        return incomplete;
+    }
+
+    /**
+     * Set the "incomplete scan" flag.
+     *
+     * @param incomplete Whether more changes remain in the dictionary log.
+     */
+    public void setIncomplete(boolean incomplete) {
+        this.incomplete = incomplete;
+    }
+
 }
@@ -0,0 +1,264 @@
+package tech.ydb.mv.data;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import tech.ydb.mv.model.MvPredicate;
+
+/**
+ * In-process evaluation of the native filter predicate over the row images
+ * delivered by CDC.
+ *
+ * The evaluation follows SQL three-valued logic, where NULL comparisons
+ * do not match. In case the predicate cannot be evaluated reliably (missing
+ * column in the image, or unsupported data type), the result is undefined, and
+ * the caller must fall back to the database check.
+ *
+ * @author zinal
+ */
+public class MvImageFilter {
+
+    private final MvPredicate predicate;
+
+    public MvImageFilter(MvPredicate predicate) {
+        if (predicate == null) {
+            throw new IllegalArgumentException("Missing predicate");
+        }
+        this.predicate = predicate;
+    }
+
+    public MvPredicate getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Evaluate the predicate over the row image.
+     *
+     * @param image Row image, with column names as keys.
+     * @return {@code TRUE} if the row matches, {@code FALSE} if it does not,
+     * and {@code null} if the result cannot be determined locally.
+     */
+    public Boolean matches(YdbStruct image) {
+        if (image == null || image.isEmpty()) {
+            return null;
+        }
+        return switch (eval(predicate, image)) {
+            case TRUE ->
+                Boolean.TRUE;
+            case FALSE, UNKNOWN ->
+                Boolean.FALSE;
+            default ->
+                null;
+        };
+    }
+
+    private static Truth eval(MvPredicate p, YdbStruct image) {
+        switch (p.getKind()) {
+            case AND: {
+                Truth ret = Truth.TRUE;
+                for (MvPredicate c : p.getChildren()) {
+                    ret = ret.and(eval(c, image));
+                    if (ret == Truth.FALSE) {
+                        break;
+                    }
+                }
+                return ret;
+            }
+            case OR: {
+                Truth ret = Truth.FALSE;
+                for (MvPredicate c : p.getChildren()) {
+                    ret = ret.or(eval(c, image));
+                    if (ret == Truth.TRUE) {
+                        break;
+                    }
+                }
+                return ret;
+            }
+            default:
+                break;
+        }
+        if (!image.keySet().contains(p.getColumn())) {
+            return Truth.UNDEFINED;
+        }
+        Comparable<?> value = image.get(p.getColumn());
+        switch (p.getKind()) {
+            case IS_NULL:
+                return Truth.of(value == null);
+            case IS_NOT_NULL:
+                return Truth.of(value != null);
+            default:
+                break;
+        }
+        if (value == null) {
+            return Truth.UNKNOWN;
+        }
+        switch (p.getKind()) {
+            case IN:
+            case NOT_IN: {
+                Truth ret = Truth.FALSE;
+                for (MvPredicate.Constant c : p.getConstants()) {
+                    Integer cmp = compare(value, c.getValue());
+                    ret = ret.or((cmp == null) ? Truth.UNDEFINED : Truth.of(cmp == 0));
+                    if (ret == Truth.TRUE) {
+                        break;
+                    }
+                }
+                return (p.getKind() == MvPredicate.Kind.IN) ? ret : ret.not();
+            }
+            default:
+                break;
+        }
+        Integer cmp = compare(value, p.getConstants().get(0).getValue());
+        if (cmp == null) {
+            return Truth.UNDEFINED;
+        }
+        int v = cmp;
+        return switch (p.getKind()) {
+            case EQ ->
+                Truth.of(v == 0);
+            case NE ->
+                Truth.of(v != 0);
+            case LT ->
+                Truth.of(v < 0);
+            case LE ->
+                Truth.of(v <= 0);
+            case GT ->
+                Truth.of(v > 0);
+            case GE ->
+                Truth.of(v >= 0);
+            default ->
+                Truth.UNDEFINED;
+        };
+    }
+
+    /**
+     * Compare the column value with the constant.
+     *
+     * @return Comparison result, or null if the values are not comparable.
+     */
+    static Integer compare(Object value, Comparable<?> constant) {
+        if (constant instanceof String s) {
+            if (value instanceof String v) {
+                return compareCodePoints(v, s);
+            }
+            if (value instanceof YdbBytes v) {
+                return Arrays.compareUnsigned(v.getValue(), s.getBytes(StandardCharsets.UTF_8));
+            }
+            return null;
+        }
+        if (constant instanceof Long c) {
+            if (value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte) {
+                return Long.compare(((Number) value).longValue(), c);
+            }
+            if (value instanceof YdbUnsigned v) {
+                if (c < 0L) {
+                    return 1;
+                }
+                return Long.compareUnsigned(v.getValue(), c);
+            }
+        }
+        if (constant instanceof Long || constant instanceof BigInteger) {
+            BigInteger c = (constant instanceof BigInteger bi)
+                    ? bi : BigInteger.valueOf((Long) constant);
+            if (value instanceof Long || value instanceof Integer
+                    || value instanceof Short || value instanceof Byte) {
+                return BigInteger.valueOf(((Number) value).longValue()).compareTo(c);
+            }
+            if (value instanceof YdbUnsigned v) {
+                return new BigInteger(v.toString()).compareTo(c);
+            }
+            if (value instanceof BigDecimal v) {
+                return v.compareTo(new BigDecimal(c));
+            }
+            if (value instanceof Double || value instanceof Float) {
+                double d = ((Number) value).doubleValue();
+                if (Double.isNaN(d)) {
+                    return null;
+                }
+                if (Double.isInfinite(d)) {
+                    return (d > 0) ? 1 : -1;
+                }
+                return new BigDecimal(d).compareTo(new BigDecimal(c));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Code point order matches the byte order of UTF-8, as used by YDB.
+     */
+    private static int compareCodePoints(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            int ca = a.codePointAt(i);
+            int cb = b.codePointAt(j);
+            if (ca != cb) {
+                return Integer.compare(ca, cb);
+            }
+            i += Character.charCount(ca);
+            j += Character.charCount(cb);
+        }
+        return Integer.compare(a.length() - i, b.length() - j);
+    }
+
+    @Override
+    public String toString() {
+        return "MvImageFilter{" + predicate + '}';
+    }
+
+    /**
+     * Three-valued SQL logic, extended with the "cannot evaluate" state.
+     */
+    private static enum Truth {
+        TRUE,
+        FALSE,
+        UNKNOWN,
+        UNDEFINED;
+
+        static Truth of(boolean v) {
+            return v ? TRUE : FALSE;
+        }
+
+        Truth and(Truth other) {
+            if (this == FALSE || other == FALSE) {
+                return FALSE;
+            }
+            if (this == UNDEFINED || other == UNDEFINED) {
+                return UNDEFINED;
+            }
+            if (this == UNKNOWN || other == UNKNOWN) {
+                return UNKNOWN;
+            }
+            return TRUE;
+        }
+
+        Truth or(Truth other) {
+            if (this == TRUE || other == TRUE) {
+                return TRUE;
+            }
+            if (this == UNDEFINED || other == UNDEFINED) {
+                return UNDEFINED;
+            }
+            if (this == UNKNOWN || other == UNKNOWN) {
+                return UNKNOWN;
+            }
+            return FALSE;
+        }
+
+        Truth not() {
+            return switch (this) {
+                case TRUE ->
+                    FALSE;
+                case FALSE ->
+                    TRUE;
+                default ->
+                    this;
+            };
+        }
+    }
+
+}
@@ -0,0 +1,141 @@
+package tech.ydb.mv.data;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Probabilistic set of the keys (Bloom filter). Gives no false negatives, so
+ * the keys it does not contain are definitely absent from the set. The keys
+ * can be added concurrently, but never removed.
+ *
+ * The key values are hashed in their string form, so that the same key
+ * gives the same hash regardless of the numeric type it has been parsed to.
+ *
+ * @author zinal
+ */
+public class MvKeyFilter {
+
+    static final int BITS_PER_KEY = 10;
+    static final int PROBES = 7;
+    // fill ratio corresponding to ~1% of false positives with 7 probes
+    static final double MAX_FILL = 0.52;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final AtomicLong bitsSet = new AtomicLong(0L);
+
+    /**
+     * @param expectedKeys The expected number of the keys
+     */
+    public MvKeyFilter(long expectedKeys) {
+        long bits = Math.max(64L, expectedKeys * BITS_PER_KEY);
+        int count = (int) Math.min(Integer.MAX_VALUE - 8L, (bits + 63L) / 64L);
+        this.words = new AtomicLongArray(count);
+        this.bitCount = 64L * count;
+    }
+
+    /**
+     * @return Total number of the bits in the filter.
+     */
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * @return The share of the bits set, 0 to 1.
+     */
+    public double getFillRatio() {
+        return ((double) bitsSet.get()) / ((double) bitCount);
+    }
+
+    /**
+     * @return true, if too many keys have been added for the filter size,
+     * so that the false positive rate exceeds the design one.
+     */
+    public boolean isSaturated() {
+        return getFillRatio() > MAX_FILL;
+    }
+
+    /**
+     * @return The estimated number of the distinct keys added.
+     */
+    public long getEstimatedKeys() {
+        double fill = Math.min(getFillRatio(), 0.999999);
+        return (long) (-((double) bitCount) / PROBES * Math.log(1.0 - fill));
+    }
+
+    /**
+     * Add the key to the filter.
+     *
+     * @param values The key values
+     */
+    public void add(Comparable<?>[] values) {
+        long h1 = hash(values, 0x9E3779B97F4A7C15L);
+        long h2 = fmix(h1 ^ 0xC2B2AE3D27D4EB4FL) | 1L;
+        for (int i = 0; i < PROBES; ++i) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            int pos = (int) (bit >>> 6);
+            long mask = 1L << (bit & 63L);
+            long old = words.get(pos);
+            while ((old & mask) == 0L) {
+                if (words.compareAndSet(pos, old, old | mask)) {
+                    bitsSet.incrementAndGet();
+                    break;
+                }
+                old = words.get(pos);
+            }
+        }
+    }
+
+    /**
+     * Check whether the key might have been added.
+     *
+     * @param values The key values
+     * @return false, if the key has definitely not been added.
+     */
+    public boolean mightContain(Comparable<?>[] values) {
+        long h1 = hash(values, 0x9E3779B97F4A7C15L);
+        long h2 = fmix(h1 ^ 0xC2B2AE3D27D4EB4FL) | 1L;
+        for (int i = 0; i < PROBES; ++i) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << (bit & 63L);
+            if ((words.get((int) (bit >>> 6)) & mask) == 0L) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(Comparable<?>[] values, long seed) {
+        long h = seed;
+        for (Comparable<?> v : values) {
+            if (v == null) {
+                h = fmix(h ^ 0x5DEECE66DL);
+                continue;
+            }
+            String s;
+            if (v instanceof BigDecimal bd) {
+                s = bd.stripTrailingZeros().toPlainString();
+            } else {
+                s = v.toString();
+            }
+            for (int i = 0; i < s.length(); ++i) {
+                h = (h ^ s.charAt(i)) * 0x100000001B3L;
+            }
+            // the value separator
+            h = fmix(h ^ s.length());
+        }
+        return fmix(h);
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+}
@@ -2,7 +2,9 @@ package tech.ydb.mv.data;
 
 import tech.ydb.table.description.KeyBound;
 import tech.ydb.table.values.StructValue;
+import tech.ydb.table.values.TupleType;
 import tech.ydb.table.values.TupleValue;
+import tech.ydb.table.values.Type;
 import tech.ydb.table.values.Value;
 
 import tech.ydb.mv.model.MvKeyInfo;
@@ -86,17 +88,25 @@ public class MvKeyPrefix extends MvTuple {
     }
 
     /**
-     * Convert the prefix to a tuple value in the key column order.
+     * Convert the prefix to a tuple value in the key column order. For the
+     * partial prefix the tuple contains only the prefix components.
      *
      * @return Key prefix as a {@link TupleValue}.
      */
     public TupleValue convertKeyToTupleValue() {
-        int count = info.size();
+        int count = Math.min(values.length, info.size());
         Value<?>[] members = new Value<?>[count];
         for (int pos = 0; pos < count; ++pos) {
             members[pos] = YdbConv.fromPojo(values[pos], info.getType(pos));
         }
-        return info.getTupleType().newValueOwn(members);
+        if (count == info.size()) {
+            return info.getTupleType().newValueOwn(members);
+        }
+        Type[] types = new Type[count];
+        for (int pos = 0; pos < count; ++pos) {
+            types[pos] = info.getType(pos);
+        }
+        return TupleType.ofOwn(types).newValueOwn(members);
     }
 
     /**
@@ -2,7 +2,7 @@ package tech.ydb.mv.data;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Objects;
 
 import tech.ydb.mv.model.MvViewExpr;
 
@@ -79,7 +79,7 @@ public class MvRowFilter {
     public void addBlock(int startPos, int length, Collection<? extends MvTuple> tuples) {
         var block = new Block(startPos, length);
         for (var tuple : tuples) {
-            block.tuples.add(new MvTuple(tuple.values));
+            block.add(tuple.values);
         }
         blocks.add(block);
     }
@@ -91,12 +91,27 @@ public class MvRowFilter {
 
     /**
      * A single block of tuple matches for a row subrange.
+     *
+     * The tuples are kept in the open addressing hash table, with the Bloom
+     * filter in front of it. The row subrange is hashed and compared in place,
+     * so the match check does not allocate.
      */
     public static class Block {
 
-        private final HashSet<MvTuple> tuples = new HashSet<>();
+        private static final int MIN_CAPACITY = 16;
+        // Bloom filter bits per hash table slot
+        private static final int BLOOM_BITS = 8;
+
         private final int startPos;
         private final int length;
+        // tuple values, null for the empty slot
+        private Comparable<?>[][] slots;
+        // hash codes of the tuples in the slots
+        private int[] hashes;
+        private int mask;
+        private int size;
+        private long[] bloom;
+        private int bloomMask;
 
         /**
          * Create a block.
@@ -107,10 +122,20 @@ public class MvRowFilter {
         public Block(int startPos, int length) {
             this.startPos = startPos;
             this.length = length;
+            allocate(MIN_CAPACITY);
         }
 
-        public HashSet<MvTuple> getTuples() {
-            return tuples;
+        /**
+         * @return The tuples of the block, in no particular order.
+         */
+        public ArrayList<MvTuple> getTuples() {
+            var output = new ArrayList<MvTuple>(size);
+            for (var values : slots) {
+                if (values != null) {
+                    output.add(new MvTuple(values));
+                }
+            }
+            return output;
         }
 
         public int getStartPos() {
@@ -121,8 +146,36 @@ public class MvRowFilter {
             return length;
         }
 
+        public int size() {
+            return size;
+        }
+
         public boolean isEmpty() {
-            return tuples.isEmpty();
+            return size == 0;
+        }
+
+        /**
+         * Add the tuple to the block.
+         *
+         * @param values Tuple values, exactly the length of the subrange.
+         * @return {@code true} if the tuple has been added, {@code false} if
+         * it was already there.
+         */
+        public boolean add(Comparable<?>[] values) {
+            if (values.length != length) {
+                throw new IllegalArgumentException("Tuple length " + values.length
+                        + " does not match the block length " + length);
+            }
+            int hash = hash(values, 0, length);
+            if (find(values, 0, hash) >= 0) {
+                return false;
+            }
+            if (2 * (size + 1) > slots.length) {
+                rehash(2 * slots.length);
+            }
+            insert(values, hash);
+            ++size;
+            return true;
         }
 
         /**
@@ -133,16 +186,100 @@ public class MvRowFilter {
          * tuples.
          */
         public boolean matches(Comparable<?>[] row) {
-            Comparable<?>[] part = new Comparable<?>[length];
+            if (size == 0) {
+                return false;
+            }
+            int hash = hash(row, startPos, length);
+            if (!mayContain(hash)) {
+                return false;
+            }
+            return find(row, startPos, hash) >= 0;
+        }
+
+        private void allocate(int capacity) {
+            slots = new Comparable<?>[capacity][];
+            hashes = new int[capacity];
+            mask = capacity - 1;
+            bloom = new long[(capacity * BLOOM_BITS) / 64];
+            bloomMask = capacity * BLOOM_BITS - 1;
+        }
+
+        private void rehash(int capacity) {
+            var oldSlots = slots;
+            var oldHashes = hashes;
+            allocate(capacity);
+            for (int i = 0; i < oldSlots.length; ++i) {
+                if (oldSlots[i] != null) {
+                    insert(oldSlots[i], oldHashes[i]);
+                }
+            }
+        }
+
+        private void insert(Comparable<?>[] values, int hash) {
+            int pos = hash & mask;
+            while (slots[pos] != null) {
+                pos = (pos + 1) & mask;
+            }
+            slots[pos] = values;
+            hashes[pos] = hash;
+            int b1 = hash & bloomMask;
+            int b2 = bloomHash(hash) & bloomMask;
+            bloom[b1 >>> 6] |= 1L << b1;
+            bloom[b2 >>> 6] |= 1L << b2;
+        }
+
+        private boolean mayContain(int hash) {
+            int b1 = hash & bloomMask;
+            if ((bloom[b1 >>> 6] & (1L << b1)) == 0L) {
+                return false;
+            }
+            int b2 = bloomHash(hash) & bloomMask;
+            return (bloom[b2 >>> 6] & (1L << b2)) != 0L;
+        }
+
+        private int find(Comparable<?>[] row, int offset, int hash) {
+            int pos = hash & mask;
+            Comparable<?>[] values;
+            while ((values = slots[pos]) != null) {
+                if (hashes[pos] == hash && sameValues(values, row, offset)) {
+                    return pos;
+                }
+                pos = (pos + 1) & mask;
+            }
+            return -1;
+        }
+
+        private boolean sameValues(Comparable<?>[] values, Comparable<?>[] row, int offset) {
+            for (int i = 0; i < length; ++i) {
+                if (!Objects.equals(values[i], row[offset + i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static int hash(Comparable<?>[] row, int offset, int length) {
+            int h = 1;
             for (int i = 0; i < length; ++i) {
-                part[i] = row[startPos + i];
+                Object v = row[offset + i];
+                h = 31 * h + (v == null ? 0 : v.hashCode());
             }
-            return tuples.contains(new MvTuple(part));
+            // murmur3 finalizer, to spread the bits for the masks
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            h *= 0xc2b2ae35;
+            h ^= h >>> 16;
+            return h;
+        }
+
+        private static int bloomHash(int hash) {
+            return Integer.rotateLeft(hash * 0x9e3779b9, 16);
         }
 
         @Override
         public String toString() {
-            return "Block{" + startPos + "/" + length + ": " + tuples + '}';
+            return "Block{" + startPos + "/" + length + ": " + getTuples() + '}';
         }
     }
 
@@ -0,0 +1,139 @@
+package tech.ydb.mv.feeder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import tech.ydb.mv.data.MvChangeRecord;
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.model.MvInput;
+import tech.ydb.mv.model.MvKeyInfo;
+import tech.ydb.mv.model.MvTableInfo;
+
+/**
+ * Sink passing the change records to several sinks, used when a single CDC
+ * reader is shared between the handlers.
+ *
+ * Each changefeed (table and changefeed name) is read once, using the input
+ * description of the first sink which has it. The records parsed are passed
+ * to each sink having the same changefeed as input, with the keys bound to
+ * that sink's own table description.
+ *
+ * The commit handler of the records reserves one extra set of counts per
+ * additional sink, so that the commit happens after all the sinks have
+ * processed the records. The sinks refuse the records only when stopping,
+ * and the refused records are not submitted again: their counts stay
+ * uncommitted, so the records are read again after the restart.
+ *
+ * @author zinal
+ */
+public class MvFanoutSink implements MvSink {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvFanoutSink.class);
+
+    // the inputs to be read, one per changefeed
+    private final List<MvInput> inputs;
+    // table description of the input read -> receiving sinks
+    private final IdentityHashMap<MvTableInfo, List<Route>> routes;
+
+    /**
+     * @param sinks The sinks to receive the change records.
+     * @throws IllegalArgumentException in case the sinks define different
+     * keys for the same changefeed.
+     */
+    public MvFanoutSink(Collection<? extends MvSink> sinks) {
+        var topics = new LinkedHashMap<String, MvInput>();
+        this.routes = new IdentityHashMap<>();
+        for (MvSink sink : sinks) {
+            for (MvInput mi : sink.getInputs()) {
+                String topic = mi.getTableName() + "\n" + mi.getChangefeed();
+                MvInput first = topics.get(topic);
+                if (first == null) {
+                    first = mi;
+                    topics.put(topic, mi);
+                } else if (!sameKey(first.getTableInfo(), mi.getTableInfo())) {
+                    throw new IllegalArgumentException("Different keys for table `"
+                            + mi.getTableName() + "` changefeed `" + mi.getChangefeed() + "`");
+                }
+                routes.computeIfAbsent(first.getTableInfo(), k -> new ArrayList<>())
+                        .add(new Route(sink, first.getTableInfo(), mi.getTableInfo()));
+            }
+        }
+        this.inputs = List.copyOf(topics.values());
+    }
+
+    private static boolean sameKey(MvTableInfo a, MvTableInfo b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        return a.getKey().equals(b.getKey());
+    }
+
+    @Override
+    public Collection<MvInput> getInputs() {
+        return inputs;
+    }
+
+    @Override
+    public boolean submit(Collection<MvChangeRecord> records, MvCommitHandler handler) {
+        if (records.isEmpty()) {
+            return true;
+        }
+        var targets = routes.get(records.iterator().next().getKey().getTableInfo());
+        if (targets == null || targets.isEmpty()) {
+            handler.commit(records.size());
+            return true;
+        }
+        if (targets.size() > 1) {
+            // each sink commits the full set of records
+            handler.reserve(records.size() * (targets.size() - 1));
+        }
+        boolean success = true;
+        for (var route : targets) {
+            if (!route.sink.submit(route.convert(records), handler)) {
+                success = false;
+            }
+        }
+        if (!success) {
+            LOG.debug("Partial delivery of {} records for {}", records.size(), handler);
+        }
+        return success;
+    }
+
+    /**
+     * The sink receiving the records of the changefeed.
+     */
+    private static class Route {
+
+        final MvSink sink;
+        // null if the records can be passed as is
+        final MvKeyInfo keyInfo;
+
+        Route(MvSink sink, MvTableInfo source, MvTableInfo own) {
+            this.sink = sink;
+            this.keyInfo = (source == own || own == null) ? null : own.getKeyInfo();
+        }
+
+        Collection<MvChangeRecord> convert(Collection<MvChangeRecord> records) {
+            if (keyInfo == null) {
+                return records;
+            }
+            var output = new ArrayList<MvChangeRecord>(records.size());
+            for (MvChangeRecord cr : records) {
+                Comparable<?>[] values = new Comparable<?>[keyInfo.size()];
+                for (int pos = 0; pos < values.length; ++pos) {
+                    values[pos] = cr.getKey().getValue(keyInfo.getName(pos));
+                }
+                output.add(new MvChangeRecord(new MvKey(keyInfo, values), cr.getTv(),
+                        cr.getOperationType(), cr.getImageBefore(), cr.getImageAfter()));
+            }
+            return output;
+        }
+    }
+
+}
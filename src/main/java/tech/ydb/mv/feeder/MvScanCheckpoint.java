@@ -0,0 +1,165 @@
+package tech.ydb.mv.feeder;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import tech.ydb.mv.data.MvKey;
+
+/**
+ * Coalesced asynchronous saving of the scan position. Only the newest
+ * committed position is written, once per the configured number of pages or
+ * milliseconds, whichever comes first. The periodic flush writes the
+ * position on time when no more pages are committed, e.g. while the scan
+ * waits for the processing. A failed write is retried with the next
+ * checkpoint, unless a newer position has been committed meanwhile.
+ *
+ * @author zinal
+ */
+class MvScanCheckpoint {
+
+    private final Object lock = new Object();
+    private final int maxPages;
+    private final long maxMillis;
+    private final Executor executor;
+    private final Writer writer;
+    private final BooleanSupplier running;
+    // the position committed but not saved yet
+    private final AtomicReference<MvKey> pendingKey = new AtomicReference<>();
+    private final AtomicInteger pendingPages = new AtomicInteger(0);
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile long lastCheckpoint;
+    private volatile boolean finished = false;
+    private volatile ScheduledFuture<?> timer = null;
+
+    MvScanCheckpoint(int maxPages, long maxMillis, Executor executor,
+            Writer writer, BooleanSupplier running) {
+        this.maxPages = maxPages;
+        this.maxMillis = maxMillis;
+        this.executor = executor;
+        this.writer = writer;
+        this.running = running;
+        this.lastCheckpoint = System.currentTimeMillis();
+    }
+
+    /**
+     * Record the committed position, and schedule the write when the page or
+     * time limit is reached.
+     *
+     * @param key The last processed key.
+     */
+    void add(MvKey key) {
+        pendingKey.set(key);
+        if (pendingPages.incrementAndGet() >= maxPages
+                || System.currentTimeMillis() - lastCheckpoint >= maxMillis) {
+            schedule();
+        }
+    }
+
+    /**
+     * Start the periodic flush of the pending position, which stops once the
+     * checkpoint is finished or the scan is stopped.
+     *
+     * @param timerExecutor The executor to run the flush timer
+     */
+    void startTimer(ScheduledExecutorService timerExecutor) {
+        try {
+            timer = timerExecutor.scheduleWithFixedDelay(() -> tick(),
+                    maxMillis, maxMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ree) {
+            // service shutdown, no periodic flush
+        }
+    }
+
+    /**
+     * Schedule the write of the pending position, if the time limit has
+     * passed since the last checkpoint.
+     */
+    void tick() {
+        if (finished || !running.getAsBoolean()) {
+            stopTimer();
+            return;
+        }
+        if (pendingKey.get() != null
+                && System.currentTimeMillis() - lastCheckpoint >= maxMillis) {
+            schedule();
+        }
+    }
+
+    private void stopTimer() {
+        var f = timer;
+        if (f != null) {
+            f.cancel(false);
+        }
+    }
+
+    private void schedule() {
+        if (!scheduled.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> run());
+        } catch (RejectedExecutionException ree) {
+            // service shutdown, the position will be saved later or re-scanned
+            scheduled.set(false);
+        }
+    }
+
+    /**
+     * Write the pending position, if there is one.
+     */
+    void run() {
+        synchronized (lock) {
+            scheduled.set(false);
+            pendingPages.set(0);
+            lastCheckpoint = System.currentTimeMillis();
+            MvKey key = pendingKey.getAndSet(null);
+            if (key == null || finished || !running.getAsBoolean()) {
+                return;
+            }
+            if (!writer.write(key)) {
+                // retry with the next checkpoint, unless the newer key is there
+                pendingKey.compareAndSet(null, key);
+            }
+        }
+    }
+
+    /**
+     * Drop the pending position and disable the further writes, as the scan
+     * state is being removed.
+     */
+    void finish() {
+        synchronized (lock) {
+            finished = true;
+            pendingKey.set(null);
+        }
+        stopTimer();
+    }
+
+    MvKey getPendingKey() {
+        return pendingKey.get();
+    }
+
+    boolean isScheduled() {
+        return scheduled.get();
+    }
+
+    /**
+     * The actual writer of the scan position.
+     */
+    interface Writer {
+
+        /**
+         * @param key The position to be saved
+         * @return true on success, false on failure
+         */
+        boolean write(MvKey key);
+    }
+
+}
@@ -8,7 +8,8 @@ import java.util.concurrent.atomic.AtomicReference;
 import tech.ydb.mv.data.MvKey;
 
 /**
- * Scan commit handler writes the key position to the database table.
+ * Scan commit handler records the key position of the contiguous processed
+ * keys, to be saved to the database table by the scan context checkpoint.
  *
  * @author zinal
  */
@@ -115,16 +116,13 @@ class MvScanCommitHandler implements MvCommitHandler {
         LOG.debug("instance {} commit APPLY", instance);
         try {
             if (terminal) {
-                LOG.info("Final commit for scan feeder of target `{}` as {} in handler `{}`",
+                LOG.info("Final commit for scan feeder of target `{}` as {} in handler `{}`{}",
                         context.getTarget().getName(), context.getTarget().getAlias(),
-                        context.getHandler().getName());
-                context.getScanDao().unregisterScan();
-                context.getJob().forgetScan(context.getTarget());
-                if (context.getCompletion() != null) {
-                    context.getCompletion().onEndProcessing();
-                }
+                        context.getHandler().getName(),
+                        (context.getRange() == null) ? "" : ", range " + context.getRange().getIndex());
+                context.finishProcessing();
             } else {
-                context.getScanDao().saveScan(key);
+                context.savePosition(key);
             }
         } catch (Exception ex) {
             LOG.error("Failed to commit the scan feeder for target `{}` as {} in handler `{}`",
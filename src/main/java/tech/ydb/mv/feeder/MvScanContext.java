@@ -1,7 +1,10 @@
 package tech.ydb.mv.feeder;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import tech.ydb.mv.data.MvKey;
@@ -14,33 +17,74 @@ import tech.ydb.mv.support.MvScanDao;
 import tech.ydb.mv.svc.MvJobContext;
 
 /**
+ * Scan context for the target, or for a key range of the target in the
+ * parallel scan mode. Range contexts are linked to the parent context of the
+ * target, which tracks the completion of the ranges.
+ *
+ * The context of the target attached to the shared scan of another target
+ * does not save the scan position, as the shared pass starts in the middle
+ * of the key space and wraps around.
  *
  * @author zinal
  */
 class MvScanContext implements MvScanAdapter {
 
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvScanContext.class);
+
+    // checkpoint the position after that many pages, or that many milliseconds
+    static final int CHECKPOINT_PAGES = 20;
+    static final long CHECKPOINT_MILLIS = 5000L;
+
     private final MvJobContext job;
     private final MvViewExpr target;
+    private final MvScanContext parent;
+    private final MvScanRange range;
+    // number of ranges still being read, and being processed
+    private final AtomicInteger rangesScanning;
+    private final AtomicInteger rangesProcessing;
     private final AtomicBoolean shouldRun;
     private final AtomicReference<MvKey> currentKey;
     private final AtomicReference<MvScanCommitHandler> currentHandler;
     private final Instant tvStart;
+    // range contexts of the parallel scan
+    private final List<MvScanContext> children;
+    // the position committed but not saved yet
+    private final MvScanCheckpoint checkpoint;
 
     private final MvTableInfo tableInfo;
     private final String controlTable;
     private final String sqlSelectStart;
     private final String sqlSelectNext;
+    // server-side rebuild statements, generated on demand
+    private final String[] sqlRebuild = new String[4];
+    // reconciliation statements, generated on demand
+    private final String[] sqlReconcile = new String[8];
 
     private final MvScanDao scanDao;
     private final MvScanCompletion completion;
+    // true for the target attached to the shared scan
+    private final boolean shared;
+    // true after the whole target has been processed
+    private volatile boolean processed = false;
 
     public MvScanContext(MvJobContext job, MvViewExpr target, String controlTable,
             MvScanCompletion completion) {
+        this(job, target, controlTable, completion, false);
+    }
+
+    public MvScanContext(MvJobContext job, MvViewExpr target, String controlTable,
+            MvScanCompletion completion, boolean shared) {
         this.job = job;
         this.target = target;
+        this.parent = null;
+        this.range = null;
+        this.rangesScanning = new AtomicInteger(0);
+        this.rangesProcessing = new AtomicInteger(0);
         this.shouldRun = new AtomicBoolean(true);
         this.currentKey = new AtomicReference<>();
         this.currentHandler = new AtomicReference<>();
+        this.children = new CopyOnWriteArrayList<>();
+        this.checkpoint = newCheckpoint();
         this.tvStart = Instant.now();
         this.tableInfo = target.getTopMostSource().getTableInfo();
         this.controlTable = controlTable;
@@ -50,10 +94,47 @@ class MvScanContext implements MvScanAdapter {
         }
         this.scanDao = new MvScanDao(job.getYdb(), this);
         this.completion = completion;
+        this.shared = shared;
+    }
+
+    public MvScanContext(MvScanContext parent, MvScanRange range) {
+        this.job = parent.job;
+        this.target = parent.target;
+        this.parent = parent;
+        this.range = range;
+        this.rangesScanning = new AtomicInteger(0);
+        this.rangesProcessing = new AtomicInteger(0);
+        this.shouldRun = new AtomicBoolean(true);
+        this.currentKey = new AtomicReference<>();
+        this.currentHandler = new AtomicReference<>();
+        this.children = new CopyOnWriteArrayList<>();
+        this.checkpoint = newCheckpoint();
+        this.tvStart = parent.tvStart;
+        this.tableInfo = parent.tableInfo;
+        this.controlTable = parent.controlTable;
+        try (MvSqlGen sg = new MvSqlGen(target)) {
+            this.sqlSelectStart = sg.makeScanRange(
+                    range.getLowerLength(), range.getUpperLength(), false);
+            this.sqlSelectNext = sg.makeScanRange(
+                    range.getLowerLength(), range.getUpperLength(), true);
+        }
+        this.scanDao = new MvScanDao(job.getYdb(), this);
+        this.completion = parent.completion;
+        this.shared = parent.shared;
+        parent.children.add(this);
+    }
+
+    private MvScanCheckpoint newCheckpoint() {
+        var executor = job.getService().getCheckpointExecutor();
+        var cp = new MvScanCheckpoint(CHECKPOINT_PAGES, CHECKPOINT_MILLIS,
+                executor, key -> writePosition(key), () -> isRunning());
+        cp.startTimer(executor);
+        return cp;
     }
 
     public boolean isRunning() {
-        return shouldRun.get() && job.isRunning();
+        return shouldRun.get() && job.isRunning()
+                && (parent == null || parent.isRunning());
     }
 
     public void stop() {
@@ -84,6 +165,57 @@ class MvScanContext implements MvScanAdapter {
         return sqlSelectNext;
     }
 
+    /**
+     * Get the server-side rebuild statement for the page of the scan.
+     *
+     * @param next true, if the page starts after the current position
+     * @param bounded true, if the page has the upper key
+     * @return The rebuild statement
+     */
+    public String getSqlRebuild(boolean next, boolean bounded) {
+        int index = (next ? 2 : 0) + (bounded ? 1 : 0);
+        synchronized (sqlRebuild) {
+            if (sqlRebuild[index] == null) {
+                try (MvSqlGen sg = new MvSqlGen(target)) {
+                    var shadow = job.getShadow(target);
+                    if (shadow != null) {
+                        // the rebuild populates the shadow table
+                        sg.setTableName(shadow.getShadowName());
+                    }
+                    sqlRebuild[index] = sg.makeRebuildRange(next, bounded,
+                            (range == null) ? 0 : range.getLowerLength(),
+                            (range == null) ? 0 : range.getUpperLength());
+                }
+            }
+            return sqlRebuild[index];
+        }
+    }
+
+    /**
+     * Get the reconciliation statement for the page of the scan.
+     *
+     * @param diff true for the statement returning the differing keys, false
+     * for the statement returning the page hashes
+     * @param next true, if the page starts after the current position
+     * @param bounded true, if the page has the upper key
+     * @return The reconciliation statement
+     */
+    public String getSqlReconcile(boolean diff, boolean next, boolean bounded) {
+        int index = (diff ? 4 : 0) + (next ? 2 : 0) + (bounded ? 1 : 0);
+        synchronized (sqlReconcile) {
+            if (sqlReconcile[index] == null) {
+                int lowerLength = (range == null) ? 0 : range.getLowerLength();
+                int upperLength = (range == null) ? 0 : range.getUpperLength();
+                try (MvSqlGen sg = new MvSqlGen(target)) {
+                    sqlReconcile[index] = diff
+                            ? sg.makeReconcileDiff(next, bounded, lowerLength, upperLength)
+                            : sg.makeReconcileHash(next, bounded, lowerLength, upperLength);
+                }
+            }
+            return sqlReconcile[index];
+        }
+    }
+
     public MvKey getCurrentKey() {
         return currentKey.get();
     }
@@ -104,6 +236,111 @@ class MvScanContext implements MvScanAdapter {
         return scanDao;
     }
 
+    public MvScanRange getRange() {
+        return range;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * @return true, if the whole target has been processed.
+     */
+    public boolean isProcessed() {
+        return processed;
+    }
+
+    /**
+     * Initialize the completion tracking for the ranges of the parallel scan.
+     *
+     * @param count Number of the ranges to be scanned.
+     */
+    public void initRanges(int count) {
+        rangesScanning.set(count);
+        rangesProcessing.set(count);
+    }
+
+    /**
+     * Record the scan position after the processing of the keys up to it.
+     * The position is saved asynchronously, every few pages or seconds.
+     *
+     * @param key The last processed key.
+     */
+    public void savePosition(MvKey key) {
+        if (shared) {
+            return;
+        }
+        checkpoint.add(key);
+    }
+
+    /**
+     * Write the latest committed position to the scan control table, if it
+     * has not been saved yet.
+     */
+    public void checkpoint() {
+        checkpoint.run();
+    }
+
+    private boolean writePosition(MvKey key) {
+        try {
+            if (range == null) {
+                scanDao.saveScan(key);
+            } else {
+                scanDao.saveScan(getTableName(), range.toJson(key));
+            }
+            return true;
+        } catch (Exception ex) {
+            LOG.warn("Failed to save the scan position for target `{}` as {} in handler `{}`",
+                    target.getName(), target.getAlias(), job.getHandler().getName(), ex);
+            return false;
+        }
+    }
+
+    /**
+     * Write the pending positions of the target and all its ranges.
+     */
+    public void checkpointAll() {
+        checkpoint();
+        for (MvScanContext child : children) {
+            child.checkpoint();
+        }
+    }
+
+    /**
+     * Mark the reading of the keys as completed.
+     *
+     * @return true, if the whole target has been read, false otherwise
+     */
+    public boolean finishScan() {
+        if (parent == null) {
+            return true;
+        }
+        return parent.rangesScanning.decrementAndGet() == 0;
+    }
+
+    /**
+     * Mark the processing of the keys as completed, and clean up the scan
+     * state when the whole target has been processed.
+     */
+    public void finishProcessing() {
+        // no position writes after the scan state removal
+        checkpoint.finish();
+        scanDao.unregisterScan();
+        if (parent != null) {
+            if (parent.rangesProcessing.decrementAndGet() > 0) {
+                return;
+            }
+            parent.finishProcessing();
+            return;
+        }
+        processed = true;
+        job.forgetScan(target);
+        if (completion != null) {
+            completion.onEndProcessing();
+        }
+    }
+
     @Override
     public String getJobName() {
         return job.getHandler().getName();
@@ -111,7 +348,11 @@ class MvScanContext implements MvScanAdapter {
 
     @Override
     public String getTableName() {
-        return target.getName();
+        String name = MvScanDao.toScanName(target);
+        if (range == null) {
+            return name;
+        }
+        return range.getName(name);
     }
 
     @Override
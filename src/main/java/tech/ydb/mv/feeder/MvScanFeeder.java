@@ -1,9 +1,15 @@
 package tech.ydb.mv.feeder;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
+import tech.ydb.query.tools.QueryReader;
 import tech.ydb.table.query.Params;
 import tech.ydb.table.result.ResultSetReader;
 import tech.ydb.table.values.PrimitiveValue;
@@ -12,22 +18,58 @@ import tech.ydb.mv.MvConfig;
 import tech.ydb.mv.apply.MvApplyActionList;
 import tech.ydb.mv.data.MvChangeRecord;
 import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.data.MvKeyPrefix;
 import tech.ydb.mv.metrics.MvMetrics;
 import tech.ydb.mv.model.MvKeyInfo;
 import tech.ydb.mv.model.MvScanSettings;
 import tech.ydb.mv.model.MvViewExpr;
+import tech.ydb.mv.parser.MvSqlGen;
+import tech.ydb.mv.support.MvPartitionBounds;
 import tech.ydb.mv.support.YdbMisc;
 import tech.ydb.mv.svc.MvJobContext;
 
 /**
  * Scan feeder reads the keys from the topmost-left source of a MV.
  *
+ * With the parallelism above 1 the key space is split into the ranges along
+ * the table partition boundaries, and the ranges are scanned concurrently,
+ * each with its own position record. The scan limited to the key range, as
+ * requested after the change storm, covers just the partitions holding the
+ * range, and always uses the range records. The rate limit is shared between the
+ * ranges of the target, and is adjusted to the handler load by the governor,
+ * which also sizes the pages from the query latency. Each scan thread holds
+ * a query slot of the runner-wide scan scheduler while reading, and waits
+ * for the slot when the global budget is exhausted.
+ *
+ * In the rebuild mode the MV rows are re-computed on the server side, page
+ * by page, instead of submitting the keys to the apply workers.
+ *
+ * In the reconciliation mode the hash of the MV rows computed from the
+ * sources is compared with the hash of the stored MV rows, page by page.
+ * Only for the mismatching pages the differing rows are found by the row
+ * hashes, and just their keys are submitted to the apply workers.
+ *
+ * The sequential paged scan is shared with the other targets over the same
+ * topmost table: these targets join the running scan instead of reading the
+ * same keys again, and each page is submitted for all the attached targets.
+ * The target joined in the middle gets the rest of the keys on the
+ * wrap-around lap, which continues from the start of the table after the
+ * scan of the owning target is completed. The feeder stays registered for
+ * the owning target until the wrap-around laps are over. When the scan of
+ * the owning target is stopped, the attached targets are restarted as their
+ * own scans.
+ *
  * @author zinal
  */
 public class MvScanFeeder {
 
     private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvScanFeeder.class);
 
+    // ranges per scan thread, for the better balance between the threads
+    private static final int RANGES_PER_THREAD = 4;
+    // number of keys submitted for processing at once in the streaming mode
+    private static final int PAGE_SIZE = 1000;
+
     private final MvJobContext job;
     private final MvViewExpr target;
     private final MvKeyInfo keyInfo;
@@ -37,9 +79,28 @@ public class MvScanFeeder {
     private final MvScanCompletion completion;
     private final String controlTable;
     private final MvMetrics.ScanScope metricsScope;
-    private final int rateLimiterLimit;
-    private int rateLimiterCounter;
-    private long rateLimiterStamp;
+    private final MvScanScheduler scheduler;
+    private final MvScanScheduler.Ticket ticket;
+    private final MvScanGovernor governor;
+    private final int parallelism;
+    private final boolean streaming;
+    private final boolean rebuild;
+    private final boolean reconcile;
+    // the key range limits, null for the full scan
+    private final MvKey keyFrom;
+    private final MvKey keyTo;
+    private final AtomicLong pagesMismatched = new AtomicLong(0L);
+    private final AtomicLong rowsRepaired = new AtomicLong(0L);
+    // the scan can be shared with the other targets
+    private final boolean shareable;
+    // targets attached to the scan, guarded by itself for the lap changes
+    private final CopyOnWriteArrayList<MvScanRider> riders = new CopyOnWriteArrayList<>();
+    // position of the wrap-around lap, after the own scan is completed
+    private final AtomicReference<MvKey> wrapKey = new AtomicReference<>();
+    private boolean ownScanDone = false;
+    private boolean shareClosed = false;
+    // settings to resume the regular scan after restart, null otherwise
+    private final String settingsJson;
 
     public MvScanFeeder(
             MvJobContext job,
@@ -57,9 +118,53 @@ public class MvScanFeeder {
         this.actions = actions;
         this.completion = completion;
         this.controlTable = job.getYdb().getProperty(MvConfig.CONF_SCAN_TABLE, MvConfig.DEF_SCAN_TABLE);
-        this.rateLimiterLimit = settings.getRowsPerSecondLimit();
+        this.parallelism = Math.max(1, settings.getParallelism());
+        this.streaming = settings.isStreaming();
+        this.keyFrom = settings.isKeyRange() ? new MvKey(settings.getKeyFrom(), keyInfo) : null;
+        this.keyTo = settings.isKeyRange() ? new MvKey(settings.getKeyTo(), keyInfo) : null;
+        this.settingsJson = (completion == null) ? MvConfig.GSON.toJson(settings) : null;
+        this.reconcile = settings.isReconcile()
+                && checkRebuild(target, actions, "Reconciliation");
+        this.rebuild = !reconcile && settings.isRebuild()
+                && checkRebuild(target, actions, "Server-side rebuild");
+        this.shareable = isShareable(settings) && !rebuild && !reconcile;
         this.metricsScope = new MvMetrics.ScanScope(job.getFeederName(),
                 target.getName(), target.getAlias());
+        this.scheduler = job.getService().getScanScheduler();
+        this.ticket = scheduler.register(metricsScope, settings.getWeight());
+        this.governor = new MvScanGovernor(sink, settings, metricsScope, ticket);
+    }
+
+    /**
+     * The server-side rebuild and the reconciliation replace the regular MV
+     * refresh only, and are limited to the targets with the key of the
+     * topmost table.
+     */
+    private boolean checkRebuild(MvViewExpr target, MvApplyActionList actions, String mode) {
+        if (actions != null) {
+            return false;
+        }
+        boolean supported;
+        try (MvSqlGen sg = new MvSqlGen(target)) {
+            supported = sg.isRangeRebuildSupported();
+        }
+        if (!supported) {
+            LOG.info("{} is not supported for target `{}` as {} "
+                    + "in handler `{}`, using the regular scan", mode, target.getName(),
+                    target.getAlias(), job.getHandler().getName());
+        }
+        return supported;
+    }
+
+    /**
+     * Only the sequential paged scans of the full table are shared, as the
+     * other modes either do not submit the keys, or cannot restart from the
+     * start of the table.
+     */
+    private static boolean isShareable(MvScanSettings settings) {
+        return settings.getParallelism() <= 1 && !settings.isStreaming()
+                && !settings.isRebuild() && !settings.isReconcile()
+                && !settings.isShadow() && !settings.isKeyRange();
     }
 
     public boolean isRunning() {
@@ -67,6 +172,114 @@ public class MvScanFeeder {
         return ctx != null && ctx.isRunning() && job.isRunning();
     }
 
+    /**
+     * @param t The target, either the own one, or the attached one
+     * @return true, if the scan for the target is running
+     */
+    public boolean isRunning(MvViewExpr t) {
+        if (t == target) {
+            return isRunning();
+        }
+        for (MvScanRider rider : riders) {
+            if (rider.getTarget() == t) {
+                return rider.getContext().isRunning() && isRunning();
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Attach another target over the same topmost table to the running scan.
+     * The keys read are submitted for the attached target too, starting from
+     * the current position, with the wrap-around lap for the keys already
+     * passed.
+     *
+     * @param other The target to attach
+     * @param settings The scan settings requested for the target
+     * @param otherActions The custom actions, or null for the regular refresh
+     * @param otherCompletion The completion handler, or null
+     * @return true, if the target has been attached, false if the scan
+     * cannot be shared
+     */
+    public boolean attach(MvViewExpr other, MvScanSettings settings,
+            MvApplyActionList otherActions, MvScanCompletion otherCompletion) {
+        if (!shareable || other == target || !isShareable(settings)
+                || !keyInfo.getOwner().getName().equals(
+                        other.getTopMostSource().getTableInfo().getName())) {
+            return false;
+        }
+        MvScanContext ctx = context.get();
+        if (ctx == null || !ctx.isRunning()) {
+            return false;
+        }
+        var rc = new MvScanContext(job, other, controlTable, otherCompletion, true);
+        // the shared scan does not keep the position, so it restarts after failure
+        rc.getScanDao().registerScan();
+        if (otherCompletion == null) {
+            rc.getScanDao().activateScan(MvConfig.GSON.toJson(settings));
+        }
+        MvScanRider rider;
+        synchronized (riders) {
+            boolean refused = shareClosed;
+            for (MvScanRider r : riders) {
+                refused = refused || (r.getTarget() == other);
+            }
+            if (!refused) {
+                MvKey joinKey = ownScanDone ? wrapKey.get() : ctx.getCurrentKey();
+                rider = new MvScanRider(rc, settings, otherActions, new MvMetrics.ScanScope(
+                        job.getFeederName(), other.getName(), other.getAlias()), joinKey);
+                riders.add(rider);
+            } else {
+                rider = null;
+            }
+        }
+        if (rider == null) {
+            rc.getScanDao().unregisterScan();
+            return false;
+        }
+        LOG.info("Attached target `{}` as {} to the scan of target `{}` as {} "
+                + "in handler `{}`, position {}", other.getName(), other.getAlias(),
+                target.getName(), target.getAlias(), job.getHandler().getName(),
+                rider.getJoinKey());
+        return true;
+    }
+
+    /**
+     * Stop the scan for the target, either the own one, or the attached one.
+     *
+     * @param t The target
+     * @return true, if the scan has been stopped, false otherwise
+     */
+    public boolean stop(MvViewExpr t) {
+        if (t == target) {
+            return stop();
+        }
+        MvScanRider found = null;
+        synchronized (riders) {
+            for (MvScanRider rider : riders) {
+                if (rider.getTarget() == t) {
+                    found = rider;
+                    riders.remove(rider);
+                    break;
+                }
+            }
+        }
+        if (found == null) {
+            return false;
+        }
+        stopRider(found);
+        return true;
+    }
+
+    private void stopRider(MvScanRider rider) {
+        MvScanContext rc = rider.getContext();
+        rc.stop();
+        if (rc.getCompletion() == null) {
+            // the stopped scan is not resumed automatically
+            rc.getScanDao().deactivateScan();
+        }
+    }
+
     public synchronized boolean start() {
         if (!job.isRunning()) {
             throw new IllegalStateException("Refusing to start scan feeder "
@@ -89,13 +302,102 @@ public class MvScanFeeder {
         return true;
     }
 
-    public synchronized boolean stop() {
+    public boolean stop() {
+        List<MvScanRider> stopped = stopOwn();
+        if (stopped == null) {
+            return false;
+        }
+        for (MvScanRider rider : stopped) {
+            restartRider(rider);
+        }
+        return true;
+    }
+
+    private synchronized List<MvScanRider> stopOwn() {
         MvScanContext ctx = context.getAndSet(null);
         if (ctx == null) {
-            return false;
+            return null;
         }
+        // keep the progress made since the last checkpoint
+        ctx.checkpointAll();
         ctx.stop();
-        return true;
+        scheduler.unregister(ticket);
+        List<MvScanRider> stopped;
+        synchronized (riders) {
+            shareClosed = true;
+            stopped = new ArrayList<>(riders);
+            riders.clear();
+        }
+        for (MvScanRider rider : stopped) {
+            rider.getContext().stop();
+        }
+        if (settingsJson != null) {
+            // the stopped scan is not resumed automatically
+            ctx.getScanDao().deactivateScan();
+        }
+        return stopped;
+    }
+
+    /**
+     * Restart the target attached to the stopped scan as its own scan, from
+     * the start of the table, keeping its completion handler.
+     */
+    private void restartRider(MvScanRider rider) {
+        MvViewExpr other = rider.getTarget();
+        MvScanContext rc = rider.getContext();
+        boolean restarted = false;
+        try {
+            restarted = job.isRunning() && job.startScan(other, rider.getSettings(),
+                    sink, rider.getActions(), rc.getCompletion());
+        } catch (Exception ex) {
+            LOG.warn("Failed to restart the scan for target `{}` as {} in handler `{}`",
+                    other.getName(), other.getAlias(), job.getHandler().getName(), ex);
+        }
+        if (restarted) {
+            LOG.info("Shared scan for target `{}` as {} in handler `{}` is restarted "
+                    + "as the own scan after the stop of the scan of target `{}` as {}",
+                    other.getName(), other.getAlias(), job.getHandler().getName(),
+                    target.getName(), target.getAlias());
+        } else {
+            LOG.warn("Shared scan for target `{}` as {} in handler `{}` is stopped "
+                    + "together with the scan of target `{}` as {}",
+                    other.getName(), other.getAlias(), job.getHandler().getName(),
+                    target.getName(), target.getAlias());
+            job.forgetScan(other);
+        }
+    }
+
+    /**
+     * @return true, if the attached targets are still served by the
+     * wrap-around laps of the completed own scan.
+     */
+    public boolean isSharing() {
+        synchronized (riders) {
+            return !shareClosed && !riders.isEmpty();
+        }
+    }
+
+    /**
+     * @return true, if the own scan has been processed, and the attached
+     * targets (if any) have been served.
+     */
+    public boolean isDone() {
+        MvScanContext ctx = context.get();
+        return ctx != null && ctx.isProcessed() && !isSharing();
+    }
+
+    public MvViewExpr getTarget() {
+        return target;
+    }
+
+    /**
+     * Save the pending scan positions, e.g. before the handler shutdown.
+     */
+    public void checkpoint() {
+        MvScanContext ctx = context.get();
+        if (ctx != null) {
+            ctx.checkpointAll();
+        }
     }
 
     public synchronized void stopAndUnregister() {
@@ -104,12 +406,13 @@ public class MvScanFeeder {
             ctx.stop();
             ctx.getScanDao().unregisterScan();
         }
+        scheduler.unregister(ticket);
     }
 
-    private void sleepSome() {
+    private void sleepSome(MvScanContext ctx) {
         final long tvFinish = System.currentTimeMillis()
                 + ThreadLocalRandom.current().nextLong(2000, 10000);
-        while (isRunning()) {
+        while (ctx.isRunning()) {
             YdbMisc.sleep(100L);
             if (System.currentTimeMillis() >= tvFinish) {
                 return;
@@ -126,7 +429,11 @@ public class MvScanFeeder {
                 LOG.warn("Failed scan feeder for target `{}` as {} in handler `{}` - retry pending...",
                         target.getName(), target.getAlias(), job.getHandler().getName(), ex);
             }
-            sleepSome();
+            MvScanContext ctx = context.get();
+            if (ctx == null) {
+                return;
+            }
+            sleepSome(ctx);
         }
     }
 
@@ -135,105 +442,601 @@ public class MvScanFeeder {
         if (ctx == null) {
             LOG.error("Exiting the scanner due to missing context - PROGRAM DEFECT!");
             return;
-        } else {
-            MvKey key = ctx.getScanDao().initScan();
-            ctx.setCurrentKey(key);
-            if (key == null) {
-                ctx.getScanDao().registerScan();
+        }
+        if (isOwnScanDone()) {
+            // only the wrap-around lap for the attached targets is left
+            if (!scheduler.acquire(ticket, () -> ctx.isRunning())) {
+                return;
+            }
+            try {
+                shareLoop(ctx);
+            } finally {
+                scheduler.release(ticket);
             }
-            LOG.info("Started scan feeder for target `{}` as {} in handler `{}`, "
-                    + "max rate {}, position {}", target.getName(), target.getAlias(),
-                    job.getHandler().getName(), rateLimiterLimit, key);
+            return;
         }
-        rateLimiterCounter = 0;
-        rateLimiterStamp = System.currentTimeMillis();
-        while (isRunning()) {
+        if (settingsJson != null) {
+            ctx.getScanDao().activateScan(settingsJson);
+        }
+        var ranges = planRanges(ctx);
+        if (!ranges.isEmpty()) {
+            runRanges(ranges);
+            return;
+        }
+        MvKey key = ctx.getScanDao().initScan();
+        ctx.setCurrentKey(key);
+        if (key == null) {
+            ctx.getScanDao().registerScan();
+        }
+        LOG.info("Started scan feeder for target `{}` as {} in handler `{}`, "
+                + "max rate {}, position {}", target.getName(), target.getAlias(),
+                job.getHandler().getName(), governor.getMaxRate(), key);
+        if (!scheduler.acquire(ticket, () -> ctx.isRunning())) {
+            return;
+        }
+        try {
+            scanLoop(ctx);
+        } finally {
+            scheduler.release(ticket);
+        }
+        LOG.info("Finished scan feeder for target `{}` as {} in handler `{}`",
+                target.getName(), target.getAlias(), job.getHandler().getName());
+    }
+
+    private void scanLoop(MvScanContext ctx) {
+        if (reconcile) {
+            reconcileLoop(ctx);
+            return;
+        }
+        if (rebuild) {
+            rebuildLoop(ctx);
+            return;
+        }
+        if (streaming) {
+            streamLoop(ctx);
+            return;
+        }
+        while (ctx.isRunning()) {
             int count = stepScan(ctx);
             if (count <= 0) {
                 break;
             }
-            rateLimiter(count);
+            rateLimiter(ctx, count);
+        }
+        if (ctx.getRange() == null) {
+            shareLoop(ctx);
+        }
+    }
+
+    private boolean isOwnScanDone() {
+        synchronized (riders) {
+            return ownScanDone;
+        }
+    }
+
+    private boolean isShareClosed() {
+        synchronized (riders) {
+            return shareClosed;
+        }
+    }
+
+    /**
+     * Continue reading the keys for the attached targets after the own scan
+     * is completed. The laps over the table are repeated while the targets
+     * joined in the middle of the lap are still there.
+     *
+     * @param ctx Scan context
+     */
+    private void shareLoop(MvScanContext ctx) {
+        while (ctx.isRunning() && !isShareClosed()) {
+            MvKey from = wrapKey.get();
+            long tv = System.currentTimeMillis();
+            ResultSetReader rsr = readPage(ctx, from, governor.getPageSize());
+            governor.onPage(rsr.getRowCount(), System.currentTimeMillis() - tv);
+            ArrayList<MvChangeRecord> page = new ArrayList<>(rsr.getRowCount());
+            MvKey key = from;
+            while (rsr.next()) {
+                key = new MvKey(rsr, keyInfo);
+                page.add(new MvChangeRecord(key, ctx.getTvStart()));
+            }
+            // the empty page completes the lap, and the next one starts over
+            wrapKey.set(page.isEmpty() ? null : key);
+            shareRiders(page, key);
+            rateLimiter(ctx, page.size());
+        }
+        if (ctx.isRunning()) {
+            // the own scan could have been processed before the laps ended
+            job.forgetScan(this);
+        }
+    }
+
+    /**
+     * Submit the page read for the attached targets. The empty page marks
+     * the end of the table, completing the targets which have joined at the
+     * start of the lap, and moving the others to the wrap-around lap.
+     *
+     * @param page The keys read
+     * @param last The last key of the page, or the current position for the
+     * empty page
+     */
+    private void shareRiders(List<MvChangeRecord> page, MvKey last) {
+        boolean end = page.isEmpty();
+        var outputs = new ArrayList<List<MvChangeRecord>>();
+        var targets = new ArrayList<MvScanRider>();
+        var terminals = new ArrayList<Boolean>();
+        synchronized (riders) {
+            for (MvScanRider rider : riders) {
+                if (!rider.getContext().isRunning()) {
+                    riders.remove(rider);
+                    continue;
+                }
+                boolean wrapped = rider.isWrapped();
+                boolean terminal;
+                if (!wrapped) {
+                    terminal = end && !rider.wrap();
+                } else {
+                    terminal = end || !rider.isBeforeJoin(last);
+                }
+                var output = new ArrayList<MvChangeRecord>(page.size());
+                for (MvChangeRecord cr : page) {
+                    if (!wrapped || rider.isBeforeJoin(cr.getKey())) {
+                        output.add(new MvChangeRecord(cr.getKey(),
+                                rider.getContext().getTvStart()));
+                    }
+                }
+                if (terminal) {
+                    riders.remove(rider);
+                }
+                if (terminal || !output.isEmpty()) {
+                    outputs.add(output);
+                    targets.add(rider);
+                    terminals.add(terminal);
+                }
+            }
+            if (end) {
+                ownScanDone = true;
+            }
+            if (ownScanDone && riders.isEmpty()) {
+                shareClosed = true;
+            }
+        }
+        // the submission may block on the full queue, so outside of the lock
+        for (int i = 0; i < targets.size(); ++i) {
+            submitRider(targets.get(i), last, outputs.get(i), terminals.get(i));
+        }
+    }
+
+    private void submitRider(MvScanRider rider, MvKey key,
+            List<MvChangeRecord> output, boolean terminal) {
+        MvScanContext rc = rider.getContext();
+        submitKeys(rc, rider.getActions(), key, output, terminal);
+        MvMetrics.recordScanSubmit(rider.getMetricsScope(), output.size());
+        if (terminal) {
+            LOG.info("Finished shared scan for target `{}` as {} in handler `{}`",
+                    rider.getTarget().getName(), rider.getTarget().getAlias(),
+                    job.getHandler().getName());
+            if (rc.finishScan() && rc.getCompletion() != null) {
+                rc.getCompletion().onEndScan();
+            }
+        }
+    }
+
+    /**
+     * Prepare the key ranges for the parallel scan, either restoring them
+     * from the scan control table, or building them from the partitioning of
+     * the topmost source table. The key range scan is limited to the
+     * partitions holding the range.
+     *
+     * @param ctx The scan context for the target
+     * @return The range contexts, or an empty list for the sequential scan
+     */
+    private List<MvScanContext> planRanges(MvScanContext ctx) {
+        boolean bounded = (keyFrom != null && keyTo != null);
+        if (parallelism <= 1 && !bounded) {
+            return List.of();
+        }
+        var output = new ArrayList<MvScanContext>();
+        for (var me : ctx.getScanDao().readRanges().entrySet()) {
+            int index = MvScanRange.parseIndex(me.getKey());
+            if (index < 0) {
+                // not a range, e.g. the scan settings
+                continue;
+            }
+            var rc = new MvScanContext(ctx,
+                    MvScanRange.fromJson(index, me.getValue(), keyInfo));
+            rc.setCurrentKey(MvScanRange.parsePosition(me.getValue(), keyInfo));
+            output.add(rc);
+        }
+        if (!output.isEmpty()) {
+            LOG.info("Resuming {} scan ranges for target `{}` as {} in handler `{}`",
+                    output.size(), target.getName(), target.getAlias(),
+                    job.getHandler().getName());
+        } else {
+            MvKey key = ctx.getScanDao().initScan();
+            if (key != null && !key.isEmpty()) {
+                // continue the sequential scan which is already in progress
+                return List.of();
+            }
+            MvKeyPrefix[] bounds = MvPartitionBounds.read(
+                    job.getYdb().getTableClient(), keyInfo.getOwner());
+            int maxRanges = (parallelism <= 1) ? 1 : parallelism * RANGES_PER_THREAD;
+            var ranges = bounded
+                    ? MvScanRange.split(bounds, maxRanges, keyFrom, keyTo)
+                    : MvScanRange.split(bounds, maxRanges);
+            if (ranges.size() < 2 && !bounded) {
+                return List.of();
+            }
+            var states = new LinkedHashMap<String, String>();
+            for (var range : ranges) {
+                states.put(range.getName(ctx.getTableName()), range.toJson(null));
+                output.add(new MvScanContext(ctx, range));
+            }
+            ctx.getScanDao().registerRanges(states);
+            LOG.info("Split the scan for target `{}` as {} in handler `{}` into {} ranges",
+                    target.getName(), target.getAlias(), job.getHandler().getName(),
+                    ranges.size());
+        }
+        ctx.initRanges(output.size());
+        return output;
+    }
+
+    private void runRanges(List<MvScanContext> ranges) {
+        var queue = new ConcurrentLinkedQueue<MvScanContext>(ranges);
+        int threadCount = Math.min(parallelism, ranges.size());
+        LOG.info("Started scan feeder for target `{}` as {} in handler `{}`, "
+                + "max rate {}, {} ranges, {} threads", target.getName(), target.getAlias(),
+                job.getHandler().getName(), governor.getMaxRate(),
+                ranges.size(), threadCount);
+        for (int i = 0; i < threadCount; ++i) {
+            Thread thread = new Thread(() -> runRangeQueue(queue));
+            thread.setDaemon(true);
+            thread.setName("mv-scan-feeder-"
+                    + job.getHandler().getName()
+                    + "-" + target.getName()
+                    + "-" + String.valueOf(i));
+            thread.start();
+        }
+    }
+
+    private void runRangeQueue(ConcurrentLinkedQueue<MvScanContext> queue) {
+        MvScanContext rc;
+        while (isRunning() && (rc = queue.poll()) != null) {
+            safeRunRange(rc);
+        }
+    }
+
+    private void safeRunRange(MvScanContext rc) {
+        while (rc.isRunning()) {
+            if (!scheduler.acquire(ticket, () -> rc.isRunning())) {
+                return;
+            }
+            try {
+                LOG.debug("Scanning range {} of target `{}` as {} in handler `{}`, position {}",
+                        rc.getRange(), target.getName(), target.getAlias(),
+                        job.getHandler().getName(), rc.getCurrentKey());
+                scanLoop(rc);
+                LOG.info("Finished scan of range {} for target `{}` as {} in handler `{}`",
+                        rc.getRange().getIndex(), target.getName(), target.getAlias(),
+                        job.getHandler().getName());
+                return;
+            } catch (Exception ex) {
+                LOG.warn("Failed scan of range {} for target `{}` as {} in handler `{}` "
+                        + "- retry pending...", rc.getRange().getIndex(), target.getName(),
+                        target.getAlias(), job.getHandler().getName(), ex);
+            } finally {
+                scheduler.release(ticket);
+            }
+            sleepSome(rc);
         }
-        LOG.info("Finished scan feeder for target `{}` as {} in handler `{}`",
-                target.getName(), target.getAlias(), job.getHandler().getName());
     }
 
     private int stepScan(MvScanContext ctx) {
-        ResultSetReader rsr = null;
-        MvKey key = null;
-        if (ctx != null) {
-            String sql;
-            Params params;
-            key = ctx.getCurrentKey();
-            if (key == null || key.isEmpty()) {
-                sql = ctx.getSqlSelectStart();
-                params = Params.of("$limit", PrimitiveValue.newUint64(1000L));
-            } else {
-                sql = ctx.getSqlSelectNext();
-                params = Params.create();
-                params.put("$limit", PrimitiveValue.newUint64(1000L));
-                int index = 0;
-                for (String name : key.getTableInfo().getKey()) {
-                    params.put("$c" + String.valueOf(index + 1), key.convertValue(index));
-                    ++index;
+        MvKey key = ctx.getCurrentKey();
+        long tv = System.currentTimeMillis();
+        ResultSetReader rsr = readPage(ctx, governor.getPageSize());
+        governor.onPage(rsr.getRowCount(), System.currentTimeMillis() - tv);
+        processScanResult(ctx, key, rsr);
+        return rsr.getRowCount();
+    }
+
+    /**
+     * Read the next page of the keys after the current position.
+     *
+     * @param ctx Scan context
+     * @param limit Page size
+     * @return The keys read
+     */
+    private ResultSetReader readPage(MvScanContext ctx, int limit) {
+        return readPage(ctx, ctx.getCurrentKey(), limit);
+    }
+
+    private ResultSetReader readPage(MvScanContext ctx, MvKey key, int limit) {
+        String sql;
+        Params params = Params.create();
+        params.put("$limit", PrimitiveValue.newUint64(limit));
+        if (key == null || key.isEmpty()) {
+            sql = ctx.getSqlSelectStart();
+        } else {
+            sql = ctx.getSqlSelectNext();
+            putKey(params, "$c", key);
+        }
+        putRange(params, ctx.getRange());
+        return job.getYdb().sqlRead(sql, params).getResultSet(0);
+    }
+
+    /**
+     * Rebuild the MV rows on the server side, page by page. The keys are
+     * read to find the bounds of the page, and the MV rows for the page are
+     * re-computed by a single statement, which also removes the stale rows.
+     *
+     * @param ctx Scan context
+     */
+    private void rebuildLoop(MvScanContext ctx) {
+        while (ctx.isRunning()) {
+            MvKey from = ctx.getCurrentKey();
+            int limit = governor.getPageSize();
+            long tv = System.currentTimeMillis();
+            ResultSetReader rsr = readPage(ctx, limit);
+            int count = rsr.getRowCount();
+            MvKey upper = null;
+            if (count >= limit) {
+                while (rsr.next()) {
+                    upper = new MvKey(rsr, keyInfo);
                 }
             }
-            rsr = job.getYdb().sqlRead(sql, params).getResultSet(0);
+            rebuildPage(ctx, from, upper);
+            governor.onPage(count, System.currentTimeMillis() - tv);
+            MvMetrics.recordScanSubmit(metricsScope, count);
+            if (upper == null) {
+                // the last page also covers the tail of the range
+                LOG.info("Final rebuild step for target `{}` as {} in handler `{}`{}",
+                        target.getName(), target.getAlias(), job.getHandler().getName(),
+                        (ctx.getRange() == null) ? "" : ", range " + ctx.getRange().getIndex());
+                if (ctx.finishScan()) {
+                    scheduler.unregister(ticket);
+                    if (completion != null) {
+                        completion.onEndScan();
+                    }
+                }
+                ctx.finishProcessing();
+                return;
+            }
+            ctx.setCurrentKey(upper);
+            ctx.savePosition(upper);
+            rateLimiter(ctx, count);
         }
-        if (rsr != null) {
-            processScanResult(ctx, key, rsr);
-            return rsr.getRowCount();
+    }
+
+    private void rebuildPage(MvScanContext ctx, MvKey from, MvKey upper) {
+        boolean next = (from != null && !from.isEmpty());
+        boolean bounded = (upper != null);
+        job.beginDirectWrite();
+        try {
+            job.getYdb().sqlWrite(ctx.getSqlRebuild(next, bounded),
+                    makePageParams(ctx, from, upper));
+        } finally {
+            job.endDirectWrite();
+        }
+    }
+
+    /**
+     * Compare the MV rows with the sources, page by page. The keys are read
+     * to find the bounds of the page, and the page hashes are compared. For
+     * the mismatching pages the keys of the differing rows are submitted for
+     * processing.
+     *
+     * @param ctx Scan context
+     */
+    private void reconcileLoop(MvScanContext ctx) {
+        while (ctx.isRunning()) {
+            MvKey from = ctx.getCurrentKey();
+            int limit = governor.getPageSize();
+            long tv = System.currentTimeMillis();
+            ResultSetReader rsr = readPage(ctx, limit);
+            int count = rsr.getRowCount();
+            MvKey upper = null;
+            if (count >= limit) {
+                while (rsr.next()) {
+                    upper = new MvKey(rsr, keyInfo);
+                }
+            }
+            List<MvChangeRecord> output = reconcilePage(ctx, from, upper);
+            governor.onPage(count, System.currentTimeMillis() - tv);
+            if (upper == null) {
+                // the last page also covers the tail of the range
+                LOG.info("Final reconciliation step for target `{}` as {} in handler `{}`{}, "
+                        + "{} pages mismatched, {} rows repaired so far", target.getName(),
+                        target.getAlias(), job.getHandler().getName(),
+                        (ctx.getRange() == null) ? "" : ", range " + ctx.getRange().getIndex(),
+                        pagesMismatched.get(), rowsRepaired.get());
+                submitPage(ctx, from, output, true);
+                return;
+            }
+            submitPage(ctx, upper, output, false);
+            rateLimiter(ctx, count);
+        }
+    }
+
+    /**
+     * Compare the page hashes, and find the differing rows on mismatch.
+     *
+     * @return The keys of the rows to be refreshed or deleted
+     */
+    private List<MvChangeRecord> reconcilePage(MvScanContext ctx, MvKey from, MvKey upper) {
+        boolean next = (from != null && !from.isEmpty());
+        boolean bounded = (upper != null);
+        Params params = makePageParams(ctx, from, upper);
+        QueryReader qr = job.getYdb().sqlRead(ctx.getSqlReconcile(false, next, bounded), params);
+        ResultSetReader computed = qr.getResultSet(0);
+        ResultSetReader stored = qr.getResultSet(1);
+        if (computed.next() && stored.next()
+                && computed.getColumn(0).getUint64() == stored.getColumn(0).getUint64()
+                && computed.getColumn(1).getUint64() == stored.getColumn(1).getUint64()) {
+            return List.of();
+        }
+        ResultSetReader rsr = job.getYdb()
+                .sqlRead(ctx.getSqlReconcile(true, next, bounded), params)
+                .getResultSet(0);
+        int gonePos = rsr.getColumnIndex(MvSqlGen.SYS_GONE);
+        ArrayList<MvChangeRecord> output = new ArrayList<>(rsr.getRowCount());
+        while (rsr.next()) {
+            MvKey key = new MvKey(rsr, keyInfo);
+            var op = rsr.getColumn(gonePos).getBool()
+                    ? MvChangeRecord.OpType.DELETE : MvChangeRecord.OpType.UPSERT;
+            output.add(new MvChangeRecord(key, ctx.getTvStart(), op));
+        }
+        pagesMismatched.incrementAndGet();
+        rowsRepaired.addAndGet(output.size());
+        LOG.debug("Reconciliation of target `{}` as {} in handler `{}`: "
+                + "{} rows differ after {}", target.getName(), target.getAlias(),
+                job.getHandler().getName(), output.size(), from);
+        return output;
+    }
+
+    private static Params makePageParams(MvScanContext ctx, MvKey from, MvKey upper) {
+        Params params = Params.create();
+        if (from != null && !from.isEmpty()) {
+            putKey(params, "$c", from);
+        }
+        if (upper != null) {
+            putKey(params, "$h", upper);
+        }
+        putRange(params, ctx.getRange());
+        return params;
+    }
+
+    private static void putKey(Params params, String prefix, MvKey key) {
+        for (int index = 0; index < key.size(); ++index) {
+            params.put(prefix + String.valueOf(index + 1), key.convertValue(index));
+        }
+    }
+
+    private static void putRange(Params params, MvScanRange range) {
+        if (range != null) {
+            putPrefix(params, "$l", range.getLower());
+            putPrefix(params, "$u", range.getUpper());
+        }
+    }
+
+    /**
+     * Read the keys through the streaming ReadTable, submitting them in
+     * pages. On failure the scan is restarted after the current position.
+     *
+     * @param ctx Scan context
+     */
+    private void streamLoop(MvScanContext ctx) {
+        try (var reader = new MvScanStreamReader(ctx, job.getYdb().getTableClient())) {
+            MvKey key = ctx.getCurrentKey();
+            ArrayList<MvChangeRecord> output = new ArrayList<>(PAGE_SIZE);
+            ResultSetReader rsr;
+            while ((rsr = reader.next(key)) != null) {
+                while (rsr.next()) {
+                    key = new MvKey(rsr, keyInfo);
+                    output.add(new MvChangeRecord(key, ctx.getTvStart()));
+                    if (output.size() >= PAGE_SIZE) {
+                        submitPage(ctx, key, output);
+                        rateLimiter(ctx, output.size());
+                        output = new ArrayList<>(PAGE_SIZE);
+                        if (!ctx.isRunning()) {
+                            return;
+                        }
+                    }
+                }
+            }
+            if (!ctx.isRunning()) {
+                return;
+            }
+            if (!output.isEmpty()) {
+                submitPage(ctx, key, output);
+            }
+            // the empty page completes the scan
+            submitPage(ctx, key, List.of());
+        }
+    }
+
+    private static void putPrefix(Params params, String prefix, MvKeyPrefix kp) {
+        if (kp != null) {
+            for (int index = 0; index < kp.size(); ++index) {
+                params.put(prefix + String.valueOf(index + 1), kp.convertValue(index));
+            }
         }
-        return 0;
     }
 
     private void processScanResult(MvScanContext ctx, MvKey key, ResultSetReader rsr) {
-        MvScanCommitHandler handler;
-        if (rsr.getRowCount() > 0) {
-            ArrayList<MvChangeRecord> output = new ArrayList<>();
-            while (rsr.next()) {
-                key = new MvKey(rsr, keyInfo);
-                output.add(new MvChangeRecord(key, ctx.getTvStart()));
+        ArrayList<MvChangeRecord> output = new ArrayList<>(rsr.getRowCount());
+        while (rsr.next()) {
+            key = new MvKey(rsr, keyInfo);
+            output.add(new MvChangeRecord(key, ctx.getTvStart()));
+        }
+        submitPage(ctx, key, output);
+        if (ctx.getRange() == null) {
+            shareRiders(output, key);
+        }
+    }
+
+    /**
+     * Submit the page of the scanned keys for processing. The empty page
+     * marks the end of the scan.
+     *
+     * @param ctx Scan context
+     * @param key The last key of the page, or the current position for the
+     * empty page
+     * @param output The keys scanned
+     */
+    private void submitPage(MvScanContext ctx, MvKey key, List<MvChangeRecord> output) {
+        submitPage(ctx, key, output, output.isEmpty());
+    }
+
+    /**
+     * Submit the keys for processing. The position moves to the key after
+     * the keys are processed, or the scan completes for the terminal page.
+     *
+     * @param ctx Scan context
+     * @param key The last key of the page
+     * @param output The keys to be processed, possibly empty
+     * @param terminal true for the last page of the scan
+     */
+    private void submitPage(MvScanContext ctx, MvKey key,
+            List<MvChangeRecord> output, boolean terminal) {
+        MvScanCommitHandler handler = submitKeys(ctx, actions, key, output, terminal);
+        // report the metrics
+        MvMetrics.recordScanSubmit(metricsScope, output.size());
+        // mark the scan as completed
+        if (handler.isTerminal() && ctx.finishScan()) {
+            scheduler.unregister(ticket);
+            if (completion != null) {
+                completion.onEndScan();
             }
+        }
+    }
+
+    private MvScanCommitHandler submitKeys(MvScanContext ctx, MvApplyActionList acts,
+            MvKey key, List<MvChangeRecord> output, boolean terminal) {
+        if (!terminal) {
             ctx.setCurrentKey(key);
-            handler = new MvScanCommitHandler(ctx,
-                    key, output.size(), ctx.getCurrentHandler(), false);
-            if (actions != null) {
-                sink.submitCustom(actions, output, handler);
+        }
+        MvScanCommitHandler handler = new MvScanCommitHandler(ctx,
+                key, output.size(), ctx.getCurrentHandler(), terminal);
+        if (!output.isEmpty()) {
+            if (acts != null) {
+                sink.submitCustom(acts, output, handler);
             } else {
-                sink.submitRefresh(target, output, handler);
+                sink.submitRefresh(ctx.getTarget(), output, handler);
             }
-        } else {
-            handler = new MvScanCommitHandler(ctx,
-                    key, 0, ctx.getCurrentHandler(), true);
         }
         ctx.setCurrentHandler(handler);
         // apply check for the case when the final commit is already performed
         handler.commit(0);
-        // report the metrics
-        MvMetrics.recordScanSubmit(metricsScope, rsr.getRowCount());
-        // mark the scan as completed
-        if (handler.isTerminal() && completion != null) {
-            completion.onEndScan();
-        }
+        return handler;
     }
 
-    private void rateLimiter(int count) {
-        rateLimiterCounter += count;
-        if (rateLimiterCounter < rateLimiterLimit) {
-            return;
-        }
-        long tv = System.currentTimeMillis();
-        long diff = tv - rateLimiterStamp;
-        long fullTime = ((long) rateLimiterCounter) * 1000L / ((long) rateLimiterLimit);
-        rateLimiterCounter = 0;
-        rateLimiterStamp = tv;
-        if (fullTime > diff) {
-            final long howmuch = fullTime - diff;
+    private void rateLimiter(MvScanContext ctx, int count) {
+        final long howmuch = governor.reserve(count);
+        if (howmuch > 0L) {
             final long period = 50L;
-            diff = howmuch;
-            while (isRunning() && diff > 0L) {
-                YdbMisc.sleep(period);
+            long diff = howmuch;
+            while (ctx.isRunning() && diff > 0L) {
+                YdbMisc.sleep(Math.min(period, diff));
                 diff -= period;
             }
             // report the total delay in metrics
@@ -0,0 +1,166 @@
+package tech.ydb.mv.feeder;
+
+import tech.ydb.mv.metrics.MvMetrics;
+import tech.ydb.mv.model.MvScanSettings;
+
+/**
+ * Scan governor adjusts the scan page size and rate to the load.
+ *
+ * The page size follows the observed scan query latency, keeping it close to
+ * the configured target. The rate limit is halved each time the CDC lag or
+ * the apply queue fill of the handler is above the threshold, and is
+ * recovered gradually up to the configured limit when the load goes down
+ * (additive increase, multiplicative decrease). The resulting rate is also
+ * capped by the share of the runner-wide scan budget, when configured.
+ *
+ * @author zinal
+ */
+class MvScanGovernor {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvScanGovernor.class);
+
+    static final int MIN_PAGE = 100;
+    static final int MAX_PAGE = 10000;
+    static final int INITIAL_PAGE = 1000;
+    // rate adjustment period
+    static final long EVALUATE_MILLIS = 1000L;
+
+    private final MvSink sink;
+    private final MvScanRateLimiter limiter;
+    private final MvMetrics.ScanScope metricsScope;
+    private final MvScanScheduler.Ticket ticket;
+    private final int maxRate;
+    private final int minRate;
+    private final long latencyMillis;
+    private final long lagMillis;
+    private final int queuePercent;
+    private volatile int pageSize;
+    private int rate;
+    private boolean throttled;
+    private long lastEvaluation;
+
+    MvScanGovernor(MvSink sink, MvScanSettings settings, MvMetrics.ScanScope metricsScope) {
+        this(sink, settings, metricsScope, null);
+    }
+
+    MvScanGovernor(MvSink sink, MvScanSettings settings, MvMetrics.ScanScope metricsScope,
+            MvScanScheduler.Ticket ticket) {
+        this.sink = sink;
+        this.metricsScope = metricsScope;
+        this.ticket = ticket;
+        this.maxRate = settings.getRowsPerSecondLimit();
+        this.minRate = Math.max(1, maxRate / 100);
+        this.latencyMillis = settings.getPageLatencyMillis();
+        this.lagMillis = 1000L * settings.getThrottleLagSeconds();
+        this.queuePercent = settings.getThrottleQueuePercent();
+        this.limiter = new MvScanRateLimiter(maxRate);
+        this.pageSize = INITIAL_PAGE;
+        this.rate = maxRate;
+        this.throttled = false;
+        this.lastEvaluation = 0L;
+    }
+
+    int getPageSize() {
+        return pageSize;
+    }
+
+    int getRate() {
+        return limiter.getRowsPerSecond();
+    }
+
+    int getMaxRate() {
+        return maxRate;
+    }
+
+    /**
+     * Adjust the page size to the scan query latency.
+     *
+     * @param rows Number of rows returned by the query
+     * @param millis Query execution time
+     */
+    void onPage(int rows, long millis) {
+        if (latencyMillis <= 0L || millis <= 0L) {
+            return;
+        }
+        int current = pageSize;
+        double factor = ((double) latencyMillis) / ((double) millis);
+        if (factor > 1.0 && rows < current) {
+            // a partial page tells nothing about the bigger pages
+            return;
+        }
+        factor = Math.max(0.5, Math.min(2.0, factor));
+        int next = (int) (current * factor);
+        pageSize = Math.max(MIN_PAGE, Math.min(MAX_PAGE, next));
+    }
+
+    /**
+     * Reserve the time slot for the rows read, adjusting the rate limit to
+     * the load first.
+     *
+     * @param count Number of rows read
+     * @return Delay to wait for, milliseconds
+     */
+    long reserve(int count) {
+        long now = System.currentTimeMillis();
+        if (evaluationRequired(now)) {
+            evaluate(now, sink.getCdcLagMillis(), sink.getQueueUsagePercent());
+        }
+        return limiter.reserve(count, now);
+    }
+
+    private synchronized boolean evaluationRequired(long now) {
+        if (now - lastEvaluation < EVALUATE_MILLIS) {
+            return false;
+        }
+        lastEvaluation = now;
+        return true;
+    }
+
+    synchronized void evaluate(long now, long lag, int queue) {
+        if (maxRate > 0) {
+            adjustRate(lag, queue);
+        }
+        int effective = applyShare(rate);
+        limiter.setRowsPerSecond(effective);
+        MvMetrics.recordScanRate(metricsScope, effective, pageSize);
+    }
+
+    private void adjustRate(long lag, int queue) {
+        boolean overloaded = (lagMillis > 0L && lag > lagMillis)
+                || (queuePercent > 0 && queue >= queuePercent);
+        if (overloaded) {
+            rate = Math.max(minRate, rate / 2);
+            if (!throttled) {
+                LOG.info("Scan slowed down for target `{}` in handler `{}` due to load, "
+                        + "CDC lag {} ms, queue {}%", metricsScope.target(),
+                        metricsScope.handler(), lag, queue);
+                throttled = true;
+            }
+        } else if (rate < maxRate) {
+            rate = Math.min(maxRate, rate + Math.max(1, maxRate / 20));
+            if (rate == maxRate && throttled) {
+                LOG.info("Scan rate recovered for target `{}` in handler `{}`",
+                        metricsScope.target(), metricsScope.handler());
+                throttled = false;
+            }
+        }
+    }
+
+    /**
+     * Cap the rate by the share of the runner-wide scan budget.
+     *
+     * @param value The rate for the target, 0 if unlimited
+     * @return The effective rate, 0 if unlimited
+     */
+    private int applyShare(int value) {
+        int share = (ticket == null) ? 0 : ticket.getRateShare();
+        if (share <= 0) {
+            return value;
+        }
+        if (value <= 0) {
+            return share;
+        }
+        return Math.min(value, share);
+    }
+
+}
@@ -0,0 +1,231 @@
+package tech.ydb.mv.feeder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.data.MvKeyPrefix;
+import tech.ydb.mv.data.YdbStruct;
+import tech.ydb.mv.model.MvKeyInfo;
+import tech.ydb.mv.support.MvScanDao;
+
+/**
+ * Key range of the topmost source table, scanned independently of the other
+ * ranges of the same target.
+ *
+ * The bounds are the key prefixes obtained from the table partitioning. Each
+ * range has its own position record in the scan control table, which also
+ * keeps the range bounds, so that the scan can be resumed with the same
+ * layout even if the table partitioning has changed.
+ *
+ * @author zinal
+ */
+class MvScanRange {
+
+    private final int index;
+    // inclusive, null for the leftmost range
+    private final MvKeyPrefix lower;
+    // exclusive, null for the rightmost range
+    private final MvKeyPrefix upper;
+
+    MvScanRange(int index, MvKeyPrefix lower, MvKeyPrefix upper) {
+        this.index = index;
+        this.lower = lower;
+        this.upper = upper;
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    MvKeyPrefix getLower() {
+        return lower;
+    }
+
+    MvKeyPrefix getUpper() {
+        return upper;
+    }
+
+    int getLowerLength() {
+        return (lower == null) ? 0 : lower.size();
+    }
+
+    int getUpperLength() {
+        return (upper == null) ? 0 : upper.size();
+    }
+
+    /**
+     * @param targetName The name of the target being scanned.
+     * @return The name of the range in the scan control table.
+     */
+    String getName(String targetName) {
+        return targetName + MvScanDao.RANGE_SEPARATOR + index;
+    }
+
+    /**
+     * Split the key space into the ranges, grouping the adjacent partitions
+     * when there are more of them than needed.
+     *
+     * @param bounds The partition bounds, in key order.
+     * @param maxRanges Maximum number of ranges to be generated.
+     * @return The list of ranges covering the whole key space.
+     */
+    static List<MvScanRange> split(MvKeyPrefix[] bounds, int maxRanges) {
+        ArrayList<MvKeyPrefix> selected = new ArrayList<>();
+        int partCount = bounds.length + 1;
+        if (maxRanges >= partCount) {
+            for (MvKeyPrefix kp : bounds) {
+                selected.add(kp);
+            }
+        } else if (maxRanges > 1) {
+            // take every N-th boundary, where N = partCount / maxRanges
+            for (int i = 1; i < maxRanges; ++i) {
+                selected.add(bounds[(i * partCount) / maxRanges - 1]);
+            }
+        }
+        ArrayList<MvScanRange> output = new ArrayList<>(selected.size() + 1);
+        MvKeyPrefix lower = null;
+        for (MvKeyPrefix upper : selected) {
+            if (upper.size() == 0) {
+                continue;
+            }
+            if (lower != null && lower.compareTo(upper) >= 0) {
+                continue;
+            }
+            output.add(new MvScanRange(output.size(), lower, upper));
+            lower = upper;
+        }
+        output.add(new MvScanRange(output.size(), lower, null));
+        return output;
+    }
+
+    /**
+     * Split the part of the key space between the two keys into the ranges.
+     * The part is extended up to the partition boundary following the last
+     * key, and split along the partition boundaries between the keys.
+     *
+     * @param bounds The partition bounds, in key order.
+     * @param maxRanges Maximum number of ranges to be generated.
+     * @param keyFrom The first key, inclusive.
+     * @param keyTo The last key, inclusive.
+     * @return The list of ranges covering the keys.
+     */
+    static List<MvScanRange> split(MvKeyPrefix[] bounds, int maxRanges,
+            MvKey keyFrom, MvKey keyTo) {
+        int from = 0;
+        while (from < bounds.length && bounds[from].compareTo(keyFrom) <= 0) {
+            ++from;
+        }
+        int to = from;
+        while (to < bounds.length && bounds[to].compareTo(keyTo) <= 0) {
+            ++to;
+        }
+        // the upper bound is exclusive over its prefix, so it must be above
+        // the last key on the common prefix
+        MvKeyPrefix upper = (to < bounds.length) ? bounds[to] : null;
+        var inner = split(Arrays.copyOfRange(bounds, from, to), maxRanges);
+        ArrayList<MvScanRange> output = new ArrayList<>(inner.size());
+        for (MvScanRange r : inner) {
+            output.add(new MvScanRange(r.index,
+                    (r.lower == null) ? keyFrom : r.lower,
+                    (r.upper == null) ? upper : r.upper));
+        }
+        return output;
+    }
+
+    /**
+     * Generate the JSON representation of the range and its position.
+     *
+     * @param position The current scan position within the range, or null
+     * @return JSON document for the scan control table.
+     */
+    String toJson(MvKey position) {
+        JsonObject root = new JsonObject();
+        if (lower != null) {
+            root.add("lower", toStruct(lower).appendJson(new JsonObject()));
+        }
+        if (upper != null) {
+            root.add("upper", toStruct(upper).appendJson(new JsonObject()));
+        }
+        if (position != null && !position.isEmpty()) {
+            root.add("position", JsonParser.parseString(position.convertKeyToJson()));
+        }
+        return root.toString();
+    }
+
+    /**
+     * Parse the range from its JSON representation.
+     *
+     * @param index The range index
+     * @param json JSON document from the scan control table
+     * @param info The key information for the scanned table
+     * @return The range
+     */
+    static MvScanRange fromJson(int index, String json, MvKeyInfo info) {
+        JsonObject root = JsonParser.parseString(json).getAsJsonObject();
+        return new MvScanRange(index,
+                parsePrefix(root.get("lower"), info),
+                parsePrefix(root.get("upper"), info));
+    }
+
+    /**
+     * Parse the range position from its JSON representation.
+     *
+     * @param json JSON document from the scan control table
+     * @param info The key information for the scanned table
+     * @return The scan position, or null if the range was not scanned yet
+     */
+    static MvKey parsePosition(String json, MvKeyInfo info) {
+        JsonElement position = JsonParser.parseString(json)
+                .getAsJsonObject().get("position");
+        if (position == null || !position.isJsonObject()) {
+            return null;
+        }
+        return new MvKey(YdbStruct.fromJson(position.toString()), info);
+    }
+
+    /**
+     * Parse the range index from its name in the scan control table.
+     *
+     * @param name The range name
+     * @return Range index, or -1 if the name is not a range name
+     */
+    static int parseIndex(String name) {
+        int pos = name.lastIndexOf(MvScanDao.RANGE_SEPARATOR);
+        if (pos < 0) {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(name.substring(pos + 1));
+        } catch (NumberFormatException nfe) {
+            return -1;
+        }
+    }
+
+    private static MvKeyPrefix parsePrefix(JsonElement elem, MvKeyInfo info) {
+        if (elem == null || !elem.isJsonObject()) {
+            return null;
+        }
+        MvKeyPrefix kp = new MvKeyPrefix(YdbStruct.fromJson(elem.toString()), info);
+        return (kp.size() > 0) ? kp : null;
+    }
+
+    private static YdbStruct toStruct(MvKeyPrefix kp) {
+        YdbStruct ys = new YdbStruct(kp.size());
+        for (int pos = 0; pos < kp.size(); ++pos) {
+            ys.put(kp.getName(pos), kp.getValue(pos));
+        }
+        return ys;
+    }
+
+    @Override
+    public String toString() {
+        return "MvScanRange{" + index + ": " + lower + " .. " + upper + '}';
+    }
+
+}
@@ -0,0 +1,54 @@
+package tech.ydb.mv.feeder;
+
+/**
+ * Rate limiter shared between the concurrent scans of the key ranges of a
+ * single target. Each scan step reserves the time slot for the rows read,
+ * and waits until the slot is over.
+ *
+ * @author zinal
+ */
+class MvScanRateLimiter {
+
+    private volatile int rowsPerSecond;
+    // the moment when all the reserved slots are over
+    private long nextFree;
+
+    MvScanRateLimiter(int rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+        this.nextFree = 0L;
+    }
+
+    int getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    void setRowsPerSecond(int rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    /**
+     * Reserve the time slot for the rows read.
+     *
+     * @param count Number of rows read
+     * @return Delay to wait for, milliseconds
+     */
+    long reserve(int count) {
+        return reserve(count, System.currentTimeMillis());
+    }
+
+    synchronized long reserve(int count, long now) {
+        final int rowsPerSecond = this.rowsPerSecond;
+        if (rowsPerSecond <= 0 || count <= 0) {
+            return 0L;
+        }
+        // up to a second of the unused time is credited,
+        // which covers the time spent on reading the rows
+        long floor = now - 1000L;
+        if (nextFree < floor) {
+            nextFree = floor;
+        }
+        nextFree += ((long) count) * 1000L / ((long) rowsPerSecond);
+        return Math.max(0L, nextFree - now);
+    }
+
+}
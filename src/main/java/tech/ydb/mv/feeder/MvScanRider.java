@@ -0,0 +1,89 @@
+package tech.ydb.mv.feeder;
+
+import tech.ydb.mv.apply.MvApplyActionList;
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.metrics.MvMetrics;
+import tech.ydb.mv.model.MvScanSettings;
+import tech.ydb.mv.model.MvViewExpr;
+
+/**
+ * Target attached to the running scan of another target over the same
+ * topmost table. The rider gets the keys of the shared pass from its join
+ * position up to the end of the table, and then, on the wrap-around lap,
+ * from the start of the table up to the join position.
+ *
+ * @author zinal
+ */
+class MvScanRider {
+
+    private final MvScanContext context;
+    // the settings requested, to restart the target as its own scan
+    private final MvScanSettings settings;
+    private final MvApplyActionList actions;
+    private final MvMetrics.ScanScope metricsScope;
+    // the position of the shared pass when the rider has joined
+    private final MvKey joinKey;
+    // true after the shared pass has passed the end of the table
+    private boolean wrapped;
+
+    MvScanRider(MvScanContext context, MvScanSettings settings, MvApplyActionList actions,
+            MvMetrics.ScanScope metricsScope, MvKey joinKey) {
+        this.context = context;
+        this.settings = settings;
+        this.actions = actions;
+        this.metricsScope = metricsScope;
+        this.joinKey = (joinKey == null || joinKey.isEmpty()) ? null : joinKey;
+        this.wrapped = false;
+    }
+
+    MvScanContext getContext() {
+        return context;
+    }
+
+    MvViewExpr getTarget() {
+        return context.getTarget();
+    }
+
+    MvScanSettings getSettings() {
+        return settings;
+    }
+
+    MvApplyActionList getActions() {
+        return actions;
+    }
+
+    MvMetrics.ScanScope getMetricsScope() {
+        return metricsScope;
+    }
+
+    MvKey getJoinKey() {
+        return joinKey;
+    }
+
+    boolean isWrapped() {
+        return wrapped;
+    }
+
+    /**
+     * Move to the wrap-around lap at the end of the table.
+     *
+     * @return true, if the rider needs the wrap-around lap, false if it has
+     * joined at the start of the table, and so it is done.
+     */
+    boolean wrap() {
+        if (joinKey == null) {
+            return false;
+        }
+        wrapped = true;
+        return true;
+    }
+
+    /**
+     * @param key The key of the shared pass
+     * @return true, if the key is still needed on the wrap-around lap
+     */
+    boolean isBeforeJoin(MvKey key) {
+        return key.compareTo(joinKey) <= 0;
+    }
+
+}
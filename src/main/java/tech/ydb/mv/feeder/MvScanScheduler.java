@@ -0,0 +1,270 @@
+package tech.ydb.mv.feeder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import tech.ydb.mv.metrics.MvMetrics;
+
+/**
+ * Runner-wide scheduler for the scans, enforcing the global I/O budget.
+ *
+ * The budget consists of the total rows-per-second rate and the number of
+ * concurrent scan queries (scan threads) for all the scans in the runner.
+ * The scan thread acquires a query slot before reading each key range, and
+ * waits in the queue when all the slots are taken. The free slot is granted
+ * to the waiting scan with the least running slots per unit of weight, the
+ * earliest request first. The total rate is split between the running scans
+ * proportionally to their weights.
+ *
+ * @author zinal
+ */
+public class MvScanScheduler {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvScanScheduler.class);
+
+    public enum State {
+        WAITING,
+        RUNNING
+    }
+
+    /**
+     * Scan state report.
+     *
+     * @param handler Handler name
+     * @param target Target name
+     * @param alias Target alias
+     * @param state Whether the scan is waiting for the query slot, or running
+     * @param weight Scan weight
+     * @param running Number of query slots held by the scan
+     * @param waiting Number of scan threads waiting for the query slot
+     * @param rateShare Share of the total rate, rows per second, 0 if
+     * unlimited
+     */
+    public static record Status(String handler, String target, String alias,
+            State state, int weight, int running, int waiting, int rateShare) {
+    }
+
+    private final LinkedHashSet<Ticket> tickets = new LinkedHashSet<>();
+    private volatile int totalRate;
+    private volatile int maxQueries;
+    private int activeQueries;
+    private long requestCounter;
+
+    /**
+     * Create the scheduler with the specified budget.
+     *
+     * @param totalRate Total rows per second for all the scans, 0 if
+     * unlimited
+     * @param maxQueries Maximum number of concurrent scan queries, 0 if
+     * unlimited
+     */
+    public MvScanScheduler(int totalRate, int maxQueries) {
+        this.totalRate = totalRate;
+        this.maxQueries = maxQueries;
+        this.activeQueries = 0;
+        this.requestCounter = 0L;
+    }
+
+    public int getTotalRate() {
+        return totalRate;
+    }
+
+    public int getMaxQueries() {
+        return maxQueries;
+    }
+
+    /**
+     * Change the budget. The new limits apply to the next slot requests and
+     * rate evaluations.
+     *
+     * @param totalRate Total rows per second for all the scans, 0 if
+     * unlimited
+     * @param maxQueries Maximum number of concurrent scan queries, 0 if
+     * unlimited
+     */
+    public synchronized void configure(int totalRate, int maxQueries) {
+        this.totalRate = totalRate;
+        this.maxQueries = maxQueries;
+        notifyAll();
+    }
+
+    /**
+     * Register the scan with the scheduler.
+     *
+     * @param scope Scan identification
+     * @param weight Scan weight, 1 or more
+     * @return The scan ticket
+     */
+    public synchronized Ticket register(MvMetrics.ScanScope scope, int weight) {
+        var t = new Ticket(this, scope, Math.max(1, weight));
+        tickets.add(t);
+        return t;
+    }
+
+    /**
+     * Remove the scan from the scheduler. The slots still held by the scan
+     * threads are returned on release.
+     *
+     * @param t The scan ticket
+     */
+    public synchronized void unregister(Ticket t) {
+        if (t != null && tickets.remove(t)) {
+            MvMetrics.recordScanQueries(t.scope, 0, 0);
+        }
+    }
+
+    /**
+     * Wait for the free query slot.
+     *
+     * @param t The scan ticket
+     * @param running Condition to continue waiting
+     * @return true if the slot has been acquired, false if the wait was
+     * cancelled
+     */
+    public synchronized boolean acquire(Ticket t, BooleanSupplier running) {
+        ++requestCounter;
+        if (t.waiting == 0) {
+            // the earliest pending request of the scan defines its position
+            t.firstRequest = requestCounter;
+        }
+        t.waiting += 1;
+        boolean queued = false;
+        try {
+            while (running.getAsBoolean()) {
+                if (isGranted(t)) {
+                    t.running += 1;
+                    activeQueries += 1;
+                    if (queued) {
+                        LOG.info("Scan for target `{}` as {} in handler `{}` resumed, "
+                                + "{} of {} scan queries active", t.scope.target(),
+                                t.scope.alias(), t.scope.handler(), activeQueries, maxQueries);
+                    }
+                    return true;
+                }
+                if (!queued) {
+                    LOG.info("Scan for target `{}` as {} in handler `{}` queued, "
+                            + "{} of {} scan queries active", t.scope.target(),
+                            t.scope.alias(), t.scope.handler(), activeQueries, maxQueries);
+                    queued = true;
+                }
+                MvMetrics.recordScanQueries(t.scope, t.running, t.waiting);
+                try {
+                    wait(100L);
+                } catch (InterruptedException ix) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            return false;
+        } finally {
+            t.waiting -= 1;
+            MvMetrics.recordScanQueries(t.scope, t.running, t.waiting);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Return the query slot.
+     *
+     * @param t The scan ticket
+     */
+    public synchronized void release(Ticket t) {
+        if (t.running > 0) {
+            t.running -= 1;
+            activeQueries -= 1;
+        }
+        MvMetrics.recordScanQueries(t.scope, t.running, t.waiting);
+        notifyAll();
+    }
+
+    private boolean isGranted(Ticket t) {
+        int limit = maxQueries;
+        if (limit > 0 && activeQueries >= limit) {
+            return false;
+        }
+        for (Ticket other : tickets) {
+            if (other != t && other.waiting > 0 && other.isAhead(t)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compute the share of the total rate for the scan, proportional to its
+     * weight among the running scans.
+     *
+     * @param t The scan ticket
+     * @return Rows per second, 0 if unlimited
+     */
+    synchronized int getRateShare(Ticket t) {
+        int rate = totalRate;
+        if (rate <= 0) {
+            return 0;
+        }
+        long totalWeight = t.weight;
+        for (Ticket other : tickets) {
+            if (other != t && other.running > 0) {
+                totalWeight += other.weight;
+            }
+        }
+        return (int) Math.max(1L, (rate * (long) t.weight) / totalWeight);
+    }
+
+    /**
+     * @return The states of the scans which are waiting or running.
+     */
+    public synchronized List<Status> getScans() {
+        var output = new ArrayList<Status>();
+        for (Ticket t : tickets) {
+            if (t.running == 0 && t.waiting == 0) {
+                continue;
+            }
+            output.add(new Status(t.scope.handler(), t.scope.target(), t.scope.alias(),
+                    (t.running > 0) ? State.RUNNING : State.WAITING,
+                    t.weight, t.running, t.waiting,
+                    (t.running > 0) ? getRateShare(t) : 0));
+        }
+        return output;
+    }
+
+    /**
+     * Registration of a single scan in the scheduler.
+     */
+    public static class Ticket {
+
+        private final MvScanScheduler owner;
+        private final MvMetrics.ScanScope scope;
+        private final int weight;
+        private int running;
+        private int waiting;
+        private long firstRequest;
+
+        private Ticket(MvScanScheduler owner, MvMetrics.ScanScope scope, int weight) {
+            this.owner = owner;
+            this.scope = scope;
+            this.weight = weight;
+        }
+
+        int getRateShare() {
+            return owner.getRateShare(this);
+        }
+
+        /**
+         * Fair order: less running slots per weight unit first, then the
+         * earlier request.
+         */
+        private boolean isAhead(Ticket other) {
+            long mine = ((long) running) * other.weight;
+            long theirs = ((long) other.running) * weight;
+            if (mine != theirs) {
+                return mine < theirs;
+            }
+            return firstRequest < other.firstRequest;
+        }
+
+    }
+
+}
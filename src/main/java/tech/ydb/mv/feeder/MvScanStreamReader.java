@@ -0,0 +1,157 @@
+package tech.ydb.mv.feeder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import tech.ydb.core.Status;
+import tech.ydb.core.grpc.GrpcReadStream;
+import tech.ydb.table.Session;
+import tech.ydb.table.TableClient;
+import tech.ydb.table.query.ReadTablePart;
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.settings.ReadTableSettings;
+
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.model.MvTableInfo;
+
+/**
+ * Streaming reader of the topmost source keys, based on the ReadTable API.
+ *
+ * The table is read in key order starting after the current scan position,
+ * within the bounds of the scan range, if any. Only the key columns are
+ * fetched. The chunks received from the stream are passed to the scan thread
+ * through a queue, without blocking the transport thread delivering them.
+ * When the scan is throttled and the queue fills up, the stream is
+ * cancelled, and a new one is opened after the last key received once the
+ * scan thread has consumed the queued chunks.
+ *
+ * @author zinal
+ */
+class MvScanStreamReader implements AutoCloseable {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvScanStreamReader.class);
+
+    private static final int CHUNK_ROWS = 10000;
+    private static final int QUEUE_CHUNKS = 4;
+
+    private final MvScanContext ctx;
+    private final MvTableInfo tableInfo;
+    private final TableClient tableClient;
+    private final LinkedBlockingQueue<ResultSetReader> chunks;
+    private ReadStream current;
+
+    MvScanStreamReader(MvScanContext ctx, TableClient tableClient) {
+        this.ctx = ctx;
+        this.tableInfo = ctx.getTableInfo();
+        this.tableClient = tableClient;
+        this.chunks = new LinkedBlockingQueue<>();
+        this.current = new ReadStream(ctx.getCurrentKey());
+    }
+
+    private ReadTableSettings makeSettings(MvKey position) {
+        var builder = ReadTableSettings.newBuilder()
+                .orderedRead(true)
+                .columns(tableInfo.getKey().toArray(String[]::new))
+                .batchLimitRows(CHUNK_ROWS);
+        MvScanRange range = ctx.getRange();
+        if (position != null && !position.isEmpty()) {
+            builder.fromKeyExclusive(position.convertKeyToTupleValue());
+        } else if (range != null && range.getLower() != null) {
+            builder.fromKeyInclusive(range.getLower().convertKeyToTupleValue());
+        }
+        if (range != null && range.getUpper() != null) {
+            builder.toKeyExclusive(range.getUpper().convertKeyToTupleValue());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Wait for the next chunk of the keys.
+     *
+     * @param position The last key consumed, used to resume the paused stream
+     * @return The next chunk, or null at the end of the stream or when the
+     * scan has been stopped.
+     */
+    ResultSetReader next(MvKey position) {
+        while (ctx.isRunning()) {
+            ResultSetReader rsr;
+            try {
+                rsr = chunks.poll(100L, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ix) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+            if (rsr != null) {
+                return rsr;
+            }
+            if (current.done.isDone()) {
+                // all the chunks are queued before the stream completion
+                rsr = chunks.poll();
+                if (rsr != null) {
+                    return rsr;
+                }
+                if (!current.paused.get()) {
+                    current.done.join().expectSuccess("ReadTable failed for `"
+                            + tableInfo.getPath() + "`");
+                    return null;
+                }
+                // all the keys received are consumed, continue after them
+                current.close();
+                current = new ReadStream(position);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        current.close();
+        chunks.clear();
+    }
+
+    /**
+     * The ReadTable stream over its own session.
+     */
+    private class ReadStream {
+
+        final Session session;
+        final GrpcReadStream<ReadTablePart> stream;
+        final CompletableFuture<Status> done;
+        // true, if the stream has been cancelled due to the queue overflow
+        final AtomicBoolean paused = new AtomicBoolean(false);
+
+        ReadStream(MvKey position) {
+            this.session = tableClient.createSession(Duration.ofSeconds(10)).join().getValue();
+            try {
+                this.stream = session.executeReadTable(tableInfo.getPath(), makeSettings(position));
+                this.done = stream.start(part -> onPart(part));
+            } catch (RuntimeException ex) {
+                session.close();
+                throw ex;
+            }
+        }
+
+        /**
+         * Called on the transport thread, must not block.
+         */
+        void onPart(ReadTablePart part) {
+            chunks.add(part.getResultSetReader());
+            if (chunks.size() >= QUEUE_CHUNKS && paused.compareAndSet(false, true)) {
+                LOG.debug("Pausing the read stream for `{}`", tableInfo.getPath());
+                stream.cancel();
+            }
+        }
+
+        void close() {
+            if (!done.isDone()) {
+                LOG.debug("Cancelling the read stream for `{}`", tableInfo.getPath());
+                stream.cancel();
+            }
+            session.close();
+        }
+    }
+
+}
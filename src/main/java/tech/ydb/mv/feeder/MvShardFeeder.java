@@ -0,0 +1,303 @@
+package tech.ydb.mv.feeder;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import tech.ydb.mv.data.MvChangeRecord;
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.model.MvInput;
+import tech.ydb.mv.model.MvKeyInfo;
+import tech.ydb.mv.model.MvShard;
+import tech.ydb.mv.model.MvViewExpr;
+import tech.ydb.mv.support.MvShardDao;
+import tech.ydb.mv.support.YdbMisc;
+import tech.ydb.mv.svc.MvJobContext;
+
+/**
+ * Shard feeder reads the keys forwarded to the current shard by the other
+ * shards of the same handler, and submits them for local processing.
+ *
+ * The queue entries are deleted once the corresponding keys are processed.
+ * The queue is periodically re-read from the start, to pick up the entries
+ * written with an older timestamp (e.g. by the runner with a skewed clock).
+ * The entries still in progress are skipped on re-reads.
+ *
+ * @author zinal
+ */
+public class MvShardFeeder {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvShardFeeder.class);
+
+    private static final AtomicLong COUNTER = new AtomicLong(0L);
+    private static final int BATCH_SIZE = 1000;
+    private static final int PENDING_LIMIT = 4 * BATCH_SIZE;
+    private static final long IDLE_SLEEP_MILLIS = 1000L;
+    private static final long REWIND_MILLIS = 30000L;
+
+    private final MvJobContext job;
+    private final MvSink sink;
+    private final MvShard shard;
+    private final MvShardDao dao;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    // (tv, seqno) of the entries submitted and not yet deleted from the queue
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    // the last entry read, null to re-read from the start of the queue
+    private MvShardDao.Entry position = null;
+    // time of the next re-read from the start of the queue
+    private long rewindTime = 0L;
+
+    public MvShardFeeder(MvJobContext job, MvSink sink) {
+        this.job = job;
+        this.sink = sink;
+        this.shard = job.getShard();
+        this.dao = new MvShardDao(job.getYdb(), shard.getHandlerName());
+    }
+
+    public boolean isRunning() {
+        return running.get() && job.isRunning();
+    }
+
+    public synchronized boolean start() {
+        if (!job.isRunning()) {
+            throw new IllegalStateException("Refusing to start shard feeder "
+                    + "for a stopped handler job " + shard.getJobName());
+        }
+        if (running.getAndSet(true)) {
+            return false;
+        }
+        Thread thread = new Thread(() -> safeRun());
+        thread.setDaemon(true);
+        thread.setName("mv-shard-feeder-" + shard.getJobName());
+        thread.start();
+        return true;
+    }
+
+    public synchronized boolean stop() {
+        return running.getAndSet(false);
+    }
+
+    private void sleepSome(long millis) {
+        final long tvFinish = System.currentTimeMillis() + millis;
+        while (isRunning()) {
+            YdbMisc.sleep(100L);
+            if (System.currentTimeMillis() >= tvFinish) {
+                return;
+            }
+        }
+    }
+
+    private void safeRun() {
+        LOG.info("Started shard feeder for job `{}`", shard.getJobName());
+        while (isRunning()) {
+            try {
+                run();
+            } catch (Exception ex) {
+                LOG.warn("Failed shard feeder for job `{}` - retry pending...",
+                        shard.getJobName(), ex);
+                sleepSome(5000L);
+            }
+        }
+        LOG.info("Finished shard feeder for job `{}`", shard.getJobName());
+    }
+
+    private void run() {
+        while (isRunning()) {
+            if (inFlight.size() >= PENDING_LIMIT) {
+                // too many entries in progress, let them complete
+                sleepSome(100L);
+                continue;
+            }
+            long tv = System.currentTimeMillis();
+            if (tv >= rewindTime) {
+                // the entries written with an older timestamp may have
+                // been skipped, so start over from time to time
+                position = null;
+                rewindTime = tv + REWIND_MILLIS;
+            }
+            var entries = dao.read(shard.getIndex(), position, BATCH_SIZE);
+            if (entries.isEmpty()) {
+                if (inFlight.isEmpty()) {
+                    position = null;
+                }
+                sleepSome(IDLE_SLEEP_MILLIS);
+                continue;
+            }
+            if (!process(entries)) {
+                return;
+            }
+        }
+    }
+
+    private static String toId(MvShardDao.Entry e) {
+        return e.getTv().toString() + "/" + Long.toUnsignedString(e.getSeqno());
+    }
+
+    private boolean process(List<MvShardDao.Entry> entries) {
+        // group the entries by the source table and the route,
+        // each group is submitted separately
+        var groups = new LinkedHashMap<String, ArrayList<MvShardDao.Entry>>();
+        for (var e : entries) {
+            if (inFlight.contains(toId(e))) {
+                // already submitted, re-read after the rewind
+                continue;
+            }
+            String route = e.getSource() + "\n" + e.getTargetName() + "\n" + e.getTargetAlias();
+            groups.computeIfAbsent(route, k -> new ArrayList<>()).add(e);
+        }
+        MvShardDao.Entry failed = null;
+        for (var group : groups.values()) {
+            if (!safeSubmit(group)) {
+                failed = group.get(0);
+                break;
+            }
+        }
+        if (failed == null) {
+            position = entries.get(entries.size() - 1);
+            return true;
+        }
+        // continue right before the first entry not submitted, the entries
+        // submitted after it are skipped on the re-read
+        int index = entries.indexOf(failed);
+        if (index > 0) {
+            position = entries.get(index - 1);
+        }
+        return false;
+    }
+
+    private boolean safeSubmit(ArrayList<MvShardDao.Entry> group) {
+        for (var e : group) {
+            inFlight.add(toId(e));
+        }
+        boolean success = false;
+        try {
+            success = submit(group);
+        } finally {
+            if (!success) {
+                release(group);
+            }
+        }
+        return success;
+    }
+
+    private void release(List<MvShardDao.Entry> entries) {
+        for (var e : entries) {
+            inFlight.remove(toId(e));
+        }
+    }
+
+    private boolean submit(ArrayList<MvShardDao.Entry> group) {
+        var first = group.get(0);
+        var handler = job.getHandler();
+        MvInput input = handler.getInput(first.getSource());
+        MvViewExpr target = null;
+        if (first.getTargetName() != null) {
+            target = handler.getPart(first.getTargetName(), first.getTargetAlias());
+        }
+        var commitHandler = new ShardCommitHandler(group);
+        if (input == null || input.getTableInfo() == null
+                || (first.getTargetName() != null && target == null)) {
+            LOG.warn("Skipping {} forwarded keys for unexpected table `{}` "
+                    + "or target `{}` in job `{}`", group.size(), first.getSource(),
+                    first.getTargetName(), shard.getJobName());
+            commitHandler.commit(group.size());
+            return true;
+        }
+        MvKeyInfo keyInfo = input.getTableInfo().getKeyInfo();
+        var records = new ArrayList<MvChangeRecord>(group.size());
+        for (var e : group) {
+            records.add(new MvChangeRecord(new MvKey(e.getKeyJson(), keyInfo), e.getTv(),
+                    MvChangeRecord.OpType.valueOf(e.getOperation())));
+        }
+        if (target == null) {
+            return sink.submit(records, commitHandler);
+        }
+        return sink.submitRefresh(target, records, commitHandler);
+    }
+
+    /**
+     * Deletes the forwarded entries from the queue when they are processed.
+     */
+    class ShardCommitHandler implements MvCommitHandler {
+
+        private final long instance;
+        private final List<MvShardDao.Entry> entries;
+        private int counter;
+        private boolean committed;
+
+        ShardCommitHandler(List<MvShardDao.Entry> entries) {
+            this.instance = COUNTER.incrementAndGet();
+            this.entries = entries;
+            this.counter = entries.size();
+            this.committed = false;
+        }
+
+        @Override
+        public long getInstance() {
+            return instance;
+        }
+
+        @Override
+        public synchronized int getCounter() {
+            return counter;
+        }
+
+        @Override
+        public synchronized void commit(int count) {
+            if (committed || counter < 0) {
+                return;
+            }
+            counter -= Math.min(count, counter);
+            if (counter == 0) {
+                committed = true;
+                try {
+                    dao.delete(entries);
+                } catch (Exception ex) {
+                    // the entries will be re-processed, which is safe
+                    LOG.error("Failed to delete {} processed entries for job `{}`",
+                            entries.size(), shard.getJobName(), ex);
+                }
+                release(entries);
+            }
+        }
+
+        @Override
+        public synchronized void reserve(int count) {
+            if (count > 0 && !committed) {
+                counter += count;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 53 * hash + (int) (this.instance ^ (this.instance >>> 32));
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null) {
+                return false;
+            }
+            if (getClass() != obj.getClass()) {
+                return false;
+            }
+            final ShardCommitHandler other = (ShardCommitHandler) obj;
+            return this.instance == other.instance;
+        }
+
+        @Override
+        public String toString() {
+            return "ShardCommitHandler{" + instance + '}';
+        }
+    }
+
+}
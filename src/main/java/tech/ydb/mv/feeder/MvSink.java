@@ -59,4 +59,19 @@ public interface MvSink {
         return submit(records, handler);
     }
 
+    /**
+     * @return The fill rate of the processing queue, percent.
+     */
+    default int getQueueUsagePercent() {
+        return 0;
+    }
+
+    /**
+     * @return The age of the recent CDC changes on submission, milliseconds,
+     * or 0 if not known.
+     */
+    default long getCdcLagMillis() {
+        return 0L;
+    }
+
 }
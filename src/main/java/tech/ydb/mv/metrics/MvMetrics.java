@@ -171,6 +171,15 @@ public final class MvMetrics {
         m.processingTime.labelValues(labels).observe(toSeconds(durationNs));
     }
 
+    public static void recordDeletesSkipped(ActionScope scope, int count) {
+        var m = metrics;
+        if (scope == null || m == null || count <= 0) {
+            return;
+        }
+        String[] labels = getActionLabels(scope, "delete");
+        m.deletesSkipped.labelValues(labels).inc(count);
+    }
+
     public static void recordSqlTime(ActionScope scope, String action, long startNs) {
         var m = metrics;
         if (scope == null || m == null) {
@@ -181,6 +190,64 @@ public final class MvMetrics {
         m.sqlTime.labelValues(labels).observe(toSeconds(durationNs));
     }
 
+    public static void recordDictLogWrite(String table, long startNs, int count) {
+        var m = metrics;
+        if (m == null) {
+            return;
+        }
+        long durationNs = System.nanoTime() - startNs;
+        String[] labels = {safeLabel(table)};
+        m.dictLogWriteTime.labelValues(labels).observe(toSeconds(durationNs));
+        if (count > 0) {
+            m.dictLogRecords.labelValues(labels).inc(count);
+        }
+    }
+
+    public static void recordDictLogCoalesced(String table, int count) {
+        var m = metrics;
+        if (m == null || count <= 0) {
+            return;
+        }
+        String[] labels = {safeLabel(table)};
+        m.dictLogCoalesced.labelValues(labels).inc(count);
+    }
+
+    public static void recordDictLogError(String table, int count) {
+        var m = metrics;
+        if (m == null || count <= 0) {
+            return;
+        }
+        String[] labels = {safeLabel(table)};
+        m.dictLogErrors.labelValues(labels).inc(count);
+    }
+
+    public static void recordDictLogPending(String table, int count) {
+        var m = metrics;
+        if (m == null) {
+            return;
+        }
+        String[] labels = {safeLabel(table)};
+        m.dictLogPending.labelValues(labels).set(count);
+    }
+
+    public static void recordDictHistCompact(String table, String source,
+            long startNs, int deleted, int merged, long rows) {
+        var m = metrics;
+        if (m == null) {
+            return;
+        }
+        long durationNs = System.nanoTime() - startNs;
+        String[] labels = {safeLabel(table), safeLabel(source)};
+        m.dictHistCompactTime.labelValues(labels).observe(toSeconds(durationNs));
+        if (deleted > 0) {
+            m.dictHistDeleted.labelValues(labels).inc(deleted);
+        }
+        if (merged > 0) {
+            m.dictHistMerged.labelValues(labels).inc(merged);
+        }
+        m.dictHistRows.labelValues(labels).set(rows);
+    }
+
     public static void recordScanSubmit(ScanScope scope, int count) {
         var m = metrics;
         if (scope == null || m == null || count <= 0) {
@@ -199,6 +266,26 @@ public final class MvMetrics {
         m.scanDelays.labelValues(labels).inc(delayMillis);
     }
 
+    public static void recordScanRate(ScanScope scope, int rowsPerSecond, int pageSize) {
+        var m = metrics;
+        if (scope == null || m == null) {
+            return;
+        }
+        String[] labels = getScanLabels(scope);
+        m.scanRate.labelValues(labels).set(rowsPerSecond);
+        m.scanPageSize.labelValues(labels).set(pageSize);
+    }
+
+    public static void recordScanQueries(ScanScope scope, int running, int waiting) {
+        var m = metrics;
+        if (scope == null || m == null) {
+            return;
+        }
+        String[] labels = getScanLabels(scope);
+        m.scanQueriesRunning.labelValues(labels).set(running);
+        m.scanQueriesWaiting.labelValues(labels).set(waiting);
+    }
+
     private static String[] getActionLabels(ActionScope scope, String action) {
         String[] labels = {
             safeLabel(scope.type()),
@@ -284,10 +371,26 @@ public final class MvMetrics {
         final Histogram cdcParseTime;
         final Histogram cdcSubmitTime;
 
+        final Counter dictLogRecords;
+        final Counter dictLogErrors;
+        final Counter dictLogCoalesced;
+        final Gauge dictLogPending;
+        final Histogram dictLogWriteTime;
+
+        final Counter dictHistDeleted;
+        final Counter dictHistMerged;
+        final Gauge dictHistRows;
+        final Histogram dictHistCompactTime;
+
         final Counter scanRecords;
         final Counter scanDelays;
+        final Gauge scanRate;
+        final Gauge scanPageSize;
+        final Gauge scanQueriesRunning;
+        final Gauge scanQueriesWaiting;
         final Counter processedRecords;
         final Counter processingErrors;
+        final Counter deletesSkipped;
         final Histogram processingTime;
         final Histogram sqlTime;
 
@@ -341,6 +444,59 @@ public final class MvMetrics {
                     .unit(Unit.SECONDS)
                     .register(registry);
 
+            String[] dictLabels = {"table"};
+            dictLogRecords = Counter.builder()
+                    .name("ydbmv_dict_log_records")
+                    .help("Dictionary change records written to the history table")
+                    .labelNames(dictLabels)
+                    .register(registry);
+            dictLogErrors = Counter.builder()
+                    .name("ydbmv_dict_log_errors")
+                    .help("Dictionary change records in the failed history writes")
+                    .labelNames(dictLabels)
+                    .register(registry);
+            dictLogCoalesced = Counter.builder()
+                    .name("ydbmv_dict_log_coalesced")
+                    .help("Dictionary change records merged into the pending records of the same key")
+                    .labelNames(dictLabels)
+                    .register(registry);
+            dictLogPending = Gauge.builder()
+                    .name("ydbmv_dict_log_pending")
+                    .help("Dictionary change records accepted but not written yet")
+                    .labelNames(dictLabels)
+                    .register(registry);
+            dictLogWriteTime = Histogram.builder()
+                    .name("ydbmv_dict_log_write_seconds")
+                    .help("Dictionary history batch write time histogram")
+                    .labelNames(dictLabels)
+                    .classicUpperBounds(secondsBounds)
+                    .unit(Unit.SECONDS)
+                    .register(registry);
+
+            String[] dictHistLabels = {"table", "source"};
+            dictHistDeleted = Counter.builder()
+                    .name("ydbmv_dict_hist_deleted")
+                    .help("Dictionary history rows deleted as processed by all handlers")
+                    .labelNames(dictHistLabels)
+                    .register(registry);
+            dictHistMerged = Counter.builder()
+                    .name("ydbmv_dict_hist_merged")
+                    .help("Dictionary history rows merged into the later rows for the same key")
+                    .labelNames(dictHistLabels)
+                    .register(registry);
+            dictHistRows = Gauge.builder()
+                    .name("ydbmv_dict_hist_rows")
+                    .help("Dictionary history rows left after the compaction")
+                    .labelNames(dictHistLabels)
+                    .register(registry);
+            dictHistCompactTime = Histogram.builder()
+                    .name("ydbmv_dict_hist_compact_seconds")
+                    .help("Dictionary history compaction time histogram")
+                    .labelNames(dictHistLabels)
+                    .classicUpperBounds(secondsBounds)
+                    .unit(Unit.SECONDS)
+                    .register(registry);
+
             String[] scanLabels = {"handler", "target", "alias"};
             scanRecords = Counter.builder()
                     .name("ydbmv_scan_records_submitted")
@@ -352,6 +508,26 @@ public final class MvMetrics {
                     .help("Total milliseconds of scan delays due to rate limiter")
                     .labelNames(scanLabels)
                     .register(registry);
+            scanRate = Gauge.builder()
+                    .name("ydbmv_scan_rate")
+                    .help("Effective scan rate limit, rows per second")
+                    .labelNames(scanLabels)
+                    .register(registry);
+            scanPageSize = Gauge.builder()
+                    .name("ydbmv_scan_page_size")
+                    .help("Effective scan page size, rows")
+                    .labelNames(scanLabels)
+                    .register(registry);
+            scanQueriesRunning = Gauge.builder()
+                    .name("ydbmv_scan_queries_running")
+                    .help("Scan query slots held in the runner-wide scan budget")
+                    .labelNames(scanLabels)
+                    .register(registry);
+            scanQueriesWaiting = Gauge.builder()
+                    .name("ydbmv_scan_queries_waiting")
+                    .help("Scan threads waiting for the query slot in the runner-wide scan budget")
+                    .labelNames(scanLabels)
+                    .register(registry);
 
             String[] procLabels = {"type", "handler", "target", "alias", "source", "action"};
             processedRecords = Counter.builder()
@@ -364,6 +540,11 @@ public final class MvMetrics {
                     .help("Processing errors per action and target")
                     .labelNames(procLabels)
                     .register(registry);
+            deletesSkipped = Counter.builder()
+                    .name("ydbmv_deletes_skipped")
+                    .help("Deletes skipped by the key filter as definitely absent from the target")
+                    .labelNames(procLabels)
+                    .register(registry);
             processingTime = Histogram.builder()
                     .name("ydbmv_processing_seconds")
                     .help("Processing time histogram per action and target")
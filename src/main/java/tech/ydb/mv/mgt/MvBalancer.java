@@ -9,7 +9,10 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+
 import tech.ydb.mv.MvConfig;
+import tech.ydb.mv.model.MvHandlerSettings;
+import tech.ydb.mv.model.MvShard;
 
 /**
  * Job balancing logic, part of the coordinator.
@@ -37,7 +40,7 @@ class MvBalancer {
         this.runnersCount = runnersCount;
         allRunners.addAll(jobDao.getAllRunners());
         jobDao.getAllJobs().forEach(
-                job -> requiredJobs.put(job.getJobName(), job));
+                job -> addRequiredJob(job));
         for (var job : jobDao.getAllRunnerJobs()) {
             addJob(runningJobs, job);
         }
@@ -46,6 +49,39 @@ class MvBalancer {
         }
     }
 
+    /**
+     * Register the required job, expanding the sharded handler into the set
+     * of jobs, one per shard.
+     */
+    private void addRequiredJob(MvJobInfo job) {
+        int shardCount = getShardCount(job);
+        if (shardCount <= 1) {
+            requiredJobs.put(job.getJobName(), job);
+            return;
+        }
+        for (int i = 0; i < shardCount; ++i) {
+            var shardJob = new MvJobInfo(MvShard.toJobName(job.getJobName(), i),
+                    job.getJobSettings(), job.isShouldRun());
+            requiredJobs.put(shardJob.getJobName(), shardJob);
+        }
+    }
+
+    static int getShardCount(MvJobInfo job) {
+        String settings = job.getJobSettings();
+        if (settings == null || settings.length() <= 2
+                || job.getJobName().toLowerCase().startsWith(MvConfig.SYS_NAME_PREFIX)) {
+            return 1;
+        }
+        try {
+            var hs = MvConfig.GSON.fromJson(settings, MvHandlerSettings.class);
+            return (hs == null) ? 1 : Math.max(1, hs.getShardCount());
+        } catch (Exception ex) {
+            LOG.warn("Cannot parse the settings for job `{}`, assuming no sharding",
+                    job.getJobName(), ex);
+            return 1;
+        }
+    }
+
     static void addJob(Map<String, List<MvRunnerJobInfo>> jobs, MvRunnerJobInfo job) {
         var x = jobs.get(job.getRunnerId());
         if (x == null) {
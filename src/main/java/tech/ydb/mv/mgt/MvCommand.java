@@ -18,6 +18,7 @@ public class MvCommand implements Serializable {
     public static final String TYPE_STOP = "STOP";
     public static final String TYPE_SCAN = "SCAN";
     public static final String TYPE_NOSCAN = "NOSCAN";
+    public static final String TYPE_REBUILD = "REBUILD";
 
     public static final String STATUS_CREATED = "CREATED";
     public static final String STATUS_TAKEN = "TAKEN";
@@ -106,6 +107,10 @@ public class MvCommand implements Serializable {
         return TYPE_NOSCAN.equals(commandType);
     }
 
+    public boolean isRebuildCommand() {
+        return TYPE_REBUILD.equals(commandType);
+    }
+
     public boolean isCreated() {
         return STATUS_CREATED.equals(commandStatus);
     }
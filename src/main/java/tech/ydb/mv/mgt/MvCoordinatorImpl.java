@@ -4,6 +4,10 @@ import java.time.Instant;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
+import tech.ydb.mv.MvConfig;
+import tech.ydb.mv.model.MvScanSettings;
+import tech.ydb.mv.model.MvShard;
+
 /**
  * @author Kirill Kurdyukov
  */
@@ -125,7 +129,13 @@ class MvCoordinatorImpl implements MvCoordinatorActions {
         if (scan.getAcceptedAt() != null) {
             return;
         }
-        var runners = jobDao.getJobRunners(scan.getJobName());
+        String jobName = scan.getJobName();
+        var runners = jobDao.getJobRunners(jobName);
+        if (runners.isEmpty()) {
+            // sharded handlers run the scans on their first shard
+            jobName = MvShard.toJobName(scan.getJobName(), 0);
+            runners = jobDao.getJobRunners(jobName);
+        }
         if (runners.size() != 1) {
             LOG.info("[{}] Cannot start the requested scan "
                     + "for handler `{}`, target `{}` - runner was not found.",
@@ -138,8 +148,8 @@ class MvCoordinatorImpl implements MvCoordinatorActions {
                 runner.getRunnerId(),
                 commandNo.incrementAndGet(),
                 Instant.now(),
-                MvCommand.TYPE_SCAN,
-                scan.getJobName(),
+                isShadowRebuild(scan) ? MvCommand.TYPE_REBUILD : MvCommand.TYPE_SCAN,
+                jobName,
                 scan.getTargetName(),
                 scan.getScanSettings(),
                 MvCommand.STATUS_CREATED,
@@ -153,4 +163,23 @@ class MvCoordinatorImpl implements MvCoordinatorActions {
         jobDao.updateScan(scan);
     }
 
+    /**
+     * The scan request with the shadow flag in its settings asks for the
+     * online rebuild of the target through the shadow table.
+     */
+    private boolean isShadowRebuild(MvJobScanInfo scan) {
+        String json = scan.getScanSettings();
+        if (json == null || json.length() < 2) {
+            return false;
+        }
+        try {
+            var settings = MvConfig.GSON.fromJson(json, MvScanSettings.class);
+            return settings != null && settings.isShadow();
+        } catch (Exception ex) {
+            LOG.warn("[{}] Illegal scan settings for handler `{}`, target `{}`: {}",
+                    runnerId, scan.getJobName(), scan.getTargetName(), json);
+            return false;
+        }
+    }
+
 }
@@ -252,6 +252,8 @@ public class MvRunner implements AutoCloseable {
                 startScan(command.getJobName(), command.getTargetName(), command.getJobSettings());
             } else if (command.isNoScanCommand()) {
                 stopScan(command.getJobName(), command.getTargetName());
+            } else if (command.isRebuildCommand()) {
+                startRebuild(command.getJobName(), command.getTargetName(), command.getJobSettings());
             } else {
                 throw new IllegalArgumentException("Unknown command type: " + command.getCommandType());
             }
@@ -353,6 +355,24 @@ public class MvRunner implements AutoCloseable {
         LOG.info("[{}] Started scan, job `{}`, table `{}`", runnerId, jobName, targetName);
     }
 
+    private void startRebuild(String jobName, String targetName, String settingsJson) {
+        var oldSettings = api.getScanSettings();
+        try {
+            if (settingsJson != null && settingsJson.length() > 0) {
+                var newSettings = MvConfig.GSON.fromJson(settingsJson, oldSettings.getClass());
+                api.setScanSettings(newSettings);
+            }
+            if (!api.startRebuild(jobName, targetName)) {
+                throw new IllegalStateException("Rebuild was not started for job `"
+                        + jobName + "`, table `" + targetName + "`");
+            }
+        } finally {
+            api.setScanSettings(oldSettings);
+        }
+
+        LOG.info("[{}] Started shadow rebuild, job `{}`, table `{}`", runnerId, jobName, targetName);
+    }
+
     private void stopScan(String jobName, String targetName) {
         if (!api.stopScan(jobName, targetName)) {
             throw new IllegalStateException("Scan was not stopped for job `"
@@ -14,6 +14,7 @@ public class MvComputation implements MvSqlPosHolder {
     private final MvLiteral literal;
     private final ArrayList<Source> sources = new ArrayList<>();
     private final MvSqlPos sqlPos;
+    private MvPredicate predicate;
 
     /**
      * Create a computation based on an SQL expression.
@@ -97,6 +98,24 @@ public class MvComputation implements MvSqlPosHolder {
         return literal;
     }
 
+    /**
+     * Get the native predicate equivalent to the expression.
+     *
+     * @return Native predicate, or {@code null} for opaque expressions.
+     */
+    public MvPredicate getPredicate() {
+        return predicate;
+    }
+
+    /**
+     * Set the native predicate equivalent to the expression.
+     *
+     * @param predicate Native predicate, or {@code null}.
+     */
+    public void setPredicate(MvPredicate predicate) {
+        this.predicate = predicate;
+    }
+
     /**
      * Get sources referenced by this computation.
      *
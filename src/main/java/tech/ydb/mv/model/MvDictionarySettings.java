@@ -1,5 +1,6 @@
 package tech.ydb.mv.model;
 
+import java.util.Objects;
 import java.util.Properties;
 
 import tech.ydb.mv.MvConfig;
@@ -15,11 +16,31 @@ public class MvDictionarySettings extends MvScanSettings {
     private int upsertBatchSize;
     private int cdcReaderThreads;
     private int maxChangeRowsScanned;
+    private int writeParallelism;
+    private int writeLingerMillis;
+    private int scanParallelism;
+    private int maxChangedKeys;
+    private int targetedMaxLookups;
+    private int compactSeconds;
+    private boolean keyedLog;
+    private int continuousSeconds;
+    private int continuousMaxCost;
+    private String offPeakHours;
 
     public MvDictionarySettings() {
         this.upsertBatchSize = 500;
         this.cdcReaderThreads = 4;
         this.maxChangeRowsScanned = 100000;
+        this.writeParallelism = 4;
+        this.writeLingerMillis = 50;
+        this.scanParallelism = 4;
+        this.maxChangedKeys = 1000000;
+        this.targetedMaxLookups = 100000;
+        this.compactSeconds = 3600;
+        this.keyedLog = false;
+        this.continuousSeconds = 0;
+        this.continuousMaxCost = 10000;
+        this.offPeakHours = "";
     }
 
     public MvDictionarySettings(MvDictionarySettings other) {
@@ -27,6 +48,16 @@ public class MvDictionarySettings extends MvScanSettings {
         this.upsertBatchSize = other.upsertBatchSize;
         this.cdcReaderThreads = other.cdcReaderThreads;
         this.maxChangeRowsScanned = other.maxChangeRowsScanned;
+        this.writeParallelism = other.writeParallelism;
+        this.writeLingerMillis = other.writeLingerMillis;
+        this.scanParallelism = other.scanParallelism;
+        this.maxChangedKeys = other.maxChangedKeys;
+        this.targetedMaxLookups = other.targetedMaxLookups;
+        this.compactSeconds = other.compactSeconds;
+        this.keyedLog = other.keyedLog;
+        this.continuousSeconds = other.continuousSeconds;
+        this.continuousMaxCost = other.continuousMaxCost;
+        this.offPeakHours = other.offPeakHours;
     }
 
     public MvDictionarySettings(Properties props) {
@@ -34,6 +65,16 @@ public class MvDictionarySettings extends MvScanSettings {
         this.upsertBatchSize = MvConfig.parseInt(props, MvConfig.CONF_BATCH_UPSERT, 500);
         this.cdcReaderThreads = MvConfig.parseInt(props, MvConfig.CONF_CDC_THREADS, 4);
         this.maxChangeRowsScanned = MvConfig.parseInt(props, MvConfig.CONF_MAX_ROW_CHANGES, 100000);
+        this.writeParallelism = MvConfig.parseInt(props, MvConfig.CONF_DICT_WRITE_PARALLEL, 4);
+        this.writeLingerMillis = MvConfig.parseInt(props, MvConfig.CONF_DICT_WRITE_LINGER, 50);
+        this.scanParallelism = MvConfig.parseInt(props, MvConfig.CONF_DICT_SCAN_PARALLEL, 4);
+        this.maxChangedKeys = MvConfig.parseInt(props, MvConfig.CONF_DICT_MAX_KEYS, 1000000);
+        this.targetedMaxLookups = MvConfig.parseInt(props, MvConfig.CONF_DICT_TARGETED_LOOKUPS, 100000);
+        this.compactSeconds = MvConfig.parseInt(props, MvConfig.CONF_DICT_COMPACT_SECONDS, 3600);
+        this.keyedLog = Boolean.parseBoolean(props.getProperty(MvConfig.CONF_DICT_KEYED_LOG, "false"));
+        this.continuousSeconds = MvConfig.parseInt(props, MvConfig.CONF_DICT_CONTINUOUS_SECONDS, 0);
+        this.continuousMaxCost = MvConfig.parseInt(props, MvConfig.CONF_DICT_CONTINUOUS_COST, 10000);
+        this.offPeakHours = props.getProperty(MvConfig.CONF_DICT_OFFPEAK_HOURS, "").trim();
     }
 
     public int getUpsertBatchSize() {
@@ -60,12 +101,173 @@ public class MvDictionarySettings extends MvScanSettings {
         this.maxChangeRowsScanned = maxChangeRowsScanned;
     }
 
+    /**
+     * @return Number of the history batches written concurrently.
+     */
+    public int getWriteParallelism() {
+        return writeParallelism;
+    }
+
+    public void setWriteParallelism(int writeParallelism) {
+        this.writeParallelism = writeParallelism;
+    }
+
+    /**
+     * @return Max time to accumulate the history batch before writing it,
+     * milliseconds.
+     */
+    public int getWriteLingerMillis() {
+        return writeLingerMillis;
+    }
+
+    public void setWriteLingerMillis(int writeLingerMillis) {
+        this.writeLingerMillis = writeLingerMillis;
+    }
+
+    /**
+     * @return Number of the dictionary histories scanned concurrently.
+     */
+    public int getScanParallelism() {
+        return scanParallelism;
+    }
+
+    public void setScanParallelism(int scanParallelism) {
+        this.scanParallelism = scanParallelism;
+    }
+
+    /**
+     * @return Max number of the changed keys kept per dictionary, 0 for
+     * unlimited.
+     */
+    public int getMaxChangedKeys() {
+        return maxChangedKeys;
+    }
+
+    public void setMaxChangedKeys(int maxChangedKeys) {
+        this.maxChangedKeys = maxChangedKeys;
+    }
+
+    /**
+     * @return Max estimated number of the rows read by the targeted
+     * dictionary refresh, 0 to always use the refresh scan.
+     */
+    public int getTargetedMaxLookups() {
+        return targetedMaxLookups;
+    }
+
+    public void setTargetedMaxLookups(int targetedMaxLookups) {
+        this.targetedMaxLookups = targetedMaxLookups;
+    }
+
+    /**
+     * @return Period between the dictionary history compactions, seconds, 0
+     * to disable the compaction.
+     */
+    public int getCompactSeconds() {
+        return compactSeconds;
+    }
+
+    public void setCompactSeconds(int compactSeconds) {
+        this.compactSeconds = compactSeconds;
+    }
+
+    /**
+     * @return true, if the dictionary history records are coalesced per
+     * dictionary key before writing.
+     */
+    public boolean isKeyedLog() {
+        return keyedLog;
+    }
+
+    public void setKeyedLog(boolean keyedLog) {
+        this.keyedLog = keyedLog;
+    }
+
+    /**
+     * @return Period between the checks of the continuous dictionary refresh,
+     * seconds, 0 to disable the continuous mode.
+     */
+    public int getContinuousSeconds() {
+        return continuousSeconds;
+    }
+
+    public void setContinuousSeconds(int continuousSeconds) {
+        this.continuousSeconds = continuousSeconds;
+    }
+
+    /**
+     * @return Maximum estimated cost of the dictionary changes applied
+     * immediately in the continuous mode, based on the estimated number of
+     * the affected rows; the larger changes are deferred.
+     */
+    public int getContinuousMaxCost() {
+        return continuousMaxCost;
+    }
+
+    public void setContinuousMaxCost(int continuousMaxCost) {
+        this.continuousMaxCost = continuousMaxCost;
+    }
+
+    /**
+     * @return Off-peak hours for the deferred dictionary changes, in the
+     * "start-end" format (local time, end exclusive), empty for none.
+     */
+    public String getOffPeakHours() {
+        return offPeakHours;
+    }
+
+    public void setOffPeakHours(String offPeakHours) {
+        this.offPeakHours = offPeakHours;
+    }
+
+    /**
+     * Check whether the hour of day is within the off-peak hours. The range
+     * wraps around midnight when its start is after its end.
+     *
+     * @param hour The hour of day, 0 to 23
+     * @return true, if the off-peak hours are set and contain the hour.
+     */
+    public boolean isOffPeakHour(int hour) {
+        if (offPeakHours == null || offPeakHours.isBlank()) {
+            return false;
+        }
+        int pos = offPeakHours.indexOf('-');
+        if (pos <= 0) {
+            throw new IllegalArgumentException("Illegal off-peak hours: " + offPeakHours);
+        }
+        int start;
+        int end;
+        try {
+            start = Integer.parseInt(offPeakHours.substring(0, pos).trim());
+            end = Integer.parseInt(offPeakHours.substring(pos + 1).trim());
+        } catch (NumberFormatException nfe) {
+            throw new IllegalArgumentException("Illegal off-peak hours: " + offPeakHours, nfe);
+        }
+        if (start < 0 || start > 23 || end < 0 || end > 24) {
+            throw new IllegalArgumentException("Illegal off-peak hours: " + offPeakHours);
+        }
+        if (start <= end) {
+            return hour >= start && hour < end;
+        }
+        return hour >= start || hour < end;
+    }
+
     @Override
     public int hashCode() {
         int hash = 3;
         hash = 89 * hash + this.upsertBatchSize;
         hash = 89 * hash + this.cdcReaderThreads;
         hash = 89 * hash + this.maxChangeRowsScanned;
+        hash = 89 * hash + this.writeParallelism;
+        hash = 89 * hash + this.writeLingerMillis;
+        hash = 89 * hash + this.scanParallelism;
+        hash = 89 * hash + this.maxChangedKeys;
+        hash = 89 * hash + this.targetedMaxLookups;
+        hash = 89 * hash + this.compactSeconds;
+        hash = 89 * hash + (this.keyedLog ? 1 : 0);
+        hash = 89 * hash + this.continuousSeconds;
+        hash = 89 * hash + this.continuousMaxCost;
+        hash = 89 * hash + Objects.hashCode(this.offPeakHours);
         return hash;
     }
 
@@ -90,6 +292,36 @@ public class MvDictionarySettings extends MvScanSettings {
         if (this.maxChangeRowsScanned != other.maxChangeRowsScanned) {
             return false;
         }
+        if (this.writeParallelism != other.writeParallelism) {
+            return false;
+        }
+        if (this.writeLingerMillis != other.writeLingerMillis) {
+            return false;
+        }
+        if (this.scanParallelism != other.scanParallelism) {
+            return false;
+        }
+        if (this.maxChangedKeys != other.maxChangedKeys) {
+            return false;
+        }
+        if (this.targetedMaxLookups != other.targetedMaxLookups) {
+            return false;
+        }
+        if (this.compactSeconds != other.compactSeconds) {
+            return false;
+        }
+        if (this.keyedLog != other.keyedLog) {
+            return false;
+        }
+        if (this.continuousSeconds != other.continuousSeconds) {
+            return false;
+        }
+        if (this.continuousMaxCost != other.continuousMaxCost) {
+            return false;
+        }
+        if (!Objects.equals(this.offPeakHours, other.offPeakHours)) {
+            return false;
+        }
         return super.equals(obj);
     }
 
@@ -12,7 +12,7 @@ import tech.ydb.mv.MvConfig;
  */
 public class MvHandlerSettings implements Serializable {
 
-    private static final long serialVersionUID = 20251002001L;
+    private static final long serialVersionUID = 20261019001L;
 
     private int cdcReaderThreads = 4;
     private int applyThreads = 4;
@@ -21,6 +21,10 @@ public class MvHandlerSettings implements Serializable {
     private int upsertBatchSize = 500;
     private int dictionaryScanSeconds = 28800; // 8h
     private int queryTimeoutSeconds = 30;
+    private int shardCount = 1;
+    private int stormRowsPerSecond = 0;
+    private int stormSeconds = 30;
+    private int keyFilterRows = 0;
 
     public MvHandlerSettings() {
     }
@@ -33,6 +37,10 @@ public class MvHandlerSettings implements Serializable {
         this.upsertBatchSize = src.upsertBatchSize;
         this.dictionaryScanSeconds = src.dictionaryScanSeconds;
         this.queryTimeoutSeconds = src.queryTimeoutSeconds;
+        this.shardCount = src.shardCount;
+        this.stormRowsPerSecond = src.stormRowsPerSecond;
+        this.stormSeconds = src.stormSeconds;
+        this.keyFilterRows = src.keyFilterRows;
     }
 
     public MvHandlerSettings(Properties props) {
@@ -43,6 +51,10 @@ public class MvHandlerSettings implements Serializable {
         this.upsertBatchSize = MvConfig.parseInt(props, MvConfig.CONF_BATCH_UPSERT, 500);
         this.dictionaryScanSeconds = MvConfig.parseInt(props, MvConfig.CONF_DICT_SCAN_SECONDS, MvConfig.DEF_DICT_SCAN_SECONDS);
         this.queryTimeoutSeconds = MvConfig.parseInt(props, MvConfig.CONF_QUERY_TIMEOUT, 30);
+        this.shardCount = MvConfig.parseInt(props, MvConfig.CONF_SHARD_COUNT, 1);
+        this.stormRowsPerSecond = MvConfig.parseInt(props, MvConfig.CONF_STORM_RATE, 0);
+        this.stormSeconds = MvConfig.parseInt(props, MvConfig.CONF_STORM_SECONDS, 30);
+        this.keyFilterRows = MvConfig.parseInt(props, MvConfig.CONF_APPLY_KEY_FILTER, 0);
     }
 
     public int getCdcReaderThreads() {
@@ -101,6 +113,42 @@ public class MvHandlerSettings implements Serializable {
         this.queryTimeoutSeconds = queryTimeoutSeconds;
     }
 
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public void setShardCount(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    public int getStormRowsPerSecond() {
+        return stormRowsPerSecond;
+    }
+
+    public void setStormRowsPerSecond(int stormRowsPerSecond) {
+        this.stormRowsPerSecond = stormRowsPerSecond;
+    }
+
+    public int getStormSeconds() {
+        return stormSeconds;
+    }
+
+    public void setStormSeconds(int stormSeconds) {
+        this.stormSeconds = stormSeconds;
+    }
+
+    /**
+     * @return Expected number of the rows per target for the filter of the
+     * keys present in the target, 0 to disable the filter.
+     */
+    public int getKeyFilterRows() {
+        return keyFilterRows;
+    }
+
+    public void setKeyFilterRows(int keyFilterRows) {
+        this.keyFilterRows = keyFilterRows;
+    }
+
     @Override
     public int hashCode() {
         int hash = 3;
@@ -111,6 +159,10 @@ public class MvHandlerSettings implements Serializable {
         hash = 37 * hash + this.upsertBatchSize;
         hash = 37 * hash + this.dictionaryScanSeconds;
         hash = 37 * hash + this.queryTimeoutSeconds;
+        hash = 37 * hash + this.shardCount;
+        hash = 37 * hash + this.stormRowsPerSecond;
+        hash = 37 * hash + this.stormSeconds;
+        hash = 37 * hash + this.keyFilterRows;
         return hash;
     }
 
@@ -144,6 +196,18 @@ public class MvHandlerSettings implements Serializable {
         if (this.queryTimeoutSeconds != other.queryTimeoutSeconds) {
             return false;
         }
+        if (this.shardCount != other.shardCount) {
+            return false;
+        }
+        if (this.stormRowsPerSecond != other.stormRowsPerSecond) {
+            return false;
+        }
+        if (this.stormSeconds != other.stormSeconds) {
+            return false;
+        }
+        if (this.keyFilterRows != other.keyFilterRows) {
+            return false;
+        }
         return this.dictionaryScanSeconds == other.dictionaryScanSeconds;
     }
 
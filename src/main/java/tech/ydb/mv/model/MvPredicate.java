@@ -0,0 +1,363 @@
+package tech.ydb.mv.model;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Native filter predicate: a restricted boolean expression over the source
+ * columns, which can be evaluated without database access.
+ *
+ * Supported forms are comparisons of a column with a literal, IN lists, IS
+ * [NOT] NULL checks, and their combinations with AND/OR.
+ *
+ * @author zinal
+ */
+public class MvPredicate implements MvSqlPosHolder {
+
+    private final Kind kind;
+    private final String alias;
+    private final String column;
+    private final ArrayList<MvPredicate> children = new ArrayList<>();
+    private final ArrayList<Constant> constants = new ArrayList<>();
+    private final MvSqlPos sqlPos;
+
+    private MvPredicate(Kind kind, String alias, String column, MvSqlPos sqlPos) {
+        this.kind = kind;
+        this.alias = alias;
+        this.column = column;
+        this.sqlPos = (sqlPos == null) ? MvSqlPos.EMPTY : sqlPos;
+    }
+
+    /**
+     * Create a logical node (AND or OR) over the child predicates.
+     *
+     * @param kind Either AND or OR.
+     * @param children Child predicates.
+     * @param sqlPos Position in the SQL text.
+     * @return New predicate node.
+     */
+    public static MvPredicate logical(Kind kind, List<MvPredicate> children, MvSqlPos sqlPos) {
+        if (!kind.isLogical()) {
+            throw new IllegalArgumentException("Not a logical operation: " + kind);
+        }
+        var p = new MvPredicate(kind, null, null, sqlPos);
+        p.children.addAll(children);
+        return p;
+    }
+
+    /**
+     * Create a column check node (comparison, IN list or NULL check).
+     *
+     * @param kind Operation kind.
+     * @param alias Source alias.
+     * @param column Column name.
+     * @param constants Constants to compare with.
+     * @param sqlPos Position in the SQL text.
+     * @return New predicate node.
+     */
+    public static MvPredicate column(Kind kind, String alias, String column,
+            List<Constant> constants, MvSqlPos sqlPos) {
+        if (kind.isLogical()) {
+            throw new IllegalArgumentException("Not a column operation: " + kind);
+        }
+        var p = new MvPredicate(kind, alias, column, sqlPos);
+        if (constants != null) {
+            p.constants.addAll(constants);
+        }
+        return p;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public List<MvPredicate> getChildren() {
+        return children;
+    }
+
+    public List<Constant> getConstants() {
+        return constants;
+    }
+
+    @Override
+    public MvSqlPos getSqlPos() {
+        return sqlPos;
+    }
+
+    /**
+     * @return Set of source aliases referenced by the predicate.
+     */
+    public Set<String> getAliases() {
+        TreeSet<String> ret = new TreeSet<>();
+        collectAliases(ret);
+        return ret;
+    }
+
+    private void collectAliases(Set<String> output) {
+        if (alias != null) {
+            output.add(alias);
+        }
+        children.forEach(c -> c.collectAliases(output));
+    }
+
+    /**
+     * Collect the column references in the order of appearance.
+     *
+     * @param output Output list of column predicates.
+     */
+    public void collectColumns(List<MvPredicate> output) {
+        if (column != null) {
+            output.add(this);
+        }
+        children.forEach(c -> c.collectColumns(output));
+    }
+
+    /**
+     * Generate the equivalent YQL expression.
+     *
+     * @return YQL boolean expression text.
+     */
+    public String toSql() {
+        StringBuilder sb = new StringBuilder();
+        toSql(sb);
+        return sb.toString();
+    }
+
+    private void toSql(StringBuilder sb) {
+        switch (kind) {
+            case AND, OR -> {
+                boolean first = true;
+                for (MvPredicate c : children) {
+                    if (!first) {
+                        sb.append(" ").append(kind.name()).append(" ");
+                    }
+                    first = false;
+                    boolean wrap = c.kind.isLogical() && c.kind != kind;
+                    if (wrap) {
+                        sb.append("(");
+                    }
+                    c.toSql(sb);
+                    if (wrap) {
+                        sb.append(")");
+                    }
+                }
+            }
+            case IS_NULL, IS_NOT_NULL -> {
+                columnSql(sb);
+                sb.append(kind.getOperator());
+            }
+            case IN, NOT_IN -> {
+                columnSql(sb);
+                sb.append(kind.getOperator()).append("(");
+                boolean first = true;
+                for (Constant c : constants) {
+                    if (!first) {
+                        sb.append(", ");
+                    }
+                    first = false;
+                    sb.append(c.getText());
+                }
+                sb.append(")");
+            }
+            default -> {
+                columnSql(sb);
+                sb.append(kind.getOperator()).append(constants.get(0).getText());
+            }
+        }
+    }
+
+    private void columnSql(StringBuilder sb) {
+        sb.append(alias).append(".`").append(column.replace("`", "``")).append("`");
+    }
+
+    @Override
+    public String toString() {
+        return toSql();
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, alias, column, children, constants);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final MvPredicate other = (MvPredicate) obj;
+        return this.kind == other.kind
+                && Objects.equals(this.alias, other.alias)
+                && Objects.equals(this.column, other.column)
+                && Objects.equals(this.children, other.children)
+                && Objects.equals(this.constants, other.constants);
+    }
+
+    /**
+     * Predicate operation kind.
+     */
+    public static enum Kind {
+        AND(null),
+        OR(null),
+        IS_NULL(" IS NULL"),
+        IS_NOT_NULL(" IS NOT NULL"),
+        IN(" IN "),
+        NOT_IN(" NOT IN "),
+        EQ(" = "),
+        NE(" != "),
+        LT(" < "),
+        LE(" <= "),
+        GT(" > "),
+        GE(" >= ");
+
+        private final String operator;
+
+        Kind(String operator) {
+            this.operator = operator;
+        }
+
+        public String getOperator() {
+            return operator;
+        }
+
+        public boolean isLogical() {
+            return this == AND || this == OR;
+        }
+
+        /**
+         * Map the comparison operator text to the kind.
+         *
+         * @param text Operator text, e.g. "=" or "&lt;&gt;".
+         * @return Comparison kind.
+         */
+        public static Kind fromComparison(String text) {
+            return switch (text) {
+                case "=" -> EQ;
+                case "<>", "!=" -> NE;
+                case "<" -> LT;
+                case "<=" -> LE;
+                case ">" -> GT;
+                case ">=" -> GE;
+                default -> throw new IllegalArgumentException("Unsupported operator: " + text);
+            };
+        }
+    }
+
+    /**
+     * Literal constant used in the predicate: integer or string.
+     */
+    public static final class Constant {
+
+        private final String text;
+        private final Comparable<?> value;
+
+        /**
+         * Parse the constant from its SQL text.
+         *
+         * @param text Integer constant (optionally negative) or a single-quoted
+         * string with an optional u/s suffix.
+         */
+        public Constant(String text) {
+            this.text = text.trim();
+            this.value = parse(this.text);
+        }
+
+        private static Comparable<?> parse(String text) {
+            if (text.startsWith("'")) {
+                int end = text.lastIndexOf('\'');
+                String body = (end > 0) ? text.substring(1, end) : text.substring(1);
+                return unescape(body);
+            }
+            try {
+                return Long.valueOf(text);
+            } catch (NumberFormatException nfe) {
+                // fall through
+            }
+            try {
+                return new BigInteger(text);
+            } catch (NumberFormatException nfe) {
+                return text;
+            }
+        }
+
+        private static String unescape(String body) {
+            if (body.indexOf('\\') < 0) {
+                return body;
+            }
+            StringBuilder sb = new StringBuilder(body.length());
+            for (int i = 0; i < body.length(); ++i) {
+                char c = body.charAt(i);
+                if (c == '\\' && i + 1 < body.length()) {
+                    c = body.charAt(++i);
+                    switch (c) {
+                        case 'n' -> c = '\n';
+                        case 't' -> c = '\t';
+                        case 'r' -> c = '\r';
+                        default -> {
+                        }
+                    }
+                }
+                sb.append(c);
+            }
+            return sb.toString();
+        }
+
+        /**
+         * @return Constant text as written in the SQL.
+         */
+        public String getText() {
+            return text;
+        }
+
+        /**
+         * @return Parsed value: String, Long or BigInteger.
+         */
+        public Comparable<?> getValue() {
+            return value;
+        }
+
+        public boolean isString() {
+            return (value instanceof String);
+        }
+
+        @Override
+        public int hashCode() {
+            return text.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            return text.equals(((Constant) obj).text);
+        }
+
+        @Override
+        public String toString() {
+            return text;
+        }
+    }
+
+}
@@ -1,6 +1,7 @@
 package tech.ydb.mv.model;
 
 import java.io.Serializable;
+import java.util.Objects;
 import java.util.Properties;
 
 import tech.ydb.mv.MvConfig;
@@ -15,6 +16,19 @@ public class MvScanSettings implements Serializable {
     private static final long serialVersionUID = 202500926001L;
 
     private int rowsPerSecondLimit = 10000;
+    private int parallelism = 1;
+    private boolean streaming = false;
+    private int pageLatencyMillis = 500;
+    private int throttleLagSeconds = 60;
+    private int throttleQueuePercent = 80;
+    private int weight = 1;
+    private boolean rebuild = false;
+    private boolean reconcile = false;
+    // only set in the scan requests, not in the properties
+    private boolean shadow = false;
+    // key range limits as JSON, only set in the scan requests
+    private String keyFrom = null;
+    private String keyTo = null;
 
     /**
      * Create settings with default values.
@@ -29,6 +43,17 @@ public class MvScanSettings implements Serializable {
      */
     public MvScanSettings(MvScanSettings other) {
         this.rowsPerSecondLimit = other.rowsPerSecondLimit;
+        this.parallelism = other.parallelism;
+        this.streaming = other.streaming;
+        this.pageLatencyMillis = other.pageLatencyMillis;
+        this.throttleLagSeconds = other.throttleLagSeconds;
+        this.throttleQueuePercent = other.throttleQueuePercent;
+        this.weight = other.weight;
+        this.rebuild = other.rebuild;
+        this.reconcile = other.reconcile;
+        this.shadow = other.shadow;
+        this.keyFrom = other.keyFrom;
+        this.keyTo = other.keyTo;
     }
 
     /**
@@ -38,6 +63,14 @@ public class MvScanSettings implements Serializable {
      */
     public MvScanSettings(Properties props) {
         this.rowsPerSecondLimit = MvConfig.parseInt(props, MvConfig.CONF_SCAN_RATE, 10000);
+        this.parallelism = MvConfig.parseInt(props, MvConfig.CONF_SCAN_PARALLELISM, 1);
+        this.streaming = Boolean.parseBoolean(props.getProperty(MvConfig.CONF_SCAN_STREAMING, "false"));
+        this.pageLatencyMillis = MvConfig.parseInt(props, MvConfig.CONF_SCAN_PAGE_LATENCY, 500);
+        this.throttleLagSeconds = MvConfig.parseInt(props, MvConfig.CONF_SCAN_THROTTLE_LAG, 60);
+        this.throttleQueuePercent = MvConfig.parseInt(props, MvConfig.CONF_SCAN_THROTTLE_QUEUE, 80);
+        this.weight = MvConfig.parseInt(props, MvConfig.CONF_SCAN_WEIGHT, 1);
+        this.rebuild = Boolean.parseBoolean(props.getProperty(MvConfig.CONF_SCAN_REBUILD, "false"));
+        this.reconcile = Boolean.parseBoolean(props.getProperty(MvConfig.CONF_SCAN_RECONCILE, "false"));
     }
 
     /**
@@ -58,10 +91,232 @@ public class MvScanSettings implements Serializable {
         this.rowsPerSecondLimit = rowsPerSecondLimit;
     }
 
+    /**
+     * Get the number of key ranges scanned concurrently.
+     *
+     * @return Scan parallelism, 1 for the sequential scan.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Set the number of key ranges scanned concurrently.
+     *
+     * @param parallelism Scan parallelism, 1 for the sequential scan.
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Check whether the streaming read is used for scans.
+     *
+     * @return true for the streaming ReadTable, false for the paged queries.
+     */
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    /**
+     * Enable or disable the streaming read for scans.
+     *
+     * @param streaming true for the streaming ReadTable, false for the paged
+     * queries.
+     */
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * Get the target scan query latency for the adaptive page size.
+     *
+     * @return Latency in milliseconds, 0 for the fixed page size.
+     */
+    public int getPageLatencyMillis() {
+        return pageLatencyMillis;
+    }
+
+    /**
+     * Set the target scan query latency for the adaptive page size.
+     *
+     * @param pageLatencyMillis Latency in milliseconds, 0 for the fixed page
+     * size.
+     */
+    public void setPageLatencyMillis(int pageLatencyMillis) {
+        this.pageLatencyMillis = pageLatencyMillis;
+    }
+
+    /**
+     * Get the CDC lag threshold to slow down the scans.
+     *
+     * @return Lag in seconds, 0 if disabled.
+     */
+    public int getThrottleLagSeconds() {
+        return throttleLagSeconds;
+    }
+
+    /**
+     * Set the CDC lag threshold to slow down the scans.
+     *
+     * @param throttleLagSeconds Lag in seconds, 0 to disable.
+     */
+    public void setThrottleLagSeconds(int throttleLagSeconds) {
+        this.throttleLagSeconds = throttleLagSeconds;
+    }
+
+    /**
+     * Get the apply queue fill threshold to slow down the scans.
+     *
+     * @return Queue fill percent, 0 if disabled.
+     */
+    public int getThrottleQueuePercent() {
+        return throttleQueuePercent;
+    }
+
+    /**
+     * Set the apply queue fill threshold to slow down the scans.
+     *
+     * @param throttleQueuePercent Queue fill percent, 0 to disable.
+     */
+    public void setThrottleQueuePercent(int throttleQueuePercent) {
+        this.throttleQueuePercent = throttleQueuePercent;
+    }
+
+    /**
+     * Get the relative weight of the scan in the runner-wide scan budget.
+     *
+     * @return Scan weight, 1 by default.
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Set the relative weight of the scan in the runner-wide scan budget.
+     *
+     * @param weight Scan weight, 1 or more.
+     */
+    public void setWeight(int weight) {
+        this.weight = weight;
+    }
+
+    /**
+     * Check whether the MV rows are rebuilt on the server side during scans.
+     *
+     * @return true for the server-side rebuild, false for the regular
+     * refresh through the apply workers.
+     */
+    public boolean isRebuild() {
+        return rebuild;
+    }
+
+    /**
+     * Enable or disable the server-side rebuild of the MV rows during scans.
+     *
+     * @param rebuild true for the server-side rebuild, false for the regular
+     * refresh through the apply workers.
+     */
+    public void setRebuild(boolean rebuild) {
+        this.rebuild = rebuild;
+    }
+
+    /**
+     * Check whether the scans only repair the MV rows which differ from the
+     * sources.
+     *
+     * @return true for the reconciliation, false for the full refresh.
+     */
+    public boolean isReconcile() {
+        return reconcile;
+    }
+
+    /**
+     * Enable or disable the reconciliation mode, which compares the hashes
+     * of the MV rows with the sources and only rewrites the rows which
+     * differ.
+     *
+     * @param reconcile true for the reconciliation, false for the full
+     * refresh.
+     */
+    public void setReconcile(boolean reconcile) {
+        this.reconcile = reconcile;
+    }
+
+    /**
+     * Check whether the scan request is the online rebuild of the target
+     * through the shadow table.
+     *
+     * @return true for the shadow table rebuild, false for the regular scan.
+     */
+    public boolean isShadow() {
+        return shadow;
+    }
+
+    /**
+     * Request the online rebuild of the target through the shadow table.
+     *
+     * @param shadow true for the shadow table rebuild, false for the regular
+     * scan.
+     */
+    public void setShadow(boolean shadow) {
+        this.shadow = shadow;
+    }
+
+    /**
+     * Get the first key of the range to be scanned.
+     *
+     * @return The key as JSON, or null to scan the whole table.
+     */
+    public String getKeyFrom() {
+        return keyFrom;
+    }
+
+    /**
+     * Get the last key of the range to be scanned.
+     *
+     * @return The key as JSON, or null to scan the whole table.
+     */
+    public String getKeyTo() {
+        return keyTo;
+    }
+
+    /**
+     * Limit the scan to the range of the topmost table keys. The range is
+     * extended up to the next partition boundary of the table.
+     *
+     * @param keyFrom The first key of the range as JSON, inclusive.
+     * @param keyTo The last key of the range as JSON, inclusive.
+     */
+    public void setKeyRange(String keyFrom, String keyTo) {
+        this.keyFrom = keyFrom;
+        this.keyTo = keyTo;
+    }
+
+    /**
+     * Check whether the scan is limited to the range of keys.
+     *
+     * @return true for the key range scan, false for the whole table.
+     */
+    public boolean isKeyRange() {
+        return keyFrom != null && keyTo != null;
+    }
+
     @Override
     public int hashCode() {
         int hash = 5;
         hash = 37 * hash + this.rowsPerSecondLimit;
+        hash = 37 * hash + this.parallelism;
+        hash = 37 * hash + (this.streaming ? 1 : 0);
+        hash = 37 * hash + this.pageLatencyMillis;
+        hash = 37 * hash + this.throttleLagSeconds;
+        hash = 37 * hash + this.throttleQueuePercent;
+        hash = 37 * hash + this.weight;
+        hash = 37 * hash + (this.rebuild ? 1 : 0);
+        hash = 37 * hash + (this.reconcile ? 1 : 0);
+        hash = 37 * hash + (this.shadow ? 1 : 0);
+        hash = 37 * hash + Objects.hashCode(this.keyFrom);
+        hash = 37 * hash + Objects.hashCode(this.keyTo);
         return hash;
     }
 
@@ -77,7 +332,18 @@ public class MvScanSettings implements Serializable {
             return false;
         }
         final MvScanSettings other = (MvScanSettings) obj;
-        return (this.rowsPerSecondLimit == other.rowsPerSecondLimit);
+        return (this.rowsPerSecondLimit == other.rowsPerSecondLimit)
+                && (this.parallelism == other.parallelism)
+                && (this.streaming == other.streaming)
+                && (this.pageLatencyMillis == other.pageLatencyMillis)
+                && (this.throttleLagSeconds == other.throttleLagSeconds)
+                && (this.throttleQueuePercent == other.throttleQueuePercent)
+                && (this.weight == other.weight)
+                && (this.rebuild == other.rebuild)
+                && (this.reconcile == other.reconcile)
+                && (this.shadow == other.shadow)
+                && Objects.equals(this.keyFrom, other.keyFrom)
+                && Objects.equals(this.keyTo, other.keyTo);
     }
 
 }
@@ -0,0 +1,179 @@
+package tech.ydb.mv.model;
+
+import java.io.Serializable;
+
+/**
+ * Shard of a handler: the part of the handler's key space processed by a
+ * single job instance.
+ *
+ * Sharded job names have the form {@code handler#index}, where index is
+ * between 0 and (count-1).
+ *
+ * @author zinal
+ */
+public class MvShard implements Serializable {
+
+    private static final long serialVersionUID = 20261019001L;
+
+    public static final char SEPARATOR = '#';
+
+    private final String handlerName;
+    private final int index;
+    private final int count;
+
+    public MvShard(String handlerName, int index, int count) {
+        if (count < 1 || index < 0 || index >= count) {
+            throw new IllegalArgumentException("Illegal shard " + index + " of " + count);
+        }
+        this.handlerName = handlerName;
+        this.index = index;
+        this.count = count;
+    }
+
+    public String getHandlerName() {
+        return handlerName;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public boolean isSharded() {
+        return count > 1;
+    }
+
+    /**
+     * @return Job name for this shard.
+     */
+    public String getJobName() {
+        if (!isSharded()) {
+            return handlerName;
+        }
+        return toJobName(handlerName, index);
+    }
+
+    /**
+     * Choose the shard for the specified key hash code.
+     *
+     * The hash code is re-mixed, so that the shard choice does not correlate
+     * with the choice of the worker within the shard.
+     *
+     * @param hashCode Hash code of the key
+     * @return Shard index for the key
+     */
+    public int choose(int hashCode) {
+        if (count < 2) {
+            return 0;
+        }
+        int h = hashCode;
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return (int) (Integer.toUnsignedLong(h) % count);
+    }
+
+    /**
+     * Check whether the key with the specified hash code belongs to the
+     * current shard.
+     *
+     * @param hashCode Hash code of the key
+     * @return true, if the key is owned by the current shard, false otherwise
+     */
+    public boolean owns(int hashCode) {
+        return choose(hashCode) == index;
+    }
+
+    /**
+     * Generate the job name for the specified handler's shard.
+     *
+     * @param handlerName Handler name
+     * @param index Shard index
+     * @return Job name
+     */
+    public static String toJobName(String handlerName, int index) {
+        return handlerName + SEPARATOR + index;
+    }
+
+    /**
+     * Parse the job name of the handler configured with the specified number
+     * of shards. The jobs of the sharded handlers always carry the shard
+     * suffix, so for the unsharded handlers the whole job name is the handler
+     * name, even if it ends with {@code #digits}.
+     *
+     * @param jobName Job name
+     * @param shardCount Number of shards configured for the handler
+     * @return The shard, or null if the job name refers to the shard at or
+     * above the configured number of shards.
+     */
+    public static MvShard fromJobName(String jobName, int shardCount) {
+        if (shardCount <= 1) {
+            return new MvShard(jobName, 0, 1);
+        }
+        int index = toIndex(jobName);
+        if (index < 0) {
+            // explicitly started whole handler
+            return new MvShard(jobName, 0, 1);
+        }
+        if (index >= shardCount) {
+            return null;
+        }
+        return new MvShard(toHandlerName(jobName), index, shardCount);
+    }
+
+    /**
+     * Extract the handler name from the job name.
+     *
+     * @param jobName Job name, possibly with the shard suffix
+     * @return Handler name
+     */
+    public static String toHandlerName(String jobName) {
+        int pos = findSuffix(jobName);
+        if (pos < 0) {
+            return jobName;
+        }
+        return jobName.substring(0, pos);
+    }
+
+    /**
+     * Extract the shard index from the job name.
+     *
+     * @param jobName Job name, possibly with the shard suffix
+     * @return Shard index, or -1 for unsharded job names
+     */
+    public static int toIndex(String jobName) {
+        int pos = findSuffix(jobName);
+        if (pos < 0) {
+            return -1;
+        }
+        return Integer.parseInt(jobName.substring(pos + 1));
+    }
+
+    private static int findSuffix(String jobName) {
+        if (jobName == null) {
+            return -1;
+        }
+        int pos = jobName.lastIndexOf(SEPARATOR);
+        if (pos <= 0 || pos == jobName.length() - 1
+                || (jobName.length() - pos) > 6) {
+            return -1;
+        }
+        for (int i = pos + 1; i < jobName.length(); ++i) {
+            if (!Character.isDigit(jobName.charAt(i))) {
+                return -1;
+            }
+        }
+        return pos;
+    }
+
+    @Override
+    public String toString() {
+        return getJobName() + "/" + count;
+    }
+
+}
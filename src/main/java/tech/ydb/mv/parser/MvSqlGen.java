@@ -3,6 +3,7 @@ package tech.ydb.mv.parser;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.regex.Pattern;
 
 import tech.ydb.table.values.DecimalType;
@@ -30,12 +31,21 @@ public class MvSqlGen implements AutoCloseable {
     public static final String SYS_KEYS_VAR = "$sys_keys";
     public static final String SYS_INPUT = "sys_input";
     public static final String SYS_INPUT_VAR = "$sys_input";
+    public static final String SYS_ROWS = "sys_rows";
+    public static final String SYS_ROWS_VAR = "$sys_rows";
+    public static final String SYS_DST = "sys_dst";
+    public static final String SYS_DST_VAR = "$sys_dst";
+    public static final String SYS_SRC = "sys_src";
+    public static final String SYS_SRC_VAR = "$sys_src";
+    public static final String SYS_HASH = "sys_hash";
+    public static final String SYS_GONE = "sys_gone";
 
     public static final Pattern SAFE_ID_PATT = Pattern.compile("^[A-Za-z][A-Za-z0-9_]*$");
     public static final String EOL = System.getProperty("line.separator");
 
     private final MvViewExpr target;
     private final HashSet<MvComputation> excludedComputations;
+    private String tableName;
 
     public MvSqlGen(MvViewExpr target) {
         if (target == null) {
@@ -53,6 +63,26 @@ public class MvSqlGen implements AutoCloseable {
         return excludedComputations;
     }
 
+    /**
+     * @return The name of the output table, which is the target name unless
+     * overridden.
+     */
+    public String getTableName() {
+        return (tableName == null) ? target.getName() : tableName;
+    }
+
+    /**
+     * Override the name of the output table for the generated statements,
+     * e.g. to write into the shadow copy of the target.
+     *
+     * @param tableName The output table name, null for the target name
+     * @return this
+     */
+    public MvSqlGen setTableName(String tableName) {
+        this.tableName = tableName;
+        return this;
+    }
+
     @Override
     public void close() {
         /* noop */
@@ -94,7 +124,7 @@ public class MvSqlGen implements AutoCloseable {
     public String makeCreateTable() {
         var sb = new StringBuilder();
         sb.append("CREATE TABLE ");
-        safeId(sb, target.getName());
+        safeId(sb, getTableName());
         sb.append(" (").append(EOL);
         int index = 0;
         for (MvColumn column : target.getColumns()) {
@@ -160,11 +190,67 @@ public class MvSqlGen implements AutoCloseable {
         return sb.toString();
     }
 
+    /**
+     * Generates the paged variant of {@link #makeSelect()}, returning the
+     * rows ordered by all the output columns, up to $limit rows, and after
+     * the previous page ($c1, $c2, ...) for the second and further pages.
+     *
+     * @param next true for the second and further pages, false for the first
+     * one
+     * @return SELECT statement
+     */
+    public String makeSelectPage(boolean next) {
+        var columns = target.getColumns();
+        var sb = new StringBuilder();
+        genDeclareKeyList(sb, toSourceKeyType());
+        sb.append("DECLARE $limit AS Uint64;").append(EOL);
+        if (next) {
+            for (int index = 0; index < columns.size(); ++index) {
+                sb.append("DECLARE $c").append(index + 1).append(" AS ");
+                sb.append(columns.get(index).getType());
+                sb.append(";").append(EOL);
+            }
+        }
+        sb.append("SELECT ");
+        columnNamesByComma(sb, columns);
+        sb.append(EOL);
+        sb.append("FROM (").append(EOL);
+        genFullSelect(sb, true);
+        sb.append(")").append(EOL);
+        if (next) {
+            sb.append("WHERE (");
+            columnNamesByComma(sb, columns);
+            sb.append(") > (");
+            for (int index = 0; index < columns.size(); ++index) {
+                if (index > 0) {
+                    sb.append(", ");
+                }
+                sb.append("$c").append(index + 1);
+            }
+            sb.append(")").append(EOL);
+        }
+        sb.append("ORDER BY ");
+        columnNamesByComma(sb, columns);
+        sb.append(EOL);
+        sb.append("LIMIT $limit;").append(EOL);
+        return sb.toString();
+    }
+
+    private static void columnNamesByComma(StringBuilder sb, List<MvColumn> columns) {
+        int index = 0;
+        for (MvColumn c : columns) {
+            if (index++ > 0) {
+                sb.append(", ");
+            }
+            safeId(sb, c.getName());
+        }
+    }
+
     public String makePlainUpsert() {
         var sb = new StringBuilder();
         genDeclareTargetFields(sb);
         sb.append("UPSERT INTO ");
-        safeId(sb, target.getName()).append(EOL);
+        safeId(sb, getTableName()).append(EOL);
         sb.append("SELECT * FROM AS_TABLE(").append(SYS_INPUT_VAR).append(")");
         sb.append(";").append(EOL);
         return sb.toString();
@@ -186,7 +272,7 @@ public class MvSqlGen implements AutoCloseable {
             genDeclareKeyList(sb, toDestinationKeyType());
         }
         sb.append("DELETE FROM ");
-        safeId(sb, target.getName()).append(EOL);
+        safeId(sb, getTableName()).append(EOL);
         sb.append(" ON SELECT * FROM AS_TABLE(").append(SYS_KEYS_VAR).append(")");
         sb.append(";").append(EOL);
         return sb.toString();
@@ -324,6 +410,366 @@ public class MvSqlGen implements AutoCloseable {
         return sb.toString();
     }
 
+    /**
+     * Generates the statement for the scan of a single key range. The range
+     * bounds are the key prefixes, compared over their own length.
+     *
+     * @param lowerLength Length of the inclusive lower bound, 0 if none.
+     * @param upperLength Length of the exclusive upper bound, 0 if none.
+     * @param next true for the second and further iterations, false for the
+     * first one
+     * @return SELECT statement
+     */
+    public String makeScanRange(int lowerLength, int upperLength, boolean next) {
+        MvTableInfo topmost = target.getTopMostSource().getTableInfo();
+        StringBuilder sb = new StringBuilder();
+        sb.append("DECLARE $limit AS Uint64;").append(MvSqlGen.EOL);
+        if (next) {
+            declareKeyParams(sb, topmost, "$c", topmost.getKey().size());
+        }
+        declareKeyParams(sb, topmost, "$l", lowerLength);
+        declareKeyParams(sb, topmost, "$u", upperLength);
+        sb.append("SELECT ");
+        keyNamesByComma(sb, topmost);
+        sb.append(MvSqlGen.EOL);
+        sb.append("FROM `").append(topmost.getName()).append("`");
+        sb.append(MvSqlGen.EOL);
+        String prefix = "WHERE ";
+        if (next) {
+            sb.append(prefix);
+            keyCompare(sb, topmost, " > ", "$c", topmost.getKey().size());
+            sb.append(MvSqlGen.EOL);
+            prefix = "  AND ";
+        }
+        if (lowerLength > 0) {
+            sb.append(prefix);
+            keyCompare(sb, topmost, " >= ", "$l", lowerLength);
+            sb.append(MvSqlGen.EOL);
+            prefix = "  AND ";
+        }
+        if (upperLength > 0) {
+            sb.append(prefix);
+            if (lowerLength > 0) {
+                keyCompare(sb, topmost, " < ", "$u", upperLength);
+            } else {
+                // NULLs go first, and belong to the leftmost range
+                sb.append("COALESCE(");
+                keyCompare(sb, topmost, " < ", "$u", upperLength);
+                sb.append(", TRUE)");
+            }
+            sb.append(MvSqlGen.EOL);
+        }
+        sb.append("ORDER BY ");
+        keyNamesByComma(sb, topmost);
+        sb.append(MvSqlGen.EOL);
+        sb.append("LIMIT $limit;");
+        sb.append(MvSqlGen.EOL);
+        return sb.toString();
+    }
+
+    /**
+     * Checks whether the target can be rebuilt by the server-side statements
+     * over the key ranges of the topmost table. This requires the destination
+     * table in the same database, used by a single target, with the key
+     * directly copied from the key of the topmost table.
+     *
+     * @return true, if the range rebuild is supported, false otherwise
+     */
+    public boolean isRangeRebuildSupported() {
+        var view = target.getView();
+        if (!view.isDefaultDestination() || view.getParts().size() != 1) {
+            return false;
+        }
+        MvJoinSource topMost = target.getTopMostSource();
+        MvTableInfo dst = target.getTableInfo();
+        if (topMost == null || topMost.getTableInfo() == null || dst == null) {
+            return false;
+        }
+        List<String> srcKey = topMost.getTableInfo().getKey();
+        if (!srcKey.equals(dst.getKey())) {
+            return false;
+        }
+        for (String name : srcKey) {
+            MvColumn column = target.getColumnByName(name);
+            if (column == null || !column.isReference()
+                    || column.getSourceRef() != topMost
+                    || !name.equals(column.getSourceColumn())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Generates the statement to rebuild the MV rows for a range of the
+     * topmost table keys. The rows are computed from the sources and upserted
+     * into the MV, and the MV rows in the same range which have no source rows
+     * are deleted. The data does not leave the database.
+     *
+     * The range is defined by the exclusive lower key {@code $c*}, the
+     * inclusive upper key {@code $h*}, and the optional key prefix bounds
+     * {@code $l*} (inclusive) and {@code $u*} (exclusive), as in
+     * {@link #makeScanRange(int, int, boolean)}.
+     *
+     * @param next true, if the exclusive lower key is defined
+     * @param bounded true, if the inclusive upper key is defined
+     * @param lowerLength Length of the inclusive lower prefix, 0 if none.
+     * @param upperLength Length of the exclusive upper prefix, 0 if none.
+     * @return DELETE and UPSERT statements
+     */
+    public String makeRebuildRange(boolean next, boolean bounded,
+            int lowerLength, int upperLength) {
+        MvTableInfo topmost = target.getTopMostSource().getTableInfo();
+        int keyLength = topmost.getKey().size();
+        StringBuilder sb = new StringBuilder();
+        if (next) {
+            declareKeyParams(sb, topmost, "$c", keyLength);
+        }
+        if (bounded) {
+            declareKeyParams(sb, topmost, "$h", keyLength);
+        }
+        declareKeyParams(sb, topmost, "$l", lowerLength);
+        declareKeyParams(sb, topmost, "$u", upperLength);
+        // MV rows for the range, computed from the sources
+        sb.append(SYS_ROWS_VAR).append(" = (").append(EOL);
+        genFullSelect(sb, false, rangeCondition(target.getTopMostSource().getTableAlias(),
+                topmost, next, bounded, lowerLength, upperLength));
+        sb.append(");").append(EOL);
+        // stale MV rows in the range
+        sb.append("DELETE FROM ");
+        safeId(sb, getTableName()).append(" ON").append(EOL);
+        sb.append("SELECT ");
+        int index = 0;
+        for (String name : topmost.getKey()) {
+            if (index++ > 0) {
+                sb.append(", ");
+            }
+            sb.append(SYS_DST).append(".");
+            safeId(sb, name).append(" AS ");
+            safeId(sb, name);
+        }
+        sb.append(EOL).append("FROM ");
+        safeId(sb, getTableName()).append(" AS ").append(SYS_DST).append(EOL);
+        sb.append("LEFT ONLY JOIN ").append(SYS_ROWS_VAR).append(" AS ").append(SYS_ROWS);
+        String statement = EOL + "    ON ";
+        for (String name : topmost.getKey()) {
+            sb.append(statement);
+            statement = " AND ";
+            sb.append(SYS_DST).append(".");
+            safeId(sb, name).append(" = ").append(SYS_ROWS).append(".");
+            safeId(sb, name);
+        }
+        sb.append(EOL);
+        String condition = rangeCondition(SYS_DST, topmost,
+                next, bounded, lowerLength, upperLength);
+        if (condition != null) {
+            sb.append("WHERE ").append(condition).append(EOL);
+        }
+        sb.append(";").append(EOL);
+        // actual MV rows
+        sb.append("UPSERT INTO ");
+        safeId(sb, getTableName()).append(EOL);
+        sb.append("SELECT * FROM ").append(SYS_ROWS_VAR).append(";").append(EOL);
+        return sb.toString();
+    }
+
+    /**
+     * Generates the statement to compare the MV rows computed from the
+     * sources with the rows stored in the MV, for a range of the topmost
+     * table keys defined as in {@link #makeRebuildRange(boolean, boolean, int, int)}.
+     * The statement returns two result sets with the row count {@code cnt}
+     * and the order-independent hash {@code sys_hash} of the rows: the first
+     * one for the computed rows, and the second one for the stored rows.
+     *
+     * @param next true, if the exclusive lower key is defined
+     * @param bounded true, if the inclusive upper key is defined
+     * @param lowerLength Length of the inclusive lower prefix, 0 if none.
+     * @param upperLength Length of the exclusive upper prefix, 0 if none.
+     * @return SELECT statements
+     */
+    public String makeReconcileHash(boolean next, boolean bounded,
+            int lowerLength, int upperLength) {
+        StringBuilder sb = new StringBuilder();
+        genReconcileInputs(sb, next, bounded, lowerLength, upperLength);
+        for (String input : new String[]{SYS_SRC_VAR, SYS_DST_VAR}) {
+            sb.append("SELECT COUNT(*) AS cnt, COALESCE(BIT_XOR(");
+            sb.append(SYS_HASH).append("), 0ul) AS ").append(SYS_HASH);
+            sb.append(" FROM ").append(input).append(";").append(EOL);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Generates the statement to find the MV rows which differ from the rows
+     * computed from the sources, for a range of the topmost table keys
+     * defined as in {@link #makeRebuildRange(boolean, boolean, int, int)}.
+     * The statement returns the keys of such rows, followed by the
+     * {@code sys_gone} flag, which is true for the MV rows to be deleted.
+     *
+     * @param next true, if the exclusive lower key is defined
+     * @param bounded true, if the inclusive upper key is defined
+     * @param lowerLength Length of the inclusive lower prefix, 0 if none.
+     * @param upperLength Length of the exclusive upper prefix, 0 if none.
+     * @return SELECT statement
+     */
+    public String makeReconcileDiff(boolean next, boolean bounded,
+            int lowerLength, int upperLength) {
+        MvTableInfo topmost = target.getTopMostSource().getTableInfo();
+        StringBuilder sb = new StringBuilder();
+        genReconcileInputs(sb, next, bounded, lowerLength, upperLength);
+        sb.append("SELECT ");
+        for (String name : topmost.getKey()) {
+            sb.append("COALESCE(").append(SYS_SRC).append(".");
+            safeId(sb, name).append(", ").append(SYS_DST).append(".");
+            safeId(sb, name).append(") AS ");
+            safeId(sb, name).append(", ");
+        }
+        sb.append(SYS_SRC).append(".").append(SYS_HASH).append(" IS NULL AS ");
+        sb.append(SYS_GONE).append(EOL);
+        sb.append("FROM ").append(SYS_SRC_VAR).append(" AS ").append(SYS_SRC).append(EOL);
+        sb.append("FULL JOIN ").append(SYS_DST_VAR).append(" AS ").append(SYS_DST);
+        String statement = EOL + "    ON ";
+        for (String name : topmost.getKey()) {
+            sb.append(statement);
+            statement = " AND ";
+            sb.append(SYS_SRC).append(".");
+            safeId(sb, name).append(" = ").append(SYS_DST).append(".");
+            safeId(sb, name);
+        }
+        sb.append(EOL).append("WHERE ").append(SYS_SRC).append(".").append(SYS_HASH);
+        sb.append(" IS DISTINCT FROM ").append(SYS_DST).append(".").append(SYS_HASH);
+        sb.append(";").append(EOL);
+        return sb.toString();
+    }
+
+    /**
+     * Declare the range parameters, and the keys with the row hashes for the
+     * computed ({@code $sys_src}) and the stored ({@code $sys_dst}) MV rows.
+     */
+    private void genReconcileInputs(StringBuilder sb, boolean next, boolean bounded,
+            int lowerLength, int upperLength) {
+        MvTableInfo topmost = target.getTopMostSource().getTableInfo();
+        int keyLength = topmost.getKey().size();
+        if (next) {
+            declareKeyParams(sb, topmost, "$c", keyLength);
+        }
+        if (bounded) {
+            declareKeyParams(sb, topmost, "$h", keyLength);
+        }
+        declareKeyParams(sb, topmost, "$l", lowerLength);
+        declareKeyParams(sb, topmost, "$u", upperLength);
+        sb.append(SYS_ROWS_VAR).append(" = (").append(EOL);
+        genFullSelect(sb, false, rangeCondition(target.getTopMostSource().getTableAlias(),
+                topmost, next, bounded, lowerLength, upperLength));
+        sb.append(");").append(EOL);
+        sb.append(SYS_SRC_VAR).append(" = (SELECT ");
+        genKeyWithHash(sb, topmost, SYS_ROWS);
+        sb.append(EOL).append("FROM ").append(SYS_ROWS_VAR).append(" AS ").append(SYS_ROWS);
+        sb.append(");").append(EOL);
+        sb.append(SYS_DST_VAR).append(" = (SELECT ");
+        genKeyWithHash(sb, topmost, SYS_DST);
+        sb.append(EOL).append("FROM ");
+        safeId(sb, getTableName()).append(" AS ").append(SYS_DST);
+        String condition = rangeCondition(SYS_DST, topmost,
+                next, bounded, lowerLength, upperLength);
+        if (condition != null) {
+            sb.append(EOL).append("WHERE ").append(condition);
+        }
+        sb.append(");").append(EOL);
+    }
+
+    /**
+     * The row hash covers all the MV columns, converted to strings, with the
+     * NULL values distinguished from the empty strings.
+     */
+    private void genKeyWithHash(StringBuilder sb, MvTableInfo topmost, String alias) {
+        for (String name : topmost.getKey()) {
+            sb.append(alias).append(".");
+            safeId(sb, name).append(" AS ");
+            safeId(sb, name).append(", ");
+        }
+        sb.append(EOL).append("    Digest::CityHash(");
+        int index = 0;
+        for (MvColumn column : target.getColumns()) {
+            if (index++ > 0) {
+                sb.append(EOL).append("        || '|' || ");
+            }
+            sb.append("COALESCE('=' || CAST(").append(alias).append(".");
+            safeId(sb, column.getName()).append(" AS String), '~')");
+        }
+        sb.append(") AS ").append(SYS_HASH);
+    }
+
+    private static String rangeCondition(String alias, MvTableInfo topmost,
+            boolean next, boolean bounded, int lowerLength, int upperLength) {
+        int keyLength = topmost.getKey().size();
+        StringBuilder sb = new StringBuilder();
+        String prefix = "";
+        if (next) {
+            sb.append(prefix);
+            keyCompare(sb, alias, topmost, " > ", "$c", keyLength);
+            prefix = " AND ";
+        }
+        if (bounded) {
+            sb.append(prefix);
+            keyCompare(sb, alias, topmost, " <= ", "$h", keyLength);
+            prefix = " AND ";
+        }
+        if (lowerLength > 0) {
+            sb.append(prefix);
+            keyCompare(sb, alias, topmost, " >= ", "$l", lowerLength);
+            prefix = " AND ";
+        }
+        if (upperLength > 0) {
+            sb.append(prefix);
+            if (lowerLength > 0) {
+                keyCompare(sb, alias, topmost, " < ", "$u", upperLength);
+            } else {
+                sb.append("COALESCE(");
+                keyCompare(sb, alias, topmost, " < ", "$u", upperLength);
+                sb.append(", TRUE)");
+            }
+        }
+        return (sb.length() > 0) ? sb.toString() : null;
+    }
+
+    private static void declareKeyParams(StringBuilder sb, MvTableInfo topmost,
+            String prefix, int count) {
+        for (int index = 0; index < count; ++index) {
+            String name = topmost.getKey().get(index);
+            sb.append("DECLARE ").append(prefix).append(index + 1).append(" AS ");
+            sb.append(topmost.getColumns().get(name));
+            sb.append(";").append(MvSqlGen.EOL);
+        }
+    }
+
+    private static void keyCompare(StringBuilder sb, MvTableInfo topmost,
+            String op, String prefix, int count) {
+        keyCompare(sb, null, topmost, op, prefix, count);
+    }
+
+    private static void keyCompare(StringBuilder sb, String alias, MvTableInfo topmost,
+            String op, String prefix, int count) {
+        sb.append("(");
+        for (int index = 0; index < count; ++index) {
+            if (index > 0) {
+                sb.append(", ");
+            }
+            if (alias != null) {
+                safeId(sb, alias).append(".");
+            }
+            safeId(sb, topmost.getKey().get(index));
+        }
+        sb.append(")").append(op).append("(");
+        for (int index = 0; index < count; ++index) {
+            if (index > 0) {
+                sb.append(", ");
+            }
+            sb.append(prefix).append(index + 1);
+        }
+        sb.append(")");
+    }
+
     private static void keyNamesByComma(StringBuilder sb, MvTableInfo topmost) {
         int index = 0;
         for (String name : topmost.getKey()) {
@@ -352,6 +798,10 @@ public class MvSqlGen implements AutoCloseable {
     }
 
     private void genFullSelect(StringBuilder sb, boolean withInputKeys) {
+        genFullSelect(sb, withInputKeys, null);
+    }
+
+    private void genFullSelect(StringBuilder sb, boolean withInputKeys, String condition) {
         sb.append("SELECT").append(EOL);
 
         // Generate column list
@@ -373,8 +823,16 @@ public class MvSqlGen implements AutoCloseable {
         // Add WHERE clause if present
         if (target.getFilter() != null) {
             sb.append("WHERE ");
-            genExpression(sb, target.getFilter(), PrimitiveType.Bool);
+            if (condition != null) {
+                sb.append("(");
+                genExpression(sb, target.getFilter(), PrimitiveType.Bool);
+                sb.append(") AND ").append(condition);
+            } else {
+                genExpression(sb, target.getFilter(), PrimitiveType.Bool);
+            }
             sb.append(EOL);
+        } else if (condition != null) {
+            sb.append("WHERE ").append(condition).append(EOL);
         }
     }
 
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.antlr.v4.runtime.BaseErrorListener;
 import org.antlr.v4.runtime.CharStream;
@@ -24,6 +25,7 @@ import tech.ydb.mv.model.MvComputation;
 import tech.ydb.mv.model.MvMetadata;
 import tech.ydb.mv.model.MvHandler;
 import tech.ydb.mv.model.MvInput;
+import tech.ydb.mv.model.MvPredicate;
 import tech.ydb.mv.model.MvSqlPos;
 import tech.ydb.mv.model.MvIssue;
 import tech.ydb.mv.model.MvJoinCondition;
@@ -105,7 +107,7 @@ public class MvSqlParser {
         while (ua != null) {
             var sel = ua.aliased_select_stmt();
             if (sel != null && sel.simple_select_stmt() != null) {
-                String alias = unquote(sel.table_alias().ID_PLAIN());
+                String alias = unquote(sel.table_alias());
                 fillTarget(mc, view, alias, sel.simple_select_stmt());
             }
             ua = ua.union_all_select_stmt();
@@ -122,7 +124,7 @@ public class MvSqlParser {
         var src = new MvJoinSource(toSqlPos(sel.main_table_ref()));
         mt.getSources().add(src);
         src.setTableName(unquote(sel.main_table_ref().identifier()));
-        src.setTableAlias(unquote(sel.table_alias().ID_PLAIN()));
+        src.setTableAlias(unquote(sel.table_alias()));
         src.setMode(MvJoinMode.MAIN);
         for (var part : sel.simple_join_part()) {
             fillJoinSource(mt, part);
@@ -132,6 +134,8 @@ public class MvSqlParser {
         }
         if (sel.opaque_expression() != null) {
             fillCondition(mt, sel.opaque_expression());
+        } else if (sel.native_predicate() != null) {
+            fillCondition(mt, sel.native_predicate());
         }
         var prev = view.addPart(mt);
         if (prev != null) {
@@ -163,7 +167,7 @@ public class MvSqlParser {
             src.setTableName(unquote(part.join_table_ref().identifier()));
         }
         if (part.table_alias() != null) {
-            src.setTableAlias(unquote(part.table_alias().ID_PLAIN()));
+            src.setTableAlias(unquote(part.table_alias()));
         }
         if (part.LEFT() != null) {
             src.setMode(MvJoinMode.LEFT);
@@ -181,12 +185,12 @@ public class MvSqlParser {
         src.getConditions().add(mjc);
         if (cond.column_reference_first() != null) {
             var v = cond.column_reference_first().column_reference();
-            mjc.setFirstAlias(unquote(v.table_alias().ID_PLAIN()));
+            mjc.setFirstAlias(unquote(v.table_alias()));
             mjc.setFirstColumn(unquote(v.column_name().identifier()));
         }
         if (cond.column_reference_second() != null) {
             var v = cond.column_reference_second().column_reference();
-            mjc.setSecondAlias(unquote(v.table_alias().ID_PLAIN()));
+            mjc.setSecondAlias(unquote(v.table_alias()));
             mjc.setSecondColumn(unquote(v.column_name().identifier()));
         }
         if (cond.constant_first() != null) {
@@ -202,6 +206,71 @@ public class MvSqlParser {
         mt.setFilter(filter);
     }
 
+    private void fillCondition(MvViewExpr mt, YdbMatViewV1Parser.Native_predicateContext cond) {
+        MvPredicate predicate = fillPredicate(cond);
+        MvComputation filter = new MvComputation(predicate.toSql(), toSqlPos(cond));
+        filter.setPredicate(predicate);
+        ArrayList<MvPredicate> columns = new ArrayList<>();
+        predicate.collectColumns(columns);
+        for (var p : columns) {
+            filter.addSource(p.getAlias(), p.getColumn());
+        }
+        mt.setFilter(filter);
+    }
+
+    private MvPredicate fillPredicate(YdbMatViewV1Parser.Native_predicateContext ctx) {
+        var parts = new ArrayList<MvPredicate>();
+        for (var item : ctx.predicate_and()) {
+            parts.add(fillPredicate(item));
+        }
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        return MvPredicate.logical(MvPredicate.Kind.OR, parts, toSqlPos(ctx));
+    }
+
+    private MvPredicate fillPredicate(YdbMatViewV1Parser.Predicate_andContext ctx) {
+        var parts = new ArrayList<MvPredicate>();
+        for (var item : ctx.predicate_term()) {
+            parts.add(fillPredicate(item));
+        }
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        return MvPredicate.logical(MvPredicate.Kind.AND, parts, toSqlPos(ctx));
+    }
+
+    private MvPredicate fillPredicate(YdbMatViewV1Parser.Predicate_termContext ctx) {
+        if (ctx.native_predicate() != null) {
+            return fillPredicate(ctx.native_predicate());
+        }
+        var colref = ctx.column_reference();
+        if (colref == null || colref.table_alias() == null || colref.column_name() == null) {
+            // syntax error already reported
+            return MvPredicate.logical(MvPredicate.Kind.AND, List.of(), toSqlPos(ctx));
+        }
+        String alias = unquote(colref.table_alias());
+        String column = unquote(colref.column_name().identifier());
+        MvPredicate.Kind kind;
+        if (ctx.NULL() != null) {
+            kind = (ctx.NOT() != null) ? MvPredicate.Kind.IS_NOT_NULL : MvPredicate.Kind.IS_NULL;
+        } else if (ctx.IN() != null) {
+            kind = (ctx.NOT() != null) ? MvPredicate.Kind.NOT_IN : MvPredicate.Kind.IN;
+        } else if (ctx.comparison_operator() != null) {
+            kind = MvPredicate.Kind.fromComparison(ctx.comparison_operator().getText());
+        } else {
+            return MvPredicate.logical(MvPredicate.Kind.AND, List.of(), toSqlPos(ctx));
+        }
+        List<MvPredicate.Constant> constants = ctx.predicate_constant().stream()
+                .map(c -> new MvPredicate.Constant(c.getText()))
+                .toList();
+        if (constants.isEmpty() && kind != MvPredicate.Kind.IS_NULL
+                && kind != MvPredicate.Kind.IS_NOT_NULL) {
+            return MvPredicate.logical(MvPredicate.Kind.AND, List.of(), toSqlPos(ctx));
+        }
+        return MvPredicate.column(kind, alias, column, constants, toSqlPos(ctx));
+    }
+
     private MvComputation fillComputationColumns(YdbMatViewV1Parser.Opaque_expressionContext input) {
         if (input == null || input.opaque_expression_body() == null) {
             return null;
@@ -214,15 +283,15 @@ public class MvSqlParser {
             if (colref.table_alias() == null || colref.column_name() == null) {
                 continue;
             }
-            expr.addSource(unquote(colref.table_alias().ID_PLAIN()),
-                    unquote(colref.column_name().identifier().ID_PLAIN()));
+            expr.addSource(unquote(colref.table_alias()),
+                    unquote(colref.column_name().identifier()));
         }
         return expr;
     }
 
     private void fillColumn(MvViewExpr mt, YdbMatViewV1Parser.Result_columnContext cc) {
         var column = new MvColumn(
-                unquote(cc.column_alias().ID_PLAIN()),
+                unquote(cc.column_alias()),
                 toSqlPos(cc));
         mt.getColumns().add(column);
         if (cc.opaque_expression() != null) {
@@ -237,7 +306,7 @@ public class MvSqlParser {
                 && cc.column_reference().column_name() != null
                 && cc.column_reference().table_alias() != null) {
             column.setSourceColumn(unquote(cc.column_reference().column_name().identifier()));
-            column.setSourceAlias(unquote(cc.column_reference().table_alias().ID_PLAIN()));
+            column.setSourceAlias(unquote(cc.column_reference().table_alias()));
         }
     }
 
@@ -1,12 +1,14 @@
 package tech.ydb.mv.parser;
 
 import java.io.PrintStream;
+import java.util.HashSet;
 import java.util.concurrent.CompletableFuture;
 
 import tech.ydb.common.transaction.TxMode;
 import tech.ydb.core.Status;
 import tech.ydb.query.QuerySession;
 
+import tech.ydb.mv.MvConfig;
 import tech.ydb.mv.YdbConnector;
 import tech.ydb.mv.model.MvHandler;
 import tech.ydb.mv.model.MvInput;
@@ -25,6 +27,9 @@ public class MvStreamBuilder {
     private final MvHandler handler;
     private final PrintStream pw;
     private final boolean create;
+    private final boolean initialScan;
+    // topmost source tables of the handler's targets
+    private final HashSet<String> topmostTables = new HashSet<>();
 
     public MvStreamBuilder(YdbConnector conn, MvMetadata metadata, MvHandler handler,
             PrintStream pw, boolean create) {
@@ -33,6 +38,12 @@ public class MvStreamBuilder {
         this.handler = handler;
         this.pw = pw;
         this.create = create;
+        this.initialScan = conn.getProperty(MvConfig.CONF_STREAMS_INITIAL_SCAN, false);
+        for (var view : handler.getViews().values()) {
+            for (var target : view.getParts().values()) {
+                topmostTables.add(target.getTopMostSource().getTableName());
+            }
+        }
     }
 
     public void apply() {
@@ -50,6 +61,11 @@ public class MvStreamBuilder {
         var cf = input.getTableInfo().getChangefeeds().get(input.getChangefeed());
         if (create && cf == null) {
             runDdl(sql);
+            if (isInitialScan(input)) {
+                LOG.info("Changefeed `{}` on table `{}` has been created with the initial scan, "
+                        + "the targets of handler {} will be populated through CDC",
+                        input.getChangefeed(), input.getTableName(), handler.getName());
+            }
         }
         String consumerName = handler.getConsumerNameAlways();
         if (input.isBatchMode()) {
@@ -71,10 +87,24 @@ public class MvStreamBuilder {
                 .append(input.getChangefeed())
                 .append("` WITH (FORMAT='JSON', MODE='")
                 .append(input.isBatchMode() ? "NEW_AND_OLD_IMAGES" : "KEYS_ONLY")
-                .append("');");
+                .append("'");
+        if (isInitialScan(input)) {
+            sb.append(", INITIAL_SCAN=TRUE");
+        }
+        sb.append(");");
         return sb.toString();
     }
 
+    /**
+     * The initial scan is used to bootstrap the targets, so it is only needed
+     * for their topmost sources. Dictionaries never need it, as they are only
+     * used to track the changes.
+     */
+    private boolean isInitialScan(MvInput input) {
+        return initialScan && !input.isBatchMode()
+                && topmostTables.contains(input.getTableName());
+    }
+
     private String generateConsumerSql(MvInput input, String consumerName) {
         var sb = new StringBuilder();
         sb.append("ALTER TOPIC `")
@@ -0,0 +1,45 @@
+package tech.ydb.mv.support;
+
+import java.time.Duration;
+
+import tech.ydb.table.Session;
+import tech.ydb.table.TableClient;
+import tech.ydb.table.description.TableDescription;
+import tech.ydb.table.settings.DescribeTableSettings;
+
+import tech.ydb.mv.data.MvKeyPrefix;
+import tech.ydb.mv.model.MvTableInfo;
+
+/**
+ * Reads the partition boundaries of a table.
+ *
+ * @author zinal
+ */
+public class MvPartitionBounds {
+
+    private MvPartitionBounds() {
+    }
+
+    /**
+     * Describe the table and grab the upper bounds of its partitions.
+     *
+     * @param tableClient Table client to run the describe operation.
+     * @param tableInfo The table to be described.
+     * @return The key prefixes for the partition boundaries, in key order.
+     */
+    public static MvKeyPrefix[] read(TableClient tableClient, MvTableInfo tableInfo) {
+        TableDescription desc;
+        DescribeTableSettings dts = new DescribeTableSettings();
+        dts.setIncludeShardKeyBounds(true);
+        try (Session session = tableClient
+                .createSession(Duration.ofSeconds(10)).join().getValue()) {
+            desc = session.describeTable(tableInfo.getPath(), dts).join().getValue();
+        }
+        return desc.getKeyRanges().stream()
+                .filter(kr -> kr.getTo().isPresent())
+                .map(kr -> kr.getTo().get())
+                .map(kb -> new MvKeyPrefix(kb, tableInfo.getKeyInfo()))
+                .toArray(MvKeyPrefix[]::new);
+    }
+
+}
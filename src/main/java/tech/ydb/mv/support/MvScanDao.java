@@ -1,20 +1,56 @@
 package tech.ydb.mv.support;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 import tech.ydb.table.query.Params;
 import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.values.ListValue;
 import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.StructValue;
 
 import tech.ydb.mv.MvConfig;
 import tech.ydb.mv.YdbConnector;
 import tech.ydb.mv.data.MvKey;
 import tech.ydb.mv.data.YdbStruct;
+import tech.ydb.mv.model.MvViewExpr;
 
 /**
+ * Scan position control table access.
+ *
+ * The position of the sequential scan is stored under the target name, which
+ * for the parts of the UNION ALL views is qualified with the part alias. The
+ * parallel scans store the state of each key range under the target name
+ * with the range suffix, and keep an empty record under the target name.
+ * The regular (resumable) scans also keep their settings in the record with
+ * the settings suffix, which marks the scan as active. The state of the
+ * shadow table rebuild is kept under the target name with the shadow prefix.
  *
  * @author zinal
  */
 public class MvScanDao {
 
+    /**
+     * Separator between the target name and the range suffix.
+     */
+    public static final String RANGE_SEPARATOR = "#";
+
+    /**
+     * Separator between the view name and the part alias.
+     */
+    public static final String PART_SEPARATOR = "@";
+
+    /**
+     * Suffix of the scan settings record, after the range separator.
+     */
+    public static final String SETTINGS_SUFFIX = "settings";
+
+    /**
+     * Prefix of the shadow rebuild record, between the range separators.
+     */
+    public static final String SHADOW_PREFIX = "shadow";
+
     private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvScanDao.class);
 
     private final YdbConnector conn;
@@ -22,6 +58,10 @@ public class MvScanDao {
     private final String sqlPosSelect;
     private final String sqlPosUpsert;
     private final String sqlPosDelete;
+    private final String sqlRangeSelect;
+    private final String sqlRangeUpsert;
+    private final String sqlActiveSelect;
+    private final String sqlActiveDelete;
 
     public MvScanDao(YdbConnector conn, MvScanAdapter adapter) {
         this.conn = conn;
@@ -29,6 +69,59 @@ public class MvScanDao {
         this.sqlPosSelect = makePosSelect(adapter);
         this.sqlPosUpsert = makePosUpsert(adapter);
         this.sqlPosDelete = makePosDelete(adapter);
+        this.sqlRangeSelect = makeRangeSelect(adapter);
+        this.sqlRangeUpsert = makeRangeUpsert(adapter);
+        this.sqlActiveSelect = makeActiveSelect(adapter);
+        this.sqlActiveDelete = makeActiveDelete(adapter);
+    }
+
+    /**
+     * @param target The target (MV part)
+     * @return The name of the scan state record for the target: the view
+     * name for the single part views, and the view name qualified with the
+     * part alias for the UNION ALL views.
+     */
+    public static String toScanName(MvViewExpr target) {
+        var view = target.getView();
+        if (view == null || view.getParts().size() <= 1) {
+            return target.getName();
+        }
+        return target.getName() + PART_SEPARATOR + target.getAlias();
+    }
+
+    /**
+     * Find the settings of the active scan for the target. For the parts of
+     * the UNION ALL views, the settings saved under the plain view name
+     * (before the scan state names were qualified with the aliases) are used
+     * too, as the scan of the whole view was requested.
+     *
+     * @param active Target name to the scan settings JSON, as read by
+     * {@link #readActiveScans()}
+     * @param target The target (MV part)
+     * @return The scan settings JSON, or null if the scan is not active.
+     */
+    public static String findActiveScan(Map<String, String> active, MvViewExpr target) {
+        String json = active.get(toScanName(target));
+        if (json == null) {
+            json = active.get(target.getName());
+        }
+        return json;
+    }
+
+    /**
+     * @param tableName The target name
+     * @return The name of the scan settings record for the target.
+     */
+    public static String toSettingsName(String tableName) {
+        return tableName + RANGE_SEPARATOR + SETTINGS_SUFFIX;
+    }
+
+    /**
+     * @param tableName The target name
+     * @return The name of the shadow rebuild record for the target.
+     */
+    public static String toShadowName(String tableName) {
+        return RANGE_SEPARATOR + SHADOW_PREFIX + RANGE_SEPARATOR + tableName;
     }
 
     public MvKey initScan() {
@@ -59,32 +152,176 @@ public class MvScanDao {
     }
 
     public void unregisterScan() {
-        LOG.debug("Unregistering scan, handler `{}`, table `{}`",
-                adapter.getJobName(), adapter.getTableName());
+        unregisterSpecificScan(adapter.getTableName());
+    }
+
+    public void saveScan(MvKey key) {
+        saveScan(adapter.getTableName(), key.convertKeyToJson());
+    }
+
+    /**
+     * Save the scan state as the JSON document.
+     *
+     * @param tableName The name of the scan state record.
+     * @param json The scan state.
+     */
+    public void saveScan(String tableName, String json) {
+        LOG.debug("Saving scan position, handler `{}`, table `{}`",
+                adapter.getJobName(), tableName);
         Params params = Params.of(
                 "$job_name", PrimitiveValue.newText(adapter.getJobName()),
-                "$table_name", PrimitiveValue.newText(adapter.getTableName())
+                "$table_name", PrimitiveValue.newText(tableName),
+                "$key_position", PrimitiveValue.newJsonDocument(json)
         );
-        conn.sqlWrite(sqlPosDelete, params);
+        conn.sqlWrite(sqlPosUpsert, params);
     }
 
-    public void saveScan(MvKey key) {
-        LOG.debug("Saving scan position, handler `{}`, table `{}`",
+    /**
+     * Register the parallel scan with the initial states of its key ranges,
+     * in a single transaction.
+     *
+     * @param ranges Range name to the range state JSON.
+     */
+    public void registerRanges(Map<String, String> ranges) {
+        LOG.debug("Registering {} scan ranges, handler `{}`, table `{}`",
+                ranges.size(), adapter.getJobName(), adapter.getTableName());
+        var values = new ArrayList<StructValue>(ranges.size() + 1);
+        values.add(StructValue.of(
+                "job_name", PrimitiveValue.newText(adapter.getJobName()),
+                "table_name", PrimitiveValue.newText(adapter.getTableName()),
+                "key_position", PrimitiveValue.newJsonDocument("{}")));
+        for (var me : ranges.entrySet()) {
+            values.add(StructValue.of(
+                    "job_name", PrimitiveValue.newText(adapter.getJobName()),
+                    "table_name", PrimitiveValue.newText(me.getKey()),
+                    "key_position", PrimitiveValue.newJsonDocument(me.getValue())));
+        }
+        conn.sqlWrite(sqlRangeUpsert, Params.of("$input",
+                ListValue.of(values.toArray(StructValue[]::new))));
+    }
+
+    /**
+     * Read the states of the key ranges for the parallel scan.
+     *
+     * @return Range name to the range state JSON, empty for a sequential or
+     * a new scan.
+     */
+    public Map<String, String> readRanges() {
+        Params params = Params.of(
+                "$job_name", PrimitiveValue.newText(adapter.getJobName()),
+                "$range_prefix", PrimitiveValue.newText(adapter.getTableName() + RANGE_SEPARATOR)
+        );
+        ResultSetReader rsr = conn.sqlRead(sqlRangeSelect, params).getResultSet(0);
+        var output = new LinkedHashMap<String, String>();
+        while (rsr.next()) {
+            output.put(rsr.getColumn(0).getText(), rsr.getColumn(1).getJsonDocument());
+        }
+        return output;
+    }
+
+    /**
+     * Mark the scan as active, saving its settings for the resumption after
+     * the restart of the handler.
+     *
+     * @param settingsJson The scan settings.
+     */
+    public void activateScan(String settingsJson) {
+        saveScan(toSettingsName(adapter.getTableName()), settingsJson);
+    }
+
+    /**
+     * Mark the scan as inactive, keeping its position. Inactive scans are not
+     * resumed automatically.
+     */
+    public void deactivateScan() {
+        LOG.debug("Deactivating scan, handler `{}`, table `{}`",
                 adapter.getJobName(), adapter.getTableName());
         Params params = Params.of(
                 "$job_name", PrimitiveValue.newText(adapter.getJobName()),
-                "$table_name", PrimitiveValue.newText(adapter.getTableName()),
-                "$key_position", PrimitiveValue.newJsonDocument(key.convertKeyToJson())
+                "$table_name", PrimitiveValue.newText(toSettingsName(adapter.getTableName()))
         );
-        conn.sqlWrite(sqlPosUpsert, params);
+        conn.sqlWrite(sqlActiveDelete, params);
+    }
+
+    /**
+     * Read the active scans of the handler.
+     *
+     * @return Target name to the scan settings JSON.
+     */
+    public Map<String, String> readActiveScans() {
+        String suffix = RANGE_SEPARATOR + SETTINGS_SUFFIX;
+        Params params = Params.of(
+                "$job_name", PrimitiveValue.newText(adapter.getJobName()),
+                "$settings_suffix", PrimitiveValue.newText(suffix)
+        );
+        ResultSetReader rsr = conn.sqlRead(sqlActiveSelect, params).getResultSet(0);
+        var output = new LinkedHashMap<String, String>();
+        while (rsr.next()) {
+            String name = rsr.getColumn(0).getText();
+            output.put(name.substring(0, name.length() - suffix.length()),
+                    rsr.getColumn(1).getJsonDocument());
+        }
+        return output;
+    }
+
+    /**
+     * Save the state of the shadow table rebuild for the target.
+     *
+     * @param tableName The target name
+     * @param json The rebuild state.
+     */
+    public void saveShadow(String tableName, String json) {
+        saveScan(toShadowName(tableName), json);
+    }
+
+    /**
+     * Remove the state of the shadow table rebuild for the target.
+     *
+     * @param tableName The target name
+     */
+    public void clearShadow(String tableName) {
+        LOG.debug("Clearing shadow rebuild state, handler `{}`, table `{}`",
+                adapter.getJobName(), tableName);
+        Params params = Params.of(
+                "$job_name", PrimitiveValue.newText(adapter.getJobName()),
+                "$table_name", PrimitiveValue.newText(toShadowName(tableName))
+        );
+        conn.sqlWrite(sqlActiveDelete, params);
+    }
+
+    /**
+     * Read the states of the shadow table rebuilds of the handler.
+     *
+     * @return Target name to the rebuild state JSON.
+     */
+    public Map<String, String> readShadows() {
+        String prefix = toShadowName("");
+        Params params = Params.of(
+                "$job_name", PrimitiveValue.newText(adapter.getJobName()),
+                "$range_prefix", PrimitiveValue.newText(prefix)
+        );
+        ResultSetReader rsr = conn.sqlRead(sqlRangeSelect, params).getResultSet(0);
+        var output = new LinkedHashMap<String, String>();
+        while (rsr.next()) {
+            output.put(rsr.getColumn(0).getText().substring(prefix.length()),
+                    rsr.getColumn(1).getJsonDocument());
+        }
+        return output;
     }
 
+    /**
+     * Remove the scan state for the specified table, including the states
+     * of its key ranges.
+     *
+     * @param tableName The name of the scan state record.
+     */
     public void unregisterSpecificScan(String tableName) {
         LOG.debug("Unregistering scan, handler `{}`, table `{}`",
                 adapter.getJobName(), tableName);
         Params params = Params.of(
                 "$job_name", PrimitiveValue.newText(adapter.getJobName()),
-                "$table_name", PrimitiveValue.newText(tableName)
+                "$table_name", PrimitiveValue.newText(tableName),
+                "$range_prefix", PrimitiveValue.newText(tableName + RANGE_SEPARATOR)
         );
         conn.sqlWrite(sqlPosDelete, params);
     }
@@ -99,6 +336,37 @@ public class MvScanDao {
     }
 
     private static String makePosDelete(MvScanAdapter adapter) {
+        return "DECLARE $job_name AS Text; "
+                + "DECLARE $table_name AS Text; "
+                + "DECLARE $range_prefix AS Text; "
+                + "DELETE FROM `" + MvConfig.safe(adapter.getControlTable()) + "` "
+                + "WHERE job_name=$job_name AND (table_name=$table_name "
+                + "OR StartsWith(table_name, $range_prefix));";
+    }
+
+    private static String makeRangeUpsert(MvScanAdapter adapter) {
+        return "DECLARE $input AS List<Struct<job_name:Text, table_name:Text, "
+                + "key_position:JsonDocument>>; "
+                + "UPSERT INTO `" + MvConfig.safe(adapter.getControlTable()) + "` "
+                + "SELECT job_name, table_name, CurrentUtcTimestamp() AS updated_at, "
+                + "key_position FROM AS_TABLE($input);";
+    }
+
+    private static String makeRangeSelect(MvScanAdapter adapter) {
+        return "DECLARE $job_name AS Text; "
+                + "DECLARE $range_prefix AS Text; "
+                + "SELECT table_name, key_position FROM `" + MvConfig.safe(adapter.getControlTable()) + "` "
+                + "WHERE job_name=$job_name AND StartsWith(table_name, $range_prefix);";
+    }
+
+    private static String makeActiveSelect(MvScanAdapter adapter) {
+        return "DECLARE $job_name AS Text; "
+                + "DECLARE $settings_suffix AS Text; "
+                + "SELECT table_name, key_position FROM `" + MvConfig.safe(adapter.getControlTable()) + "` "
+                + "WHERE job_name=$job_name AND EndsWith(table_name, $settings_suffix);";
+    }
+
+    private static String makeActiveDelete(MvScanAdapter adapter) {
         return "DECLARE $job_name AS Text; "
                 + "DECLARE $table_name AS Text; "
                 + "DELETE FROM `" + MvConfig.safe(adapter.getControlTable()) + "` "
@@ -0,0 +1,237 @@
+package tech.ydb.mv.support;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import tech.ydb.table.query.Params;
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.values.ListValue;
+import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.StructValue;
+import tech.ydb.table.values.Value;
+
+import tech.ydb.mv.MvConfig;
+import tech.ydb.mv.YdbConnector;
+
+/**
+ * Durable queue of the keys forwarded between the shards of a single handler.
+ *
+ * @author zinal
+ */
+public class MvShardDao extends MvDaoHelpers {
+
+    private final YdbConnector conn;
+    private final String jobName;
+    private final String sqlUpsert;
+    private final String sqlSelectStart;
+    private final String sqlSelectNext;
+    private final String sqlDelete;
+
+    public MvShardDao(YdbConnector conn, String handlerName) {
+        this.conn = conn;
+        this.jobName = handlerName;
+        String tableName = conn.getProperty(MvConfig.CONF_SHARD_TABLE, MvConfig.DEF_SHARD_TABLE);
+        this.sqlUpsert = """
+            DECLARE $input AS List<Struct<
+                job_name:Text, shard_no:Int32, tv:Timestamp, seqno:Uint64,
+                src:Text, target_name:Text?, target_alias:Text?,
+                op:Text, key_val:JsonDocument>>;
+            UPSERT INTO `%s` SELECT * FROM AS_TABLE($input);
+            """.formatted(tableName);
+        this.sqlSelectStart = """
+            DECLARE $job_name AS Text; DECLARE $shard_no AS Int32;
+            DECLARE $limit AS Uint64;
+            SELECT tv, seqno, src, target_name, target_alias, op, key_val
+            FROM `%s`
+            WHERE job_name=$job_name AND shard_no=$shard_no
+            ORDER BY job_name, shard_no, tv, seqno
+            LIMIT $limit;
+            """.formatted(tableName);
+        this.sqlSelectNext = """
+            DECLARE $job_name AS Text; DECLARE $shard_no AS Int32;
+            DECLARE $tv AS Timestamp; DECLARE $seqno AS Uint64;
+            DECLARE $limit AS Uint64;
+            SELECT tv, seqno, src, target_name, target_alias, op, key_val
+            FROM `%s`
+            WHERE job_name=$job_name AND shard_no=$shard_no
+              AND (tv, seqno) > ($tv, $seqno)
+            ORDER BY job_name, shard_no, tv, seqno
+            LIMIT $limit;
+            """.formatted(tableName);
+        this.sqlDelete = """
+            DECLARE $input AS List<Struct<
+                job_name:Text, shard_no:Int32, tv:Timestamp, seqno:Uint64>>;
+            DELETE FROM `%s` ON SELECT * FROM AS_TABLE($input);
+            """.formatted(tableName);
+    }
+
+    public String getJobName() {
+        return jobName;
+    }
+
+    /**
+     * Write the entries to the queue.
+     *
+     * @param entries The entries to be written.
+     */
+    public void write(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        StructValue[] values = entries.stream()
+                .map(e -> toStruct(e))
+                .toArray(StructValue[]::new);
+        conn.sqlWrite(sqlUpsert, Params.of("$input", ListValue.of(values)));
+    }
+
+    /**
+     * Read the portion of the entries for the specified shard.
+     *
+     * @param shardNo Shard index
+     * @param position The last entry read before, or null to read from start
+     * @param limit Max number of entries to read
+     * @return The entries read, in the queue order
+     */
+    public List<Entry> read(int shardNo, Entry position, int limit) {
+        ResultSetReader rsr;
+        if (position == null) {
+            rsr = conn.sqlRead(sqlSelectStart, Params.of(
+                    "$job_name", PrimitiveValue.newText(jobName),
+                    "$shard_no", PrimitiveValue.newInt32(shardNo),
+                    "$limit", PrimitiveValue.newUint64(limit)
+            )).getResultSet(0);
+        } else {
+            rsr = conn.sqlRead(sqlSelectNext, Params.of(
+                    "$job_name", PrimitiveValue.newText(jobName),
+                    "$shard_no", PrimitiveValue.newInt32(shardNo),
+                    "$tv", PrimitiveValue.newTimestamp(position.getTv()),
+                    "$seqno", PrimitiveValue.newUint64(position.getSeqno()),
+                    "$limit", PrimitiveValue.newUint64(limit)
+            )).getResultSet(0);
+        }
+        ArrayList<Entry> output = new ArrayList<>(rsr.getRowCount());
+        while (rsr.next()) {
+            output.add(new Entry(shardNo,
+                    rsr.getColumn("tv").getTimestamp(),
+                    rsr.getColumn("seqno").getUint64(),
+                    rsr.getColumn("src").getText(),
+                    getText(rsr, "target_name"),
+                    getText(rsr, "target_alias"),
+                    rsr.getColumn("op").getText(),
+                    rsr.getColumn("key_val").getJsonDocument()));
+        }
+        return output;
+    }
+
+    /**
+     * Remove the processed entries from the queue.
+     *
+     * @param entries The entries to be removed.
+     */
+    public void delete(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        StructValue[] values = entries.stream()
+                .map(e -> toKeyStruct(e))
+                .toArray(StructValue[]::new);
+        conn.sqlWrite(sqlDelete, Params.of("$input", ListValue.of(values)));
+    }
+
+    private StructValue toKeyStruct(Entry e) {
+        HashMap<String, Value<?>> m = new HashMap<>();
+        m.put("job_name", PrimitiveValue.newText(jobName));
+        m.put("shard_no", PrimitiveValue.newInt32(e.getShardNo()));
+        m.put("tv", PrimitiveValue.newTimestamp(e.getTv()));
+        m.put("seqno", PrimitiveValue.newUint64(e.getSeqno()));
+        return StructValue.of(m);
+    }
+
+    private StructValue toStruct(Entry e) {
+        HashMap<String, Value<?>> m = new HashMap<>();
+        m.put("job_name", PrimitiveValue.newText(jobName));
+        m.put("shard_no", PrimitiveValue.newInt32(e.getShardNo()));
+        m.put("tv", PrimitiveValue.newTimestamp(e.getTv()));
+        m.put("seqno", PrimitiveValue.newUint64(e.getSeqno()));
+        m.put("src", PrimitiveValue.newText(e.getSource()));
+        m.put("target_name", text(e.getTargetName()));
+        m.put("target_alias", text(e.getTargetAlias()));
+        m.put("op", PrimitiveValue.newText(e.getOperation()));
+        m.put("key_val", PrimitiveValue.newJsonDocument(e.getKeyJson()));
+        return StructValue.of(m);
+    }
+
+    /**
+     * Single forwarded key.
+     */
+    public static class Entry {
+
+        private final int shardNo;
+        private final Instant tv;
+        private final long seqno;
+        private final String source;
+        private final String targetName;
+        private final String targetAlias;
+        private final String operation;
+        private final String keyJson;
+
+        public Entry(int shardNo, Instant tv, long seqno, String source,
+                String targetName, String targetAlias, String operation, String keyJson) {
+            this.shardNo = shardNo;
+            this.tv = tv;
+            this.seqno = seqno;
+            this.source = source;
+            this.targetName = targetName;
+            this.targetAlias = targetAlias;
+            this.operation = operation;
+            this.keyJson = keyJson;
+        }
+
+        public int getShardNo() {
+            return shardNo;
+        }
+
+        public Instant getTv() {
+            return tv;
+        }
+
+        public long getSeqno() {
+            return seqno;
+        }
+
+        /**
+         * @return Name of the source table
+         */
+        public String getSource() {
+            return source;
+        }
+
+        /**
+         * @return Target name, or null if all source actions are needed
+         */
+        public String getTargetName() {
+            return targetName;
+        }
+
+        public String getTargetAlias() {
+            return targetAlias;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getKeyJson() {
+            return keyJson;
+        }
+
+        @Override
+        public String toString() {
+            return "Entry{" + shardNo + ", " + tv + ", " + seqno + ", " + source
+                    + ", " + keyJson + '}';
+        }
+    }
+
+}
@@ -0,0 +1,43 @@
+package tech.ydb.mv.support;
+
+import java.time.Duration;
+
+import tech.ydb.table.Session;
+import tech.ydb.table.TableClient;
+import tech.ydb.table.description.TableDescription;
+import tech.ydb.table.settings.DescribeTableSettings;
+
+import tech.ydb.mv.model.MvTableInfo;
+
+/**
+ * Reads the table statistics, as collected by the database.
+ *
+ * @author zinal
+ */
+public class MvTableStats {
+
+    private MvTableStats() {
+    }
+
+    /**
+     * Describe the table and grab the estimated number of its rows. The
+     * estimate is collected by the database in the background, and may lag
+     * behind the actual table contents.
+     *
+     * @param tableClient Table client to run the describe operation.
+     * @param tableInfo The table to be described.
+     * @return The estimated number of rows, 0 if not known.
+     */
+    public static long readRowCount(TableClient tableClient, MvTableInfo tableInfo) {
+        TableDescription desc;
+        DescribeTableSettings dts = new DescribeTableSettings();
+        dts.setIncludeTableStats(true);
+        try (Session session = tableClient
+                .createSession(Duration.ofSeconds(10)).join().getValue()) {
+            desc = session.describeTable(tableInfo.getPath(), dts).join().getValue();
+        }
+        var stats = desc.getTableStats();
+        return (stats == null) ? 0L : Math.max(0L, stats.getRowsEstimate());
+    }
+
+}
@@ -0,0 +1,400 @@
+package tech.ydb.mv.svc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import tech.ydb.table.query.Params;
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.values.ListValue;
+import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.StructValue;
+import tech.ydb.table.values.Value;
+
+import tech.ydb.mv.MvConfig;
+import tech.ydb.mv.YdbConnector;
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.data.YdbStruct;
+import tech.ydb.mv.metrics.MvMetrics;
+import tech.ydb.mv.model.MvDictionarySettings;
+import tech.ydb.mv.model.MvMetadata;
+import tech.ydb.mv.model.MvTableInfo;
+import tech.ydb.mv.parser.MvDescriberYdb;
+
+/**
+ * Background compaction of the dictionary history table.
+ *
+ * The history rows already processed by all the handlers using the dictionary
+ * are deleted. The rows not processed by any handler yet are merged per the
+ * dictionary row key: the changed fields are accumulated in the latest row,
+ * and the earlier rows are deleted. Each handler then refreshes the same
+ * rows for the same fields, as it would do from the original rows.
+ *
+ * The history rows retained in the runner-wide history cache are dropped
+ * after each compaction of the dictionary, as the cached rows may have been
+ * merged or deleted.
+ *
+ * @author zinal
+ */
+class MvDictionaryCompactor {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvDictionaryCompactor.class);
+
+    private final MvMetadata context;
+    private final YdbConnector conn;
+    private final MvDictionarySettings settings;
+    private final String historyTable;
+    private final MvTableInfo historyTableInfo;
+    private final String controlTable;
+    private final int batchSize;
+    private final String sqlPositions;
+    private final String sqlSelectProcessed;
+    private final String sqlSelectInitial;
+    private final String sqlSelectNext;
+    private final String sqlDelete;
+    private final String sqlMerge;
+    private final String sqlCount;
+    private final MvDictionaryHistory history;
+    private volatile ScheduledExecutorService executor;
+
+    MvDictionaryCompactor(MvMetadata context, YdbConnector conn,
+            MvDictionarySettings settings, MvDictionaryHistory history) {
+        this.context = context;
+        this.history = history;
+        this.conn = conn;
+        this.settings = new MvDictionarySettings(settings);
+        this.historyTable = conn.getProperty(MvConfig.CONF_DICT_HIST_TABLE, MvConfig.DEF_DICT_HIST_TABLE);
+        this.historyTableInfo = new MvDescriberYdb(conn).describeTable(historyTable, null);
+        this.controlTable = conn.getProperty(MvConfig.CONF_SCAN_TABLE, MvConfig.DEF_SCAN_TABLE);
+        this.batchSize = Math.max(1, this.settings.getUpsertBatchSize());
+        this.sqlPositions = """
+            DECLARE $src AS Text; DECLARE $jobs AS List<Text>;
+            SELECT job_name, key_position FROM `%s`
+            WHERE table_name=$src AND job_name IN $jobs;
+            """.formatted(controlTable);
+        this.sqlSelectProcessed = """
+            DECLARE $src AS Text; DECLARE $tv AS Timestamp;
+            DECLARE $seqno AS Uint64; DECLARE $key_text AS Text;
+            DECLARE $limit AS Uint64;
+            SELECT src, tv, seqno, key_text FROM `%s`
+            WHERE src=$src AND (tv, seqno, key_text) <= ($tv, $seqno, $key_text)
+            ORDER BY src, tv, seqno, key_text LIMIT $limit;
+            """.formatted(historyTable);
+        this.sqlSelectInitial = """
+            DECLARE $src AS Text; DECLARE $limit AS Uint64;
+            SELECT src, tv, seqno, key_text, key_val, diff_val FROM `%s`
+            WHERE src=$src
+            ORDER BY src, tv, seqno, key_text LIMIT $limit;
+            """.formatted(historyTable);
+        this.sqlSelectNext = """
+            DECLARE $src AS Text; DECLARE $tv AS Timestamp;
+            DECLARE $seqno AS Uint64; DECLARE $key_text AS Text;
+            DECLARE $limit AS Uint64;
+            SELECT src, tv, seqno, key_text, key_val, diff_val FROM `%s`
+            WHERE src=$src AND (tv, seqno, key_text) > ($tv, $seqno, $key_text)
+            ORDER BY src, tv, seqno, key_text LIMIT $limit;
+            """.formatted(historyTable);
+        this.sqlDelete = """
+            DECLARE $del AS List<Struct<src:Text, tv:Timestamp, seqno:Uint64, key_text:Text>>;
+            DELETE FROM `%s` ON SELECT * FROM AS_TABLE($del);
+            """.formatted(historyTable);
+        this.sqlMerge = """
+            DECLARE $upd AS List<Struct<
+                src:Text, tv:Timestamp, seqno:Uint64, key_text:Text,
+                key_val:JsonDocument?, diff_val:JsonDocument?>>;
+            DECLARE $del AS List<Struct<src:Text, tv:Timestamp, seqno:Uint64, key_text:Text>>;
+            UPSERT INTO `%s` SELECT * FROM AS_TABLE($upd);
+            DELETE FROM `%s` ON SELECT * FROM AS_TABLE($del);
+            """.formatted(historyTable, historyTable);
+        this.sqlCount = """
+            DECLARE $src AS Text;
+            SELECT COUNT(*) FROM `%s` WHERE src=$src;
+            """.formatted(historyTable);
+    }
+
+    public synchronized void start() {
+        long period = settings.getCompactSeconds();
+        if (executor != null || period <= 0L) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "mv-dict-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(() -> compactAll(), period, period, TimeUnit.SECONDS);
+        LOG.info("Dictionary history compaction scheduled every {} seconds.", period);
+    }
+
+    public synchronized void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private boolean isRunning() {
+        return executor != null && !Thread.currentThread().isInterrupted();
+    }
+
+    void compactAll() {
+        // dictionary table name -> handlers using it
+        var consumers = new HashMap<String, LinkedHashSet<String>>();
+        for (var handler : context.getHandlers().values()) {
+            handler.getInputs().values().stream()
+                    .filter(input -> input.isBatchMode() && input.isTableKnown())
+                    .forEach(input -> consumers
+                    .computeIfAbsent(input.getTableName(), k -> new LinkedHashSet<>())
+                    .add(handler.getName()));
+        }
+        for (var me : consumers.entrySet()) {
+            if (!isRunning()) {
+                return;
+            }
+            try {
+                compact(me.getKey(), new ArrayList<>(me.getValue()));
+            } catch (Exception ex) {
+                LOG.error("Failed to compact the history of dictionary `{}` in `{}`",
+                        me.getKey(), historyTable, ex);
+            } finally {
+                if (history != null) {
+                    history.invalidate(me.getKey());
+                }
+            }
+        }
+    }
+
+    private void compact(String src, List<String> jobs) {
+        long startNs = System.nanoTime();
+        var positions = readPositions(src, jobs);
+        int deleted = 0;
+        if (positions.size() == jobs.size()) {
+            // all handlers have processed the history up to the earliest position
+            MvKey earliest = positions.stream().min(MvKey::compareTo).get();
+            deleted = deleteProcessed(src, earliest);
+        }
+        // the history after the latest position has not been processed yet
+        MvKey latest = positions.stream().max(MvKey::compareTo).orElse(null);
+        int merged = mergePending(src, latest);
+        long rows = countRows(src);
+        MvMetrics.recordDictHistCompact(historyTable, src, startNs, deleted, merged, rows);
+        LOG.info("Dictionary `{}` history compacted: {} rows deleted, {} rows merged, {} rows left.",
+                src, deleted, merged, rows);
+    }
+
+    /**
+     * @return The committed positions of the handlers, without the handlers
+     * which have not committed any position yet.
+     */
+    private ArrayList<MvKey> readPositions(String src, List<String> jobs) {
+        var jobValues = jobs.stream()
+                .map(job -> PrimitiveValue.newText(job))
+                .toArray(PrimitiveValue[]::new);
+        Params params = Params.of(
+                "$src", PrimitiveValue.newText(src),
+                "$jobs", ListValue.of(jobValues));
+        ResultSetReader rsr = conn.sqlRead(sqlPositions, params).getResultSet(0);
+        var output = new ArrayList<MvKey>();
+        while (rsr.next()) {
+            String json = rsr.getColumn(1).getJsonDocument();
+            if (json == null) {
+                continue;
+            }
+            MvKey key = new MvKey(YdbStruct.fromJson(json), historyTableInfo);
+            if (!key.isEmpty()) {
+                output.add(key);
+            }
+        }
+        return output;
+    }
+
+    private int deleteProcessed(String src, MvKey position) {
+        int total = 0;
+        int count;
+        do {
+            if (!isRunning()) {
+                break;
+            }
+            Params params = Params.of(
+                    "$src", PrimitiveValue.newText(src),
+                    "$tv", position.convertValue(1),
+                    "$seqno", position.convertValue(2),
+                    "$key_text", position.convertValue(3),
+                    "$limit", PrimitiveValue.newUint64(batchSize));
+            ResultSetReader rsr = conn.sqlRead(sqlSelectProcessed, params).getResultSet(0);
+            var keys = new ArrayList<StructValue>(rsr.getRowCount());
+            while (rsr.next()) {
+                keys.add(toKeyStruct(rsr));
+            }
+            count = keys.size();
+            if (count > 0) {
+                conn.sqlWrite(sqlDelete, Params.of("$del",
+                        ListValue.of(keys.toArray(StructValue[]::new))));
+                total += count;
+            }
+        } while (count >= batchSize);
+        return total;
+    }
+
+    private int mergePending(String src, MvKey position) {
+        long limit = settings.getMaxChangeRowsScanned();
+        if (limit <= 0L) {
+            limit = Long.MAX_VALUE;
+        }
+        // key_text -> the history rows for the dictionary row key
+        var groups = new LinkedHashMap<String, ArrayList<Row>>();
+        long scanned = 0L;
+        MvKey curKey = position;
+        int count;
+        do {
+            Params params;
+            String sql;
+            if (curKey == null || curKey.isEmpty()) {
+                params = Params.of("$src", PrimitiveValue.newText(src),
+                        "$limit", PrimitiveValue.newUint64(batchSize));
+                sql = sqlSelectInitial;
+            } else {
+                params = Params.of(
+                        "$src", PrimitiveValue.newText(src),
+                        "$tv", curKey.convertValue(1),
+                        "$seqno", curKey.convertValue(2),
+                        "$key_text", curKey.convertValue(3),
+                        "$limit", PrimitiveValue.newUint64(batchSize));
+                sql = sqlSelectNext;
+            }
+            ResultSetReader rsr = conn.sqlRead(sql, params).getResultSet(0);
+            count = rsr.getRowCount();
+            while (rsr.next()) {
+                curKey = new MvKey(rsr, historyTableInfo.getKeyInfo());
+                var row = new Row(rsr);
+                groups.computeIfAbsent(row.keyText, k -> new ArrayList<>()).add(row);
+            }
+            scanned += count;
+        } while (count >= batchSize && scanned < limit && isRunning());
+
+        int total = 0;
+        var upd = new ArrayList<StructValue>();
+        var del = new ArrayList<StructValue>();
+        for (var rows : groups.values()) {
+            if (rows.size() < 2 || !isRunning()) {
+                continue;
+            }
+            String diff = mergeDiff(rows);
+            if (diff == null) {
+                continue;
+            }
+            Row last = rows.get(rows.size() - 1);
+            upd.add(last.toStruct(PrimitiveValue.newJsonDocument(diff).makeOptional()));
+            for (int i = 0; i < rows.size() - 1; ++i) {
+                del.add(rows.get(i).key);
+            }
+            total += rows.size() - 1;
+            if (del.size() >= batchSize) {
+                writeMerged(upd, del);
+            }
+        }
+        if (!upd.isEmpty()) {
+            writeMerged(upd, del);
+        }
+        return total;
+    }
+
+    private void writeMerged(ArrayList<StructValue> upd, ArrayList<StructValue> del) {
+        conn.sqlWrite(sqlMerge, Params.of(
+                "$upd", ListValue.of(upd.toArray(StructValue[]::new)),
+                "$del", ListValue.of(del.toArray(StructValue[]::new))));
+        upd.clear();
+        del.clear();
+    }
+
+    /**
+     * @return The merged diff value with the union of the changed fields, or
+     * null if any of the rows has no valid diff value.
+     */
+    private static String mergeDiff(List<Row> rows) {
+        var fields = new LinkedHashSet<String>();
+        for (Row row : rows) {
+            if (row.diffVal == null) {
+                return null;
+            }
+            JsonElement diffObj = JsonParser.parseString(row.diffVal);
+            if (!diffObj.isJsonObject()) {
+                return null;
+            }
+            JsonArray diffArray = diffObj.getAsJsonObject().getAsJsonArray("f");
+            if (diffArray == null) {
+                return null;
+            }
+            for (JsonElement item : diffArray.asList()) {
+                fields.add(item.getAsString());
+            }
+        }
+        var f = new JsonArray();
+        fields.forEach(field -> f.add(field));
+        var output = new JsonObject();
+        output.add("f", f);
+        return output.toString();
+    }
+
+    private long countRows(String src) {
+        ResultSetReader rsr = conn.sqlRead(sqlCount,
+                Params.of("$src", PrimitiveValue.newText(src))).getResultSet(0);
+        if (rsr.next()) {
+            return rsr.getColumn(0).getUint64();
+        }
+        return 0L;
+    }
+
+    private static StructValue toKeyStruct(ResultSetReader rsr) {
+        return StructValue.of(
+                "src", rsr.getColumn(0).getValue(),
+                "tv", rsr.getColumn(1).getValue(),
+                "seqno", rsr.getColumn(2).getValue(),
+                "key_text", rsr.getColumn(3).getValue());
+    }
+
+    /**
+     * The history row, as read for merging.
+     */
+    static class Row {
+
+        final StructValue key;
+        final Value<?> src;
+        final Value<?> tv;
+        final Value<?> seqno;
+        final String keyText;
+        final Value<?> keyVal;
+        final String diffVal;
+
+        Row(ResultSetReader rsr) {
+            this.key = toKeyStruct(rsr);
+            this.src = rsr.getColumn(0).getValue();
+            this.tv = rsr.getColumn(1).getValue();
+            this.seqno = rsr.getColumn(2).getValue();
+            this.keyText = rsr.getColumn(3).getText();
+            this.keyVal = rsr.getColumn(4).getValue();
+            this.diffVal = rsr.getColumn(5).getJsonDocument();
+        }
+
+        StructValue toStruct(Value<?> diff) {
+            return StructValue.of(
+                    "src", src,
+                    "tv", tv,
+                    "seqno", seqno,
+                    "key_text", PrimitiveValue.newText(keyText),
+                    "key_val", keyVal,
+                    "diff_val", diff);
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+package tech.ydb.mv.svc;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import tech.ydb.mv.data.MvKey;
+
+/**
+ * Runner-wide cache of the dictionary history, shared between the handlers.
+ * For each dictionary the contiguous range of the history rows, as read by
+ * any of the handlers, is retained in memory. The scans of the other handlers
+ * positioned within that range get the rows from memory, and read from the
+ * database just the rows past the end of the range.
+ *
+ * The handlers keep their own scan positions, so each of them still builds
+ * its own view of the changes.
+ *
+ * The retained rows of the dictionary are dropped when its history is
+ * compacted, as the compaction merges and deletes the history rows.
+ *
+ * @author zinal
+ */
+public class MvDictionaryHistory {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvDictionaryHistory.class);
+
+    // dictionary table name -> cached history range
+    private final HashMap<String, Tail> tails = new HashMap<>();
+    private volatile int maxRows;
+
+    /**
+     * @param maxRows Maximum number of the rows retained per dictionary, 0 to
+     * disable the sharing.
+     */
+    public MvDictionaryHistory(int maxRows) {
+        this.maxRows = Math.max(0, maxRows);
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+
+    public void configure(int maxRows) {
+        this.maxRows = Math.max(0, maxRows);
+        if (this.maxRows == 0) {
+            clear();
+        }
+    }
+
+    /**
+     * Drop all the retained rows.
+     */
+    public void clear() {
+        synchronized (tails) {
+            tails.clear();
+        }
+    }
+
+    /**
+     * Drop the retained rows of the dictionary, e.g. after the history has
+     * been rewritten by the compaction. The read in progress completes
+     * first, so its rows are dropped too.
+     *
+     * @param tableName The dictionary table name
+     */
+    public void invalidate(String tableName) {
+        Tail tail;
+        synchronized (tails) {
+            tail = tails.get(tableName);
+        }
+        if (tail != null) {
+            synchronized (tail) {
+                tail.invalidate();
+            }
+        }
+    }
+
+    private Tail getTail(String tableName) {
+        synchronized (tails) {
+            Tail tail = tails.get(tableName);
+            if (tail == null) {
+                tail = new Tail();
+                tails.put(tableName, tail);
+            }
+            return tail;
+        }
+    }
+
+    /**
+     * Read the page of the dictionary history, from memory where possible.
+     * The concurrent reads of the same dictionary are serialized, so that
+     * the rows read by one handler are reused by the others.
+     *
+     * @param tableName The dictionary table name
+     * @param position The scan position, null or empty for the start
+     * @param limit Maximum number of the rows to return
+     * @param reader The database reader
+     * @return The history rows after the position, in the key order
+     */
+    List<Row> read(String tableName, MvKey position, int limit, PageReader reader) {
+        int cap = maxRows;
+        if (cap <= 0) {
+            return reader.read(position, limit);
+        }
+        if (position != null && position.isEmpty()) {
+            position = null;
+        }
+        Tail tail = getTail(tableName);
+        synchronized (tail) {
+            if (!tail.valid || compare(position, tail.start) < 0) {
+                if (tail.valid) {
+                    // the handler is behind the retained range, which is
+                    // kept for the handlers ahead of it
+                    return reader.read(position, limit);
+                }
+                tail.reset(position);
+            } else if (compare(position, tail.end()) > 0) {
+                LOG.debug("Restarting the shared history of dictionary `{}` at {}",
+                        tableName, position);
+                tail.reset(position);
+            }
+            int from = tail.indexAfter(position);
+            int available = tail.rows.size() - from;
+            if (available < limit) {
+                List<Row> rows = reader.read(tail.end(), limit - available);
+                tail.rows.addAll(rows);
+            }
+            int to = Math.min(tail.rows.size(), from + limit);
+            var output = new ArrayList<Row>(tail.rows.subList(from, to));
+            tail.trim(cap);
+            return output;
+        }
+    }
+
+    private static int compare(MvKey a, MvKey b) {
+        if (a == null) {
+            return (b == null) ? 0 : -1;
+        }
+        if (b == null) {
+            return 1;
+        }
+        return a.compareTo(b);
+    }
+
+    /**
+     * Row of the dictionary history.
+     */
+    public static class Row {
+
+        final MvKey position;
+        final String keyVal;
+        final String diffVal;
+
+        Row(MvKey position, String keyVal, String diffVal) {
+            this.position = position;
+            this.keyVal = keyVal;
+            this.diffVal = diffVal;
+        }
+    }
+
+    /**
+     * Database reader of the dictionary history.
+     */
+    interface PageReader {
+
+        /**
+         * @param position The position to read after, null for the start
+         * @param limit Maximum number of the rows
+         * @return The history rows after the position, in the key order
+         */
+        List<Row> read(MvKey position, int limit);
+    }
+
+    /**
+     * The retained range of the history: the rows directly following the
+     * start position, up to the last row read.
+     */
+    private static class Tail {
+
+        final ArrayList<Row> rows = new ArrayList<>();
+        boolean valid = false;
+        MvKey start = null;
+
+        MvKey end() {
+            return rows.isEmpty() ? start : rows.get(rows.size() - 1).position;
+        }
+
+        void reset(MvKey position) {
+            rows.clear();
+            start = position;
+            valid = true;
+        }
+
+        void invalidate() {
+            rows.clear();
+            start = null;
+            valid = false;
+        }
+
+        /**
+         * @return Index of the first row after the position, which must be
+         * within the retained range.
+         */
+        int indexAfter(MvKey position) {
+            int lo = 0;
+            int hi = rows.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (compare(rows.get(mid).position, position) <= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /**
+         * Drop the oldest rows over the limit, moving the start position.
+         */
+        void trim(int maxRows) {
+            int extra = rows.size() - maxRows;
+            if (extra <= 0) {
+                return;
+            }
+            start = rows.get(extra - 1).position;
+            rows.subList(0, extra).clear();
+        }
+    }
+
+}
@@ -1,23 +1,36 @@
 package tech.ydb.mv.svc;
 
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
-import com.google.common.collect.Lists;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 import tech.ydb.table.query.Params;
 import tech.ydb.table.values.ListValue;
 import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.StructType;
 import tech.ydb.table.values.StructValue;
 import tech.ydb.table.values.PrimitiveType;
+import tech.ydb.table.values.Type;
 import tech.ydb.table.values.Value;
 
 import tech.ydb.mv.MvConfig;
@@ -28,6 +41,7 @@ import tech.ydb.mv.data.YdbStruct;
 import tech.ydb.mv.feeder.MvCdcAdapter;
 import tech.ydb.mv.feeder.MvCdcFeeder;
 import tech.ydb.mv.feeder.MvCommitHandler;
+import tech.ydb.mv.metrics.MvMetrics;
 import tech.ydb.mv.model.MvMetadata;
 import tech.ydb.mv.model.MvDictionarySettings;
 import tech.ydb.mv.model.MvInput;
@@ -38,6 +52,28 @@ import tech.ydb.mv.support.MvDaoHelpers;
  * Write the changelog of the particular "dictionary" table to the journal
  * table.
  *
+ * The records are accumulated into batches per source table across the CDC
+ * events, and the batches are written by several writer threads, so that the
+ * CDC reader does not wait for the writes. The batches of different source
+ * tables are written concurrently, while the batches of the same source
+ * table are written one after another, in the order of their records. This
+ * way the history rows of the source become visible in the (tv, seqno) order,
+ * and the dictionary scans never pass over the rows still being written or
+ * re-tried. A partial batch is written after the configured linger time. The
+ * CDC events are committed only after all their records are written. The CDC
+ * reader is paused when too many records are pending.
+ *
+ * In the keyed mode the records for the same dictionary row key are merged
+ * within the batch into a single history row, with the union of the changed
+ * field names, and the time and sequence number of the latest record. The
+ * row is also merged with the row of the same key written earlier, which is
+ * deleted in the same transaction, so that the history keeps one row per
+ * key between the compactions. The handlers which have already passed the
+ * earlier row get the merged row again, refreshing somewhat more fields than
+ * needed, while the others get the same fields as from the separate rows.
+ * The earlier rows are tracked for the limited number of the latest keys of
+ * each source table.
+ *
  * @author zinal
  */
 public class MvDictionaryLogger extends MvDaoHelpers implements MvSink, MvCdcAdapter {
@@ -45,29 +81,78 @@ public class MvDictionaryLogger extends MvDaoHelpers implements MvSink, MvCdcAda
     private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvDictionaryLogger.class);
 
     private static final Value<?> NULL_JSON = PrimitiveType.JsonDocument.makeOptional().emptyValue();
+    private static final StructType RECORD_TYPE = makeRecordType();
+    private static final int POS_SRC = RECORD_TYPE.getMemberIndex("src");
+    private static final int POS_TV = RECORD_TYPE.getMemberIndex("tv");
+    private static final int POS_SEQNO = RECORD_TYPE.getMemberIndex("seqno");
+    private static final int POS_KEY_TEXT = RECORD_TYPE.getMemberIndex("key_text");
+    private static final int POS_KEY_VAL = RECORD_TYPE.getMemberIndex("key_val");
+    private static final int POS_DIFF_VAL = RECORD_TYPE.getMemberIndex("diff_val");
+    // pending batches allowed per writer thread before the CDC reader waits
+    private static final int PENDING_BATCHES_PER_WRITER = 4;
+    // pause before re-trying the failed batch
+    private static final long RETRY_MILLIS = 1000L;
+    // the latest keys per source table tracked for the merge in the keyed mode
+    static final int TAIL_KEYS = 100000;
 
     private final MvMetadata context;
     private final YdbConnector conn;
     private final MvDictionarySettings settings;
     private final String historyTable;
     private final String sqlUpsert;
+    private final String sqlMerge;
     // initially stopped -> null
     private final AtomicReference<MvCdcFeeder> feeder = new AtomicReference<>();
     private final AtomicLong seqno;
+    private final int batchSize;
+    private final int maxPending;
+    private final boolean keyed;
+    // source table -> the batch being accumulated, guarded by the lock
+    private final Object bufferLock = new Object();
+    private final HashMap<String, Batch> buffers = new HashMap<>();
+    // source table -> the last batch write scheduled, guarded by the lock
+    private final HashMap<String, CompletableFuture<Void>> writeChains = new HashMap<>();
+    // source table -> rows written, used by the writes of the source only
+    private final ConcurrentHashMap<String, KeyTail> tails = new ConcurrentHashMap<>();
+    // records accepted but not written yet
+    private final AtomicInteger pendingRecords = new AtomicInteger(0);
+    private volatile ExecutorService writers;
+    private volatile ScheduledExecutorService linger;
+    private volatile MvDictionaryCompactor compactor;
+    // the runner-wide history cache, invalidated on compaction, or null
+    private final MvDictionaryHistory history;
 
     public MvDictionaryLogger(MvMetadata context, YdbConnector conn,
             MvDictionarySettings settings) {
+        this(context, conn, settings, null);
+    }
+
+    public MvDictionaryLogger(MvMetadata context, YdbConnector conn,
+            MvDictionarySettings settings, MvDictionaryHistory history) {
         this.context = context;
+        this.history = history;
         this.conn = conn;
         this.settings = new MvDictionarySettings(settings);
         this.historyTable = conn.getProperty(MvConfig.CONF_DICT_HIST_TABLE, MvConfig.DEF_DICT_HIST_TABLE);
         this.seqno = new AtomicLong(100L * System.currentTimeMillis());
+        this.batchSize = Math.max(1, this.settings.getUpsertBatchSize());
+        this.maxPending = batchSize * PENDING_BATCHES_PER_WRITER
+                * Math.max(1, this.settings.getWriteParallelism());
+        this.keyed = this.settings.isKeyedLog();
         this.sqlUpsert = """
             DECLARE $input AS List<Struct<
                 src:Text, tv:Timestamp, seqno:Uint64, key_text:Text,
                 key_val:JsonDocument?, diff_val:JsonDocument?>>;
             UPSERT INTO `%s` SELECT * FROM AS_TABLE($input);
             """.formatted(this.historyTable);
+        this.sqlMerge = """
+            DECLARE $input AS List<Struct<
+                src:Text, tv:Timestamp, seqno:Uint64, key_text:Text,
+                key_val:JsonDocument?, diff_val:JsonDocument?>>;
+            DECLARE $del AS List<Struct<src:Text, tv:Timestamp, seqno:Uint64, key_text:Text>>;
+            UPSERT INTO `%s` SELECT * FROM AS_TABLE($input);
+            DELETE FROM `%s` ON SELECT * FROM AS_TABLE($del);
+            """.formatted(this.historyTable, this.historyTable);
     }
 
     @Override
@@ -97,9 +182,19 @@ public class MvDictionaryLogger extends MvDaoHelpers implements MvSink, MvCdcAda
         }
 
         LOG.info("Starting dictionary manager.");
+        int parallelism = Math.max(1, settings.getWriteParallelism());
+        writers = Executors.newFixedThreadPool(parallelism, new WriterThreads("mv-dict-writer-"));
+        linger = Executors.newSingleThreadScheduledExecutor(new WriterThreads("mv-dict-linger-"));
+        long lingerMillis = Math.max(1L, settings.getWriteLingerMillis());
+        linger.scheduleWithFixedDelay(() -> flushStale(lingerMillis),
+                lingerMillis, lingerMillis, TimeUnit.MILLISECONDS);
         MvCdcFeeder cf = new MvCdcFeeder(this, conn, this);
         feeder.set(cf);
         cf.start();
+        if (settings.getCompactSeconds() > 0) {
+            compactor = new MvDictionaryCompactor(context, conn, settings, history);
+            compactor.start();
+        }
     }
 
     public void stop() {
@@ -113,6 +208,28 @@ public class MvDictionaryLogger extends MvDaoHelpers implements MvSink, MvCdcAda
         if (cf != null) {
             cf.close();
         }
+        if (compactor != null) {
+            compactor.stop();
+            compactor = null;
+        }
+        // the records not written yet are not committed, and will be re-read
+        linger.shutdownNow();
+        writers.shutdown();
+        try {
+            if (!writers.awaitTermination(30, TimeUnit.SECONDS)) {
+                writers.shutdownNow();
+            }
+        } catch (InterruptedException ix) {
+            Thread.currentThread().interrupt();
+        }
+        tails.clear();
+        synchronized (bufferLock) {
+            buffers.clear();
+            writeChains.clear();
+            pendingRecords.set(0);
+            bufferLock.notifyAll();
+        }
+        MvMetrics.recordDictLogPending(historyTable, 0);
     }
 
     @Override
@@ -128,39 +245,174 @@ public class MvDictionaryLogger extends MvDaoHelpers implements MvSink, MvCdcAda
 
     @Override
     public boolean submit(Collection<MvChangeRecord> records, MvCommitHandler handler) {
-        if (records.size() <= settings.getUpsertBatchSize()) {
-            process(records);
-        } else {
-            ArrayList<MvChangeRecord> input = new ArrayList<>(records);
-            for (var part : Lists.partition(input, settings.getUpsertBatchSize())) {
-                process(part);
+        if (records.isEmpty()) {
+            handler.commit(0);
+            return true;
+        }
+        synchronized (bufferLock) {
+            if (!awaitCapacity()) {
+                return false;
+            }
+            pendingRecords.addAndGet(records.size());
+            for (MvChangeRecord cr : records) {
+                String src = cr.getKey().getTableName();
+                Batch buffer = buffers.get(src);
+                if (buffer == null) {
+                    buffer = new Batch(src, batchSize, keyed);
+                    buffers.put(src, buffer);
+                }
+                String keyText = convertKey(cr.getKey());
+                buffer.add(keyText, convertRecord(cr, keyText), convertFields(cr), handler);
+                if (buffer.size() >= batchSize) {
+                    buffers.remove(src);
+                    dispatch(buffer);
+                }
             }
         }
-        handler.commit(records.size());
+        MvMetrics.recordDictLogPending(historyTable, pendingRecords.get());
         return true;
     }
 
-    private void process(Collection<MvChangeRecord> records) {
-        StructValue[] values = records.stream()
-                .map(cr -> convertRecord(cr))
-                .toArray(StructValue[]::new);
-        try {
-            conn.sqlWrite(sqlUpsert, Params.of("$input", ListValue.of(values)));
-        } catch (Exception ex) {
-            LOG.error("Failed to write dictionary batch, will raise for re-processing", ex);
-            throw new RuntimeException("Dictionary batch re-processing exception", ex);
+    /**
+     * Wait until the pending records fit into the limit.
+     *
+     * @return true, if the records can be accepted, false on stop
+     */
+    private boolean awaitCapacity() {
+        while (pendingRecords.get() >= maxPending) {
+            if (!isRunning()) {
+                return false;
+            }
+            try {
+                bufferLock.wait(100L);
+            } catch (InterruptedException ix) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Send the partial batch to the writers, if it waits for too long.
+     */
+    private void flushStale(long lingerMillis) {
+        synchronized (bufferLock) {
+            Iterator<Batch> it = buffers.values().iterator();
+            while (it.hasNext()) {
+                Batch batch = it.next();
+                if (batch.getAgeMillis() >= lingerMillis) {
+                    it.remove();
+                    dispatch(batch);
+                }
+            }
         }
     }
 
-    private StructValue convertRecord(MvChangeRecord cr) {
-        HashMap<String, Value<?>> m = new HashMap<>();
-        m.put("src", PrimitiveValue.newText(cr.getKey().getTableName()));
-        m.put("tv", PrimitiveValue.newTimestamp(cr.getTv()));
-        m.put("seqno", PrimitiveValue.newUint64(seqno.incrementAndGet()));
-        m.put("key_text", PrimitiveValue.newText(convertKey(cr.getKey())));
-        m.put("key_val", jsonDocument(cr.getKey().convertKeyToJson()));
-        m.put("diff_val", convertData(cr.getImageBefore(), cr.getImageAfter()));
-        return StructValue.of(m);
+    /**
+     * Schedule the batch write after the previous batch of the same source
+     * table is written. Must be called under the buffer lock, in the order
+     * of the batches.
+     */
+    private void dispatch(Batch batch) {
+        var previous = writeChains.get(batch.getSource());
+        if (previous == null) {
+            previous = CompletableFuture.completedFuture(null);
+        }
+        // on stop the writes are rejected, the records are not committed
+        // and will be re-read
+        var next = previous.exceptionally(ex -> null)
+                .thenRunAsync(() -> write(batch), writers);
+        writeChains.put(batch.getSource(), next);
+        next.whenComplete((v, ex) -> {
+            synchronized (bufferLock) {
+                writeChains.remove(batch.getSource(), next);
+            }
+        });
+    }
+
+    /**
+     * Write the batch, re-trying until succeeded or stopped, and commit the
+     * CDC events after that.
+     */
+    private void write(Batch batch) {
+        KeyTail tail = keyed
+                ? tails.computeIfAbsent(batch.getSource(), k -> new KeyTail(TAIL_KEYS))
+                : null;
+        KeyTail.Merge merge = (tail == null) ? null : tail.merge(batch);
+        while (isRunning()) {
+            long startNs = System.nanoTime();
+            try {
+                StructValue[] values;
+                int coalesced;
+                if (merge == null || merge.deletes.length == 0) {
+                    values = (merge == null) ? batch.toValues() : merge.values;
+                    conn.sqlWrite(sqlUpsert, Params.of("$input", ListValue.of(values)));
+                    coalesced = batch.size() - values.length;
+                } else {
+                    values = merge.values;
+                    conn.sqlWrite(sqlMerge, Params.of(
+                            "$input", ListValue.of(values),
+                            "$del", ListValue.of(merge.deletes)));
+                    coalesced = batch.size() - values.length + merge.deletes.length;
+                }
+                MvMetrics.recordDictLogWrite(historyTable, startNs, values.length);
+                MvMetrics.recordDictLogCoalesced(historyTable, coalesced);
+                if (tail != null) {
+                    tail.apply(merge);
+                }
+                batch.commit();
+                synchronized (bufferLock) {
+                    pendingRecords.addAndGet(-batch.size());
+                    bufferLock.notifyAll();
+                }
+                MvMetrics.recordDictLogPending(historyTable, pendingRecords.get());
+                return;
+            } catch (Exception ex) {
+                LOG.error("Failed to write dictionary batch of {} records, retry pending...",
+                        batch.size(), ex);
+                MvMetrics.recordDictLogError(historyTable, batch.size());
+            }
+            try {
+                Thread.sleep(RETRY_MILLIS);
+            } catch (InterruptedException ix) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return The members of the history row, without the diff value.
+     */
+    private Value<?>[] convertRecord(MvChangeRecord cr, String keyText) {
+        return makeRow(cr.getKey().getTableName(), cr.getTv(), seqno.incrementAndGet(),
+                keyText, cr.getKey().convertKeyToJson());
+    }
+
+    /**
+     * @return The members of the history row, without the diff value.
+     */
+    static Value<?>[] makeRow(String src, Instant tv, long seqno,
+            String keyText, String keyJson) {
+        Value<?>[] members = new Value<?>[RECORD_TYPE.getMembersCount()];
+        members[POS_SRC] = PrimitiveValue.newText(src);
+        members[POS_TV] = PrimitiveValue.newTimestamp(tv);
+        members[POS_SEQNO] = PrimitiveValue.newUint64(seqno);
+        members[POS_KEY_TEXT] = PrimitiveValue.newText(keyText);
+        members[POS_KEY_VAL] = jsonDocument(keyJson);
+        return members;
+    }
+
+    private static StructType makeRecordType() {
+        HashMap<String, Type> m = new HashMap<>();
+        m.put("src", PrimitiveType.Text);
+        m.put("tv", PrimitiveType.Timestamp);
+        m.put("seqno", PrimitiveType.Uint64);
+        m.put("key_text", PrimitiveType.Text);
+        m.put("key_val", PrimitiveType.JsonDocument.makeOptional());
+        m.put("diff_val", PrimitiveType.JsonDocument.makeOptional());
+        return StructType.of(m);
     }
 
     private String convertKey(MvKey key) {
@@ -174,18 +426,25 @@ public class MvDictionaryLogger extends MvDaoHelpers implements MvSink, MvCdcAda
         return sb.toString();
     }
 
-    private Value<?> convertData(YdbStruct before, YdbStruct after) {
+    /**
+     * @return The names of the changed fields, or null for the deleted row.
+     */
+    private static TreeSet<String> convertFields(MvChangeRecord cr) {
+        YdbStruct before = cr.getImageBefore();
+        YdbStruct after = cr.getImageAfter();
         if (after == null || after.isEmpty()) {
-            return NULL_JSON;
+            return null;
         }
         if (before == null) {
-            return fieldNamesToJson(after.keySet());
+            return new TreeSet<>(after.keySet());
         }
-        return fieldNamesToJson(calcDiffNames(before, after));
+        return new TreeSet<>(calcDiffNames(before, after));
     }
 
-    private Value<?> fieldNamesToJson(Collection<String> fields) {
-        TreeSet<String> fieldNames = new TreeSet<>(fields);
+    private static Value<?> fieldNamesToJson(TreeSet<String> fieldNames) {
+        if (fieldNames == null) {
+            return NULL_JSON;
+        }
         JsonArray array = new JsonArray(fieldNames.size());
         for (String name : fieldNames) {
             array.add(name);
@@ -195,7 +454,7 @@ public class MvDictionaryLogger extends MvDaoHelpers implements MvSink, MvCdcAda
         return PrimitiveValue.newJsonDocument(root.toString()).makeOptional();
     }
 
-    private Collection<String> calcDiffNames(YdbStruct before, YdbStruct after) {
+    private static Collection<String> calcDiffNames(YdbStruct before, YdbStruct after) {
         HashSet<String> output = new HashSet<>();
         for (String name : after.keySet()) {
             var va  = after.get(name);
@@ -214,4 +473,222 @@ public class MvDictionaryLogger extends MvDaoHelpers implements MvSink, MvCdcAda
         return output;
     }
 
+    /**
+     * Records of the source table to be written at once, with the CDC events
+     * they belong to.
+     */
+    static class Batch {
+
+        private final long createdAt = System.currentTimeMillis();
+        private final String src;
+        // history row members, without the diff value
+        private final ArrayList<Value<?>[]> rows;
+        // changed field names per history row, null for the deleted row
+        private final ArrayList<TreeSet<String>> fields;
+        // key_text per history row
+        private final ArrayList<String> keys;
+        // key_text -> history row position, in the keyed mode
+        private final HashMap<String, Integer> index;
+        // commit handler -> number of its records in the batch
+        private final HashMap<MvCommitHandler, Integer> parts = new HashMap<>();
+        private int count = 0;
+
+        Batch(String src, int capacity, boolean keyed) {
+            this.src = src;
+            this.rows = new ArrayList<>(capacity);
+            this.fields = new ArrayList<>(capacity);
+            this.keys = new ArrayList<>(capacity);
+            this.index = keyed ? new HashMap<>() : null;
+        }
+
+        void add(String key, Value<?>[] members, TreeSet<String> changed,
+                MvCommitHandler handler) {
+            ++count;
+            parts.merge(handler, 1, Integer::sum);
+            if (index != null) {
+                Integer pos = index.get(key);
+                if (pos != null) {
+                    // the latest time and seqno, the union of the fields
+                    rows.set(pos, members);
+                    fields.set(pos, mergeFields(fields.get(pos), changed));
+                    return;
+                }
+                index.put(key, rows.size());
+            }
+            rows.add(members);
+            fields.add(changed);
+            keys.add(key);
+        }
+
+        /**
+         * Merge the changed fields of the same key. The deleted row adds no
+         * fields, as the history rows of the deletes are not processed by
+         * the scans, so the merged row stays null only if all the rows are
+         * the deletes.
+         */
+        static TreeSet<String> mergeFields(TreeSet<String> a, TreeSet<String> b) {
+            if (a == null) {
+                return b;
+            }
+            if (b != null) {
+                a.addAll(b);
+            }
+            return a;
+        }
+
+        String getSource() {
+            return src;
+        }
+
+        /**
+         * @return Number of the records accepted into the batch.
+         */
+        int size() {
+            return count;
+        }
+
+        StructValue[] toValues() {
+            StructValue[] values = new StructValue[rows.size()];
+            for (int pos = 0; pos < values.length; ++pos) {
+                values[pos] = toValue(pos, fields.get(pos));
+            }
+            return values;
+        }
+
+        StructValue toValue(int pos, TreeSet<String> changed) {
+            Value<?>[] members = rows.get(pos).clone();
+            members[POS_DIFF_VAL] = fieldNamesToJson(changed);
+            return RECORD_TYPE.newValueUnsafe(members);
+        }
+
+        long getAgeMillis() {
+            return System.currentTimeMillis() - createdAt;
+        }
+
+        void commit() {
+            for (var me : parts.entrySet()) {
+                me.getKey().commit(me.getValue());
+            }
+        }
+    }
+
+    /**
+     * The history rows written for the latest keys of the source table, in
+     * the keyed mode. Accessed by the writes of the source table only.
+     */
+    static class KeyTail {
+
+        // key_text -> the row written, in the access order
+        private final LinkedHashMap<String, Entry> entries;
+
+        KeyTail(int maxKeys) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                    return size() > maxKeys;
+                }
+            };
+        }
+
+        int size() {
+            return entries.size();
+        }
+
+        /**
+         * Merge the batch rows with the rows written earlier for the same
+         * keys. The tail itself is not changed until the merge is applied.
+         *
+         * @param batch The batch to be written
+         * @return The rows to be written, and the rows to be deleted
+         */
+        Merge merge(Batch batch) {
+            int count = batch.rows.size();
+            var merge = new Merge(count);
+            var deletes = new ArrayList<StructValue>();
+            for (int pos = 0; pos < count; ++pos) {
+                String key = batch.keys.get(pos);
+                TreeSet<String> changed = batch.fields.get(pos);
+                Entry prev = entries.get(key);
+                if (prev != null) {
+                    changed = Batch.mergeFields(
+                            (prev.fields == null) ? null : new TreeSet<>(prev.fields),
+                            (changed == null) ? null : new TreeSet<>(changed));
+                    deletes.add(prev.position);
+                }
+                merge.values[pos] = batch.toValue(pos, changed);
+                merge.keys[pos] = key;
+                merge.entries[pos] = new Entry(toPosition(batch.rows.get(pos)), changed);
+            }
+            merge.deletes = deletes.toArray(StructValue[]::new);
+            return merge;
+        }
+
+        /**
+         * Remember the rows written.
+         *
+         * @param merge The merge result, after it has been written
+         */
+        void apply(Merge merge) {
+            for (int pos = 0; pos < merge.keys.length; ++pos) {
+                entries.put(merge.keys[pos], merge.entries[pos]);
+            }
+        }
+
+        private static StructValue toPosition(Value<?>[] members) {
+            return StructValue.of(
+                    "src", members[POS_SRC],
+                    "tv", members[POS_TV],
+                    "seqno", members[POS_SEQNO],
+                    "key_text", members[POS_KEY_TEXT]);
+        }
+
+        /**
+         * The history row written: its primary key, and the changed fields.
+         */
+        static class Entry {
+
+            final StructValue position;
+            final TreeSet<String> fields;
+
+            Entry(StructValue position, TreeSet<String> fields) {
+                this.position = position;
+                this.fields = fields;
+            }
+        }
+
+        /**
+         * The rows to be written and deleted for the batch.
+         */
+        static class Merge {
+
+            final StructValue[] values;
+            final String[] keys;
+            final Entry[] entries;
+            StructValue[] deletes;
+
+            Merge(int count) {
+                this.values = new StructValue[count];
+                this.keys = new String[count];
+                this.entries = new Entry[count];
+            }
+        }
+    }
+
+    private static class WriterThreads implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String prefix;
+
+        WriterThreads(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
 }
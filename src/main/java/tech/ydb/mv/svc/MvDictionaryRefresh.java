@@ -0,0 +1,398 @@
+package tech.ydb.mv.svc;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.collect.Lists;
+
+import tech.ydb.table.query.Params;
+import tech.ydb.table.result.ResultSetReader;
+import tech.ydb.table.values.ListValue;
+import tech.ydb.table.values.PrimitiveValue;
+import tech.ydb.table.values.StructValue;
+import tech.ydb.table.values.Type;
+
+import tech.ydb.mv.apply.MvApplyManager;
+import tech.ydb.mv.data.MvChangeRecord;
+import tech.ydb.mv.data.MvChangesMultiDict;
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.data.YdbConv;
+import tech.ydb.mv.feeder.MvCommitHandler;
+import tech.ydb.mv.feeder.MvScanCompletion;
+import tech.ydb.mv.model.MvDictionarySettings;
+import tech.ydb.mv.model.MvJoinMode;
+import tech.ydb.mv.model.MvJoinSource;
+import tech.ydb.mv.model.MvKeyInfo;
+import tech.ydb.mv.model.MvTableInfo;
+import tech.ydb.mv.model.MvViewExpr;
+import tech.ydb.mv.parser.MvPathGenerator;
+import tech.ydb.mv.parser.MvSqlGen;
+import tech.ydb.mv.support.MvTableStats;
+
+/**
+ * Targeted dictionary refresh. The changed dictionary keys are converted to
+ * the keys of the topmost table through the reverse join path, and just the
+ * affected rows of the target are refreshed, without the scan of the topmost
+ * table. The keys found are read and submitted page by page.
+ *
+ * The refresh reports to the scan completion handler in the same way as the
+ * dictionary refresh scan does.
+ *
+ * @author zinal
+ */
+class MvDictionaryRefresh implements MvCommitHandler {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvDictionaryRefresh.class);
+    private static final AtomicLong COUNTER = new AtomicLong(0L);
+
+    private final long instance;
+    private final MvJobContext context;
+    private final MvApplyManager applyManager;
+    private final MvViewExpr target;
+    private final MvKeyInfo topmostKey;
+    private final ArrayList<Step> steps;
+    private final long cost;
+    private MvScanCompletion completion;
+    // processing counter, including the reservation for the lookups
+    private int counter;
+    private boolean committed;
+    private volatile boolean running;
+
+    private MvDictionaryRefresh(MvJobContext context, MvApplyManager applyManager,
+            MvViewExpr target, ArrayList<Step> steps, long cost) {
+        this.instance = COUNTER.incrementAndGet();
+        this.context = context;
+        this.applyManager = applyManager;
+        this.target = target;
+        this.topmostKey = target.getTopMostSource().getTableInfo().getKeyInfo();
+        this.steps = steps;
+        this.cost = cost;
+        this.counter = 1;
+        this.committed = false;
+        this.running = false;
+    }
+
+    /**
+     * Choose the targeted refresh for the target, if it reads fewer rows than
+     * the refresh scan of the topmost table. The rows read are estimated as
+     * the index lookups (the changed keys times the number of the join steps
+     * from the dictionary to the topmost table) plus the affected rows of the
+     * topmost table. The affected rows per changed key are estimated as the
+     * ratio of the topmost table size to the dictionary size, taken from the
+     * table statistics, or as one row per key if the statistics are not
+     * available. The estimate is also limited by the configured maximum
+     * ({@code job.dict.targeted.lookups}). All the joins on the path must be
+     * supported by the primary key or the secondary indexes.
+     *
+     * The cost of the refresh is estimated as the number of the lookups on
+     * the reverse path, plus the estimated affected rows of the topmost table
+     * times the number of the sources joined to refresh each of them.
+     *
+     * @param context The handler context
+     * @param applyManager The apply manager of the handler
+     * @param changes The dictionary changes
+     * @param target The target to be refreshed
+     * @param settings The dictionary settings
+     * @return The targeted refresh, or null if the scan should be used
+     */
+    static MvDictionaryRefresh plan(MvJobContext context, MvApplyManager applyManager,
+            MvChangesMultiDict changes, MvViewExpr target, MvDictionarySettings settings) {
+        long maxLookups = settings.getTargetedMaxLookups();
+        if (maxLookups <= 0L) {
+            return null;
+        }
+        var keys = changes.toChangedKeys(target);
+        if (keys == null || keys.isEmpty()) {
+            return null;
+        }
+        var pg = new MvPathGenerator(target);
+        var steps = new ArrayList<Step>(keys.size());
+        long topRows = readRowCount(context, target.getTopMostSource().getTableInfo());
+        long reads = 0L;
+        long cost = 0L;
+        int applyCost = target.getSources().size();
+        for (var me : keys.entrySet()) {
+            MvViewExpr transformation = pg.extractKeysReverse(me.getKey());
+            if (transformation == null || !isIndexed(transformation)) {
+                LOG.debug("Targeted refresh is not possible for target `{}` as {} "
+                        + "from dictionary `{}` as {}", target.getName(), target.getAlias(),
+                        me.getKey().getTableName(), me.getKey().getTableAlias());
+                return null;
+            }
+            long keyCount = me.getValue().size();
+            long dictRows = readRowCount(context, me.getKey().getTableInfo());
+            long lookups = keyCount * transformation.getSources().size();
+            long affected = estimateAffected(keyCount, dictRows, topRows);
+            reads += lookups + affected;
+            cost += lookups + affected * applyCost;
+            if (reads > maxLookups) {
+                LOG.debug("Targeted refresh for target `{}` as {} needs over {} lookups, "
+                        + "using the scan", target.getName(), target.getAlias(), maxLookups);
+                return null;
+            }
+            if (topRows > 0L && reads >= topRows) {
+                LOG.debug("Targeted refresh for target `{}` as {} reads over {} rows, "
+                        + "using the scan of the topmost table", target.getName(),
+                        target.getAlias(), topRows);
+                return null;
+            }
+            steps.add(new Step(me.getKey(), transformation, me.getValue()));
+        }
+        return new MvDictionaryRefresh(context, applyManager, target, steps, cost);
+    }
+
+    /**
+     * Estimate the number of the topmost table rows affected by the changed
+     * dictionary keys, assuming the rows of the topmost table are evenly
+     * spread over the dictionary keys.
+     *
+     * @param keyCount Number of the changed dictionary keys
+     * @param dictRows Estimated size of the dictionary, 0 if not known
+     * @param topRows Estimated size of the topmost table, 0 if not known
+     * @return Estimated number of the affected rows
+     */
+    static long estimateAffected(long keyCount, long dictRows, long topRows) {
+        if (dictRows <= 0L || topRows <= 0L) {
+            // one row per key, when the statistics are not available
+            return keyCount;
+        }
+        double rows = Math.ceil(((double) keyCount) * topRows / dictRows);
+        return (long) Math.min(rows, (double) topRows);
+    }
+
+    private static long readRowCount(MvJobContext context, MvTableInfo tableInfo) {
+        if (tableInfo == null) {
+            return 0L;
+        }
+        try {
+            return MvTableStats.readRowCount(context.getYdb().getTableClient(), tableInfo);
+        } catch (Exception ex) {
+            LOG.debug("Failed to read the statistics of table `{}`", tableInfo.getName(), ex);
+            return 0L;
+        }
+    }
+
+    private static boolean isIndexed(MvViewExpr transformation) {
+        for (MvJoinSource src : transformation.getSources()) {
+            if (src.getMode() == null || src.getMode() == MvJoinMode.MAIN) {
+                continue;
+            }
+            if (!src.isTableKnown() || src.getTableInfo() == null) {
+                return false;
+            }
+            List<String> joinColumns = src.collectRightJoinColumns();
+            if (!joinColumns.isEmpty()
+                    && src.getTableInfo().findProperIndex(joinColumns) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public MvViewExpr getTarget() {
+        return target;
+    }
+
+    /**
+     * @return The estimated cost of the refresh, see {@link #plan}.
+     */
+    public long getCost() {
+        return cost;
+    }
+
+    /**
+     * @return true, while the lookups or the refresh of the found keys are
+     * in progress.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Start the lookups in the background thread.
+     *
+     * @param completion The completion handler
+     */
+    public synchronized void start(MvScanCompletion completion) {
+        if (running) {
+            throw new IllegalStateException("Targeted refresh is already running "
+                    + "for target `" + target.getName() + "`");
+        }
+        this.completion = completion;
+        this.running = true;
+        Thread thread = new Thread(() -> safeRun());
+        thread.setDaemon(true);
+        thread.setName("mv-dict-refresh-"
+                + context.getHandler().getName()
+                + "-" + target.getName());
+        thread.start();
+    }
+
+    private void safeRun() {
+        try {
+            run();
+        } catch (Exception ex) {
+            running = false;
+            LOG.error("Targeted dictionary refresh FAILED for target `{}` as {} in handler `{}`",
+                    target.getName(), target.getAlias(), context.getHandler().getName(), ex);
+        }
+    }
+
+    private void run() {
+        int batchSize = Math.max(1, context.getSettings().getSelectBatchSize());
+        long total = 0L;
+        for (Step step : steps) {
+            for (List<MvKey> part : Lists.partition(step.keys, batchSize)) {
+                long count = lookup(step, part, batchSize);
+                if (count < 0L) {
+                    running = false;
+                    return;
+                }
+                total += count;
+            }
+        }
+        LOG.info("Targeted dictionary refresh submitted {} keys for target `{}` as {} in handler `{}`",
+                total, target.getName(), target.getAlias(), context.getHandler().getName());
+        completion.onEndScan();
+        // release the reservation for the lookups
+        commit(1);
+    }
+
+    /**
+     * Find the topmost table keys for the changed dictionary keys, and submit
+     * them for the refresh, page by page. The pages are ordered by the key,
+     * so the duplicate keys are adjacent.
+     *
+     * @return Number of the keys submitted, or -1 if the handler is stopping
+     */
+    private long lookup(Step step, List<MvKey> keys, int pageSize) {
+        StructValue[] values = keys.stream()
+                .map(key -> key.convertKeyToStructValue())
+                .toArray(StructValue[]::new);
+        ListValue keyList = ListValue.of(values);
+        long total = 0L;
+        MvKey last = null;
+        while (true) {
+            if (!context.isRunning()) {
+                return -1L;
+            }
+            Params params = Params.create();
+            params.put(MvSqlGen.SYS_KEYS_VAR, keyList);
+            params.put("$limit", PrimitiveValue.newUint64(pageSize));
+            if (last != null) {
+                for (int pos = 0; pos < step.types.length; ++pos) {
+                    params.put("$c" + String.valueOf(pos + 1),
+                            YdbConv.fromPojo(last.getValue(pos), step.types[pos]));
+                }
+            }
+            String sql = (last == null) ? step.sqlFirst : step.sqlNext;
+            ResultSetReader rsr = context.getYdb().sqlRead(sql, params).getResultSet(0);
+            Instant tv = Instant.now();
+            var output = new ArrayList<MvChangeRecord>(rsr.getRowCount());
+            while (rsr.next()) {
+                Comparable<?>[] row = new Comparable<?>[topmostKey.size()];
+                for (int pos = 0; pos < row.length; ++pos) {
+                    row[pos] = YdbConv.toPojo(rsr.getColumn(pos).getValue());
+                }
+                MvKey key = new MvKey(topmostKey, row);
+                if (last == null || !key.equals(last)) {
+                    output.add(new MvChangeRecord(key, tv, MvChangeRecord.OpType.UPSERT));
+                }
+                last = key;
+            }
+            if (!output.isEmpty()) {
+                total += output.size();
+                reserve(output.size());
+                applyManager.submitFilter(target, output, this);
+            }
+            if (rsr.getRowCount() < pageSize) {
+                return total;
+            }
+        }
+    }
+
+    @Override
+    public long getInstance() {
+        return instance;
+    }
+
+    @Override
+    public synchronized int getCounter() {
+        return counter;
+    }
+
+    @Override
+    public void commit(int count) {
+        synchronized (this) {
+            if (committed || counter <= 0) {
+                return;
+            }
+            counter -= Math.min(count, counter);
+            if (counter > 0) {
+                return;
+            }
+            committed = true;
+        }
+        running = false;
+        if (context.isRunning()) {
+            completion.onEndProcessing();
+        }
+    }
+
+    @Override
+    public synchronized void reserve(int count) {
+        if (count > 0 && !committed) {
+            counter += count;
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 59 * hash + (int) (this.instance ^ (this.instance >>> 32));
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null) {
+            return false;
+        }
+        if (getClass() != obj.getClass()) {
+            return false;
+        }
+        final MvDictionaryRefresh other = (MvDictionaryRefresh) obj;
+        return this.instance == other.instance;
+    }
+
+    /**
+     * Reverse lookup from the single dictionary source.
+     */
+    static class Step {
+
+        final MvJoinSource source;
+        final String sqlFirst;
+        final String sqlNext;
+        // types of the output columns, for the page position
+        final Type[] types;
+        final List<MvKey> keys;
+
+        Step(MvJoinSource source, MvViewExpr transformation, List<MvKey> keys) {
+            this.source = source;
+            try (MvSqlGen sg = new MvSqlGen(transformation)) {
+                this.sqlFirst = sg.makeSelectPage(false);
+                this.sqlNext = sg.makeSelectPage(true);
+            }
+            this.types = transformation.getColumns().stream()
+                    .map(c -> c.getType())
+                    .toArray(Type[]::new);
+            this.keys = keys;
+        }
+    }
+
+}
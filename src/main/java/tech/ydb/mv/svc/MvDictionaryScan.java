@@ -1,5 +1,13 @@
 package tech.ydb.mv.svc;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
@@ -13,6 +21,8 @@ import tech.ydb.mv.YdbConnector;
 import tech.ydb.mv.data.MvChangesMultiDict;
 import tech.ydb.mv.data.MvChangesSingleDict;
 import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.feeder.MvScanScheduler;
+import tech.ydb.mv.metrics.MvMetrics;
 import tech.ydb.mv.model.MvDictionarySettings;
 import tech.ydb.mv.model.MvHandler;
 import tech.ydb.mv.model.MvTableInfo;
@@ -25,16 +35,31 @@ import tech.ydb.mv.support.MvScanDao;
  * analysis is performed for the particular handler, in order to determine the
  * required update actions over the handler's targets.
  *
+ * The dictionaries are scanned concurrently, each holding a query slot of the
+ * runner-wide scan scheduler while reading. The page size of the history
+ * queries follows the query latency, as in the regular scans. The history
+ * rows are shared with the other handlers of the runner through the
+ * runner-wide history cache, when it is provided. The wait for the query
+ * slot is cancelled when the handler stops, and the whole scan is then
+ * dropped without committing, to be retried on the next check.
+ *
  * @author zinal
  */
 public class MvDictionaryScan {
 
     private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvDictionaryScan.class);
 
+    static final int MIN_PAGE = 500;
+    static final int MAX_PAGE = 10000;
+    static final int INITIAL_PAGE = 1000;
+
     private final YdbConnector conn;
     private final MvHandler handler;
     private final MvDictionarySettings settings;
     private final MvDescriber describer;
+    private final MvScanScheduler scheduler;
+    private final MvDictionaryHistory history;
+    private final BooleanSupplier running;
     private final String controlTableName;
     private final String historyTableName;
     private final MvTableInfo historyTableInfo;
@@ -43,10 +68,32 @@ public class MvDictionaryScan {
 
     public MvDictionaryScan(YdbConnector conn, MvDescriber describer,
             MvHandler handler, MvDictionarySettings settings) {
+        this(conn, describer, handler, settings, null);
+    }
+
+    public MvDictionaryScan(YdbConnector conn, MvDescriber describer,
+            MvHandler handler, MvDictionarySettings settings,
+            MvScanScheduler scheduler) {
+        this(conn, describer, handler, settings, scheduler, null);
+    }
+
+    public MvDictionaryScan(YdbConnector conn, MvDescriber describer,
+            MvHandler handler, MvDictionarySettings settings,
+            MvScanScheduler scheduler, MvDictionaryHistory history) {
+        this(conn, describer, handler, settings, scheduler, history, () -> true);
+    }
+
+    public MvDictionaryScan(YdbConnector conn, MvDescriber describer,
+            MvHandler handler, MvDictionarySettings settings,
+            MvScanScheduler scheduler, MvDictionaryHistory history,
+            BooleanSupplier running) {
         this.handler = handler;
         this.conn = conn;
         this.settings = new MvDictionarySettings(settings);
         this.describer = describer;
+        this.scheduler = scheduler;
+        this.history = history;
+        this.running = running;
         this.controlTableName = conn.getProperty(MvConfig.CONF_SCAN_TABLE, MvConfig.DEF_SCAN_TABLE);
         this.historyTableName = conn.getProperty(MvConfig.CONF_DICT_HIST_TABLE, MvConfig.DEF_DICT_HIST_TABLE);
         this.historyTableInfo = describer.describeTable(this.historyTableName, null);
@@ -59,30 +106,84 @@ public class MvDictionaryScan {
     }
 
     private static String getSelectInitial(String historyTableName) {
-        return "DECLARE $src AS Text; "
+        return "DECLARE $src AS Text; DECLARE $limit AS Uint64; "
                 + "SELECT src, tv, seqno, key_text, key_val, diff_val FROM `"
                 + historyTableName
                 + "` WHERE src=$src "
                 + "ORDER BY src, tv, seqno, key_text "
-                + "LIMIT 500;";
+                + "LIMIT $limit;";
     }
 
     private static String getSelectNext(String historyTableName) {
         return "DECLARE $src AS Text; DECLARE $tv AS Timestamp; "
                 + "DECLARE $seqno AS Uint64; DECLARE $key_text AS Text; "
+                + "DECLARE $limit AS Uint64; "
                 + "SELECT src, tv, seqno, key_text, key_val, diff_val FROM `"
                 + historyTableName
                 + "` WHERE src=$src AND (tv, seqno, key_text) > ($tv, $seqno, $key_text) "
                 + "ORDER BY src, tv, seqno, key_text "
-                + "LIMIT 500;";
+                + "LIMIT $limit;";
+    }
+
+    /**
+     * Adjust the page size to the query latency: grow it while the full pages
+     * are read faster than the target, and shrink it for the slower ones.
+     *
+     * @param current The current page size
+     * @param rows Number of rows returned by the query
+     * @param millis Query execution time
+     * @param latencyMillis Target query latency, 0 for the fixed page size
+     * @return The next page size
+     */
+    static int nextPageSize(int current, int rows, long millis, long latencyMillis) {
+        if (latencyMillis <= 0L || millis <= 0L) {
+            return current;
+        }
+        double factor = ((double) latencyMillis) / ((double) millis);
+        if (factor > 1.0 && rows < current) {
+            // a partial page tells nothing about the bigger pages
+            return current;
+        }
+        factor = Math.max(0.5, Math.min(2.0, factor));
+        int next = (int) (current * factor);
+        return Math.max(MIN_PAGE, Math.min(MAX_PAGE, next));
     }
 
+    /**
+     * Scan the changes of the single dictionary.
+     *
+     * @param tableName The dictionary table name
+     * @return The changes, or null if the wait for the query slot has been
+     * cancelled
+     */
     public MvChangesSingleDict scan(String tableName) {
+        if (scheduler == null) {
+            return scanDirect(tableName);
+        }
+        var ticket = scheduler.register(new MvMetrics.ScanScope(handler.getName(),
+                tableName, "dictionary"), settings.getWeight());
+        try {
+            if (!scheduler.acquire(ticket, running)) {
+                LOG.info("[{}] Dictionary changes scan for table `{}` cancelled "
+                        + "while waiting for the query slot", handler.getName(), tableName);
+                return null;
+            }
+            try {
+                return scanDirect(tableName);
+            } finally {
+                scheduler.release(ticket);
+            }
+        } finally {
+            scheduler.unregister(ticket);
+        }
+    }
+
+    private MvChangesSingleDict scanDirect(String tableName) {
         long scanLimit = settings.getMaxChangeRowsScanned();
         if (scanLimit <= 0) {
             scanLimit = Long.MAX_VALUE;
         }
-        var result = new MvChangesSingleDict(tableName);
+        var result = new MvChangesSingleDict(tableName, settings.getMaxChangedKeys());
         var scanner = new Scanner(tableName, result);
         MvKey startKey = new MvScanDao(conn, scanner).initScan();
         MvKey curKey = startKey;
@@ -92,39 +193,70 @@ public class MvDictionaryScan {
                 handler.getName(), tableName, startKey);
 
         long changeRowsScanned = 0;
+        int pageSize = INITIAL_PAGE;
         var pTableName = PrimitiveValue.newText(tableName);
-        ResultSetReader rsr;
+        MvDictionaryHistory.PageReader reader = (position, limit)
+                -> readPage(pTableName, position, limit);
+        List<MvDictionaryHistory.Row> rows;
         do {
-            Params params;
-            String sql;
-            if (curKey == null || curKey.isEmpty()) {
-                params = Params.of("$src", pTableName);
-                sql = sqlSelectInitial;
+            long tv = System.currentTimeMillis();
+            if (history == null) {
+                rows = reader.read(curKey, pageSize);
             } else {
-                params = Params.of(
-                        "$src", pTableName,
-                        "$tv", curKey.convertValue(1),
-                        "$seqno", curKey.convertValue(2),
-                        "$key_text", curKey.convertValue(3)
-                );
-                sql = sqlSelectNext;
+                rows = history.read(tableName, curKey, pageSize, reader);
             }
-            rsr = conn.sqlRead(sql, params).getResultSet(0);
-            while (rsr.next()) {
-                curKey = scanner.handleRow(curKey, rsr);
+            pageSize = nextPageSize(pageSize, rows.size(),
+                    System.currentTimeMillis() - tv, settings.getPageLatencyMillis());
+            for (var row : rows) {
+                curKey = scanner.handleRow(row);
                 ++changeRowsScanned;
             }
             if (changeRowsScanned > scanLimit) {
                 LOG.warn("[{}] Dictionary changes scan for table `{}` stopped "
                         + "before reaching EOF because it got {} rows, limit is {} rows.",
                         handler.getName(), tableName, changeRowsScanned, scanLimit);
+                result.setIncomplete(true);
                 break;
             }
-        } while (rsr.getRowCount() > 0);
+        } while (!rows.isEmpty());
 
+        if (result.isOverflow()) {
+            LOG.warn("[{}] Dictionary `{}` has more than {} changed keys, "
+                    + "the dependent targets will be refreshed without the filter.",
+                    handler.getName(), tableName, settings.getMaxChangedKeys());
+        }
         return result;
     }
 
+    private List<MvDictionaryHistory.Row> readPage(PrimitiveValue pTableName,
+            MvKey position, int limit) {
+        Params params;
+        String sql;
+        if (position == null || position.isEmpty()) {
+            params = Params.of("$src", pTableName,
+                    "$limit", PrimitiveValue.newUint64(limit));
+            sql = sqlSelectInitial;
+        } else {
+            params = Params.of(
+                    "$src", pTableName,
+                    "$tv", position.convertValue(1),
+                    "$seqno", position.convertValue(2),
+                    "$key_text", position.convertValue(3),
+                    "$limit", PrimitiveValue.newUint64(limit)
+            );
+            sql = sqlSelectNext;
+        }
+        ResultSetReader rsr = conn.sqlRead(sql, params).getResultSet(0);
+        var output = new ArrayList<MvDictionaryHistory.Row>(rsr.getRowCount());
+        while (rsr.next()) {
+            output.add(new MvDictionaryHistory.Row(
+                    new MvKey(rsr, historyTableInfo.getKeyInfo()),
+                    rsr.getColumn(4).getJsonDocument(),
+                    rsr.getColumn(5).getJsonDocument()));
+        }
+        return output;
+    }
+
     public void commit(MvChangesSingleDict mdc) {
         var scanDao = new MvScanDao(conn, new Adapter(mdc.getTableName()));
         if (mdc.getScanPosition() == null || mdc.getScanPosition().isEmpty()) {
@@ -134,14 +266,41 @@ public class MvDictionaryScan {
         }
     }
 
+    /**
+     * Scan the changes of all the dictionaries of the handler.
+     *
+     * @return The changes, or null if the scan has been cancelled, and should
+     * be retried on the next check without committing
+     */
     public MvChangesMultiDict scanAll() {
         LOG.debug("[{}] Performing regular dictionary changes scan.", handler.getName());
         MvChangesMultiDict ret = new MvChangesMultiDict();
-        handler.getInputs().values().stream()
+        List<String> tableNames = handler.getInputs().values().stream()
                 .filter(i -> i.isBatchMode())
                 .filter(i -> i.isTableKnown())
                 .map(i -> i.getTableName())
-                .forEach(tableName -> ret.addItem(scan(tableName)));
+                .distinct()
+                .toList();
+        int parallelism = Math.min(tableNames.size(), settings.getScanParallelism());
+        List<MvChangesSingleDict> scanned;
+        if (parallelism <= 1) {
+            scanned = new ArrayList<>(tableNames.size());
+            for (String tableName : tableNames) {
+                var item = scan(tableName);
+                if (item == null) {
+                    return null;
+                }
+                scanned.add(item);
+            }
+        } else {
+            scanned = scanParallel(tableNames, parallelism);
+        }
+        for (var item : scanned) {
+            if (item == null) {
+                return null;
+            }
+            ret.addItem(item);
+        }
         if (!ret.isEmpty()) {
             var items = ret.getItems().stream()
                     .filter(i -> !i.isEmpty())
@@ -157,6 +316,36 @@ public class MvDictionaryScan {
         return ret;
     }
 
+    private List<MvChangesSingleDict> scanParallel(List<String> tableNames, int parallelism) {
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread t = new Thread(r, "mv-dict-scan-" + handler.getName());
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            var futures = new ArrayList<Future<MvChangesSingleDict>>();
+            for (String tableName : tableNames) {
+                futures.add(executor.submit(() -> scan(tableName)));
+            }
+            var output = new ArrayList<MvChangesSingleDict>(futures.size());
+            for (var f : futures) {
+                output.add(f.get());
+            }
+            return output;
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new RuntimeException(cause);
+        } catch (InterruptedException ix) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Dictionary changes scan interrupted", ix);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     public void commitAll(MvChangesMultiDict cmd) {
         cmd.getItems().forEach(item -> commit(item));
     }
@@ -206,10 +395,10 @@ public class MvDictionaryScan {
             this.result = result;
         }
 
-        MvKey handleRow(MvKey curKey, ResultSetReader rsr) {
-            curKey = new MvKey(rsr, historyTableInfo.getKeyInfo());
+        MvKey handleRow(MvDictionaryHistory.Row row) {
+            MvKey curKey = row.position;
             result.setScanPosition(curKey);
-            String diffStr = rsr.getColumn(5).getJsonDocument();
+            String diffStr = row.diffVal;
             if (diffStr == null) {
                 if (!result.isMissingDiffFieldRows()) {
                     LOG.warn("[{}] Missing value in the `diff_val` field with key {} "
@@ -229,8 +418,7 @@ public class MvDictionaryScan {
                 }
                 return curKey;
             }
-            MvKey rowKey = new MvKey(rsr.getColumn(4).getJsonDocument(),
-                    sourceTableInfo.getKeyInfo());
+            MvKey rowKey = new MvKey(row.keyVal, sourceTableInfo.getKeyInfo());
             JsonArray diffArray = diffObj.getAsJsonObject().getAsJsonArray("f");
             for (JsonElement item : diffArray.asList()) {
                 result.updateField(item.getAsString(), rowKey);
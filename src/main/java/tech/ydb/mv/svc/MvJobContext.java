@@ -1,7 +1,11 @@
 package tech.ydb.mv.svc;
 
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import tech.ydb.mv.MvConfig;
 import tech.ydb.mv.YdbConnector;
@@ -11,10 +15,12 @@ import tech.ydb.mv.data.MvRowFilter;
 import tech.ydb.mv.feeder.MvCdcAdapter;
 import tech.ydb.mv.feeder.MvScanCompletion;
 import tech.ydb.mv.feeder.MvScanFeeder;
+import tech.ydb.mv.feeder.MvSink;
 import tech.ydb.mv.model.MvHandler;
 import tech.ydb.mv.model.MvHandlerSettings;
 import tech.ydb.mv.model.MvMetadata;
 import tech.ydb.mv.model.MvScanSettings;
+import tech.ydb.mv.model.MvShard;
 import tech.ydb.mv.model.MvViewExpr;
 import tech.ydb.mv.parser.MvDescriberMeta;
 
@@ -28,23 +34,38 @@ public class MvJobContext implements MvCdcAdapter {
     private final MvService service;
     private final MvHandler handler;
     private final MvHandlerSettings settings;
+    private final MvShard shard;
     private final MvDescriberMeta describer;
     // initially stopped
     private final AtomicBoolean shouldRun = new AtomicBoolean(false);
-    // target -> scan feeder
+    // target -> scan feeder, either own or shared with other targets
     private final HashMap<MvViewExpr, MvScanFeeder> scanFeeders = new HashMap<>();
+    // target name -> shadow table rebuild in progress
+    private final ConcurrentHashMap<String, MvShadowRebuild> shadows = new ConcurrentHashMap<>();
+    // incremented on each start and end of the target table writes
+    // bypassing the apply actions, including the shadow table rebuilds
+    private final AtomicLong writeEpoch = new AtomicLong(0L);
+    // number of the direct writes to the target tables in progress
+    private final AtomicInteger directWrites = new AtomicInteger(0);
 
     public MvJobContext(MvService service, MvMetadata metadata,
             MvHandler handler, MvHandlerSettings settings) {
+        this(service, metadata, handler, settings,
+                new MvShard(handler.getName(), 0, 1));
+    }
+
+    public MvJobContext(MvService service, MvMetadata metadata,
+            MvHandler handler, MvHandlerSettings settings, MvShard shard) {
         this.service = service;
         this.handler = handler;
         this.settings = settings;
+        this.shard = shard;
         this.describer = new MvDescriberMeta(metadata);
     }
 
     @Override
     public String toString() {
-        return "MvJobContext{" + handler.getName() + '}';
+        return "MvJobContext{" + shard.getJobName() + '}';
     }
 
     public MvService getService() {
@@ -63,6 +84,13 @@ public class MvJobContext implements MvCdcAdapter {
         return settings;
     }
 
+    /**
+     * @return The shard of the handler processed by the current job.
+     */
+    public MvShard getShard() {
+        return shard;
+    }
+
     public MvDescriberMeta getDescriber() {
         return describer;
     }
@@ -82,7 +110,7 @@ public class MvJobContext implements MvCdcAdapter {
 
     @Override
     public String getFeederName() {
-        return handler.getName();
+        return shard.getJobName();
     }
 
     @Override
@@ -113,6 +141,93 @@ public class MvJobContext implements MvCdcAdapter {
         return false;
     }
 
+    /**
+     * @param target The target (MV part)
+     * @return true, if the scan for the target is running, either own or
+     * shared with another target.
+     */
+    public synchronized boolean isScanRunning(MvViewExpr target) {
+        MvScanFeeder sf = scanFeeders.get(target);
+        return sf != null && sf.isRunning(target);
+    }
+
+    /**
+     * Save the pending positions of the running scans.
+     */
+    public synchronized void checkpointScans() {
+        for (var sf : scanFeeders.values()) {
+            sf.checkpoint();
+        }
+    }
+
+    /**
+     * @param target The target (MV part)
+     * @return The shadow table rebuild in progress for the target, or null.
+     */
+    public MvShadowRebuild getShadow(MvViewExpr target) {
+        return shadows.get(target.getName());
+    }
+
+    public MvShadowRebuild getShadow(String targetName) {
+        return shadows.get(targetName);
+    }
+
+    /**
+     * The write epoch changes whenever a write to the target tables which
+     * bypasses the apply actions starts or ends, including the shadow table
+     * rebuilds. This allows to check whether the data collected from the
+     * target tables could have been outdated by such writes.
+     *
+     * @return The current write epoch.
+     */
+    public long getWriteEpoch() {
+        return writeEpoch.get();
+    }
+
+    /**
+     * @return true, if the direct writes to the target tables, or the shadow
+     * table rebuilds, are in progress.
+     */
+    public boolean isDirectWriteActive() {
+        return directWrites.get() > 0 || !shadows.isEmpty();
+    }
+
+    /**
+     * Register the start of the target table write bypassing the apply
+     * actions, like the in-database rebuild of the scan page.
+     */
+    public void beginDirectWrite() {
+        directWrites.incrementAndGet();
+        writeEpoch.incrementAndGet();
+    }
+
+    /**
+     * Register the end of the target table write bypassing the apply actions.
+     */
+    public void endDirectWrite() {
+        directWrites.decrementAndGet();
+        writeEpoch.incrementAndGet();
+    }
+
+    boolean addShadow(MvShadowRebuild rebuild) {
+        boolean added = shadows.putIfAbsent(rebuild.getTargetName(), rebuild) == null;
+        if (added) {
+            writeEpoch.incrementAndGet();
+        }
+        return added;
+    }
+
+    void removeShadow(MvShadowRebuild rebuild) {
+        if (shadows.remove(rebuild.getTargetName(), rebuild)) {
+            writeEpoch.incrementAndGet();
+        }
+    }
+
+    void clearShadows() {
+        shadows.clear();
+        writeEpoch.incrementAndGet();
+    }
+
     public boolean startScan(MvViewExpr target, MvScanSettings settings,
             MvApplyManager applyManager) {
         return startScan(target, settings, applyManager, null, null);
@@ -125,8 +240,7 @@ public class MvJobContext implements MvCdcAdapter {
     }
 
     public synchronized boolean startScan(MvViewExpr target, MvScanSettings settings,
-            MvApplyManager applyManager, MvApplyActionList actions,
-            MvScanCompletion completion) {
+            MvSink sink, MvApplyActionList actions, MvScanCompletion completion) {
         if (target == null || !handler.containsPart(target)) {
             throw new IllegalArgumentException("Illegal target `" + target
                     + "` for handler `" + handler.getName() + "`");
@@ -136,10 +250,17 @@ public class MvJobContext implements MvCdcAdapter {
                     + handler.getName() + "`");
         }
         MvScanFeeder sf = scanFeeders.get(target);
-        if (sf != null && sf.isRunning()) {
+        if (sf != null && sf.isRunning(target)) {
             return false;
         }
-        sf = new MvScanFeeder(this, applyManager, target, settings, actions, completion);
+        // join the running scan over the same topmost table, if possible
+        for (var other : new LinkedHashSet<>(scanFeeders.values())) {
+            if (other.attach(target, settings, actions, completion)) {
+                scanFeeders.put(target, other);
+                return true;
+            }
+        }
+        sf = new MvScanFeeder(this, sink, target, settings, actions, completion);
         scanFeeders.put(target, sf);
         return sf.start();
     }
@@ -152,12 +273,36 @@ public class MvJobContext implements MvCdcAdapter {
         if (sf == null) {
             return false;
         }
-        return sf.stop();
+        return sf.stop(target);
     }
 
+    /**
+     * Forget the scan of the target after its processing is completed. The
+     * scan of the target owning the shared scan stays registered while the
+     * attached targets are still served.
+     *
+     * @param target The target (MV part)
+     */
     public synchronized void forgetScan(MvViewExpr target) {
-        if (target != null) {
-            scanFeeders.remove(target);
+        if (target == null) {
+            return;
+        }
+        MvScanFeeder sf = scanFeeders.get(target);
+        if (sf != null && sf.getTarget() == target && sf.isSharing()) {
+            return;
+        }
+        scanFeeders.remove(target);
+    }
+
+    /**
+     * Forget the scan owned by the feeder after the attached targets have
+     * been served, if the own scan has been processed too.
+     *
+     * @param sf The scan feeder
+     */
+    public synchronized void forgetScan(MvScanFeeder sf) {
+        if (scanFeeders.get(sf.getTarget()) == sf && sf.isDone()) {
+            scanFeeders.remove(sf.getTarget());
         }
     }
 
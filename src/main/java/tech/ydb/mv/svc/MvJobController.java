@@ -1,20 +1,33 @@
 package tech.ydb.mv.svc;
 
 import java.time.Duration;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import tech.ydb.mv.MvConfig;
 import tech.ydb.mv.apply.MvApplyManager;
+import tech.ydb.mv.apply.MvStormControl;
+import tech.ydb.mv.data.MvRowFilter;
 import tech.ydb.mv.feeder.MvCdcFeeder;
+import tech.ydb.mv.feeder.MvShardFeeder;
 import tech.ydb.mv.metrics.MvMetrics;
+import tech.ydb.mv.model.MvDictionarySettings;
 import tech.ydb.mv.model.MvHandler;
 import tech.ydb.mv.model.MvHandlerSettings;
 import tech.ydb.mv.model.MvMetadata;
 import tech.ydb.mv.model.MvScanSettings;
+import tech.ydb.mv.model.MvShard;
 import tech.ydb.mv.model.MvTableInfo;
+import tech.ydb.mv.model.MvViewExpr;
 import tech.ydb.mv.support.MvScanAdapter;
 import tech.ydb.mv.support.MvScanDao;
 
@@ -31,23 +44,50 @@ public class MvJobController implements AutoCloseable {
     private final MvJobContext context;
     private final MvApplyManager applyManager;
     private final AtomicReference<MvCdcFeeder> cdcFeeder = new AtomicReference<>();
+    private final AtomicReference<MvShardFeeder> shardFeeder = new AtomicReference<>();
+    private final AtomicBoolean sharedCdc = new AtomicBoolean(false);
     private final AtomicReference<ScheduledFuture<?>> dictCheckFuture = new AtomicReference<>();
     private final AtomicLong dictCheckTime = new AtomicLong(0);
+    private final AtomicLong dictContinuousTime = new AtomicLong(0);
+    // true, if the dictionary changes are too large for the continuous
+    // refresh, and wait for the off-peak hours or the regular check
+    private final AtomicBoolean dictDeferred = new AtomicBoolean(false);
+    // targeted dictionary refreshes of the last dictionary check
+    private final AtomicReference<List<MvDictionaryRefresh>> dictRefresh
+            = new AtomicReference<>(List.of());
     private final AtomicReference<ScheduledFuture<?>> metricsFuture = new AtomicReference<>();
+    private final AtomicReference<ScheduledFuture<?>> stormFuture = new AtomicReference<>();
+    // targets to be re-scanned after the change storm -> skipped key range
+    private final Map<MvViewExpr, MvStormControl.StormRange> stormRescans = new ConcurrentHashMap<>();
+    // targets which scans were stopped by the change storm, to be fully re-scanned
+    private final Set<MvViewExpr> stormStopped = ConcurrentHashMap.newKeySet();
 
     public MvJobController(MvService service, MvMetadata metadata,
             MvHandler handler, MvHandlerSettings settings) {
-        this.context = new MvJobContext(service, metadata, handler, settings);
+        this(service, metadata, handler, settings,
+                new MvShard(handler.getName(), 0, 1));
+    }
+
+    public MvJobController(MvService service, MvMetadata metadata,
+            MvHandler handler, MvHandlerSettings settings, MvShard shard) {
+        this.context = new MvJobContext(service, metadata, handler, settings, shard);
         this.applyManager = new MvApplyManager(this.context);
+        var stormControl = this.applyManager.getStormControl();
+        if (stormControl != null) {
+            stormControl.setEntryGuard(this::registerStormScans);
+        }
     }
 
     @Override
     public String toString() {
-        return "MvController{" + context.getHandler().getName() + '}';
+        return "MvController{" + getName() + '}';
     }
 
+    /**
+     * @return Job name, which is the handler name for non-sharded handlers.
+     */
     public String getName() {
-        return context.getHandler().getName();
+        return context.getShard().getJobName();
     }
 
     public MvJobContext getContext() {
@@ -81,30 +121,66 @@ public class MvJobController implements AutoCloseable {
         }
         LOG.info("Starting the controller `{}`", getName());
         context.setStarted();
+        if (isPrimaryShard()) {
+            abortShadowRebuilds();
+        }
         applyManager.refreshSelectors(context.getYdb().getTableClient());
-        // Temporary workaround: clear the scan positions for the targets,
-        // as we cannot resume any regular scans.
-        clearScanPositions();
         applyManager.start();
         var cdcFeederTemp = cdcFeeder.get();
         if (cdcFeederTemp != null) {
             cdcFeederTemp.close();
         }
-        cdcFeederTemp = new MvCdcFeeder(context, context.getYdb(), applyManager);
-        cdcFeederTemp.start();
-        cdcFeeder.set(cdcFeederTemp);
+        boolean shared;
+        try {
+            shared = isSharedCdcMode() && context.getService().subscribeSharedCdc(this);
+        } catch (RuntimeException ex) {
+            stop();
+            throw ex;
+        }
+        if (shared) {
+            sharedCdc.set(true);
+        } else {
+            cdcFeederTemp = new MvCdcFeeder(context, context.getYdb(), applyManager);
+            cdcFeederTemp.start();
+            cdcFeeder.set(cdcFeederTemp);
+        }
+        if (context.getShard().isSharded()) {
+            var shardFeederTemp = new MvShardFeeder(context, applyManager);
+            shardFeederTemp.start();
+            shardFeederTemp = shardFeeder.getAndSet(shardFeederTemp);
+            if (shardFeederTemp != null) {
+                shardFeederTemp.stop();
+            }
+        }
         scheduleRegularJobs();
+        if (isPrimaryShard()) {
+            resumeScans();
+        }
         return true;
     }
 
     public void signalStop() {
+        if (context.isRunning()) {
+            // keep the scan progress for the resumption
+            context.checkpointScans();
+        }
         if (context.setStopped()) {
             LOG.info("Stopping the controller `{}`", getName());
+            warnStormsOnStop();
         }
+        // the rebuilds in progress are dropped on the next start
+        context.clearShadows();
         var cdcFeederTemp = cdcFeeder.getAndSet(null);
         if (cdcFeederTemp != null) {
             cdcFeederTemp.close();
         }
+        if (sharedCdc.getAndSet(false)) {
+            context.getService().unsubscribeSharedCdc(this);
+        }
+        var shardFeederTemp = shardFeeder.getAndSet(null);
+        if (shardFeederTemp != null) {
+            shardFeederTemp.stop();
+        }
     }
 
     public synchronized void stop() {
@@ -140,6 +216,11 @@ public class MvJobController implements AutoCloseable {
         if (view == null) {
             return false;
         }
+        var shadow = context.getShadow(name);
+        if (shadow != null) {
+            shadow.abort("scan stopped");
+            return true;
+        }
         int counter = 0;
         for (var target : view.getParts().values()) {
             if (context.stopScan(target)) {
@@ -149,6 +230,24 @@ public class MvJobController implements AutoCloseable {
         return (counter > 0);
     }
 
+    /**
+     * Start the online rebuild of the target through the shadow table.
+     *
+     * @param name Target name
+     * @param settings Settings for the scans populating the shadow table
+     * @return true, if the rebuild was started, false if it or the scan of the
+     * target is already running
+     */
+    public boolean startRebuild(String name, MvScanSettings settings) {
+        var view = context.getHandler().getView(name);
+        if (view == null) {
+            throw new IllegalArgumentException("Illegal target name `" + name
+                    + "` for handler `" + context.getHandler().getName() + "`");
+        }
+        var scanDao = new MvScanDao(context.getYdb(), new TempScanDaoAdapter());
+        return new MvShadowRebuild(context, applyManager, view, settings, scanDao).start();
+    }
+
     /**
      * Check that the lock is actually held by this job as the current owner.
      *
@@ -160,6 +259,48 @@ public class MvJobController implements AutoCloseable {
         return context.getService().getLocker().check(getName());
     }
 
+    private void warnStormsOnStop() {
+        var stormControl = applyManager.getStormControl();
+        if (stormControl == null) {
+            return;
+        }
+        for (var tableName : MvStormControl.findEligibleTables(context.getHandler())) {
+            if (stormControl.isStorm(tableName)) {
+                LOG.info("Handler `{}` stopped during the change storm on table `{}`, "
+                        + "the affected targets will be re-scanned on the next start",
+                        context.getHandler().getName(), tableName);
+            }
+        }
+        for (var target : stormRescans.keySet()) {
+            LOG.info("Handler `{}` stopped before the re-scan of target `{}` as {}, "
+                    + "it will be re-scanned on the next start",
+                    context.getHandler().getName(), target.getName(), target.getAlias());
+        }
+        stormRescans.clear();
+        stormStopped.clear();
+    }
+
+    /**
+     * Scans and dictionary checks are handled by the first shard only, the
+     * keys produced are routed to the owning shards.
+     *
+     * @return true for the first shard or non-sharded handler, false otherwise
+     */
+    private boolean isPrimaryShard() {
+        return context.getShard().getIndex() == 0;
+    }
+
+    /**
+     * The shards of a handler rely on the partition distribution between their
+     * readers, so they never use the shared CDC reader.
+     *
+     * @return true, if the CDC reader is shared with the other handlers
+     */
+    private boolean isSharedCdcMode() {
+        return !context.getShard().isSharded()
+                && context.getYdb().getProperty(MvConfig.CONF_CDC_SHARED, false);
+    }
+
     private boolean obtainLock() {
         if (!context.getService().getLocker().lock(getName())) {
             LOG.warn("Failed to obtain the lock for `{}`, refusing to start", getName());
@@ -172,10 +313,67 @@ public class MvJobController implements AutoCloseable {
         return context.getService().getLocker().release(getName());
     }
 
-    private void clearScanPositions() {
+    /**
+     * Restart the scans which were active when the handler was stopped, from
+     * their saved positions and with their saved settings. The positions of
+     * the inactive scans are cleared: these are the dictionary refresh scans,
+     * which are re-initiated from the dictionary log, and the scans stopped
+     * explicitly. The parts of the UNION ALL views are resumed separately,
+     * each from its own position.
+     */
+    private void resumeScans() {
         var scanDao = new MvScanDao(context.getYdb(), new TempScanDaoAdapter());
-        for (var target : context.getHandler().getViews().values()) {
-            scanDao.unregisterSpecificScan(target.getName());
+        Map<String, String> active;
+        try {
+            active = scanDao.readActiveScans();
+        } catch (Exception ex) {
+            LOG.error("Failed to read the active scans for handler `{}`, "
+                    + "the scans need to be restarted manually", getName(), ex);
+            return;
+        }
+        for (var view : context.getHandler().getViews().values()) {
+            for (var target : view.getParts().values()) {
+                String scanName = MvScanDao.toScanName(target);
+                String settingsJson = MvScanDao.findActiveScan(active, target);
+                try {
+                    if (settingsJson == null) {
+                        scanDao.unregisterSpecificScan(scanName);
+                        continue;
+                    }
+                    var settings = MvConfig.GSON.fromJson(settingsJson, MvScanSettings.class);
+                    if (context.startScan(target, settings, applyManager)) {
+                        LOG.info("Resumed the scan for target `{}` as {} in handler `{}`",
+                                target.getName(), target.getAlias(), getName());
+                    }
+                } catch (Exception ex) {
+                    LOG.error("Failed to resume the scan for target `{}` as {} in handler `{}`",
+                            target.getName(), target.getAlias(), getName(), ex);
+                }
+            }
+            if (view.getParts().size() > 1) {
+                // the state saved under the plain view name cannot be
+                // attributed to a specific part, the parts start over
+                try {
+                    scanDao.unregisterSpecificScan(view.getName());
+                } catch (Exception ex) {
+                    LOG.warn("Failed to clean up the scan state for view `{}` in handler `{}`",
+                            view.getName(), getName(), ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop the shadow tables of the rebuilds interrupted by the restart,
+     * before the CDC changes are processed.
+     */
+    private void abortShadowRebuilds() {
+        try {
+            MvShadowRebuild.abortInterrupted(context,
+                    new MvScanDao(context.getYdb(), new TempScanDaoAdapter()));
+        } catch (Exception ex) {
+            LOG.error("Failed to clean up the interrupted shadow rebuilds for handler `{}`",
+                    getName(), ex);
         }
     }
 
@@ -184,6 +382,14 @@ public class MvJobController implements AutoCloseable {
                 MvConfig.CONF_DICT_SCAN_SECONDS, MvConfig.DEF_DICT_SCAN_SECONDS);
         int period = dictScanSeconds / 10;
         period -= period % 10;
+        var dictSettings = context.getService().getDictionarySettings();
+        if (dictSettings.getContinuousSeconds() > 0) {
+            period = Math.min(period, dictSettings.getContinuousSeconds());
+        }
+        String offPeakHours = dictSettings.getOffPeakHours();
+        if (offPeakHours != null && !offPeakHours.isBlank()) {
+            period = Math.min(period, 60);
+        }
         if (period > 60000) {
             period = 60000;
         } else if (period < 5) {
@@ -193,17 +399,20 @@ public class MvJobController implements AutoCloseable {
     }
 
     private void scheduleRegularJobs() {
-        // Dictionary re-scan scheduler checker
-        int dictCheckSeconds = getDictCheckPeriod();
-        var f = context.getService().getScheduler().scheduleAtFixedRate(
-                this::analyzeDictionaryChecks,
-                dictCheckSeconds,
-                dictCheckSeconds,
-                TimeUnit.SECONDS
-        );
-        f = dictCheckFuture.getAndSet(f);
-        if (f != null) {
-            f.cancel(true);
+        ScheduledFuture<?> f;
+        if (isPrimaryShard()) {
+            // Dictionary re-scan scheduler checker
+            int dictCheckSeconds = getDictCheckPeriod();
+            f = context.getService().getScheduler().scheduleAtFixedRate(
+                    this::analyzeDictionaryChecks,
+                    dictCheckSeconds,
+                    dictCheckSeconds,
+                    TimeUnit.SECONDS
+            );
+            f = dictCheckFuture.getAndSet(f);
+            if (f != null) {
+                f.cancel(true);
+            }
         }
         // Job metrics publisher
         f = context.getService().getScheduler().scheduleAtFixedRate(
@@ -216,6 +425,19 @@ public class MvJobController implements AutoCloseable {
         if (f != null) {
             f.cancel(true);
         }
+        if (isPrimaryShard() && applyManager.getStormControl() != null) {
+            // Change storm detection
+            f = context.getService().getScheduler().scheduleAtFixedRate(
+                    this::analyzeChangeStorms,
+                    5,
+                    5,
+                    TimeUnit.SECONDS
+            );
+            f = stormFuture.getAndSet(f);
+            if (f != null) {
+                f.cancel(true);
+            }
+        }
     }
 
     private void cancelRegularJobs() {
@@ -227,6 +449,10 @@ public class MvJobController implements AutoCloseable {
         if (f != null) {
             f.cancel(true);
         }
+        f = stormFuture.getAndSet(null);
+        if (f != null) {
+            f.cancel(true);
+        }
     }
 
     private void updateJobMetrics() {
@@ -238,46 +464,284 @@ public class MvJobController implements AutoCloseable {
         );
     }
 
+    private void analyzeChangeStorms() {
+        try {
+            var stormControl = applyManager.getStormControl();
+            for (var range : stormControl.evaluate()) {
+                for (var target : MvStormControl.findTargets(
+                        context.getHandler(), range.getTableName())) {
+                    stormRescans.merge(target, range, MvStormControl.StormRange::merge);
+                }
+            }
+            for (var me : stormRescans.entrySet()) {
+                var target = me.getKey();
+                if (!stormControl.isStorm(target.getTopMostSource().getTableName())
+                        && rescanAfterStorm(target, me.getValue())) {
+                    stormRescans.remove(target);
+                    stormStopped.remove(target);
+                }
+            }
+        } catch (Exception ex) {
+            LOG.error("Failed to analyze change storms on handler `{}`",
+                    context.getHandler().getName(), ex);
+        }
+    }
+
+    /**
+     * Durably register the rescans of the targets affected by the change
+     * storm, before the changes of the table start to be skipped. The
+     * targets get the active scan records with their positions cleared, so
+     * that the handler restarted during the storm fully re-scans them, as
+     * the key range of the skipped changes is only known in memory. The
+     * scans already running are stopped, and are fully restarted after the
+     * storm.
+     *
+     * @param tableName The table entering the storm mode
+     * @return true, if all the rescans have been registered, false otherwise
+     */
+    private boolean registerStormScans(String tableName) {
+        var scanDao = new MvScanDao(context.getYdb(), new TempScanDaoAdapter());
+        var settingsJson = MvConfig.GSON.toJson(context.getService().getScanSettings());
+        try {
+            for (var target : MvStormControl.findTargets(context.getHandler(), tableName)) {
+                if (context.stopScan(target)) {
+                    stormStopped.add(target);
+                }
+                resetScan(scanDao, target, settingsJson);
+            }
+            return true;
+        } catch (Exception ex) {
+            LOG.error("Failed to register the change storm rescans for table `{}` "
+                    + "in handler `{}`", tableName, context.getHandler().getName(), ex);
+            return false;
+        }
+    }
+
+    /**
+     * Clear the scan position of the target, keeping it registered as the
+     * active scan to be resumed on the handler restart.
+     */
+    private static void resetScan(MvScanDao scanDao, MvViewExpr target, String settingsJson) {
+        String scanName = MvScanDao.toScanName(target);
+        scanDao.unregisterSpecificScan(scanName);
+        scanDao.saveScan(MvScanDao.toSettingsName(scanName), settingsJson);
+    }
+
+    /**
+     * Re-scan the target affected by the change storm. Just the key range of
+     * the skipped changes is re-scanned, extended to the partition
+     * boundaries of the topmost table. The target gets the full rescan if
+     * its scan was stopped by the storm, or had been started during the
+     * storm, as the keys it has passed could be changed during the storm.
+     * With no changes skipped and no scan to restart, the scan record
+     * registered on the storm entry is just dropped. The active scan record
+     * is kept on failure, so that the rescan also happens after the handler
+     * restart.
+     *
+     * @param target The target to be re-scanned
+     * @param range The key range of the skipped changes
+     * @return true, if the rescan has been started, false to retry later
+     */
+    private boolean rescanAfterStorm(MvViewExpr target, MvStormControl.StormRange range) {
+        try {
+            var scanDao = new MvScanDao(context.getYdb(), new TempScanDaoAdapter());
+            boolean full = stormStopped.contains(target);
+            if (context.stopScan(target)) {
+                full = true;
+                LOG.info("Restarting the scan for target `{}` as {} in handler `{}` "
+                        + "after the change storm", target.getName(), target.getAlias(),
+                        context.getHandler().getName());
+            }
+            if (!full && range.isEmpty()) {
+                scanDao.unregisterSpecificScan(MvScanDao.toScanName(target));
+                LOG.info("No changes skipped for target `{}` as {} in handler `{}` "
+                        + "during the change storm, rescan not needed", target.getName(),
+                        target.getAlias(), context.getHandler().getName());
+                return true;
+            }
+            var settings = new MvScanSettings(context.getService().getScanSettings());
+            if (!full) {
+                settings.setKeyRange(range.getMinKey().convertKeyToJson(),
+                        range.getMaxKey().convertKeyToJson());
+                LOG.info("Re-scanning target `{}` as {} in handler `{}` for the key range "
+                        + "[{}, {}] of {} changes skipped during the change storm",
+                        target.getName(), target.getAlias(), context.getHandler().getName(),
+                        range.getMinKey(), range.getMaxKey(), range.getSkipped());
+            }
+            resetScan(scanDao, target, MvConfig.GSON.toJson(settings));
+            if (context.startScan(target, settings, applyManager)) {
+                return true;
+            }
+            LOG.warn("Rescan REFUSED for target `{}` as {} in handler `{}`, will retry",
+                    target.getName(), target.getAlias(), context.getHandler().getName());
+        } catch (Exception ex) {
+            LOG.error("Failed to re-scan target `{}` as {} in handler `{}` "
+                    + "after the change storm, will retry", target.getName(),
+                    target.getAlias(), context.getHandler().getName(), ex);
+        }
+        return false;
+    }
+
+    /**
+     * Run the regular dictionary check on its period, or earlier within the
+     * off-peak hours for the deferred changes. In between, run the continuous
+     * checks, which apply just the small changes.
+     */
     private void analyzeDictionaryChecks() {
+        var dictSettings = context.getService().getDictionarySettings();
         long tv = dictCheckTime.get();
         long cur = System.currentTimeMillis();
         long millis = 1000L * context.getSettings().getDictionaryScanSeconds();
-        if ((cur - tv) >= millis) {
+        boolean regular = (cur - tv) >= millis
+                || (dictDeferred.get() && isOffPeak(dictSettings));
+        boolean continuous = !regular
+                && !dictDeferred.get()
+                && dictSettings.getContinuousSeconds() > 0
+                && (cur - dictContinuousTime.get()) >= 1000L * dictSettings.getContinuousSeconds();
+        if (!regular && !continuous) {
+            return;
+        }
+        if (regular) {
             dictCheckTime.set(cur);
-            try {
-                performDictionaryChecks();
-            } catch (Exception ex) {
-                LOG.error("Failed to perform dictionary checks on handler `{}`",
-                        context.getHandler().getName(), ex);
-            }
+            dictDeferred.set(false);
+        }
+        dictContinuousTime.set(cur);
+        try {
+            performDictionaryChecks(continuous);
+        } catch (Exception ex) {
+            LOG.error("Failed to perform dictionary checks on handler `{}`",
+                    context.getHandler().getName(), ex);
         }
     }
 
-    private void performDictionaryChecks() {
+    private boolean isOffPeak(MvDictionarySettings settings) {
+        try {
+            return settings.isOffPeakHour(LocalTime.now().getHour());
+        } catch (IllegalArgumentException ex) {
+            LOG.warn("Off-peak hours ignored on handler `{}`: {}",
+                    context.getHandler().getName(), ex.getMessage());
+            return false;
+        }
+    }
+
+    private void deferDictionaryChanges(String reason) {
+        if (!dictDeferred.getAndSet(true)) {
+            LOG.info("Dictionary changes deferred on handler `{}` until the off-peak hours "
+                    + "or the regular check: {}", context.getHandler().getName(), reason);
+        }
+    }
+
+    /**
+     * Check the dictionary changes and start the refresh of the affected
+     * targets. In the continuous mode the changes are applied only if they
+     * can be handled by the targeted refresh within the cost limit, and
+     * deferred otherwise.
+     *
+     * @param continuous true for the continuous mode check
+     */
+    private void performDictionaryChecks(boolean continuous) {
+        for (var refresh : dictRefresh.get()) {
+            if (refresh.isRunning()) {
+                LOG.debug("Dictionary refresh delayed on handler `{}` due to the running "
+                        + "targeted refresh of target `{}` as {}", context.getHandler().getName(),
+                        refresh.getTarget().getName(), refresh.getTarget().getAlias());
+                return;
+            }
+        }
         // Scan the dictionary log for changes
         var settings = context.getService().getDictionarySettings();
+        if (continuous) {
+            // no need to read more changes than could be applied immediately
+            settings = new MvDictionarySettings(settings);
+            settings.setMaxChangeRowsScanned(Math.max(1, settings.getContinuousMaxCost()));
+        }
         var dictScan = new MvDictionaryScan(context.getYdb(),
-                context.getDescriber(), context.getHandler(), settings);
+                context.getDescriber(), context.getHandler(), settings,
+                context.getService().getScanScheduler(),
+                context.getService().getDictionaryHistory(),
+                () -> context.isRunning());
         var changes = dictScan.scanAll();
+        if (changes == null) {
+            // the handler is stopping, nothing has been committed
+            LOG.info("Dictionary changes scan cancelled on handler `{}`, "
+                    + "will retry on the next check", context.getHandler().getName());
+            return;
+        }
         if (changes.isEmpty()) {
             dictScan.commitAll(changes);
             return;
         }
+        if (continuous && changes.isIncomplete()) {
+            deferDictionaryChanges("too many change records");
+            return;
+        }
         // Create a separate filter for each relevant MV part
         var filters = changes.toFilters(context.getHandler());
-        if (filters.isEmpty()) {
+        // MV parts depending on the dictionaries with too many changed keys
+        var fullRefresh = changes.toFullRefresh(context.getHandler());
+        if (filters.isEmpty() && fullRefresh.isEmpty()) {
             // No relevant changes in the dictionaries, so move out.
             dictScan.commitAll(changes);
             return;
         }
-        if (context.isAnyScanRunning()) {
-            LOG.debug("Dictionary refresh delayed on handler `{}` "
-                    + "due to already running scans", context.getHandler().getName());
+        if (continuous && !fullRefresh.isEmpty()) {
+            deferDictionaryChanges("too many changed keys");
             return;
         }
-        // One scan per filter (e.g. per MV part affected by the changes)
-        var committer = new MvDictionaryCommitter(dictScan, changes, filters.size());
+        // The scans of the other targets are shared with the refresh, but the
+        // target being scanned already (e.g. by the previous refresh) is not.
         for (var filter : filters) {
+            if (context.isScanRunning(filter.getTarget())) {
+                LOG.debug("Dictionary refresh delayed on handler `{}` due to the running "
+                        + "scan of target `{}` as {}", context.getHandler().getName(),
+                        filter.getTarget().getName(), filter.getTarget().getAlias());
+                return;
+            }
+        }
+        for (var target : fullRefresh) {
+            if (context.isScanRunning(target)) {
+                LOG.debug("Dictionary refresh delayed on handler `{}` due to the running "
+                        + "scan of target `{}` as {}", context.getHandler().getName(),
+                        target.getName(), target.getAlias());
+                return;
+            }
+        }
+        // The targeted refresh replaces the scan where it is cheaper
+        var targeted = new ArrayList<MvDictionaryRefresh>();
+        var scanFilters = new ArrayList<MvRowFilter>();
+        long cost = 0L;
+        for (var filter : filters) {
+            var refresh = MvDictionaryRefresh.plan(context, applyManager, changes,
+                    filter.getTarget(), settings);
+            if (refresh != null) {
+                targeted.add(refresh);
+                cost += refresh.getCost();
+            } else if (continuous) {
+                deferDictionaryChanges("target `" + filter.getTarget().getName()
+                        + "` needs the refresh scan");
+                return;
+            } else {
+                scanFilters.add(filter);
+            }
+        }
+        if (continuous && cost > settings.getContinuousMaxCost()) {
+            deferDictionaryChanges("estimated cost " + cost + " is over the limit "
+                    + settings.getContinuousMaxCost());
+            return;
+        }
+        dictRefresh.set(targeted);
+        // One scan per filter (e.g. per MV part affected by the changes),
+        // plus one unfiltered scan per MV part needing the full refresh,
+        // plus one targeted refresh per MV part where it is chosen
+        var committer = new MvDictionaryCommitter(dictScan, changes,
+                scanFilters.size() + fullRefresh.size() + targeted.size());
+        for (var refresh : targeted) {
+            LOG.info("Initiating targeted dictionary refresh for target `{}` as {} in handler `{}`",
+                    refresh.getTarget().getName(), refresh.getTarget().getAlias(),
+                    context.getHandler().getName());
+            refresh.start(committer);
+        }
+        for (var filter : scanFilters) {
             LOG.info("Initiating dictionary refresh scan for target `{}` as {} in handler `{}`",
                     filter.getTarget().getName(), filter.getTarget().getAlias(),
                     context.getHandler().getName());
@@ -288,6 +752,15 @@ public class MvJobController implements AutoCloseable {
                         context.getHandler().getName());
             }
         }
+        for (var target : fullRefresh) {
+            LOG.info("Initiating full dictionary refresh scan for target `{}` as {} in handler `{}`",
+                    target.getName(), target.getAlias(), context.getHandler().getName());
+            boolean okay = context.startScan(target, settings, applyManager, null, committer);
+            if (!okay) {
+                LOG.error("Full dictionary refresh scan REFUSED for target `{}` as {} in handler `{}`",
+                        target.getName(), target.getAlias(), context.getHandler().getName());
+            }
+        }
     }
 
     class TempScanDaoAdapter implements MvScanAdapter {
@@ -310,7 +783,8 @@ public class MvJobController implements AutoCloseable {
 
         @Override
         public String getJobName() {
-            return getName();
+            // scan positions are registered per handler, not per shard
+            return context.getHandler().getName();
         }
 
         @Override
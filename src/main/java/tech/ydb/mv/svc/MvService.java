@@ -1,6 +1,8 @@
 package tech.ydb.mv.svc;
 
+import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -10,18 +12,22 @@ import java.util.Properties;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import tech.ydb.mv.MvApi;
 import tech.ydb.mv.MvConfig;
 import tech.ydb.mv.YdbConnector;
+import tech.ydb.mv.feeder.MvScanScheduler;
 import tech.ydb.mv.metrics.MvMetrics;
 import tech.ydb.mv.model.MvMetadata;
 import tech.ydb.mv.model.MvDictionarySettings;
 import tech.ydb.mv.model.MvHandler;
 import tech.ydb.mv.model.MvHandlerSettings;
 import tech.ydb.mv.model.MvScanSettings;
+import tech.ydb.mv.model.MvShard;
 import tech.ydb.mv.parser.MvDescriberYdb;
 import tech.ydb.mv.parser.MvStreamBuilder;
 import tech.ydb.mv.support.MvConfigReader;
@@ -46,10 +52,16 @@ public class MvService implements MvApi {
     private final AtomicReference<MvDictionarySettings> dictionarySettings;
     private final AtomicReference<MvScanSettings> scanSettings;
     private final ScheduledExecutorService scheduler;
+    // scan position writes, kept apart from the regular jobs of the scheduler
+    private final ScheduledExecutorService checkpointExecutor;
+    private final MvScanScheduler scanScheduler;
+    private final MvDictionaryHistory dictionaryHistory;
     private final AtomicReference<ScheduledFuture<?>> slowFuture = new AtomicReference<>();
     private final AtomicReference<ScheduledFuture<?>> fastFuture = new AtomicReference<>();
     private volatile MvDictionaryLogger dictionaryManager = null;
     private final HashMap<String, MvJobController> handlers = new HashMap<>();
+    // consumer name -> shared CDC reader
+    private final HashMap<String, MvSharedCdcReader> sharedReaders = new HashMap<>();
 
     public MvService(YdbConnector ydb, String identification) {
         this.ydb = ydb;
@@ -64,6 +76,13 @@ public class MvService implements MvApi {
         this.dictionarySettings = new AtomicReference<>(new MvDictionarySettings());
         this.scanSettings = new AtomicReference<>(new MvScanSettings());
         this.scheduler = Executors.newScheduledThreadPool(1);
+        this.checkpointExecutor = Executors.newScheduledThreadPool(2,
+                new CheckpointThreads("mv-scan-checkpoint-"));
+        this.scanScheduler = new MvScanScheduler(
+                ydb.getProperty(MvConfig.CONF_SCAN_TOTAL_RATE, 0),
+                ydb.getProperty(MvConfig.CONF_SCAN_TOTAL_QUERIES, 0));
+        this.dictionaryHistory = new MvDictionaryHistory(
+                ydb.getProperty(MvConfig.CONF_DICT_SHARED_ROWS, MvConfig.DEF_DICT_SHARED_ROWS));
     }
 
     public MvService(YdbConnector ydb) {
@@ -90,6 +109,27 @@ public class MvService implements MvApi {
         return metadata;
     }
 
+    /**
+     * @return The executor for the scan position writes.
+     */
+    public ScheduledExecutorService getCheckpointExecutor() {
+        return checkpointExecutor;
+    }
+
+    /**
+     * @return The runner-wide scheduler for the scans.
+     */
+    public MvScanScheduler getScanScheduler() {
+        return scanScheduler;
+    }
+
+    /**
+     * @return The runner-wide cache of the dictionary history.
+     */
+    public MvDictionaryHistory getDictionaryHistory() {
+        return dictionaryHistory;
+    }
+
     @Override
     public MvLocker getLocker() {
         if (locker == null) {
@@ -98,6 +138,63 @@ public class MvService implements MvApi {
         return locker;
     }
 
+    /**
+     * Subscribe the job to the shared CDC reader for its consumer.
+     *
+     * The shared reader holds the lock on the consumer name, so that the
+     * consumer is read by a single runner only. Otherwise the topic
+     * partitions would be split between the readers of different runners,
+     * and each of them would miss the changes of the other partitions.
+     *
+     * @param c The job controller to be subscribed.
+     * @return true, if subscribed, and false if the job needs its own reader.
+     * @throws IllegalStateException if the consumer is already read by the
+     * shared reader of another runner.
+     */
+    boolean subscribeSharedCdc(MvJobController c) {
+        String consumerName = c.getContext().getConsumerName();
+        synchronized (sharedReaders) {
+            var reader = sharedReaders.get(consumerName);
+            if (reader == null) {
+                if (!getLocker().lock(MvSharedCdcReader.toLockName(consumerName))) {
+                    throw new IllegalStateException("Consumer `" + consumerName
+                            + "` is read by the shared CDC reader of another runner, "
+                            + "refusing to start handler `" + c.getName() + "`. "
+                            + "The handlers sharing a consumer must run on the same runner.");
+                }
+                reader = new MvSharedCdcReader(this, consumerName);
+                sharedReaders.put(consumerName, reader);
+            }
+            if (reader.subscribe(c)) {
+                return true;
+            }
+            if (reader.unsubscribe(c)) {
+                removeSharedReader(consumerName);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Unsubscribe the job from the shared CDC reader for its consumer.
+     *
+     * @param c The job controller to be unsubscribed.
+     */
+    void unsubscribeSharedCdc(MvJobController c) {
+        String consumerName = c.getContext().getConsumerName();
+        synchronized (sharedReaders) {
+            var reader = sharedReaders.get(consumerName);
+            if (reader != null && reader.unsubscribe(c)) {
+                removeSharedReader(consumerName);
+            }
+        }
+    }
+
+    private void removeSharedReader(String consumerName) {
+        sharedReaders.remove(consumerName);
+        getLocker().release(MvSharedCdcReader.toLockName(consumerName));
+    }
+
     @Override
     public MvHandlerSettings getHandlerSettings() {
         return new MvHandlerSettings(handlerSettings.get());
@@ -151,6 +248,11 @@ public class MvService implements MvApi {
         setHandlerSettings(new MvHandlerSettings(props));
         setDictionarySettings(new MvDictionarySettings(props));
         setScanSettings(new MvScanSettings(props));
+        scanScheduler.configure(
+                MvConfig.parseInt(props, MvConfig.CONF_SCAN_TOTAL_RATE, 0),
+                MvConfig.parseInt(props, MvConfig.CONF_SCAN_TOTAL_QUERIES, 0));
+        dictionaryHistory.configure(
+                MvConfig.parseInt(props, MvConfig.CONF_DICT_SHARED_ROWS, MvConfig.DEF_DICT_SHARED_ROWS));
     }
 
     @Override
@@ -180,10 +282,14 @@ public class MvService implements MvApi {
     public void close() {
         shutdown();
         scheduler.shutdown();
+        checkpointExecutor.shutdown();
         try {
             if (!scheduler.awaitTermination(30L, TimeUnit.SECONDS)) {
                 LOG.warn("Service scheduler did not shut down in time.");
             }
+            if (!checkpointExecutor.awaitTermination(10L, TimeUnit.SECONDS)) {
+                LOG.warn("Scan checkpoint executor did not shut down in time.");
+            }
         } catch (InterruptedException ix) {
             Thread.currentThread().interrupt();
             LOG.warn("Interruption on closure");
@@ -199,7 +305,8 @@ public class MvService implements MvApi {
         }
         MvMetadata m = loadMetadata(ydb, null);
         appendDictHist(m);
-        dictionaryManager = new MvDictionaryLogger(m, ydb, dictionarySettings.get());
+        dictionaryManager = new MvDictionaryLogger(m, ydb, dictionarySettings.get(),
+                dictionaryHistory);
         dictionaryManager.start();
         return true;
     }
@@ -235,7 +342,10 @@ public class MvService implements MvApi {
     /**
      * Start the handler with the specified settings.
      *
-     * @param name Name of the handler to be started
+     * The name may refer to the shard of the handler, in the form
+     * {@code handler#index}. Non-sharded names process the whole handler.
+     *
+     * @param name Name of the handler (or handler's shard) to be started
      * @param settings The settings to be used by the handler
      * @return true, if handler has been started, false otherwise
      */
@@ -247,13 +357,26 @@ public class MvService implements MvApi {
             }
             handlers.remove(name);
         }
-        MvMetadata m = loadMetadata(ydb, name);
+        MvShard shard = MvShard.fromJobName(name, settings.getShardCount());
+        if (shard != null && !shard.isSharded() && MvShard.toIndex(name) >= 0
+                && !MvConfigReader.read(ydb).getHandlers().containsKey(name)) {
+            // the shard of the handler which is not sharded anymore
+            shard = null;
+        }
+        if (shard == null) {
+            LOG.warn("Ignored start request for stale shard job `{}`, "
+                    + "the handler is configured with {} shard(s)",
+                    name, settings.getShardCount());
+            return false;
+        }
+        String handlerName = shard.getHandlerName();
+        MvMetadata m = loadMetadata(ydb, handlerName);
         appendDictHist(m);
-        MvHandler handler = m.getHandlers().get(name);
+        MvHandler handler = m.getHandlers().get(handlerName);
         if (handler == null) {
-            throw new IllegalArgumentException("Unknown handler name: " + name);
+            throw new IllegalArgumentException("Unknown handler name: " + handlerName);
         }
-        c = new MvJobController(this, m, handler, settings);
+        c = new MvJobController(this, m, handler, settings, shard);
         handlers.put(name, c);
         scheduleRegularJobs();
         return c.start();
@@ -287,6 +410,15 @@ public class MvService implements MvApi {
         return c.startScan(targetName, getScanSettings());
     }
 
+    @Override
+    public synchronized boolean startRebuild(String handlerName, String targetName) {
+        MvJobController c = handlers.get(handlerName);
+        if (c == null) {
+            throw new IllegalArgumentException("Unknown handler name: " + handlerName);
+        }
+        return c.startRebuild(targetName, getScanSettings());
+    }
+
     /**
      * Stops the full scan for the specified target in the specified handler.
      * For illegal arguments, false is returned.
@@ -311,6 +443,20 @@ public class MvService implements MvApi {
         }
     }
 
+    @Override
+    public void printScans(PrintStream pw) {
+        var scans = scanScheduler.getScans();
+        pw.println("Scan budget: total rate " + scanScheduler.getTotalRate()
+                + ", max queries " + scanScheduler.getMaxQueries()
+                + ", active scans " + scans.size());
+        for (var s : scans) {
+            pw.println("  " + s.state() + " `" + s.target() + "` as " + s.alias()
+                    + " in handler `" + s.handler() + "`: weight " + s.weight()
+                    + ", running " + s.running() + ", waiting " + s.waiting()
+                    + ", rate share " + s.rateShare());
+        }
+    }
+
     @Override
     public void printIssues(PrintStream pw) {
         new MvIssuePrinter(metadata).write(pw);
@@ -429,6 +575,17 @@ public class MvService implements MvApi {
                 // and enforce the state of all jobs globally.
             }
         }
+        reportScans();
+    }
+
+    private void reportScans() {
+        var scans = scanScheduler.getScans();
+        if (scans.isEmpty() || !LOG.isInfoEnabled()) {
+            return;
+        }
+        var baos = new ByteArrayOutputStream();
+        printScans(new PrintStream(baos, true, StandardCharsets.UTF_8));
+        LOG.info("Scan scheduler state:\n{}", baos.toString(StandardCharsets.UTF_8).trim());
     }
 
     private void fastRefresh() {
@@ -464,4 +621,22 @@ public class MvService implements MvApi {
         }
         return m;
     }
+
+    private static class CheckpointThreads implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger(1);
+        private final String prefix;
+
+        CheckpointThreads(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, prefix + threadNumber.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
 }
@@ -0,0 +1,317 @@
+package tech.ydb.mv.svc;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import tech.ydb.common.transaction.TxMode;
+
+import tech.ydb.mv.MvConfig;
+import tech.ydb.mv.YdbConnector;
+import tech.ydb.mv.apply.MvApplyManager;
+import tech.ydb.mv.feeder.MvScanCompletion;
+import tech.ydb.mv.model.MvScanSettings;
+import tech.ydb.mv.model.MvView;
+import tech.ydb.mv.model.MvViewExpr;
+import tech.ydb.mv.parser.MvSqlGen;
+import tech.ydb.mv.support.MvScanDao;
+
+/**
+ * Online rebuild of the target through the shadow table.
+ *
+ * The shadow table is created with the current definition of the target, and
+ * populated by the scans of all the target parts. Meanwhile the CDC changes
+ * are written both to the live and to the shadow table. When the scans are
+ * completed, the writes are paused for the moment, and the shadow table
+ * atomically replaces the live table, which drops the old table.
+ *
+ * The state of the rebuild is kept in the scan control table. The rebuild is
+ * not resumable: the shadow table of the rebuild interrupted by the handler
+ * restart is dropped.
+ *
+ * @author zinal
+ */
+public class MvShadowRebuild implements MvScanCompletion {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvShadowRebuild.class);
+
+    public static final String SHADOW_SUFFIX = "_shadow";
+
+    public static final String STATE_BUILDING = "BUILDING";
+    public static final String STATE_COMPLETED = "COMPLETED";
+    public static final String STATE_ABORTED = "ABORTED";
+    public static final String STATE_FAILED = "FAILED";
+
+    private final MvJobContext context;
+    private final MvApplyManager applyManager;
+    private final MvView view;
+    private final MvScanSettings settings;
+    private final MvScanDao scanDao;
+    private final String shadowName;
+    private final HashMap<MvViewExpr, String> sqlUpsert = new HashMap<>();
+    private final HashMap<MvViewExpr, String> sqlDelete = new HashMap<>();
+    private final ArrayList<MvViewExpr> scanned = new ArrayList<>();
+    // the writes of the CDC changes are paused during the swap
+    private final ReentrantReadWriteLock writeLock = new ReentrantReadWriteLock(true);
+    private final AtomicInteger scanCounter = new AtomicInteger(0);
+    private final AtomicInteger processingCounter = new AtomicInteger(0);
+    private final AtomicBoolean completed = new AtomicBoolean(false);
+    private final Instant startedAt;
+    private volatile boolean active;
+    private volatile int totalCounter;
+
+    MvShadowRebuild(MvJobContext context, MvApplyManager applyManager,
+            MvView view, MvScanSettings settings, MvScanDao scanDao) {
+        this.context = context;
+        this.applyManager = applyManager;
+        this.view = view;
+        this.settings = new MvScanSettings(settings);
+        // the shadow table is empty, so the server-side rebuild is preferred
+        this.settings.setRebuild(true);
+        this.settings.setReconcile(false);
+        this.scanDao = scanDao;
+        this.shadowName = view.getName() + SHADOW_SUFFIX;
+        for (var target : view.getParts().values()) {
+            try (MvSqlGen sg = new MvSqlGen(target)) {
+                sg.setTableName(shadowName);
+                sqlUpsert.put(target, sg.makePlainUpsert());
+                sqlDelete.put(target, sg.makePlainDelete());
+            }
+        }
+        this.startedAt = Instant.now();
+        this.active = false;
+        this.totalCounter = view.getParts().size();
+    }
+
+    public String getTargetName() {
+        return view.getName();
+    }
+
+    public String getShadowName() {
+        return shadowName;
+    }
+
+    /**
+     * @return true, while the CDC changes should be written to the shadow
+     * table.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    public String getSqlUpsert(MvViewExpr target) {
+        return sqlUpsert.get(target);
+    }
+
+    public String getSqlDelete(MvViewExpr target) {
+        return sqlDelete.get(target);
+    }
+
+    /**
+     * Acquire the permission to write the CDC changes, which blocks while
+     * the swap is in progress.
+     */
+    public void lockWrites() {
+        writeLock.readLock().lock();
+    }
+
+    public void unlockWrites() {
+        writeLock.readLock().unlock();
+    }
+
+    /**
+     * Create the shadow table and start the scans populating it.
+     *
+     * @return true, if the rebuild has been started, false if the rebuild or
+     * the scan of the target is already running.
+     */
+    synchronized boolean start() {
+        if (!view.isDefaultDestination()) {
+            throw new IllegalArgumentException("Shadow rebuild is not supported "
+                    + "for target `" + view.getName() + "` in the non-default destination");
+        }
+        if (context.getShard().isSharded()) {
+            throw new IllegalStateException("Shadow rebuild is not supported "
+                    + "for target `" + view.getName() + "` in the sharded handler `"
+                    + context.getHandler().getName() + "`");
+        }
+        if (!context.addShadow(this)) {
+            return false;
+        }
+        try {
+            runDdl("DROP TABLE IF EXISTS `" + shadowName + "`;");
+            MvViewExpr first = view.getParts().values().iterator().next();
+            try (MvSqlGen sg = new MvSqlGen(first)) {
+                sg.setTableName(shadowName);
+                runDdl(sg.makeCreateTable());
+            }
+            active = true;
+            saveState(STATE_BUILDING, null);
+            LOG.info("Started the shadow rebuild for target `{}` into `{}` in handler `{}`",
+                    view.getName(), shadowName, context.getHandler().getName());
+            for (var target : view.getParts().values()) {
+                if (!context.startScan(target, settings, applyManager, null, this)) {
+                    throw new IllegalStateException("Scan is already running for target `"
+                            + target.getName() + "` as " + target.getAlias());
+                }
+                scanned.add(target);
+            }
+        } catch (Exception ex) {
+            abort(ex.getMessage());
+            if (ex instanceof IllegalStateException) {
+                return false;
+            }
+            throw ex;
+        }
+        return true;
+    }
+
+    /**
+     * Stop the dual writes and drop the shadow table.
+     *
+     * @param reason The reason of the abort
+     */
+    synchronized void abort(String reason) {
+        if (completed.getAndSet(true)) {
+            return;
+        }
+        active = false;
+        context.removeShadow(this);
+        for (var target : scanned) {
+            context.stopScan(target);
+        }
+        LOG.warn("Aborted the shadow rebuild for target `{}` in handler `{}`: {}",
+                view.getName(), context.getHandler().getName(), reason);
+        try {
+            runDdl("DROP TABLE IF EXISTS `" + shadowName + "`;");
+            saveState(STATE_ABORTED, reason);
+        } catch (Exception ex) {
+            LOG.error("Failed to drop the shadow table `{}` of target `{}` in handler `{}`",
+                    shadowName, view.getName(), context.getHandler().getName(), ex);
+        }
+    }
+
+    @Override
+    public void onEndScan() {
+        int c1 = scanCounter.incrementAndGet();
+        LOG.info("Shadow rebuild scan completed for target `{}` in handler `{}`, {} of {}",
+                view.getName(), context.getHandler().getName(), c1, totalCounter);
+    }
+
+    @Override
+    public void onEndProcessing() {
+        int c2 = processingCounter.incrementAndGet();
+        LOG.info("Shadow rebuild processing completed for target `{}` in handler `{}`, {} of {}",
+                view.getName(), context.getHandler().getName(), c2, totalCounter);
+        if (c2 >= totalCounter && scanCounter.get() >= totalCounter) {
+            if (!completed.getAndSet(true)) {
+                swap();
+            }
+        }
+    }
+
+    /**
+     * Replace the live table with the shadow one. The CDC changes are not
+     * written while the tables are renamed.
+     */
+    private void swap() {
+        writeLock.writeLock().lock();
+        try {
+            active = false;
+            context.removeShadow(this);
+            YdbConnector ydb = context.getYdb();
+            String src = ydb.fullTableName(shadowName);
+            String dst = ydb.fullTableName(view.getName());
+            ydb.getTableRetryCtx()
+                    .supplyStatus(session -> session.renameTable(src, dst, true))
+                    .join()
+                    .expectSuccess("Failed to rename `" + src + "` to `" + dst + "`");
+            LOG.info("Shadow rebuild completed for target `{}` in handler `{}`, "
+                    + "the live table has been replaced", view.getName(),
+                    context.getHandler().getName());
+            saveState(STATE_COMPLETED, null);
+        } catch (Exception ex) {
+            LOG.error("Shadow rebuild FAILED for target `{}` in handler `{}`, "
+                    + "shadow table `{}` is kept", view.getName(),
+                    context.getHandler().getName(), shadowName, ex);
+            saveStateSafe(STATE_FAILED, ex.getMessage());
+        } finally {
+            writeLock.writeLock().unlock();
+        }
+    }
+
+    private void saveState(String state, String diag) {
+        var s = new State(state, shadowName, startedAt.toString(),
+                Instant.now().toString(), diag);
+        scanDao.saveShadow(view.getName(), MvConfig.GSON.toJson(s));
+    }
+
+    private void saveStateSafe(String state, String diag) {
+        try {
+            saveState(state, diag);
+        } catch (Exception ex) {
+            LOG.error("Failed to save the shadow rebuild state for target `{}` in handler `{}`",
+                    view.getName(), context.getHandler().getName(), ex);
+        }
+    }
+
+    private void runDdl(String sql) {
+        runDdl(context.getYdb(), sql);
+    }
+
+    private static void runDdl(YdbConnector ydb, String sql) {
+        ydb.getQueryRetryCtx()
+                .supplyStatus(qs -> qs.createQuery(sql, TxMode.NONE).execute()
+                        .thenApply(res -> res.getStatus()))
+                .join()
+                .expectSuccess("Failed to execute: " + sql);
+        LOG.info("SQL: {}", sql);
+    }
+
+    /**
+     * Drop the shadow tables of the rebuilds which were interrupted by the
+     * handler restart.
+     *
+     * @param context The handler context
+     * @param scanDao Scan control table access
+     */
+    static void abortInterrupted(MvJobContext context, MvScanDao scanDao) {
+        for (var me : scanDao.readShadows().entrySet()) {
+            State s = MvConfig.GSON.fromJson(me.getValue(), State.class);
+            if (s == null || !STATE_BUILDING.equals(s.state)) {
+                continue;
+            }
+            LOG.warn("Shadow rebuild for target `{}` in handler `{}` was interrupted, "
+                    + "dropping the shadow table `{}`", me.getKey(),
+                    context.getHandler().getName(), s.table);
+            runDdl(context.getYdb(), "DROP TABLE IF EXISTS `" + s.table + "`;");
+            var next = new State(STATE_ABORTED, s.table, s.startedAt,
+                    Instant.now().toString(), "interrupted by the handler restart");
+            scanDao.saveShadow(me.getKey(), MvConfig.GSON.toJson(next));
+        }
+    }
+
+    /**
+     * Rebuild state, as stored in the scan control table.
+     */
+    static class State {
+
+        String state;
+        String table;
+        String startedAt;
+        String updatedAt;
+        String diag;
+
+        State(String state, String table, String startedAt, String updatedAt, String diag) {
+            this.state = state;
+            this.table = table;
+            this.startedAt = startedAt;
+            this.updatedAt = updatedAt;
+            this.diag = diag;
+        }
+    }
+
+}
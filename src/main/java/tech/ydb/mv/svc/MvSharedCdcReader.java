@@ -0,0 +1,139 @@
+package tech.ydb.mv.svc;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import tech.ydb.mv.apply.MvApplyManager;
+import tech.ydb.mv.feeder.MvCdcAdapter;
+import tech.ydb.mv.feeder.MvCdcFeeder;
+import tech.ydb.mv.feeder.MvFanoutSink;
+
+/**
+ * Shared CDC reader for the handlers of a single runner which use the same
+ * consumer. The changefeeds are read and parsed once, and the change records
+ * are passed to each of the subscribed handlers.
+ *
+ * The topic offsets are committed when all the subscribers have processed
+ * the change records, which is achieved by reserving the extra processing
+ * counts in the original commit handler (see {@link MvFanoutSink}).
+ *
+ * The consumer must not be read by the other runners at the same time, as
+ * the topic partitions would be split between them. This is ensured by the
+ * lock on the consumer name, held while the reader has subscribers.
+ *
+ * @author zinal
+ */
+class MvSharedCdcReader implements MvCdcAdapter {
+
+    private static final org.slf4j.Logger LOG = org.slf4j.LoggerFactory.getLogger(MvSharedCdcReader.class);
+
+    private final MvService service;
+    private final String consumerName;
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    // job name -> subscribed controller
+    private final LinkedHashMap<String, MvJobController> subscribers = new LinkedHashMap<>();
+    private MvCdcFeeder feeder = null;
+
+    MvSharedCdcReader(MvService service, String consumerName) {
+        this.service = service;
+        this.consumerName = consumerName;
+    }
+
+    /**
+     * @param consumerName The consumer name
+     * @return The name of the lock held by the shared reader of the consumer
+     */
+    static String toLockName(String consumerName) {
+        return "cdc@" + consumerName;
+    }
+
+    /**
+     * Add the controller to the set of subscribers, restarting the reader.
+     *
+     * @param c Job controller to be added.
+     * @return true, if subscribed, and false if the controller's inputs
+     * cannot be shared with the current subscribers.
+     */
+    synchronized boolean subscribe(MvJobController c) {
+        var managers = getManagers();
+        managers.add(c.getApplyManager());
+        try {
+            new MvFanoutSink(managers);
+        } catch (IllegalArgumentException ex) {
+            LOG.warn("Handler `{}` cannot use the shared CDC reader for consumer `{}`: {}",
+                    c.getName(), consumerName, ex.getMessage());
+            return false;
+        }
+        subscribers.put(c.getName(), c);
+        LOG.info("Handler `{}` subscribed to the shared CDC reader for consumer `{}`",
+                c.getName(), consumerName);
+        restart();
+        return true;
+    }
+
+    /**
+     * Remove the controller from the set of subscribers, restarting the
+     * reader if other subscribers remain.
+     *
+     * @param c Job controller to be removed.
+     * @return true, if no subscribers remain, false otherwise
+     */
+    synchronized boolean unsubscribe(MvJobController c) {
+        if (subscribers.remove(c.getName()) == null) {
+            return subscribers.isEmpty();
+        }
+        LOG.info("Handler `{}` unsubscribed from the shared CDC reader for consumer `{}`",
+                c.getName(), consumerName);
+        restart();
+        return subscribers.isEmpty();
+    }
+
+    private void restart() {
+        if (feeder != null) {
+            running.set(false);
+            feeder.close();
+            feeder = null;
+        }
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        running.set(true);
+        feeder = new MvCdcFeeder(this, service.getYdb(), new MvFanoutSink(getManagers()));
+        feeder.start();
+    }
+
+    private List<MvApplyManager> getManagers() {
+        var managers = new ArrayList<MvApplyManager>(subscribers.size() + 1);
+        for (var c : subscribers.values()) {
+            managers.add(c.getApplyManager());
+        }
+        return managers;
+    }
+
+    @Override
+    public String getFeederName() {
+        return "shared-" + consumerName;
+    }
+
+    @Override
+    public synchronized int getCdcReaderThreads() {
+        int threads = 1;
+        for (var c : subscribers.values()) {
+            threads = Math.max(threads, c.getContext().getSettings().getCdcReaderThreads());
+        }
+        return threads;
+    }
+
+    @Override
+    public String getConsumerName() {
+        return consumerName;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running.get();
+    }
+
+}
@@ -105,6 +105,37 @@ CREATE ASYNC HANDLER `schema3/h1` CONSUMER iddqd
   INPUT `schema3/sub_table3` CHANGEFEED cf1 AS BATCH;
 """;
 
+    public static final String SQL_NATIVE1 =
+"""
+CREATE ASYNC MATERIALIZED VIEW m2 AS
+SELECT main.id AS id, main.c1 AS c1, sub1.c8 AS c8
+FROM main_table AS main
+INNER JOIN sub_table1 AS sub1
+  ON main.c1=sub1.c1 AND main.c2=sub1.c2
+WHERE main.c6 >= -7 AND (main.c7 IS NOT NULL OR main.c8 IN ('a', 'b'u))
+  AND main.c9 NOT IN (1, 2) AND main.c10 <> 'x';
+
+CREATE ASYNC HANDLER h2
+  PROCESS m2,
+  INPUT main_table CHANGEFEED cf1 AS STREAM,
+  INPUT sub_table1 CHANGEFEED cf1 AS STREAM;
+""";
+
+    public static final String SQL_SOFT_KEYWORDS =
+"""
+CREATE ASYNC MATERIALIZED VIEW m3 AS
+SELECT or.id AS id, or.in AS in, or.is AS null, not.c8 AS not
+FROM main_table AS or
+LEFT JOIN sub_table1 AS not
+  ON or.c1=not.c1
+WHERE or.null IS NOT NULL OR or.not NOT IN (1, 2);
+
+CREATE ASYNC HANDLER h3
+  PROCESS m3,
+  INPUT main_table CHANGEFEED cf1 AS STREAM,
+  INPUT sub_table1 CHANGEFEED cf1 AS STREAM;
+""";
+
     public static MvTableInfo tiMainTable(String name) {
         return MvTableInfo.newBuilder(name)
                 .addColumn("id", PrimitiveType.Int32)
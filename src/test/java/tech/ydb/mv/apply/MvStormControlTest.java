@@ -0,0 +1,157 @@
+package tech.ydb.mv.apply;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.table.values.PrimitiveType;
+
+import tech.ydb.mv.SqlConstants;
+import tech.ydb.mv.data.MvChangeRecord;
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.data.YdbStruct;
+import tech.ydb.mv.model.MvTableInfo;
+import tech.ydb.mv.parser.MvSqlParser;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvStormControlTest {
+
+    private static final MvTableInfo TI = MvTableInfo.newBuilder("t1")
+            .addColumn("id", PrimitiveType.Int32)
+            .addKey("id")
+            .build();
+
+    private static MvKey KEY(int v) {
+        return new MvKey(new YdbStruct().add("id", v), TI);
+    }
+
+    private static MvChangeRecord REC(int v) {
+        return new MvChangeRecord(KEY(v), Instant.now(), MvChangeRecord.OpType.UPSERT);
+    }
+
+    @Test
+    public void testEligibleTables() {
+        var mc = new MvSqlParser(SqlConstants.SQL1).fill();
+        var handler = mc.getHandlers().get("h1");
+        Assertions.assertNotNull(handler);
+        Assertions.assertEquals(List.of("main_table"),
+                MvStormControl.findEligibleTables(handler));
+        Assertions.assertEquals(1, MvStormControl.findTargets(handler, "main_table").size());
+        Assertions.assertTrue(MvStormControl.findTargets(handler, "sub_table1").isEmpty());
+    }
+
+    @Test
+    public void testStormSwitch() {
+        var sc = new MvStormControl("h1", List.of("t1"), 1000, 10);
+        long now = System.currentTimeMillis();
+        // unknown tables are never in the storm mode
+        Assertions.assertFalse(sc.register("t2", 1000000));
+        // short burst does not trigger the storm mode
+        sc.register("t1", 50000);
+        now += 5000L;
+        Assertions.assertTrue(sc.evaluate(now).isEmpty());
+        Assertions.assertFalse(sc.isStorm("t1"));
+        sc.register("t1", 100);
+        now += 5000L;
+        sc.evaluate(now);
+        Assertions.assertFalse(sc.isStorm("t1"));
+        // sustained high rate does
+        for (int i = 0; i < 2; ++i) {
+            sc.register("t1", 50000);
+            now += 5000L;
+            Assertions.assertTrue(sc.evaluate(now).isEmpty());
+        }
+        Assertions.assertTrue(sc.isStorm("t1"));
+        Assertions.assertTrue(sc.register("t1", 1));
+        // the rate below the threshold, but above its half, keeps the storm
+        for (int i = 0; i < 3; ++i) {
+            sc.register("t1", 4000);
+            now += 5000L;
+            Assertions.assertTrue(sc.evaluate(now).isEmpty());
+        }
+        Assertions.assertTrue(sc.isStorm("t1"));
+        // the low rate finishes the storm, asking for the rescan
+        sc.register("t1", 100);
+        now += 5000L;
+        Assertions.assertTrue(sc.evaluate(now).isEmpty());
+        now += 5000L;
+        var ranges = sc.evaluate(now);
+        Assertions.assertEquals(1, ranges.size());
+        Assertions.assertEquals("t1", ranges.get(0).getTableName());
+        // nothing has been skipped
+        Assertions.assertTrue(ranges.get(0).isEmpty());
+        Assertions.assertFalse(sc.isStorm("t1"));
+        Assertions.assertFalse(sc.register("t1", 1));
+    }
+
+    @Test
+    public void testSkippedRange() {
+        var sc = new MvStormControl("h1", List.of("t1"), 1000, 5);
+        long now = System.currentTimeMillis();
+        // the changes are not skipped outside of the storm
+        Assertions.assertFalse(sc.registerSkipped("t1", List.of(REC(5))));
+        Assertions.assertFalse(sc.registerSkipped("t2", List.of(REC(5))));
+        sc.register("t1", 50000);
+        now += 5000L;
+        sc.evaluate(now);
+        Assertions.assertTrue(sc.isStorm("t1"));
+        Assertions.assertTrue(sc.registerSkipped("t1", List.of(REC(50), REC(20))));
+        Assertions.assertTrue(sc.registerSkipped("t1", List.of(REC(70), REC(30))));
+        sc.register("t1", 10);
+        now += 5000L;
+        var ranges = sc.evaluate(now);
+        Assertions.assertEquals(1, ranges.size());
+        var range = ranges.get(0);
+        Assertions.assertFalse(range.isEmpty());
+        Assertions.assertEquals(4L, range.getSkipped());
+        Assertions.assertEquals(KEY(20), range.getMinKey());
+        Assertions.assertEquals(KEY(70), range.getMaxKey());
+        // the changes arriving after the storm are applied
+        Assertions.assertFalse(sc.registerSkipped("t1", List.of(REC(90))));
+
+        // the ranges of the subsequent storms are merged
+        var other = new MvStormControl.StormRange("t1", KEY(10), KEY(40), 2L);
+        var merged = range.merge(other);
+        Assertions.assertEquals(KEY(10), merged.getMinKey());
+        Assertions.assertEquals(KEY(70), merged.getMaxKey());
+        Assertions.assertEquals(6L, merged.getSkipped());
+        var empty = new MvStormControl.StormRange("t1", null, null, 0L);
+        Assertions.assertSame(range, range.merge(empty));
+        Assertions.assertSame(range, empty.merge(range));
+    }
+
+    @Test
+    public void testEntryGuard() {
+        var sc = new MvStormControl("h1", List.of("t1"), 1000, 5);
+        boolean[] allow = {false};
+        var calls = new ArrayList<String>();
+        sc.setEntryGuard(tableName -> {
+            calls.add(tableName);
+            return allow[0];
+        });
+        long now = System.currentTimeMillis();
+        // the failed guard postpones the storm mode
+        for (int i = 0; i < 3; ++i) {
+            sc.register("t1", 50000);
+            now += 5000L;
+            Assertions.assertTrue(sc.evaluate(now).isEmpty());
+        }
+        Assertions.assertFalse(sc.isStorm("t1"));
+        Assertions.assertFalse(sc.register("t1", 1));
+        Assertions.assertEquals(List.of("t1", "t1", "t1"), calls);
+        // and the entry is retried on the next evaluation
+        allow[0] = true;
+        sc.register("t1", 50000);
+        now += 5000L;
+        sc.evaluate(now);
+        Assertions.assertTrue(sc.isStorm("t1"));
+        Assertions.assertEquals(4, calls.size());
+    }
+
+}
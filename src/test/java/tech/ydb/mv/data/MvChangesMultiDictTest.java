@@ -530,6 +530,76 @@ public class MvChangesMultiDictTest {
         assertNull(filter2);
     }
 
+    @Test
+    public void testSharedKeysAcrossFields() {
+        // Test: The same key changed in several fields is stored once
+        MvChangesSingleDict dict1Changes = new MvChangesSingleDict("dict1", 10);
+        dict1Changes.updateField("name", createKey("dict1", 1L));
+        dict1Changes.updateField("status", createKey("dict1", 1L));
+        dict1Changes.updateField("name", createKey("dict1", 2L));
+        assertEquals(2, dict1Changes.getKeyCount());
+        assertEquals(2, dict1Changes.getKeys(List.of("name", "status")).size());
+        assertEquals(1, dict1Changes.getKeys(List.of("status")).size());
+        assertEquals(0, dict1Changes.getKeys(List.of("description")).size());
+        assertEquals(2, dict1Changes.getFields().get("name").size());
+    }
+
+    @Test
+    public void testKeyLimitOverflow() {
+        // Test: Above the key limit the keys are dropped, and the dependent
+        // targets are refreshed without the filter
+        MvChangesSingleDict dict1Changes = new MvChangesSingleDict("dict1", 2);
+        dict1Changes.updateField("name", createKey("dict1", 1L));
+        dict1Changes.updateField("name", createKey("dict1", 2L));
+        assertFalse(dict1Changes.isOverflow());
+        dict1Changes.updateField("name", createKey("dict1", 3L));
+        assertTrue(dict1Changes.isOverflow());
+        assertFalse(dict1Changes.isEmpty());
+        assertEquals(0, dict1Changes.getKeyCount());
+        changes.addItem(dict1Changes);
+
+        assertTrue(changes.toFilters(handler).isEmpty());
+        assertNull(changes.toFilter(handler, targetSingleDict));
+        List<MvViewExpr> full = changes.toFullRefresh(handler);
+        assertEquals(2, full.size());
+        assertTrue(full.contains(targetSingleDict));
+        assertTrue(full.contains(targetMultiDict));
+    }
+
+    @Test
+    public void testKeyLimitOverflowNonRelevant() {
+        // Test: The overflow of the non-relevant field changes nothing
+        MvChangesSingleDict dict1Changes = new MvChangesSingleDict("dict1", 1);
+        dict1Changes.updateField("description", createKey("dict1", 1L));
+        dict1Changes.updateField("description", createKey("dict1", 2L));
+        assertTrue(dict1Changes.isOverflow());
+        changes.addItem(dict1Changes);
+
+        assertTrue(changes.toFullRefresh(handler).isEmpty());
+        assertTrue(changes.toFilters(handler).isEmpty());
+    }
+
+    @Test
+    public void testChangedKeysPerSource() {
+        // Test: Changed keys are grouped by the dictionary source, and only
+        // the used fields are included
+        MvChangesSingleDict dict1Changes = createDictChanges("dict1", "name", 1L, 2L);
+        dict1Changes.updateField("description", createKey("dict1", 3L)); // Non-relevant
+        changes.addItem(dict1Changes);
+        changes.addItem(createDictChanges("dict2", "code", 4L));
+
+        var keys = changes.toChangedKeys(targetMultiDict);
+        assertNotNull(keys);
+        assertEquals(2, keys.size());
+        assertEquals(2, keys.get(dict1Source).size());
+        assertEquals(1, keys.get(dict2Source).size());
+
+        changes.addItem(new MvChangesSingleDict("dict1", 1)
+                .updateField("name", createKey("dict1", 1L))
+                .updateField("name", createKey("dict1", 2L)));
+        assertNull(changes.toChangedKeys(targetMultiDict));
+    }
+
     @Test
     public void testColumnUsageMapping() {
         // Test: Verify that column usage mapping works correctly
@@ -0,0 +1,83 @@
+package tech.ydb.mv.data;
+
+import java.math.BigInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.mv.SqlConstants;
+import tech.ydb.mv.model.MvPredicate;
+import tech.ydb.mv.parser.MvSqlParser;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvImageFilterTest {
+
+    private static MvImageFilter makeFilter() {
+        var mc = new MvSqlParser(SqlConstants.SQL_NATIVE1).fill();
+        var target = mc.getViews().get("m2").getParts().values().iterator().next();
+        MvPredicate p = target.getFilter().getPredicate();
+        Assertions.assertNotNull(p);
+        return new MvImageFilter(p);
+    }
+
+    private static YdbStruct image(Integer c6, String c7, String c8, Long c9, String c10) {
+        return new YdbStruct()
+                .add("id", 1)
+                .add("c6", c6)
+                .add("c7", c7)
+                .add("c8", c8)
+                .add("c9", c9)
+                .add("c10", c10);
+    }
+
+    @Test
+    public void testMatching() {
+        var f = makeFilter();
+        Assertions.assertEquals(Boolean.TRUE, f.matches(image(-7, "z", null, 3L, "y")));
+        Assertions.assertEquals(Boolean.TRUE, f.matches(image(10, null, "b", 3L, "y")));
+        Assertions.assertEquals(Boolean.TRUE, f.matches(image(10, null, "a", 3L, "xx")));
+    }
+
+    @Test
+    public void testNotMatching() {
+        var f = makeFilter();
+        Assertions.assertEquals(Boolean.FALSE, f.matches(image(-8, "z", null, 3L, "y")));
+        Assertions.assertEquals(Boolean.FALSE, f.matches(image(10, null, "c", 3L, "y")));
+        Assertions.assertEquals(Boolean.FALSE, f.matches(image(10, "z", null, 2L, "y")));
+        Assertions.assertEquals(Boolean.FALSE, f.matches(image(10, "z", null, 3L, "x")));
+        // NULL comparisons never match
+        Assertions.assertEquals(Boolean.FALSE, f.matches(image(null, "z", null, 3L, "y")));
+        Assertions.assertEquals(Boolean.FALSE, f.matches(image(10, "z", null, null, "y")));
+    }
+
+    @Test
+    public void testUndefined() {
+        var f = makeFilter();
+        // no image
+        Assertions.assertNull(f.matches(YdbStruct.EMPTY));
+        // missing column
+        var partial = new YdbStruct().add("c6", 10);
+        Assertions.assertNull(f.matches(partial));
+        // but the known mismatch is enough
+        partial = new YdbStruct().add("c6", -100);
+        Assertions.assertEquals(Boolean.FALSE, f.matches(partial));
+        // incompatible type
+        Assertions.assertNull(f.matches(image(10, "z", null, 3L, null)
+                .add("c10", 5L)));
+    }
+
+    @Test
+    public void testCompare() {
+        Assertions.assertEquals(0, MvImageFilter.compare(new YdbUnsigned(-1L),
+                new BigInteger("18446744073709551615")));
+        Assertions.assertTrue(MvImageFilter.compare(new YdbUnsigned(-1L), 5L) > 0);
+        Assertions.assertTrue(MvImageFilter.compare(new YdbUnsigned(0L), -5L) > 0);
+        Assertions.assertTrue(MvImageFilter.compare("\uFFFF", "\uD83D\uDE00") < 0);
+        Assertions.assertTrue(MvImageFilter.compare(1.5d, 1L) > 0);
+        Assertions.assertNull(MvImageFilter.compare(Boolean.TRUE, 1L));
+    }
+
+}
@@ -0,0 +1,57 @@
+package tech.ydb.mv.data;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvKeyFilterTest {
+
+    @Test
+    public void testNoFalseNegatives() {
+        var filter = new MvKeyFilter(10000);
+        for (long i = 0; i < 10000; ++i) {
+            filter.add(new Comparable<?>[]{i, "k" + (i % 13)});
+        }
+        Assertions.assertFalse(filter.isSaturated());
+        for (long i = 0; i < 10000; ++i) {
+            Assertions.assertTrue(filter.mightContain(new Comparable<?>[]{i, "k" + (i % 13)}),
+                    "key " + i);
+        }
+        int falsePositives = 0;
+        for (long i = 10000; i < 20000; ++i) {
+            if (filter.mightContain(new Comparable<?>[]{i, "k" + (i % 13)})) {
+                ++falsePositives;
+            }
+        }
+        Assertions.assertTrue(falsePositives < 200, "false positives: " + falsePositives);
+        long estimate = filter.getEstimatedKeys();
+        Assertions.assertTrue(estimate > 9000 && estimate < 11000, "estimate: " + estimate);
+    }
+
+    @Test
+    public void testValueTypes() {
+        var filter = new MvKeyFilter(100);
+        filter.add(new Comparable<?>[]{5L, new BigDecimal("1.50"), null});
+        Assertions.assertTrue(filter.mightContain(
+                new Comparable<?>[]{5, new BigDecimal("1.5"), null}));
+        Assertions.assertFalse(filter.mightContain(
+                new Comparable<?>[]{5, new BigDecimal("1.5"), "x"}));
+        Assertions.assertFalse(filter.mightContain(
+                new Comparable<?>[]{null, 5L, new BigDecimal("1.5")}));
+    }
+
+    @Test
+    public void testSaturation() {
+        var filter = new MvKeyFilter(1000);
+        for (long i = 0; i < 3000; ++i) {
+            filter.add(new Comparable<?>[]{i});
+        }
+        Assertions.assertTrue(filter.isSaturated());
+    }
+
+}
@@ -0,0 +1,94 @@
+package tech.ydb.mv.data;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Row filter matching over the scanned rows, as done on the dictionary
+ * refresh scans. The block holds the changed dictionary keys, and the rows
+ * mostly do not match them.
+ *
+ * Not run with the unit tests. To run:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=tech.ydb.mv.data.MvRowFilterBench
+ * </pre>
+ *
+ * @author zinal
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MvRowFilterBench {
+
+    private static final int ROWS = 4096;
+
+    // number of the changed dictionary keys in the block
+    @Param({"10", "1000", "100000"})
+    int blockSize;
+
+    // percentage of the scanned rows matching the block
+    @Param({"1", "50"})
+    int hitPercent;
+
+    private MvRowFilter filter;
+    private Comparable<?>[][] rows;
+
+    @Setup
+    public void setup() {
+        var random = new Random(42L);
+        var tuples = new ArrayList<MvTuple>(blockSize);
+        for (int i = 0; i < blockSize; ++i) {
+            tuples.add(new MvTuple(new Comparable<?>[]{(long) i, "k" + i}));
+        }
+        filter = new MvRowFilter(null, null);
+        filter.addBlock(1, 2, tuples);
+
+        rows = new Comparable<?>[ROWS][];
+        for (int i = 0; i < ROWS; ++i) {
+            long id;
+            if (random.nextInt(100) < hitPercent) {
+                id = random.nextInt(blockSize);
+            } else {
+                id = blockSize + random.nextInt(Integer.MAX_VALUE - blockSize);
+            }
+            rows[i] = new Comparable<?>[]{random.nextLong(), id, "k" + id, "payload"};
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void matches(Blackhole bh) {
+        for (var row : rows) {
+            bh.consume(filter.matches(row));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MvRowFilterBench.class.getSimpleName())
+                .build()).run();
+    }
+
+}
@@ -0,0 +1,64 @@
+package tech.ydb.mv.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvRowFilterTest {
+
+    private static MvTuple tuple(Comparable<?>... values) {
+        return new MvTuple(values);
+    }
+
+    @Test
+    public void testBlockMatches() {
+        var filter = new MvRowFilter(null, null);
+        filter.addBlock(1, 2, List.of(tuple(1L, "a"), tuple(2L, null), tuple(1L, "a")));
+        var block = filter.getBlocks().get(0);
+        Assertions.assertEquals(2, block.size());
+        Assertions.assertFalse(filter.isEmpty());
+
+        Assertions.assertTrue(filter.matches(new Comparable<?>[]{0, 1L, "a", "x"}));
+        Assertions.assertTrue(filter.matches(new Comparable<?>[]{0, 2L, null, "x"}));
+        Assertions.assertFalse(filter.matches(new Comparable<?>[]{0, 1L, "b", "x"}));
+        Assertions.assertFalse(filter.matches(new Comparable<?>[]{0, 2L, "a", "x"}));
+        Assertions.assertFalse(filter.matches(new Comparable<?>[]{0, null, null, "x"}));
+        // the columns outside of the block are not checked
+        Assertions.assertTrue(filter.matches(new Comparable<?>[]{null, 1L, "a", null}));
+
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> block.add(new Comparable<?>[]{1L}));
+    }
+
+    @Test
+    public void testBlockGrowth() {
+        var tuples = new ArrayList<MvTuple>();
+        for (long i = 0; i < 10000; i += 2) {
+            tuples.add(tuple(i, (int) (i % 7)));
+        }
+        var filter = new MvRowFilter(null, null);
+        filter.addBlock(0, 2, tuples);
+        Assertions.assertEquals(5000, filter.getBlocks().get(0).size());
+        Assertions.assertEquals(5000, filter.getBlocks().get(0).getTuples().size());
+        for (long i = 0; i < 10000; ++i) {
+            var row = new Comparable<?>[]{i, (int) (i % 7)};
+            Assertions.assertEquals(i % 2 == 0, filter.matches(row), "row " + i);
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        var filter = new MvRowFilter(null, null);
+        Assertions.assertTrue(filter.isEmpty());
+        filter.addBlock(0, 1, List.of());
+        Assertions.assertTrue(filter.isEmpty());
+        Assertions.assertFalse(filter.matches(new Comparable<?>[]{1L}));
+    }
+
+}
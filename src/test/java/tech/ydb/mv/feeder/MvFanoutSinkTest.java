@@ -0,0 +1,169 @@
+package tech.ydb.mv.feeder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.table.values.PrimitiveType;
+
+import tech.ydb.mv.data.MvChangeRecord;
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.data.YdbStruct;
+import tech.ydb.mv.model.MvInput;
+import tech.ydb.mv.model.MvSqlPos;
+import tech.ydb.mv.model.MvTableInfo;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvFanoutSinkTest {
+
+    @Test
+    public void testSameChangefeed() {
+        var sink1 = new TestSink(makeInput("cf1", "id"));
+        var sink2 = new TestSink(makeInput("cf1", "id"));
+        var fanout = new MvFanoutSink(List.of(sink1, sink2));
+        Assertions.assertEquals(1, fanout.getInputs().size());
+
+        var input = fanout.getInputs().iterator().next();
+        var handler = new TestHandler(3);
+        Assertions.assertTrue(fanout.submit(makeRecords(input, 3), handler));
+        Assertions.assertEquals(6, handler.getCounter());
+        Assertions.assertEquals(3, sink1.received.size());
+        Assertions.assertEquals(3, sink2.received.size());
+        // each sink gets the keys bound to its own table description
+        for (var cr : sink2.received) {
+            Assertions.assertSame(sink2.input.getTableInfo(), cr.getKey().getTableInfo());
+        }
+        Assertions.assertEquals(2, sink2.received.get(1).getKey().getValue("id"));
+
+        sink1.commitAll(handler);
+        Assertions.assertEquals(3, handler.getCounter());
+        sink2.commitAll(handler);
+        Assertions.assertEquals(0, handler.getCounter());
+    }
+
+    @Test
+    public void testDifferentChangefeeds() {
+        var sink1 = new TestSink(makeInput("cf1", "id"));
+        var sink2 = new TestSink(makeInput("cf2", "id"));
+        var fanout = new MvFanoutSink(List.of(sink1, sink2));
+        Assertions.assertEquals(2, fanout.getInputs().size());
+
+        var handler = new TestHandler(2);
+        Assertions.assertTrue(fanout.submit(makeRecords(sink2.input, 2), handler));
+        Assertions.assertEquals(2, handler.getCounter());
+        Assertions.assertEquals(0, sink1.received.size());
+        Assertions.assertEquals(2, sink2.received.size());
+    }
+
+    @Test
+    public void testPartialDelivery() {
+        var sink1 = new TestSink(makeInput("cf1", "id"));
+        var sink2 = new TestSink(makeInput("cf1", "id"));
+        sink2.refuse = true;
+        var fanout = new MvFanoutSink(List.of(sink1, sink2));
+
+        var input = fanout.getInputs().iterator().next();
+        var records = makeRecords(input, 4);
+        var handler = new TestHandler(4);
+        Assertions.assertFalse(fanout.submit(records, handler));
+        Assertions.assertEquals(4, sink1.received.size());
+        Assertions.assertEquals(0, sink2.received.size());
+
+        // the refused records stay uncommitted, to be read again on restart
+        sink1.commitAll(handler);
+        Assertions.assertEquals(4, handler.getCounter());
+    }
+
+    @Test
+    public void testKeyMismatch() {
+        var sink1 = new TestSink(makeInput("cf1", "id"));
+        var sink2 = new TestSink(makeInput("cf1", "c1"));
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new MvFanoutSink(List.of(sink1, sink2)));
+    }
+
+    private static MvInput makeInput(String changefeed, String key) {
+        var ti = MvTableInfo.newBuilder("main_table")
+                .addColumn("id", PrimitiveType.Int32)
+                .addColumn("c1", PrimitiveType.Int32)
+                .addKey(key)
+                .build();
+        var mi = new MvInput("main_table", changefeed, MvSqlPos.EMPTY);
+        mi.setTableInfo(ti);
+        return mi;
+    }
+
+    private static List<MvChangeRecord> makeRecords(MvInput input, int count) {
+        var output = new ArrayList<MvChangeRecord>(count);
+        for (int i = 1; i <= count; ++i) {
+            var key = new MvKey(new YdbStruct().add("id", i), input.getTableInfo());
+            output.add(new MvChangeRecord(key, null));
+        }
+        return output;
+    }
+
+    private static class TestSink implements MvSink {
+
+        final MvInput input;
+        final ArrayList<MvChangeRecord> received = new ArrayList<>();
+        boolean refuse = false;
+
+        TestSink(MvInput input) {
+            this.input = input;
+        }
+
+        @Override
+        public Collection<MvInput> getInputs() {
+            return List.of(input);
+        }
+
+        @Override
+        public boolean submit(Collection<MvChangeRecord> records, MvCommitHandler handler) {
+            if (refuse) {
+                return false;
+            }
+            received.addAll(records);
+            return true;
+        }
+
+        void commitAll(MvCommitHandler handler) {
+            handler.commit(received.size());
+        }
+    }
+
+    private static class TestHandler implements MvCommitHandler {
+
+        private int counter;
+
+        TestHandler(int counter) {
+            this.counter = counter;
+        }
+
+        @Override
+        public long getInstance() {
+            return 1L;
+        }
+
+        @Override
+        public int getCounter() {
+            return counter;
+        }
+
+        @Override
+        public void commit(int count) {
+            counter -= count;
+        }
+
+        @Override
+        public void reserve(int count) {
+            counter += count;
+        }
+    }
+
+}
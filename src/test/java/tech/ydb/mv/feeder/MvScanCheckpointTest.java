@@ -0,0 +1,166 @@
+package tech.ydb.mv.feeder;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.table.values.PrimitiveType;
+
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.data.YdbStruct;
+import tech.ydb.mv.model.MvTableInfo;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvScanCheckpointTest {
+
+    private static final MvTableInfo TI = MvTableInfo.newBuilder("table1")
+            .addColumn("id", PrimitiveType.Int32)
+            .addKey("id")
+            .build();
+
+    private static MvKey KEY(int v) {
+        return new MvKey(new YdbStruct().add("id", v), TI);
+    }
+
+    @Test
+    public void testCoalescing() {
+        var tasks = new ArrayList<Runnable>();
+        var written = new ArrayList<MvKey>();
+        var cp = new MvScanCheckpoint(3, Long.MAX_VALUE, r -> tasks.add(r),
+                key -> written.add(key), () -> true);
+
+        cp.add(KEY(1));
+        cp.add(KEY(2));
+        Assertions.assertTrue(tasks.isEmpty());
+        cp.add(KEY(3));
+        Assertions.assertEquals(1, tasks.size());
+        Assertions.assertTrue(cp.isScheduled());
+        // no second task while the first one is pending
+        cp.add(KEY(4));
+        cp.add(KEY(5));
+        cp.add(KEY(6));
+        Assertions.assertEquals(1, tasks.size());
+
+        // only the newest position is written
+        tasks.remove(0).run();
+        Assertions.assertEquals(1, written.size());
+        Assertions.assertEquals(KEY(6), written.get(0));
+        Assertions.assertNull(cp.getPendingKey());
+        Assertions.assertFalse(cp.isScheduled());
+
+        // nothing to write on the explicit checkpoint
+        cp.run();
+        Assertions.assertEquals(1, written.size());
+    }
+
+    @Test
+    public void testTimeLimit() {
+        var tasks = new ArrayList<Runnable>();
+        var cp = new MvScanCheckpoint(Integer.MAX_VALUE, 0L, r -> tasks.add(r),
+                key -> true, () -> true);
+        cp.add(KEY(1));
+        Assertions.assertEquals(1, tasks.size());
+    }
+
+    @Test
+    public void testFailedWrite() {
+        var tasks = new ArrayList<Runnable>();
+        var written = new ArrayList<MvKey>();
+        boolean[] fail = {true};
+        var cp = new MvScanCheckpoint(1, Long.MAX_VALUE, r -> tasks.add(r),
+                key -> fail[0] ? false : written.add(key), () -> true);
+
+        cp.add(KEY(1));
+        tasks.remove(0).run();
+        Assertions.assertTrue(written.isEmpty());
+        // the failed position is kept for the retry
+        Assertions.assertEquals(KEY(1), cp.getPendingKey());
+
+        fail[0] = false;
+        cp.run();
+        Assertions.assertEquals(1, written.size());
+        Assertions.assertEquals(KEY(1), written.get(0));
+    }
+
+    @Test
+    public void testFinishAndStop() {
+        var tasks = new ArrayList<Runnable>();
+        var written = new ArrayList<MvKey>();
+        boolean[] running = {true};
+        var cp = new MvScanCheckpoint(1, Long.MAX_VALUE, r -> tasks.add(r),
+                key -> written.add(key), () -> running[0]);
+
+        // no writes for the stopped scan
+        running[0] = false;
+        cp.add(KEY(1));
+        tasks.remove(0).run();
+        Assertions.assertTrue(written.isEmpty());
+
+        // no writes after the scan state removal
+        running[0] = true;
+        cp.add(KEY(2));
+        cp.finish();
+        Assertions.assertNull(cp.getPendingKey());
+        tasks.remove(0).run();
+        cp.add(KEY(3));
+        cp.run();
+        Assertions.assertTrue(written.isEmpty());
+    }
+
+    @Test
+    public void testPeriodicFlush() throws Exception {
+        var tasks = new ArrayList<Runnable>();
+        boolean[] running = {true};
+        var cp = new MvScanCheckpoint(Integer.MAX_VALUE, 50L, r -> tasks.add(r),
+                key -> true, () -> running[0]);
+        // nothing pending
+        Thread.sleep(60L);
+        cp.tick();
+        Assertions.assertTrue(tasks.isEmpty());
+        // the pending position is flushed with no further pages
+        cp.run();
+        cp.add(KEY(1));
+        Assertions.assertTrue(tasks.isEmpty());
+        cp.tick();
+        Assertions.assertTrue(tasks.isEmpty());
+        Thread.sleep(60L);
+        cp.tick();
+        Assertions.assertEquals(1, tasks.size());
+        tasks.remove(0).run();
+        Assertions.assertNull(cp.getPendingKey());
+
+        // the timer is stopped with the scan
+        var timer = Executors.newSingleThreadScheduledExecutor();
+        try {
+            cp.startTimer(timer);
+            running[0] = false;
+            cp.add(KEY(2));
+            Thread.sleep(200L);
+            Assertions.assertEquals(1, tasks.size());
+        } finally {
+            timer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRejectedSchedule() {
+        var written = new ArrayList<MvKey>();
+        var cp = new MvScanCheckpoint(1, Long.MAX_VALUE,
+                r -> {
+                    throw new RejectedExecutionException();
+                },
+                key -> written.add(key), () -> true);
+        cp.add(KEY(1));
+        Assertions.assertFalse(cp.isScheduled());
+        // the position is still written on the explicit checkpoint
+        cp.run();
+        Assertions.assertEquals(1, written.size());
+    }
+
+}
@@ -0,0 +1,75 @@
+package tech.ydb.mv.feeder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.mv.metrics.MvMetrics;
+import tech.ydb.mv.model.MvScanSettings;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvScanGovernorTest {
+
+    private static MvScanGovernor makeGovernor() {
+        var settings = new MvScanSettings();
+        settings.setRowsPerSecondLimit(10000);
+        settings.setPageLatencyMillis(500);
+        settings.setThrottleLagSeconds(30);
+        settings.setThrottleQueuePercent(80);
+        return new MvScanGovernor(null, settings,
+                new MvMetrics.ScanScope("handler1", "target1", "default"));
+    }
+
+    @Test
+    public void testPageSize() {
+        var g = makeGovernor();
+        Assertions.assertEquals(MvScanGovernor.INITIAL_PAGE, g.getPageSize());
+        // fast full page - grow, but at most twice
+        g.onPage(1000, 50L);
+        Assertions.assertEquals(2000, g.getPageSize());
+        // fast partial page - no change
+        g.onPage(10, 10L);
+        Assertions.assertEquals(2000, g.getPageSize());
+        // slow page - shrink, but at most twice
+        g.onPage(2000, 5000L);
+        Assertions.assertEquals(1000, g.getPageSize());
+        g.onPage(1000, 625L);
+        Assertions.assertEquals(800, g.getPageSize());
+        for (int i = 0; i < 20; ++i) {
+            g.onPage(g.getPageSize(), 10000L);
+        }
+        Assertions.assertEquals(MvScanGovernor.MIN_PAGE, g.getPageSize());
+        for (int i = 0; i < 20; ++i) {
+            g.onPage(g.getPageSize(), 1L);
+        }
+        Assertions.assertEquals(MvScanGovernor.MAX_PAGE, g.getPageSize());
+    }
+
+    @Test
+    public void testRate() {
+        var g = makeGovernor();
+        long now = 100000L;
+        g.evaluate(now, 0L, 0);
+        Assertions.assertEquals(10000, g.getRate());
+        // multiplicative decrease on the CDC lag
+        g.evaluate(now += 1000L, 31000L, 0);
+        Assertions.assertEquals(5000, g.getRate());
+        // ... and on the queue fill
+        g.evaluate(now += 1000L, 0L, 90);
+        Assertions.assertEquals(2500, g.getRate());
+        for (int i = 0; i < 20; ++i) {
+            g.evaluate(now += 1000L, 0L, 100);
+        }
+        Assertions.assertEquals(100, g.getRate());
+        // additive increase
+        g.evaluate(now += 1000L, 1000L, 10);
+        Assertions.assertEquals(600, g.getRate());
+        for (int i = 0; i < 30; ++i) {
+            g.evaluate(now += 1000L, 0L, 0);
+        }
+        Assertions.assertEquals(10000, g.getRate());
+    }
+
+}
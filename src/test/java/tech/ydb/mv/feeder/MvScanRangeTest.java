@@ -0,0 +1,167 @@
+package tech.ydb.mv.feeder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.table.values.PrimitiveType;
+
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.data.MvKeyPrefix;
+import tech.ydb.mv.data.YdbStruct;
+import tech.ydb.mv.model.MvKeyInfo;
+import tech.ydb.mv.model.MvTableInfo;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvScanRangeTest {
+
+    private static YdbStruct YS() {
+        return new YdbStruct();
+    }
+
+    private static MvKeyPrefix KP(YdbStruct ys, MvKeyInfo keyInfo) {
+        return new MvKeyPrefix(ys, keyInfo);
+    }
+
+    @Test
+    public void testSplitAll() {
+        MvKeyInfo keyInfo = makeTableInfo().getKeyInfo();
+        MvKeyPrefix[] bounds = makeBounds(keyInfo);
+
+        var ranges = MvScanRange.split(bounds, 100);
+        Assertions.assertEquals(bounds.length + 1, ranges.size());
+        Assertions.assertNull(ranges.get(0).getLower());
+        Assertions.assertEquals(bounds[0], ranges.get(0).getUpper());
+        for (int i = 1; i < bounds.length; ++i) {
+            Assertions.assertEquals(i, ranges.get(i).getIndex());
+            Assertions.assertEquals(bounds[i - 1], ranges.get(i).getLower());
+            Assertions.assertEquals(bounds[i], ranges.get(i).getUpper());
+        }
+        Assertions.assertEquals(bounds[bounds.length - 1], ranges.get(bounds.length).getLower());
+        Assertions.assertNull(ranges.get(bounds.length).getUpper());
+    }
+
+    @Test
+    public void testSplitGrouped() {
+        MvKeyInfo keyInfo = makeTableInfo().getKeyInfo();
+        MvKeyPrefix[] bounds = makeBounds(keyInfo);
+
+        // 7 partitions into 3 ranges
+        var ranges = MvScanRange.split(bounds, 3);
+        Assertions.assertEquals(3, ranges.size());
+        Assertions.assertNull(ranges.get(0).getLower());
+        Assertions.assertEquals(bounds[1], ranges.get(0).getUpper());
+        Assertions.assertEquals(bounds[1], ranges.get(1).getLower());
+        Assertions.assertEquals(bounds[3], ranges.get(1).getUpper());
+        Assertions.assertEquals(bounds[3], ranges.get(2).getLower());
+        Assertions.assertNull(ranges.get(2).getUpper());
+
+        ranges = MvScanRange.split(bounds, 1);
+        Assertions.assertEquals(1, ranges.size());
+        Assertions.assertNull(ranges.get(0).getLower());
+        Assertions.assertNull(ranges.get(0).getUpper());
+
+        ranges = MvScanRange.split(new MvKeyPrefix[0], 8);
+        Assertions.assertEquals(1, ranges.size());
+    }
+
+    @Test
+    public void testSplitKeyRange() {
+        MvKeyInfo keyInfo = makeTableInfo().getKeyInfo();
+        MvKeyPrefix[] bounds = makeBounds(keyInfo);
+        var keyFrom = new MvKey(YS().add("key1", 150).add("key2", 1L), keyInfo);
+        var keyTo = new MvKey(YS().add("key1", 300).add("key2", 1500L), keyInfo);
+
+        var ranges = MvScanRange.split(bounds, 100, keyFrom, keyTo);
+        Assertions.assertEquals(3, ranges.size());
+        Assertions.assertEquals(keyFrom, ranges.get(0).getLower());
+        Assertions.assertEquals(bounds[1], ranges.get(0).getUpper());
+        Assertions.assertEquals(bounds[1], ranges.get(1).getLower());
+        Assertions.assertEquals(bounds[2], ranges.get(1).getUpper());
+        Assertions.assertEquals(bounds[2], ranges.get(2).getLower());
+        // the partition boundary following the last key
+        Assertions.assertEquals(bounds[3], ranges.get(2).getUpper());
+
+        ranges = MvScanRange.split(bounds, 1, keyFrom, keyTo);
+        Assertions.assertEquals(1, ranges.size());
+        Assertions.assertEquals(keyFrom, ranges.get(0).getLower());
+        Assertions.assertEquals(bounds[3], ranges.get(0).getUpper());
+
+        // the last key on the boundary belongs to the next partition
+        keyTo = new MvKey(YS().add("key1", 300).add("key2", 2000L), keyInfo);
+        ranges = MvScanRange.split(bounds, 1, keyFrom, keyTo);
+        Assertions.assertEquals(bounds[4], ranges.get(0).getUpper());
+
+        // the keys past the last boundary
+        keyFrom = new MvKey(YS().add("key1", 600).add("key2", 1L), keyInfo);
+        keyTo = new MvKey(YS().add("key1", 700).add("key2", 1L), keyInfo);
+        ranges = MvScanRange.split(bounds, 100, keyFrom, keyTo);
+        Assertions.assertEquals(1, ranges.size());
+        Assertions.assertEquals(keyFrom, ranges.get(0).getLower());
+        Assertions.assertNull(ranges.get(0).getUpper());
+    }
+
+    @Test
+    public void testJson() {
+        MvKeyInfo keyInfo = makeTableInfo().getKeyInfo();
+        var range = new MvScanRange(2,
+                KP(YS().add("key1", 100), keyInfo),
+                KP(YS().add("key1", 200).add("key2", 5L), keyInfo));
+        Assertions.assertEquals("table1#2", range.getName("table1"));
+        Assertions.assertEquals(2, MvScanRange.parseIndex(range.getName("table1")));
+        Assertions.assertEquals(-1, MvScanRange.parseIndex("table1"));
+
+        String json = range.toJson(null);
+        var copy = MvScanRange.fromJson(2, json, keyInfo);
+        Assertions.assertEquals(range.getLower(), copy.getLower());
+        Assertions.assertEquals(range.getUpper(), copy.getUpper());
+        Assertions.assertEquals(1, copy.getLowerLength());
+        Assertions.assertEquals(2, copy.getUpperLength());
+        Assertions.assertNull(MvScanRange.parsePosition(json, keyInfo));
+
+        var position = new MvKey(YS().add("key1", 150).add("key2", 7L), keyInfo);
+        json = range.toJson(position);
+        Assertions.assertEquals(position, MvScanRange.parsePosition(json, keyInfo));
+
+        copy = MvScanRange.fromJson(0, new MvScanRange(0, null, null).toJson(null), keyInfo);
+        Assertions.assertNull(copy.getLower());
+        Assertions.assertNull(copy.getUpper());
+    }
+
+    @Test
+    public void testRateLimiter() {
+        var limiter = new MvScanRateLimiter(1000);
+        long now = 100000L;
+        // the first second is credited
+        Assertions.assertEquals(0L, limiter.reserve(500, now));
+        Assertions.assertEquals(0L, limiter.reserve(500, now));
+        Assertions.assertEquals(500L, limiter.reserve(500, now));
+        // concurrent readers share the same limit
+        Assertions.assertEquals(1000L, limiter.reserve(500, now));
+        Assertions.assertEquals(500L, limiter.reserve(500, now + 1000L));
+
+        Assertions.assertEquals(0L, new MvScanRateLimiter(0).reserve(500, now));
+    }
+
+    private static MvKeyPrefix[] makeBounds(MvKeyInfo keyInfo) {
+        return new MvKeyPrefix[]{
+            KP(YS().add("key1", 100), keyInfo),
+            KP(YS().add("key1", 200), keyInfo),
+            KP(YS().add("key1", 300).add("key2", 1000L), keyInfo),
+            KP(YS().add("key1", 300).add("key2", 2000L), keyInfo),
+            KP(YS().add("key1", 400), keyInfo),
+            KP(YS().add("key1", 500), keyInfo),};
+    }
+
+    private static MvTableInfo makeTableInfo() {
+        return MvTableInfo.newBuilder("table1")
+                .addColumn("key1", PrimitiveType.Int32)
+                .addColumn("key2", PrimitiveType.Int64)
+                .addKey("key1")
+                .addKey("key2")
+                .build();
+    }
+
+}
@@ -0,0 +1,60 @@
+package tech.ydb.mv.feeder;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.table.values.PrimitiveType;
+
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.data.YdbStruct;
+import tech.ydb.mv.model.MvTableInfo;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvScanRiderTest {
+
+    private static MvKey KEY(MvTableInfo ti, int v1, long v2) {
+        return new MvKey(new YdbStruct().add("key1", v1).add("key2", v2), ti);
+    }
+
+    @Test
+    public void testJoinAtStart() {
+        MvTableInfo ti = makeTableInfo();
+        var rider = new MvScanRider(null, null, null, null, null);
+        Assertions.assertNull(rider.getJoinKey());
+        Assertions.assertFalse(rider.isWrapped());
+        // no wrap-around lap for the rider which joined at the start
+        Assertions.assertFalse(rider.wrap());
+        Assertions.assertFalse(rider.isWrapped());
+
+        rider = new MvScanRider(null, null, null, null,
+                new MvKey(new YdbStruct(), ti));
+        Assertions.assertNull(rider.getJoinKey());
+        Assertions.assertFalse(rider.wrap());
+    }
+
+    @Test
+    public void testJoinInMiddle() {
+        MvTableInfo ti = makeTableInfo();
+        var rider = new MvScanRider(null, null, null, null, KEY(ti, 5, 50L));
+        Assertions.assertTrue(rider.wrap());
+        Assertions.assertTrue(rider.isWrapped());
+        Assertions.assertTrue(rider.isBeforeJoin(KEY(ti, 1, 100L)));
+        Assertions.assertTrue(rider.isBeforeJoin(KEY(ti, 5, 49L)));
+        Assertions.assertTrue(rider.isBeforeJoin(KEY(ti, 5, 50L)));
+        Assertions.assertFalse(rider.isBeforeJoin(KEY(ti, 5, 51L)));
+        Assertions.assertFalse(rider.isBeforeJoin(KEY(ti, 6, 0L)));
+    }
+
+    private static MvTableInfo makeTableInfo() {
+        return MvTableInfo.newBuilder("table1")
+                .addColumn("key1", PrimitiveType.Int32)
+                .addColumn("key2", PrimitiveType.Int64)
+                .addKey("key1")
+                .addKey("key2")
+                .build();
+    }
+
+}
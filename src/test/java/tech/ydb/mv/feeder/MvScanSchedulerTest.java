@@ -0,0 +1,70 @@
+package tech.ydb.mv.feeder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.mv.metrics.MvMetrics;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvScanSchedulerTest {
+
+    private static MvMetrics.ScanScope scope(String target) {
+        return new MvMetrics.ScanScope("handler1", target, "default");
+    }
+
+    @Test
+    public void testRateShare() {
+        var sched = new MvScanScheduler(9000, 0);
+        var t1 = sched.register(scope("target1"), 1);
+        var t2 = sched.register(scope("target2"), 2);
+        // the scan alone gets the whole budget
+        Assertions.assertEquals(9000, t1.getRateShare());
+        Assertions.assertTrue(sched.acquire(t1, () -> true));
+        Assertions.assertTrue(sched.acquire(t2, () -> true));
+        Assertions.assertEquals(3000, t1.getRateShare());
+        Assertions.assertEquals(6000, t2.getRateShare());
+        sched.release(t2);
+        Assertions.assertEquals(9000, t1.getRateShare());
+        sched.unregister(t1);
+        sched.unregister(t2);
+
+        Assertions.assertEquals(0, new MvScanScheduler(0, 0)
+                .register(scope("target3"), 1).getRateShare());
+    }
+
+    @Test
+    public void testQueueing() {
+        var sched = new MvScanScheduler(0, 2);
+        var t1 = sched.register(scope("target1"), 1);
+        var t2 = sched.register(scope("target2"), 1);
+        Assertions.assertTrue(sched.acquire(t1, () -> true));
+        Assertions.assertTrue(sched.acquire(t1, () -> true));
+        Assertions.assertEquals(1, sched.getScans().size());
+        Assertions.assertEquals(MvScanScheduler.State.RUNNING,
+                sched.getScans().get(0).state());
+
+        // the budget is exhausted, so the request waits until cancelled
+        var checks = new AtomicInteger();
+        Assertions.assertFalse(sched.acquire(t2, () -> checks.incrementAndGet() < 3));
+        Assertions.assertEquals(3, checks.get());
+
+        // the freed slot goes to the waiting scan with less slots
+        sched.release(t1);
+        Assertions.assertTrue(sched.acquire(t2, () -> true));
+        var scans = sched.getScans();
+        Assertions.assertEquals(2, scans.size());
+        for (var s : scans) {
+            Assertions.assertEquals(1, s.running());
+            Assertions.assertEquals(0, s.waiting());
+        }
+        sched.release(t1);
+        sched.release(t2);
+        Assertions.assertTrue(sched.getScans().isEmpty());
+    }
+
+}
@@ -0,0 +1,81 @@
+package tech.ydb.mv.model;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvShardTest {
+
+    @Test
+    public void checkNames() {
+        Assertions.assertEquals("h1#2", MvShard.toJobName("h1", 2));
+        Assertions.assertEquals("h1", MvShard.toHandlerName("h1#2"));
+        Assertions.assertEquals(2, MvShard.toIndex("h1#2"));
+        Assertions.assertEquals("h1", MvShard.toHandlerName("h1"));
+        Assertions.assertEquals(-1, MvShard.toIndex("h1"));
+        Assertions.assertEquals("h1#x", MvShard.toHandlerName("h1#x"));
+        Assertions.assertEquals(-1, MvShard.toIndex("h1#x"));
+        Assertions.assertEquals(-1, MvShard.toIndex("h1#"));
+        Assertions.assertEquals(-1, MvShard.toIndex("#1"));
+        Assertions.assertEquals(-1, MvShard.toIndex("h1#1234567"));
+        Assertions.assertEquals("a#b", MvShard.toHandlerName("a#b#10"));
+        Assertions.assertEquals(10, MvShard.toIndex("a#b#10"));
+
+        Assertions.assertEquals("h1", new MvShard("h1", 0, 1).getJobName());
+        Assertions.assertEquals("h1#0", new MvShard("h1", 0, 3).getJobName());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new MvShard("h1", 3, 3));
+    }
+
+    @Test
+    public void checkFromJobName() {
+        var shard = MvShard.fromJobName("h1#2", 3);
+        Assertions.assertEquals("h1", shard.getHandlerName());
+        Assertions.assertEquals(2, shard.getIndex());
+        Assertions.assertEquals(3, shard.getCount());
+        // handler names ending with the digits are not shards
+        shard = MvShard.fromJobName("h1#2", 1);
+        Assertions.assertEquals("h1#2", shard.getHandlerName());
+        Assertions.assertFalse(shard.isSharded());
+        shard = MvShard.fromJobName("h1#2#0", 2);
+        Assertions.assertEquals("h1#2", shard.getHandlerName());
+        Assertions.assertEquals(0, shard.getIndex());
+        // whole handler started explicitly
+        shard = MvShard.fromJobName("h1", 3);
+        Assertions.assertEquals("h1", shard.getHandlerName());
+        Assertions.assertFalse(shard.isSharded());
+        // stale shard after the shard count has been lowered
+        Assertions.assertNull(MvShard.fromJobName("h1#3", 3));
+    }
+
+    @Test
+    public void checkOwnership() {
+        var shards = new MvShard[4];
+        for (int i = 0; i < shards.length; ++i) {
+            shards[i] = new MvShard("h1", i, shards.length);
+        }
+        int[] counts = new int[shards.length];
+        for (int key = 0; key < 40000; ++key) {
+            int owners = 0;
+            for (var shard : shards) {
+                if (shard.owns(Integer.hashCode(key))) {
+                    owners += 1;
+                    counts[shard.getIndex()] += 1;
+                }
+            }
+            Assertions.assertEquals(1, owners);
+        }
+        // sequential keys should be spread evenly
+        for (int c : counts) {
+            Assertions.assertTrue(c > 9000 && c < 11000, "Unbalanced: " + c);
+        }
+        // single shard owns everything
+        var single = new MvShard("h1", 0, 1);
+        Assertions.assertTrue(single.owns(12345));
+        Assertions.assertTrue(single.owns(-1));
+    }
+
+}
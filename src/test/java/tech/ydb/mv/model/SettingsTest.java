@@ -18,6 +18,16 @@ public class SettingsTest {
         src.setRowsPerSecondLimit(600);
         src.setCdcReaderThreads(51);
         src.setUpsertBatchSize(123);
+        src.setWriteParallelism(7);
+        src.setWriteLingerMillis(25);
+        src.setScanParallelism(3);
+        src.setMaxChangedKeys(1000);
+        src.setTargetedMaxLookups(500);
+        src.setCompactSeconds(600);
+        src.setKeyedLog(true);
+        src.setContinuousSeconds(30);
+        src.setContinuousMaxCost(2000);
+        src.setOffPeakHours("1-5");
 
         String temp = MvConfig.GSON.toJson(src);
 
@@ -26,6 +36,27 @@ public class SettingsTest {
         Assertions.assertEquals(src, dst);
     }
 
+    @Test
+    public void checkOffPeakHours() {
+        var src = new MvDictionarySettings();
+        Assertions.assertFalse(src.isOffPeakHour(3));
+
+        src.setOffPeakHours("1-5");
+        Assertions.assertFalse(src.isOffPeakHour(0));
+        Assertions.assertTrue(src.isOffPeakHour(1));
+        Assertions.assertTrue(src.isOffPeakHour(4));
+        Assertions.assertFalse(src.isOffPeakHour(5));
+
+        src.setOffPeakHours("22-3");
+        Assertions.assertTrue(src.isOffPeakHour(23));
+        Assertions.assertTrue(src.isOffPeakHour(0));
+        Assertions.assertFalse(src.isOffPeakHour(3));
+        Assertions.assertFalse(src.isOffPeakHour(12));
+
+        src.setOffPeakHours("night");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> src.isOffPeakHour(1));
+    }
+
     @Test
     public void checkHandlerSettings() {
         var src = new MvHandlerSettings();
@@ -37,6 +68,10 @@ public class SettingsTest {
         src.setDictionaryScanSeconds(512);
         src.setSelectBatchSize(789);
         src.setUpsertBatchSize(333);
+        src.setShardCount(3);
+        src.setStormRowsPerSecond(50000);
+        src.setStormSeconds(15);
+        src.setKeyFilterRows(100000);
 
         String temp = MvConfig.GSON.toJson(src);
 
@@ -51,6 +86,15 @@ public class SettingsTest {
         System.out.println("scanSettings: " + MvConfig.GSON.toJson(src));
 
         src.setRowsPerSecondLimit(500);
+        src.setParallelism(4);
+        src.setStreaming(true);
+        src.setPageLatencyMillis(200);
+        src.setThrottleLagSeconds(10);
+        src.setThrottleQueuePercent(50);
+        src.setWeight(3);
+        src.setRebuild(true);
+        src.setReconcile(true);
+        src.setShadow(true);
 
         String temp = MvConfig.GSON.toJson(src);
 
@@ -8,6 +8,7 @@ import tech.ydb.mv.support.MvIssuePrinter;
 import tech.ydb.mv.model.MvMetadata;
 import tech.ydb.mv.model.MvJoinCondition;
 import tech.ydb.mv.model.MvJoinMode;
+import tech.ydb.mv.model.MvPredicate;
 import tech.ydb.mv.model.MvTableInfo;
 
 /**
@@ -343,6 +344,57 @@ public class BasicParserTest {
         Assertions.assertTrue(input4.isBatchMode());
     }
 
+    @Test
+    public void parserNativeFilterTest() {
+        MvMetadata mc = new MvSqlParser(SqlConstants.SQL_NATIVE1).fill();
+        if (PRINT_SQL) {
+            new MvIssuePrinter(mc).write(System.out);
+        }
+        Assertions.assertTrue(mc.isValid());
+        Assertions.assertEquals(0, mc.getErrors().size());
+
+        var target0 = mc.getViews().get("m2").getParts().values().iterator().next();
+        var filter = target0.getFilter();
+        Assertions.assertNotNull(filter);
+        Assertions.assertNotNull(filter.getPredicate());
+        Assertions.assertEquals(MvPredicate.Kind.AND, filter.getPredicate().getKind());
+        Assertions.assertEquals(4, filter.getPredicate().getChildren().size());
+        Assertions.assertEquals("main.`c6` >= -7"
+                + " AND (main.`c7` IS NOT NULL OR main.`c8` IN ('a', 'b'u))"
+                + " AND main.`c9` NOT IN (1, 2) AND main.`c10` != 'x'",
+                filter.getExpression());
+        Assertions.assertEquals(5, filter.getSources().size());
+        for (var src : filter.getSources()) {
+            Assertions.assertEquals("main", src.getAlias());
+            Assertions.assertNotNull(src.getReference());
+        }
+    }
+
+    @Test
+    public void parserSoftKeywordsTest() {
+        MvMetadata mc = new MvSqlParser(SqlConstants.SQL_SOFT_KEYWORDS).fill();
+        if (PRINT_SQL) {
+            new MvIssuePrinter(mc).write(System.out);
+        }
+        Assertions.assertTrue(mc.isValid());
+        Assertions.assertEquals(0, mc.getErrors().size());
+
+        var target0 = mc.getViews().get("m3").getParts().values().iterator().next();
+        Assertions.assertEquals("or", target0.getSources().get(0).getTableAlias());
+        Assertions.assertEquals("not", target0.getSources().get(1).getTableAlias());
+        Assertions.assertEquals(4, target0.getColumns().size());
+        Assertions.assertEquals("in", target0.getColumns().get(1).getName());
+        Assertions.assertEquals("in", target0.getColumns().get(1).getSourceColumn());
+        Assertions.assertEquals("null", target0.getColumns().get(2).getName());
+        Assertions.assertEquals("is", target0.getColumns().get(2).getSourceColumn());
+        Assertions.assertEquals("not", target0.getColumns().get(3).getSourceAlias());
+        var filter = target0.getFilter();
+        Assertions.assertNotNull(filter);
+        Assertions.assertNotNull(filter.getPredicate());
+        Assertions.assertEquals(MvPredicate.Kind.OR, filter.getPredicate().getKind());
+        Assertions.assertEquals(2, filter.getSources().size());
+    }
+
     @Test
     public void parserErrorTest1() {
         MvMetadata mc = new MvSqlParser(SqlConstants.SQL_BAD1).fill();
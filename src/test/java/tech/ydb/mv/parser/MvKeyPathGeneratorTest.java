@@ -225,6 +225,19 @@ public class MvKeyPathGeneratorTest {
         assertEquals(1, result.getColumns().size());
         assertEquals("id", result.getColumns().get(0).getName());
         assertEquals("a", result.getColumns().get(0).getSourceAlias());
+
+        // The paged lookup continues after the last key of the previous page
+        String first = new MvSqlGen(result).makeSelectPage(false);
+        String next = new MvSqlGen(result).makeSelectPage(true);
+        if (PRINT_SQL) {
+            System.out.println("*** C-B-A paged SQL: " + next);
+        }
+        assertTrue(first.contains("DECLARE $limit AS Uint64;"));
+        assertFalse(first.contains("$c1"));
+        assertTrue(first.contains("ORDER BY id"));
+        assertTrue(first.contains("LIMIT $limit;"));
+        assertTrue(next.contains("DECLARE $c1 AS "));
+        assertTrue(next.contains("WHERE (id) > ($c1)"));
     }
 
     @Test
@@ -69,6 +69,104 @@ public class SqlGenSelectUpsertTest {
         validateGeneratedSelectSql2(generatedSql, target);
     }
 
+    @Test
+    public void testMakeRebuildRange1() {
+        MvMetadata mc = new MvSqlParser(SqlConstants.SQL_GOOD1).fill();
+        Assertions.assertTrue(mc.isValid());
+
+        var view = mc.getViews().values().iterator().next();
+        var target = view.getParts().values().iterator().next();
+        addTableInfoToTarget(target);
+
+        MvSqlGen sqlGen = new MvSqlGen(target);
+        String sql = sqlGen.makeRebuildRange(true, true, 0, 0);
+
+        if (PRINT_SQL) {
+            System.out.println("Generated rebuild SQL:");
+            System.out.println(sql);
+        }
+
+        Assertions.assertTrue(sql.contains("DECLARE $c1 AS Int32;"));
+        Assertions.assertTrue(sql.contains("DECLARE $h1 AS Int32;"));
+        Assertions.assertTrue(sql.contains(MvSqlGen.SYS_ROWS_VAR + " = ("));
+        // the native filter is combined with the range condition
+        Assertions.assertTrue(sql.contains(") AND (main.id) > ($c1) AND (main.id) <= ($h1)"));
+        Assertions.assertTrue(sql.contains("DELETE FROM m1 ON"));
+        Assertions.assertTrue(sql.contains("LEFT ONLY JOIN " + MvSqlGen.SYS_ROWS_VAR
+                + " AS " + MvSqlGen.SYS_ROWS));
+        Assertions.assertTrue(sql.contains("ON sys_dst.id = sys_rows.id"));
+        Assertions.assertTrue(sql.contains("WHERE (sys_dst.id) > ($c1) AND (sys_dst.id) <= ($h1)"));
+        Assertions.assertTrue(sql.contains("UPSERT INTO m1"));
+
+        // the leftmost range of the parallel rebuild, without the position
+        sql = sqlGen.makeRebuildRange(false, false, 0, 1);
+        Assertions.assertFalse(sql.contains("$c1"));
+        Assertions.assertTrue(sql.contains("WHERE COALESCE((sys_dst.id) < ($u1), TRUE)"));
+    }
+
+    @Test
+    public void testMakeReconcile1() {
+        MvMetadata mc = new MvSqlParser(SqlConstants.SQL_GOOD1).fill();
+        Assertions.assertTrue(mc.isValid());
+
+        var view = mc.getViews().values().iterator().next();
+        var target = view.getParts().values().iterator().next();
+        addTableInfoToTarget(target);
+
+        MvSqlGen sqlGen = new MvSqlGen(target);
+        String sql = sqlGen.makeReconcileHash(true, true, 0, 0);
+
+        if (PRINT_SQL) {
+            System.out.println("Generated reconcile hash SQL:");
+            System.out.println(sql);
+        }
+
+        Assertions.assertTrue(sql.contains("DECLARE $c1 AS Int32;"));
+        Assertions.assertTrue(sql.contains("DECLARE $h1 AS Int32;"));
+        Assertions.assertTrue(sql.contains(") AND (main.id) > ($c1) AND (main.id) <= ($h1)"));
+        Assertions.assertTrue(sql.contains("Digest::CityHash("));
+        Assertions.assertTrue(sql.contains("FROM m1 AS sys_dst"));
+        Assertions.assertTrue(sql.contains("WHERE (sys_dst.id) > ($c1) AND (sys_dst.id) <= ($h1)"));
+        Assertions.assertTrue(sql.contains("BIT_XOR(sys_hash), 0ul) AS sys_hash FROM $sys_src;"));
+        Assertions.assertTrue(sql.contains("BIT_XOR(sys_hash), 0ul) AS sys_hash FROM $sys_dst;"));
+
+        sql = sqlGen.makeReconcileDiff(false, true, 0, 0);
+
+        if (PRINT_SQL) {
+            System.out.println("Generated reconcile diff SQL:");
+            System.out.println(sql);
+        }
+
+        Assertions.assertFalse(sql.contains("$c1"));
+        Assertions.assertTrue(sql.contains("COALESCE(sys_src.id, sys_dst.id) AS id, "
+                + "sys_src.sys_hash IS NULL AS " + MvSqlGen.SYS_GONE));
+        Assertions.assertTrue(sql.contains("FULL JOIN $sys_dst AS sys_dst"));
+        Assertions.assertTrue(sql.contains("ON sys_src.id = sys_dst.id"));
+        Assertions.assertTrue(sql.contains("WHERE sys_src.sys_hash IS DISTINCT FROM sys_dst.sys_hash"));
+    }
+
+    @Test
+    public void testShadowTableName() {
+        MvMetadata mc = new MvSqlParser(SqlConstants.SQL_GOOD1).fill();
+        Assertions.assertTrue(mc.isValid());
+
+        var view = mc.getViews().values().iterator().next();
+        var target = view.getParts().values().iterator().next();
+        addTableInfoToTarget(target);
+
+        MvSqlGen sqlGen = new MvSqlGen(target).setTableName("m1_shadow");
+        Assertions.assertEquals("m1_shadow", sqlGen.getTableName());
+        Assertions.assertTrue(sqlGen.makePlainUpsert().contains("UPSERT INTO m1_shadow"));
+        Assertions.assertTrue(sqlGen.makePlainDelete().contains("DELETE FROM m1_shadow"));
+        String sql = sqlGen.makeRebuildRange(true, true, 0, 0);
+        Assertions.assertTrue(sql.contains("DELETE FROM m1_shadow ON"));
+        Assertions.assertTrue(sql.contains("FROM m1_shadow AS sys_dst"));
+        Assertions.assertTrue(sql.contains("UPSERT INTO m1_shadow"));
+
+        sqlGen.setTableName(null);
+        Assertions.assertEquals("m1", sqlGen.getTableName());
+    }
+
     private void addTableInfoToTarget(tech.ydb.mv.model.MvViewExpr target) {
         target.getSources().get(0).setTableInfo(
                 SqlConstants.tiMainTable("main_table")
@@ -0,0 +1,65 @@
+package tech.ydb.mv.support;
+
+import java.util.HashMap;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.mv.model.MvSqlPos;
+import tech.ydb.mv.model.MvView;
+import tech.ydb.mv.model.MvViewExpr;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvScanDaoTest {
+
+    @Test
+    public void checkScanNames() {
+        var single = new MvViewExpr("m1");
+        Assertions.assertEquals("m1", MvScanDao.toScanName(single));
+        Assertions.assertEquals("m1#settings", MvScanDao.toSettingsName("m1"));
+
+        var view = new MvView("m2", null, MvSqlPos.EMPTY);
+        var part1 = new MvViewExpr(view, "p1");
+        var part2 = new MvViewExpr(view, "p2");
+        view.addPart(part1);
+        view.addPart(part2);
+        Assertions.assertEquals("m2@p1", MvScanDao.toScanName(part1));
+        Assertions.assertEquals("m2@p2", MvScanDao.toScanName(part2));
+        Assertions.assertEquals("m2@p1#settings",
+                MvScanDao.toSettingsName(MvScanDao.toScanName(part1)));
+    }
+
+    @Test
+    public void checkActiveScans() {
+        var single = new MvViewExpr("m1");
+        var view = new MvView("m2", null, MvSqlPos.EMPTY);
+        var part1 = new MvViewExpr(view, "p1");
+        var part2 = new MvViewExpr(view, "p2");
+        view.addPart(part1);
+        view.addPart(part2);
+
+        var active = new HashMap<String, String>();
+        Assertions.assertNull(MvScanDao.findActiveScan(active, single));
+        Assertions.assertNull(MvScanDao.findActiveScan(active, part1));
+
+        // each part is resumed with its own settings
+        active.put("m1", "{\"rowsPerSecondLimit\":1}");
+        active.put("m2@p2", "{\"rowsPerSecondLimit\":2}");
+        Assertions.assertEquals("{\"rowsPerSecondLimit\":1}",
+                MvScanDao.findActiveScan(active, single));
+        Assertions.assertNull(MvScanDao.findActiveScan(active, part1));
+        Assertions.assertEquals("{\"rowsPerSecondLimit\":2}",
+                MvScanDao.findActiveScan(active, part2));
+
+        // the settings saved for the whole view apply to all the parts
+        active.put("m2", "{\"rowsPerSecondLimit\":3}");
+        Assertions.assertEquals("{\"rowsPerSecondLimit\":3}",
+                MvScanDao.findActiveScan(active, part1));
+        Assertions.assertEquals("{\"rowsPerSecondLimit\":2}",
+                MvScanDao.findActiveScan(active, part2));
+    }
+
+}
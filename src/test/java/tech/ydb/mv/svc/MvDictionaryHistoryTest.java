@@ -0,0 +1,116 @@
+package tech.ydb.mv.svc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.table.values.PrimitiveType;
+
+import tech.ydb.mv.data.MvKey;
+import tech.ydb.mv.data.YdbStruct;
+import tech.ydb.mv.model.MvTableInfo;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvDictionaryHistoryTest {
+
+    private static final MvTableInfo TI = MvTableInfo.newBuilder("history")
+            .addColumn("id", PrimitiveType.Int32)
+            .addKey("id")
+            .build();
+
+    private static MvKey KEY(int v) {
+        return new MvKey(new YdbStruct().add("id", v), TI);
+    }
+
+    @Test
+    public void testSharedReads() {
+        var reader = new TestReader(10);
+        var history = new MvDictionaryHistory(5);
+
+        Assertions.assertEquals(List.of(1, 2, 3), ids(history.read("d1", null, 3, reader)));
+        Assertions.assertEquals(1, reader.calls);
+        // the other handler gets the same rows from memory
+        Assertions.assertEquals(List.of(1, 2, 3), ids(history.read("d1", null, 3, reader)));
+        Assertions.assertEquals(1, reader.calls);
+        // the rows past the end are read, and the oldest ones are trimmed
+        Assertions.assertEquals(List.of(4, 5, 6), ids(history.read("d1", KEY(3), 3, reader)));
+        Assertions.assertEquals(2, reader.calls);
+        // the handler behind the retained range reads from the database
+        Assertions.assertEquals(List.of(1, 2), ids(history.read("d1", null, 2, reader)));
+        Assertions.assertEquals(3, reader.calls);
+        // the position within the retained range is found in memory
+        Assertions.assertEquals(List.of(3, 4), ids(history.read("d1", KEY(2), 2, reader)));
+        Assertions.assertEquals(List.of(6), ids(history.read("d1", KEY(5), 1, reader)));
+        Assertions.assertEquals(3, reader.calls);
+        // the other dictionaries have their own ranges
+        Assertions.assertEquals(List.of(1), ids(history.read("d2", null, 1, reader)));
+        Assertions.assertEquals(4, reader.calls);
+    }
+
+    @Test
+    public void testResetAndInvalidate() {
+        var reader = new TestReader(10);
+        var history = new MvDictionaryHistory(5);
+
+        Assertions.assertEquals(List.of(1, 2, 3), ids(history.read("d1", null, 3, reader)));
+        // the position past the retained range restarts it
+        Assertions.assertEquals(List.of(9, 10), ids(history.read("d1", KEY(8), 5, reader)));
+        Assertions.assertEquals(2, reader.calls);
+        Assertions.assertEquals(List.of(10), ids(history.read("d1", KEY(9), 5, reader)));
+        Assertions.assertEquals(3, reader.calls);
+
+        // the rewritten history is read again
+        reader.rows.remove(9);
+        history.invalidate("d1");
+        Assertions.assertEquals(List.of(9), ids(history.read("d1", KEY(8), 5, reader)));
+        Assertions.assertEquals(4, reader.calls);
+        history.invalidate("unknown");
+
+        // no sharing with the zero limit
+        history.configure(0);
+        history.read("d1", KEY(8), 5, reader);
+        history.read("d1", KEY(8), 5, reader);
+        Assertions.assertEquals(6, reader.calls);
+    }
+
+    private static List<Integer> ids(List<MvDictionaryHistory.Row> rows) {
+        var output = new ArrayList<Integer>();
+        for (var row : rows) {
+            output.add((Integer) row.position.getValue(0));
+        }
+        return output;
+    }
+
+    private static class TestReader implements MvDictionaryHistory.PageReader {
+
+        final ArrayList<MvDictionaryHistory.Row> rows = new ArrayList<>();
+        int calls = 0;
+
+        TestReader(int count) {
+            for (int i = 1; i <= count; ++i) {
+                rows.add(new MvDictionaryHistory.Row(KEY(i), null, null));
+            }
+        }
+
+        @Override
+        public List<MvDictionaryHistory.Row> read(MvKey position, int limit) {
+            ++calls;
+            var output = new ArrayList<MvDictionaryHistory.Row>();
+            for (var row : rows) {
+                if (output.size() >= limit) {
+                    break;
+                }
+                if (position == null || row.position.compareTo(position) > 0) {
+                    output.add(row);
+                }
+            }
+            return output;
+        }
+    }
+
+}
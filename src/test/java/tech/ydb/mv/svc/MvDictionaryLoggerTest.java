@@ -0,0 +1,193 @@
+package tech.ydb.mv.svc;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import tech.ydb.table.values.StructValue;
+
+import tech.ydb.mv.feeder.MvCommitHandler;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvDictionaryLoggerTest {
+
+    private static final Instant TV = Instant.parse("2026-01-01T00:00:00Z");
+
+    private static void add(MvDictionaryLogger.Batch batch, long seqno, String key,
+            TreeSet<String> fields, MvCommitHandler handler) {
+        batch.add(key, MvDictionaryLogger.makeRow("dict1", TV.plusMillis(seqno), seqno,
+                key, "{\"id\":\"" + key + "\"}"), fields, handler);
+    }
+
+    private static TreeSet<String> fields(String... names) {
+        return new TreeSet<>(List.of(names));
+    }
+
+    private static String diff(StructValue sv) {
+        var v = sv.getMemberValue(sv.getType().getMemberIndex("diff_val")).asOptional();
+        return v.isPresent() ? v.get().asData().getJsonDocument() : null;
+    }
+
+    private static long seqno(StructValue sv) {
+        return sv.getMemberValue(sv.getType().getMemberIndex("seqno")).asData().getUint64();
+    }
+
+    @Test
+    public void testCommitAccounting() {
+        var h1 = new TestHandler(1L, 3);
+        var h2 = new TestHandler(2L, 2);
+        var batch = new MvDictionaryLogger.Batch("dict1", 10, true);
+        Assertions.assertEquals("dict1", batch.getSource());
+        add(batch, 1L, "a", fields("f1"), h1);
+        add(batch, 2L, "b", fields("f1"), h1);
+        add(batch, 3L, "a", fields("f2"), h2);
+        add(batch, 4L, "a", fields("f3"), h1);
+        add(batch, 5L, "c", fields("f1"), h2);
+        // all the records are accounted, including the coalesced ones
+        Assertions.assertEquals(5, batch.size());
+        Assertions.assertEquals(3, batch.toValues().length);
+        // each handler commits exactly its own records
+        batch.commit();
+        Assertions.assertEquals(0, h1.getCounter());
+        Assertions.assertEquals(0, h2.getCounter());
+    }
+
+    @Test
+    public void testUnkeyed() {
+        var h1 = new TestHandler(1L, 3);
+        var batch = new MvDictionaryLogger.Batch("dict1", 10, false);
+        add(batch, 1L, "a", fields("f1"), h1);
+        add(batch, 2L, "a", fields("f2"), h1);
+        add(batch, 3L, "a", null, h1);
+        Assertions.assertEquals(3, batch.size());
+        var values = batch.toValues();
+        Assertions.assertEquals(3, values.length);
+        Assertions.assertEquals("{\"f\":[\"f1\"]}", diff(values[0]));
+        Assertions.assertNull(diff(values[2]));
+        batch.commit();
+        Assertions.assertEquals(0, h1.getCounter());
+    }
+
+    @Test
+    public void testMergeFields() {
+        var h1 = new TestHandler(1L, 5);
+        var batch = new MvDictionaryLogger.Batch("dict1", 10, true);
+        add(batch, 1L, "a", fields("f1"), h1);
+        add(batch, 2L, "a", fields("f2"), h1);
+        add(batch, 3L, "b", fields("f1"), h1);
+        // the deleted row adds no fields
+        add(batch, 4L, "b", null, h1);
+        add(batch, 5L, "b", fields("f3"), h1);
+        var values = batch.toValues();
+        Assertions.assertEquals(2, values.length);
+        Assertions.assertEquals("{\"f\":[\"f1\",\"f2\"]}", diff(values[0]));
+        // the latest time and seqno are kept
+        Assertions.assertEquals(2L, seqno(values[0]));
+        Assertions.assertEquals("{\"f\":[\"f1\",\"f3\"]}", diff(values[1]));
+        Assertions.assertEquals(5L, seqno(values[1]));
+
+        // the update followed by the delete is still processed
+        batch = new MvDictionaryLogger.Batch("dict1", 10, true);
+        add(batch, 6L, "c", fields("f2"), h1);
+        add(batch, 7L, "c", null, h1);
+        add(batch, 8L, "d", null, h1);
+        values = batch.toValues();
+        Assertions.assertEquals("{\"f\":[\"f2\"]}", diff(values[0]));
+        Assertions.assertEquals(7L, seqno(values[0]));
+        // just the deletes
+        Assertions.assertNull(diff(values[1]));
+    }
+
+    @Test
+    public void testMergeTail() {
+        var h1 = new TestHandler(1L, 0);
+        var tail = new MvDictionaryLogger.KeyTail(2);
+
+        var batch = new MvDictionaryLogger.Batch("dict1", 10, true);
+        add(batch, 1L, "a", fields("f1"), h1);
+        add(batch, 2L, "b", null, h1);
+        var merge = tail.merge(batch);
+        Assertions.assertEquals(2, merge.values.length);
+        Assertions.assertEquals(0, merge.deletes.length);
+        // nothing is remembered before the write
+        Assertions.assertEquals(0, tail.size());
+        tail.apply(merge);
+        Assertions.assertEquals(2, tail.size());
+
+        batch = new MvDictionaryLogger.Batch("dict1", 10, true);
+        add(batch, 3L, "a", fields("f2"), h1);
+        add(batch, 4L, "b", fields("f3"), h1);
+        add(batch, 5L, "c", fields("f1"), h1);
+        merge = tail.merge(batch);
+        Assertions.assertEquals(3, merge.values.length);
+        Assertions.assertEquals("{\"f\":[\"f1\",\"f2\"]}", diff(merge.values[0]));
+        // the re-insert after the delete keeps its fields
+        Assertions.assertEquals("{\"f\":[\"f3\"]}", diff(merge.values[1]));
+        Assertions.assertEquals("{\"f\":[\"f1\"]}", diff(merge.values[2]));
+        // the earlier rows of the same keys are deleted
+        Assertions.assertEquals(2, merge.deletes.length);
+        Assertions.assertEquals(1L, seqno(merge.deletes[0]));
+        Assertions.assertEquals(2L, seqno(merge.deletes[1]));
+        // the batch itself is not changed by the merge
+        Assertions.assertEquals("{\"f\":[\"f2\"]}", diff(batch.toValues()[0]));
+
+        // the eldest keys are evicted
+        tail.apply(merge);
+        Assertions.assertEquals(2, tail.size());
+        batch = new MvDictionaryLogger.Batch("dict1", 10, true);
+        add(batch, 6L, "a", fields("f4"), h1);
+        add(batch, 7L, "c", fields("f4"), h1);
+        merge = tail.merge(batch);
+        Assertions.assertEquals(1, merge.deletes.length);
+        Assertions.assertEquals(5L, seqno(merge.deletes[0]));
+        Assertions.assertEquals("{\"f\":[\"f4\"]}", diff(merge.values[0]));
+        Assertions.assertEquals("{\"f\":[\"f1\",\"f4\"]}", diff(merge.values[1]));
+
+        // the delete after the written update keeps the update fields
+        tail.apply(merge);
+        batch = new MvDictionaryLogger.Batch("dict1", 10, true);
+        add(batch, 8L, "c", null, h1);
+        merge = tail.merge(batch);
+        Assertions.assertEquals(1, merge.deletes.length);
+        Assertions.assertEquals(7L, seqno(merge.deletes[0]));
+        Assertions.assertEquals("{\"f\":[\"f1\",\"f4\"]}", diff(merge.values[0]));
+    }
+
+    static class TestHandler implements MvCommitHandler {
+
+        private final long instance;
+        private int counter;
+
+        TestHandler(long instance, int counter) {
+            this.instance = instance;
+            this.counter = counter;
+        }
+
+        @Override
+        public long getInstance() {
+            return instance;
+        }
+
+        @Override
+        public int getCounter() {
+            return counter;
+        }
+
+        @Override
+        public void commit(int count) {
+            counter -= count;
+        }
+
+        @Override
+        public void reserve(int count) {
+            counter += count;
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package tech.ydb.mv.svc;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author zinal
+ */
+public class MvDictionaryRefreshTest {
+
+    @Test
+    public void testEstimateAffected() {
+        // one row per key without the statistics
+        Assertions.assertEquals(10L, MvDictionaryRefresh.estimateAffected(10L, 0L, 1000L));
+        Assertions.assertEquals(10L, MvDictionaryRefresh.estimateAffected(10L, 100L, 0L));
+        // the fan-out of the dictionary keys into the topmost table
+        Assertions.assertEquals(100L, MvDictionaryRefresh.estimateAffected(10L, 100L, 1000L));
+        Assertions.assertEquals(1L, MvDictionaryRefresh.estimateAffected(1L, 1000L, 100L));
+        // never over the size of the topmost table
+        Assertions.assertEquals(1000L, MvDictionaryRefresh.estimateAffected(500L, 100L, 1000L));
+    }
+
+}